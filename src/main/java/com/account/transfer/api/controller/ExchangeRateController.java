@@ -1,29 +1,46 @@
 package com.account.transfer.api.controller;
 
 import com.account.transfer.api.dto.ErrorResponse;
+import com.account.transfer.api.dto.ExchangeRateQuoteRequest;
+import com.account.transfer.api.dto.ExchangeRateQuoteResponse;
 import com.account.transfer.api.dto.ExchangeRateResponse;
 import com.account.transfer.mapper.ExchangeRateMapper;
+import com.account.transfer.service.ExchangeRateQuoteService;
 import com.account.transfer.service.ExchangeRateService;
+import com.account.transfer.service.ExchangeRateStreamService;
+import com.account.transfer.service.model.CurrencyPair;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Controller for handling requests related to currency exchange rates.
  * Manages the retrieval of exchange rates between different currencies.
  * <p>
- * Utilizes {@link ExchangeRateService} to obtain exchange rates and
+ * Utilizes {@link ExchangeRateService} to obtain exchange rates,
+ * {@link ExchangeRateQuoteService} to lock them in quotes,
+ * {@link ExchangeRateStreamService} to stream their updates and
  * {@link ExchangeRateMapper} to transform data for response.
  */
 @RestController
@@ -32,7 +49,12 @@ import org.springframework.web.bind.annotation.RestController;
 @Validated
 public class ExchangeRateController {
 
+    private static final int MAX_MATRIX_TARGETS = 200;
+    private static final int MAX_STREAM_PAIRS = 50;
+
     private final ExchangeRateService service;
+    private final ExchangeRateQuoteService quoteService;
+    private final ExchangeRateStreamService streamService;
     private final ExchangeRateMapper mapper;
 
     /**
@@ -90,4 +112,150 @@ public class ExchangeRateController {
         var exchangeRateModel = service.getExchangeRate(fromCurrency.toUpperCase(), toCurrency.toUpperCase());
         return ResponseEntity.ok(mapper.mapToExchangeRateResponse(exchangeRateModel));
     }
+
+    /**
+     * GET /account-transfer-service/exchange-rate/matrix
+     *
+     * @param base    The source currency code, e.g., "USD".
+     * @param targets The target currency codes, e.g., "EUR,GBP,JPY".
+     * @return A {@link ResponseEntity} containing the list of {@link ExchangeRateResponse} with the exchange rate
+     * details of every target currency, taken from the same exchange rate snapshot.
+     * or Bad request (status code 400)
+     * or Not found (status code 404)
+     * or Internal server error (status code 500)
+     */
+    @Operation(
+            operationId = "getExchangeRateMatrix",
+            summary = "Retrieves the exchange rates from one currency to several target currencies",
+            description = "Fetches the exchange rates of all the requested pairs in one call, from the same snapshot. " +
+                    "Throws specific exceptions for invalid or unsupported currencies.",
+            parameters = {
+                    @Parameter(
+                            name = "base",
+                            description = "The source currency code (e.g., USD)",
+                            required = true,
+                            example = "USD",
+                            schema = @Schema(type = "string", pattern = "[A-Za-z]{3}", description = "3-letter currency code")
+                    ),
+                    @Parameter(
+                            name = "targets",
+                            description = "Comma separated target currency codes (e.g., EUR,GBP,JPY)",
+                            required = true,
+                            example = "EUR,GBP,JPY"
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successful retrieval of exchange rates", content =
+                        @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ExchangeRateResponse.class))
+                    )),
+                    @ApiResponse(responseCode = "400", description = "Invalid currency codes", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Exchange rate not found for any of the specified currencies",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            }
+    )
+    @GetMapping("/matrix")
+    public ResponseEntity<List<ExchangeRateResponse>> getExchangeRateMatrix(
+            @RequestParam(name = "base")
+            @Pattern(regexp = "[A-Za-z]{3}", message = "Parameter 'base' must be 3 latin letters")
+            @Valid String base,
+
+            @RequestParam(name = "targets")
+            @Size(min = 1, max = MAX_MATRIX_TARGETS,
+                    message = "Parameter 'targets' must contain from 1 to " + MAX_MATRIX_TARGETS + " currencies")
+            @Valid List<@Pattern(regexp = "[A-Za-z]{3}", message = "Parameter 'targets' must contain 3 latin letters codes")
+                    String> targets) {
+
+        var toCurrencies = targets.stream()
+                .map(String::toUpperCase)
+                .distinct()
+                .toList();
+        var exchangeRateModels = service.getExchangeRates(base.toUpperCase(), toCurrencies);
+        return ResponseEntity.ok(exchangeRateModels.stream()
+                .map(mapper::mapToExchangeRateResponse)
+                .toList());
+    }
+
+    /**
+     * GET /account-transfer-service/exchange-rate/stream
+     *
+     * @param pairs The currency pairs to subscribe to, e.g., "USD:EUR,GBP:JPY".
+     * @return A {@link SseEmitter} streaming an "exchange-rate" event with the {@link ExchangeRateResponse}
+     * of every subscribed pair right away and then whenever its rate changes.
+     * or Bad request (status code 400)
+     * or Service unavailable (status code 503)
+     */
+    @Operation(
+            operationId = "streamExchangeRates",
+            summary = "Streams the exchange rate updates of the specified currency pairs",
+            description = "Opens a server-sent events stream. The current rates of the pairs are sent right away, " +
+                    "afterwards a rate is sent only when it changes. A heartbeat comment keeps the idle connection open.",
+            parameters = {
+                    @Parameter(
+                            name = "pairs",
+                            description = "Comma separated currency pairs written as FROM:TO (e.g., USD:EUR,GBP:JPY)",
+                            required = true,
+                            example = "USD:EUR,GBP:JPY"
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stream of exchange rate events", content =
+                        @Content(mediaType = "text/event-stream", schema = @Schema(implementation = ExchangeRateResponse.class)
+                    )),
+                    @ApiResponse(responseCode = "400", description = "Invalid currency pairs", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "503", description = "Maximum number of subscribers is reached", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            }
+    )
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamExchangeRates(
+            @RequestParam(name = "pairs")
+            @Size(min = 1, max = MAX_STREAM_PAIRS,
+                    message = "Parameter 'pairs' must contain from 1 to " + MAX_STREAM_PAIRS + " currency pairs")
+            @Valid List<@Pattern(regexp = "[A-Za-z]{3}:[A-Za-z]{3}", message = "Parameter 'pairs' must contain FROM:TO pairs of 3 latin letters codes")
+                    String> pairs) {
+
+        var currencyPairs = pairs.stream()
+                .map(CurrencyPair::parse)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return streamService.subscribe(currencyPairs);
+    }
+
+    /**
+     * POST /account-transfer-service/exchange-rate/quote
+     *
+     * @param body A {@link ExchangeRateQuoteRequest} object containing the currency pair to quote (required).
+     * @return A {@link ResponseEntity} containing the {@link ExchangeRateQuoteResponse} with the locked rate
+     * and its expiry.
+     * or Bad request (status code 400)
+     * or Not found (status code 404)
+     * or Internal server error (status code 500)
+     */
+    @Operation(
+            operationId = "createExchangeRateQuote",
+            summary = "Locks the exchange rate between two specified currencies in a quote",
+            description = "Returns a quote with the current exchange rate of the currency pair. Until the quote expires, " +
+                    "a transfer given its id is performed once with exactly this rate.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successful creation of exchange rate quote", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ExchangeRateQuoteResponse.class)
+                    )),
+                    @ApiResponse(responseCode = "400", description = "Invalid currency codes", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Exchange rate not found for the specified currencies",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            }
+    )
+    @PostMapping("/quote")
+    public ResponseEntity<ExchangeRateQuoteResponse> createExchangeRateQuote(
+            @Valid @RequestBody ExchangeRateQuoteRequest body) {
+
+        var quote = quoteService.createQuote(body.getFromCurrency().toUpperCase(), body.getToCurrency().toUpperCase());
+        return ResponseEntity.ok(mapper.mapToExchangeRateQuoteResponse(quote));
+    }
 }
@@ -1,28 +1,40 @@
 package com.account.transfer.api.controller;
 
 import com.account.transfer.api.dto.ErrorResponse;
+import com.account.transfer.api.dto.TransactionBatchRequest;
+import com.account.transfer.api.dto.TransactionBatchResponse;
 import com.account.transfer.api.dto.TransactionRequest;
 import com.account.transfer.api.dto.TransactionResponse;
+import com.account.transfer.api.dto.TransferRequestResponse;
 import com.account.transfer.mapper.TransactionMapper;
 import com.account.transfer.service.TransactionService;
+import com.account.transfer.service.TransferBatchService;
+import com.account.transfer.service.TransferIdempotencyService;
+import com.account.transfer.service.TransferRequestService;
+import com.account.transfer.service.model.TransferOrder;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 /**
  * Controller for managing money transfers between accounts.
  * Handles HTTP requests related to transfers.
  * <p>
- * Utilizes {@link TransactionService} to perform transfer logic
- * and {@link TransactionMapper} to transform data.
+ * Utilizes {@link TransactionService}, {@link TransferIdempotencyService}, {@link TransferBatchService}
+ * and {@link TransferRequestService} to perform transfer logic and {@link TransactionMapper} to transform data.
  */
 @RestController
 @RequestMapping("/transfer")
@@ -30,38 +42,179 @@ import org.springframework.web.bind.annotation.RestController;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransferBatchService transferBatchService;
+    private final TransferIdempotencyService transferIdempotencyService;
+    private final TransferRequestService transferRequestService;
     private final TransactionMapper transactionMapper;
 
     /**
      * POST /account-transfer-service/transfer
      *
-     * @param body A {@link TransactionRequest} object containing the transfer details (required).
+     * @param body           A {@link TransactionRequest} object containing the transfer details (required).
+     * @param idempotencyKey The key which makes the retries of the transfer return its first result (optional).
      * @return A {@link ResponseEntity} containing the {@link TransactionResponse} with the transfer result.
      * or Bad request (status code 400)
      * or Not found (status code 404)
+     * or Conflict (status code 409)
+     * or Unprocessable entity (status code 422)
      * or Internal server error (status code 500)
      */
     @Operation(
             operationId = "performTransfer",
             summary = "Executes a transfer of funds between accounts",
-            description = "Transfers funds from one account to another. Throws specific exceptions for invalid or failed transfers.",
+            description = "Transfers funds from one account to another. A transfer between different currencies uses " +
+                    "the locked rate of the quote if 'quoteId' is given. A transfer with an 'Idempotency-Key' header is performed " +
+                    "once, its retries with the same key return the same transaction. Throws specific exceptions " +
+                    "for invalid or failed transfers.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successful transfer", content =
                         @Content(mediaType = "application/json", schema = @Schema(implementation = TransactionResponse.class)
                     )),
                     @ApiResponse(responseCode = "400", description = "Invalid request data", content =
                         @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
-                    @ApiResponse(responseCode = "404", description = "Account not found", content =
+                    @ApiResponse(responseCode = "404", description = "Account or exchange rate quote not found", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "Transfer with the same idempotency key is still " +
+                            "in progress", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "422", description = "Idempotency key used by another transfer", content =
                         @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
                     @ApiResponse(responseCode = "500", description = "Internal server error", content =
                         @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
             }
     )
     @PostMapping
-    public ResponseEntity<TransactionResponse> performTransfer(@Valid @RequestBody TransactionRequest body) {
-        var transactionModel = transactionService.performTransfer(
-                body.getAccountOwnerId(), body.getTargetAccountId(), body.getAmount());
+    public ResponseEntity<TransactionResponse> performTransfer(
+            @Valid @RequestBody TransactionRequest body,
+            @Parameter(description = "Unique key of the transfer, e.g. a UUID, sent again with its retries")
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        var transactionModel = idempotencyKey == null
+                ? transactionService.performTransfer(
+                        body.getAccountOwnerId(), body.getTargetAccountId(), body.getAmount(), body.getQuoteId())
+                : transferIdempotencyService.performTransfer(idempotencyKey,
+                        body.getAccountOwnerId(), body.getTargetAccountId(), body.getAmount(), body.getQuoteId(),
+                        null);
 
         return ResponseEntity.ok(transactionMapper.mapToTransactionResponse(transactionModel));
     }
+
+    /**
+     * POST /account-transfer-service/transfer/batch
+     *
+     * @param body A {@link TransactionBatchRequest} object containing the transfers of the batch (required).
+     * @return A {@link ResponseEntity} containing the {@link TransactionBatchResponse} with the result of every transfer.
+     * or Bad request (status code 400)
+     * or Conflict (status code 409)
+     * or Internal server error (status code 500)
+     */
+    @Operation(
+            operationId = "performTransfers",
+            summary = "Executes a batch of transfers of funds between accounts",
+            description = "Transfers funds for every transfer of the batch within a single write transaction. " +
+                    "With 'ALL_OR_NOTHING' atomicity a failed transfer aborts the whole batch, with 'PER_ITEM' " +
+                    "atomicity only the failed transfers are left out. Returns the result of every transfer.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = TransactionBatchResponse.class)
+                    )),
+                    @ApiResponse(responseCode = "400", description = "Invalid request data", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "Accounts of the batch could not be locked", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            }
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<TransactionBatchResponse> performTransfers(@Valid @RequestBody TransactionBatchRequest body) {
+        var orders = body.getTransfers().stream()
+                .map(transfer -> TransferOrder.builder()
+                        .accountOwnerId(transfer.getAccountOwnerId())
+                        .targetAccountId(transfer.getTargetAccountId())
+                        .amount(transfer.getAmount())
+                        .quoteId(transfer.getQuoteId())
+                        .build())
+                .toList();
+        var results = transferBatchService.performTransfers(orders, body.getAtomicity());
+
+        return ResponseEntity.ok(transactionMapper.mapToTransactionBatchResponse(results));
+    }
+
+    /**
+     * POST /account-transfer-service/transfer/async
+     *
+     * @param body           A {@link TransactionRequest} object containing the transfer details (required).
+     * @param idempotencyKey The key which makes the transfer performed once, however many times it is submitted (optional).
+     * @return A {@link ResponseEntity} containing the {@link TransferRequestResponse} with the pending transfer
+     * and its location (status code 202).
+     * or Bad request (status code 400)
+     * or Not found (status code 404)
+     * or Internal server error (status code 500)
+     */
+    @Operation(
+            operationId = "submitTransfer",
+            summary = "Submits a transfer of funds between accounts for asynchronous execution",
+            description = "Validates the transfer and queues it without waiting for it to be performed. " +
+                    "Returns the ID of the transfer, its status is available at the returned location. " +
+                    "A transfer between different currencies consumes the quote given with 'quoteId' when it is " +
+                    "submitted, and is performed with its locked rate. " +
+                    "A transfer with an 'Idempotency-Key' header is performed once, however many times it is submitted.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Transfer accepted", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = TransferRequestResponse.class)
+                    )),
+                    @ApiResponse(responseCode = "400", description = "Invalid request data", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Account or exchange rate quote not found", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            }
+    )
+    @PostMapping("/async")
+    public ResponseEntity<TransferRequestResponse> submitTransfer(
+            @Valid @RequestBody TransactionRequest body,
+            @Parameter(description = "Unique key of the transfer, e.g. a UUID, sent again with its retries")
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        var transferRequestModel = transferRequestService.submitTransfer(body.getAccountOwnerId(),
+                body.getTargetAccountId(), body.getAmount(), body.getQuoteId(), idempotencyKey);
+        var location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/transfer/{transferId}")
+                .buildAndExpand(transferRequestModel.getTransferId())
+                .toUri();
+
+        return ResponseEntity.accepted()
+                .location(location)
+                .body(transactionMapper.mapToTransferRequestResponse(transferRequestModel));
+    }
+
+    /**
+     * GET /account-transfer-service/transfer/{transferId}
+     *
+     * @param transferId The ID of the transfer submitted for asynchronous execution (required).
+     * @return A {@link ResponseEntity} containing the {@link TransferRequestResponse} with the status of the transfer.
+     * or Not found (status code 404)
+     * or Internal server error (status code 500)
+     */
+    @Operation(
+            operationId = "getTransfer",
+            summary = "Retrieves the status of a transfer submitted for asynchronous execution",
+            description = "Returns the status of the transfer: 'PENDING', 'PROCESSING', 'SUCCESS' with the performed " +
+                    "transaction, or 'FAILED' with the error the transfer failed with.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successful retrieval", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = TransferRequestResponse.class)
+                    )),
+                    @ApiResponse(responseCode = "404", description = "Transfer not found", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error", content =
+                        @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            }
+    )
+    @GetMapping("/{transferId}")
+    public ResponseEntity<TransferRequestResponse> getTransfer(@PathVariable(name = "transferId") Long transferId) {
+        var transferRequestModel = transferRequestService.getTransferRequest(transferId);
+
+        return ResponseEntity.ok(transactionMapper.mapToTransferRequestResponse(transferRequestModel));
+    }
 }
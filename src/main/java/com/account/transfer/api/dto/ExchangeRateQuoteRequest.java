@@ -0,0 +1,19 @@
+package com.account.transfer.api.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+@Value
+@RequiredArgsConstructor
+public class ExchangeRateQuoteRequest {
+
+    @NotNull(message = "From currency can not be empty")
+    @Pattern(regexp = "[A-Za-z]{3}", message = "From currency must be 3 latin letters")
+    String fromCurrency;
+
+    @NotNull(message = "To currency can not be empty")
+    @Pattern(regexp = "[A-Za-z]{3}", message = "To currency must be 3 latin letters")
+    String toCurrency;
+}
@@ -16,4 +16,6 @@ public class ExchangeRateSourceResponse {
     private String base;
     @JsonProperty("conversion_rates")
     private Map<String, BigDecimal> rates = new HashMap<>();
+    @JsonProperty("time_next_update_unix")
+    private Long nextUpdateUnix;
 }
@@ -0,0 +1,14 @@
+package com.account.transfer.api.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class TransactionBatchItemResponse {
+
+    int index;
+    String status;
+    TransactionResponse transaction;
+    ErrorResponse error;
+}
@@ -0,0 +1,21 @@
+package com.account.transfer.api.dto;
+
+import com.account.transfer.config.TransferProperties.BatchAtomicity;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@RequiredArgsConstructor
+public class TransactionBatchRequest {
+
+    BatchAtomicity atomicity;
+
+    @NotEmpty(message = "Transfers can not be empty")
+    @Size(max = 1000, message = "A batch can have a maximum of 1000 transfers")
+    List<@Valid TransactionRequest> transfers;
+}
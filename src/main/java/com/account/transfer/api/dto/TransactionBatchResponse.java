@@ -0,0 +1,15 @@
+package com.account.transfer.api.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class TransactionBatchResponse {
+
+    int succeeded;
+    int failed;
+    List<TransactionBatchItemResponse> results;
+}
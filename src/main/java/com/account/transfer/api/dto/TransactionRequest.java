@@ -3,6 +3,7 @@ package com.account.transfer.api.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
 
@@ -23,4 +24,7 @@ public class TransactionRequest {
             message = "The amount can have a maximum total of 36 digits and 2 digits after the decimal point.")
     @DecimalMin(value = "0.01", message = "The transfer amount must be at least 0.01")
     BigDecimal amount;
+
+    @Pattern(regexp = "[0-9a-fA-F-]{36}", message = "Quote id must be a UUID")
+    String quoteId;
 }
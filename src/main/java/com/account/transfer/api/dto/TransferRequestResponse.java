@@ -0,0 +1,22 @@
+package com.account.transfer.api.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+@Value
+@Builder
+public class TransferRequestResponse {
+
+    Long transferId;
+    Long accountOwnerId;
+    Long targetAccountId;
+    BigDecimal amount;
+    String status;
+    ZonedDateTime createdAt;
+    ZonedDateTime updatedAt;
+    TransactionResponse transaction;
+    ErrorResponse error;
+}
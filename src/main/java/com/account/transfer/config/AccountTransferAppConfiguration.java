@@ -2,15 +2,21 @@ package com.account.transfer.config;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Configuration class for the Account Transfer Service.
  * <p>
- * Enables configuration properties for the application
+ * Enables configuration properties and scheduled background tasks for the application
  */
 @Configuration
+@EnableScheduling
 @EnableConfigurationProperties({
-        ExchangerateApiProperties.class
+        ExchangerateApiProperties.class,
+        ExchangeRateStreamProperties.class,
+        ExchangeRateQuoteProperties.class,
+        ExchangeRateProviderProperties.class,
+        TransferProperties.class
 })
 public class AccountTransferAppConfiguration {
     // No additional methods or fields required.
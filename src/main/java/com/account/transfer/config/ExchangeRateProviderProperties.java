@@ -0,0 +1,85 @@
+package com.account.transfer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for the exchange rate providers and the hedging of the requests across them.
+ * The properties are prefixed with `exchange-rate.provider` in the configuration file.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "exchange-rate.provider")
+public class ExchangeRateProviderProperties {
+
+    /**
+     * Names of the providers asked for the exchange rates, the primary provider first.
+     */
+    private List<String> order = new ArrayList<>(List.of("exchangerate-api"));
+
+    /**
+     * Hedging of the requests to a slow provider by the next provider.
+     */
+    private final Hedging hedging = new Hedging();
+
+    /**
+     * Provider reading the exchange rates from local files.
+     */
+    private final File file = new File();
+
+    @Setter
+    @Getter
+    public static class Hedging {
+
+        /**
+         * Whether a provider which has not answered within the hedge delay is hedged by the next provider.
+         * Without hedging the next provider is only asked when the previous one fails.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Latency percentile of a provider used as the hedge delay of its requests.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Lower bound of the hedge delay.
+         */
+        private Duration minDelay = Duration.ofMillis(50);
+
+        /**
+         * Upper bound of the hedge delay, also used while a provider has too few latency samples.
+         */
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        /**
+         * Number of latency samples of a provider required before its percentile drives the hedge delay.
+         */
+        private int minSamples = 20;
+
+        /**
+         * Time window of the latency samples the percentile is computed from.
+         */
+        private Duration latencyWindow = Duration.ofMinutes(5);
+
+        /**
+         * Number of threads running the provider requests.
+         */
+        private int threads = 8;
+    }
+
+    @Setter
+    @Getter
+    public static class File {
+
+        /**
+         * Location of the exchange rate files, e.g. `file:/var/lib/exchange-rates/`.
+         */
+        private String location = "classpath:exchange-rates/";
+    }
+}
@@ -0,0 +1,32 @@
+package com.account.transfer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the locked exchange rate quotes.
+ * The properties are prefixed with `exchange-rate.quote` in the configuration file.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "exchange-rate.quote")
+public class ExchangeRateQuoteProperties {
+
+    /**
+     * How long a quote locks its rate.
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * How often the expired quotes are evicted from the store.
+     */
+    private Duration evictionInterval = Duration.ofMinutes(1);
+
+    /**
+     * Maximum number of quotes kept in the store, the oldest quote is evicted when it is exceeded.
+     */
+    private int maxQuotes = 10000;
+}
@@ -0,0 +1,42 @@
+package com.account.transfer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the server-sent events stream of exchange rate updates.
+ * The properties are prefixed with `exchange-rate.stream` in the configuration file.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "exchange-rate.stream")
+public class ExchangeRateStreamProperties {
+
+    /**
+     * How often a heartbeat comment is sent to every subscriber.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Lifetime of a stream connection, after which the client is expected to reconnect.
+     */
+    private Duration connectionTimeout = Duration.ofMinutes(30);
+
+    /**
+     * A subscriber which has not accepted a pending event within this time is disconnected.
+     */
+    private Duration slowConsumerTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Maximum number of concurrent subscribers.
+     */
+    private int maxSubscribers = 1000;
+
+    /**
+     * Number of threads sending the events to the subscribers.
+     */
+    private int senderThreads = 4;
+}
@@ -4,6 +4,11 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * Configuration properties for the external exchangerate-api service.
  * <p>
@@ -26,4 +31,246 @@ public class ExchangerateApiProperties {
      */
     private String url;
 
+    /**
+     * Caching of the fetched base currency snapshots.
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Pooled HTTP client used to call the exchangerate-api.
+     */
+    private final Http http = new Http();
+
+    /**
+     * Triangulation of all currency pairs from the snapshot of a single pivot currency.
+     */
+    private final Matrix matrix = new Matrix();
+
+    /**
+     * Circuit breaker around the calls to the exchangerate-api.
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Retries of the failed calls to the exchangerate-api.
+     */
+    private final Retry retry = new Retry();
+
+    /**
+     * Request quota of the exchangerate-api plan and the prefetching of the snapshots within it.
+     */
+    private final Quota quota = new Quota();
+
+    /**
+     * Extraction of the rates from the exchangerate-api response payload.
+     */
+    private final Payload payload = new Payload();
+
+    @Setter
+    @Getter
+    public static class Cache {
+
+        /**
+         * How long a fetched base currency snapshot is served before it is fetched again.
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+
+        /**
+         * How long before expiry a snapshot is refreshed in the background.
+         */
+        private Duration refreshAhead = Duration.ofMinutes(5);
+
+        /**
+         * How often the cached snapshots are checked for an upcoming expiry.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(1);
+
+        /**
+         * Maximum age of a stored snapshot that is still served on startup or when the exchangerate-api fails.
+         */
+        private Duration maxStaleness = Duration.ofHours(24);
+
+        /**
+         * Whether a snapshot is served, and not refreshed, until the next update announced by the provider,
+         * even beyond its ttl: the provider cannot publish new rates before that time.
+         */
+        private boolean scheduleAware = true;
+
+        /**
+         * How long after the next update announced by the provider a snapshot is refreshed, giving the provider
+         * time to publish the new rates.
+         */
+        private Duration scheduleGrace = Duration.ofMinutes(1);
+    }
+
+    @Setter
+    @Getter
+    public static class Http {
+
+        /**
+         * Maximum number of pooled connections in total.
+         */
+        private int maxConnections = 50;
+
+        /**
+         * Maximum number of pooled connections per route (host).
+         */
+        private int maxConnectionsPerRoute = 20;
+
+        /**
+         * Timeout for establishing a new connection.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Timeout for waiting on data of an established connection.
+         */
+        private Duration readTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Time limit of an asynchronous fetch of the exchange rates, retries included.
+         */
+        private Duration asyncTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Whether the rates are re-fetched with the ETag and Last-Modified validators of the last response,
+         * so that unchanged rates are answered with a bodiless 304 Not Modified.
+         */
+        private boolean conditionalRequests = true;
+
+        /**
+         * Timeout for leasing a connection from the pool.
+         */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+        /**
+         * How long an idle connection is kept alive when the server does not send a keep-alive hint.
+         */
+        private Duration keepAlive = Duration.ofSeconds(30);
+
+        /**
+         * Idle connections are evicted from the pool after this time.
+         */
+        private Duration idleEvictionTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Total time to live of a pooled connection, after which it is not reused.
+         */
+        private Duration connectionTimeToLive = Duration.ofMinutes(5);
+    }
+
+    @Setter
+    @Getter
+    public static class Matrix {
+
+        /**
+         * Whether the exchange rates of all pairs are triangulated from the pivot currency snapshot,
+         * so that a single upstream call per refresh serves every base currency.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The only base currency fetched from the exchangerate-api when the matrix is enabled.
+         */
+        private String pivotCurrency = "USD";
+
+        /**
+         * Number of significant digits of the triangulated rates.
+         */
+        private int precision = 10;
+
+        /**
+         * Rounding mode applied once to every triangulated rate.
+         */
+        private RoundingMode roundingMode = RoundingMode.HALF_EVEN;
+    }
+
+    @Setter
+    @Getter
+    public static class CircuitBreaker {
+
+        /**
+         * Number of consecutive failed calls which opens the circuit breaker.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long an open circuit breaker rejects the calls before it lets a probe call through.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Number of probe calls let through by a half open circuit breaker.
+         */
+        private int halfOpenMaxCalls = 1;
+    }
+
+    @Setter
+    @Getter
+    public static class Retry {
+
+        /**
+         * Maximum number of attempts of a call, including the original one.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Pause between two attempts of a call.
+         */
+        private Duration backoff = Duration.ofMillis(200);
+
+        /**
+         * Share of the original calls which may be retried.
+         */
+        private double budgetRatio = 0.2;
+
+        /**
+         * Maximum number of retries which may be spent in a burst.
+         */
+        private int budgetMaxRetries = 10;
+    }
+
+    @Setter
+    @Getter
+    public static class Quota {
+
+        /**
+         * Maximum number of requests per calendar month, shared by all the nodes and counted in the database.
+         */
+        private long monthlyRequests = 30000;
+
+        /**
+         * Number of the most demanded base currencies whose snapshots are always prefetched before they expire.
+         * The snapshots of the other demanded base currencies are prefetched within the quota spread evenly
+         * over the rest of the month.
+         */
+        private int hotBases = 10;
+
+        /**
+         * Time after which the recorded demand of a base currency counts half.
+         */
+        private Duration demandHalfLife = Duration.ofHours(1);
+    }
+
+    @Setter
+    @Getter
+    public static class Payload {
+
+        /**
+         * Whether the payload is read token by token, materializing only the rates of the served currencies,
+         * instead of being bound to a map of all the published rates. The asynchronous fetches always stream.
+         */
+        private boolean streaming = true;
+
+        /**
+         * The served currencies, only their rates are kept from the payload. All the currencies are served when empty.
+         */
+        private Set<String> currencies = new HashSet<>();
+
+        /**
+         * How often the exchangerate-api publishes new rates. A not modified response announcing no next update
+         * moves the last announced one forward by this interval.
+         */
+        private Duration updateInterval = Duration.ofHours(24);
+    }
 }
@@ -0,0 +1,67 @@
+package com.account.transfer.config;
+
+import com.account.transfer.service.resilience.CircuitBreaker;
+import com.account.transfer.service.resilience.RequestQuota;
+import com.account.transfer.service.resilience.RequestQuotaStore;
+import com.account.transfer.service.resilience.RetryBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Configuration class for the resilience of the calls to the exchangerate-api.
+ * <p>
+ * Provides the {@link CircuitBreaker}, the {@link RetryBudget} and the {@link RequestQuota} configured with
+ * {@link ExchangerateApiProperties}.
+ */
+@Configuration
+public class ExchangerateApiResilienceConfig {
+
+    private static final String NAME = "exchangerate-api";
+
+    /**
+     * Creates the circuit breaker of the exchangerate-api calls.
+     *
+     * @param properties    the exchangerate-api configuration properties.
+     * @param meterRegistry the registry of the circuit breaker metrics.
+     * @return a new {@link CircuitBreaker} instance.
+     */
+    @Bean
+    public CircuitBreaker exchangerateApiCircuitBreaker(ExchangerateApiProperties properties,
+                                                        MeterRegistry meterRegistry) {
+        var circuitBreaker = properties.getCircuitBreaker();
+        return new CircuitBreaker(NAME, circuitBreaker.getFailureThreshold(), circuitBreaker.getOpenDuration(),
+                circuitBreaker.getHalfOpenMaxCalls(), meterRegistry);
+    }
+
+    /**
+     * Creates the retry budget of the exchangerate-api calls.
+     *
+     * @param properties    the exchangerate-api configuration properties.
+     * @param meterRegistry the registry of the retry metrics.
+     * @return a new {@link RetryBudget} instance.
+     */
+    @Bean
+    public RetryBudget exchangerateApiRetryBudget(ExchangerateApiProperties properties, MeterRegistry meterRegistry) {
+        var retry = properties.getRetry();
+        return new RetryBudget(NAME, retry.getBudgetRatio(), retry.getBudgetMaxRetries(), meterRegistry);
+    }
+
+    /**
+     * Creates the monthly request quota of the exchangerate-api plan, counted in the database
+     * so that all the nodes share it.
+     *
+     * @param properties    the exchangerate-api configuration properties.
+     * @param store         the database counter of the quota.
+     * @param meterRegistry the registry of the quota metrics.
+     * @return a new {@link RequestQuota} instance.
+     */
+    @Bean
+    public RequestQuota exchangerateApiRequestQuota(ExchangerateApiProperties properties, RequestQuotaStore store,
+                                                    MeterRegistry meterRegistry) {
+        return new RequestQuota(NAME, properties.getQuota().getMonthlyRequests(), store, Clock.systemUTC(),
+                meterRegistry);
+    }
+}
@@ -1,26 +1,111 @@
 package com.account.transfer.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+
 /**
  * Configuration class for creating and configuring a {@link RestTemplate} bean.
  * <p>
- * Provides a {@link RestTemplate} for use in the application to make HTTP requests.
- * Additional HTTP client configuration, such as SSL settings, can be added here if needed.
+ * Provides a {@link RestTemplate} backed by a pooled keep-alive HTTP client for use in the application
+ * to make HTTP requests. Pool limits and timeouts are configured with {@link ExchangerateApiProperties.Http},
+ * pool usage is exposed as `httpcomponents.httpclient.pool.*` metrics.
+ * <p>
+ * The asynchronous fetches of the exchange rates use a separate non-blocking {@link HttpClient}.
  */
 @Configuration
 public class RestTemplateConfig {
 
+    private static final String CONNECTION_POOL_NAME = "exchangerate-api";
+
+    /**
+     * Creates the bounded connection pool shared by all requests to the exchangerate-api.
+     *
+     * @param properties the exchangerate-api configuration properties.
+     * @return a new {@link PoolingHttpClientConnectionManager} instance.
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager exchangerateApiConnectionManager(ExchangerateApiProperties properties) {
+        var http = properties.getHttp();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(http.getConnectionTimeToLive()))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Creates the HTTP client on top of the connection pool.
+     *
+     * @param connectionManager the connection pool.
+     * @param properties        the exchangerate-api configuration properties.
+     * @return a new {@link CloseableHttpClient} instance.
+     */
+    @Bean
+    public CloseableHttpClient exchangerateApiHttpClient(PoolingHttpClientConnectionManager connectionManager,
+                                                         ExchangerateApiProperties properties) {
+        var http = properties.getHttp();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                        .setConnectionKeepAlive(TimeValue.of(http.getKeepAlive()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleEvictionTimeout()))
+                .build();
+    }
+
     /**
      * Creates a {@link RestTemplate} bean.
      *
+     * @param httpClient the pooled HTTP client.
      * @return a new {@link RestTemplate} instance.
      */
     @Bean
-    public RestTemplate restTemplate() {
-        // Add any necessary HTTP client configuration, such as SSL configuration, here.
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    /**
+     * Creates the non-blocking HTTP client for the asynchronous requests to the exchangerate-api.
+     *
+     * @param properties the exchangerate-api configuration properties.
+     * @return a new {@link HttpClient} instance.
+     */
+    @Bean
+    public HttpClient exchangerateApiAsyncHttpClient(ExchangerateApiProperties properties) {
+        return HttpClient.newBuilder()
+                .connectTimeout(properties.getHttp().getConnectTimeout())
+                .build();
+    }
+
+    /**
+     * Exposes the connection pool usage (leased, pending, available and max connections) as metrics.
+     *
+     * @param connectionManager the connection pool.
+     * @return the {@link MeterBinder} of the connection pool.
+     */
+    @Bean
+    public MeterBinder exchangerateApiConnectionPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, CONNECTION_POOL_NAME);
     }
 }
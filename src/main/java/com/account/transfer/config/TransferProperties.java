@@ -0,0 +1,296 @@
+package com.account.transfer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Configuration properties for the transfers between accounts.
+ * The properties are prefixed with `transfer` in the configuration file.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "transfer")
+public class TransferProperties {
+
+    public enum Engine {
+        DATABASE, LEDGER
+    }
+
+    public enum Locking {
+        PESSIMISTIC, OPTIMISTIC
+    }
+
+    public enum BatchAtomicity {
+        ALL_OR_NOTHING, PER_ITEM
+    }
+
+    /**
+     * Where the balances are changed: by the write transactions of the transfers in the database,
+     * or by the in-memory ledger persisting the transfers in batches.
+     */
+    private Engine engine = Engine.DATABASE;
+
+    /**
+     * How the write transaction of a transfer guards the debited account against concurrent transfers:
+     * by locking the rows of both accounts, or by checking the version of the debited account.
+     */
+    private Locking locking = Locking.PESSIMISTIC;
+
+    private final AccountLocks accountLocks = new AccountLocks();
+
+    private final Lock lock = new Lock();
+
+    private final Optimistic optimistic = new Optimistic();
+
+    private final Ledger ledger = new Ledger();
+
+    private final Batch batch = new Batch();
+
+    private final HotAccounts hotAccounts = new HotAccounts();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Async async = new Async();
+
+    /**
+     * In-process locks of the accounts taken by a transfer before it borrows a database connection.
+     */
+    @Setter
+    @Getter
+    public static class AccountLocks {
+
+        /**
+         * Whether the transfers of the same accounts are serialized in the application before they reach the database.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of locks the accounts are spread over; accounts sharing a lock are serialized with each other.
+         */
+        private int stripes = 1024;
+
+        /**
+         * Whether a released lock is granted to the longest waiting transfer rather than to any waiting one.
+         */
+        private boolean fair = false;
+
+        /**
+         * How long a transfer waits for the locks of its accounts before it fails with a conflict.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Row locks of the accounts taken by the write transaction of a transfer.
+     */
+    @Setter
+    @Getter
+    public static class Lock {
+
+        /**
+         * How long a transfer waits for the row lock of an account before the attempt fails.
+         * Passed as the JPA lock timeout hint; the embedded H2 database applies the LOCK_TIMEOUT of its URL instead.
+         */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        /**
+         * Maximum number of attempts of the write transaction, including the first one, when locking times out.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Pause between the attempts of the write transaction.
+         */
+        private Duration backoff = Duration.ofMillis(50);
+    }
+
+    /**
+     * Version checks of the debited account taken by the write transaction of a transfer.
+     */
+    @Setter
+    @Getter
+    public static class Optimistic {
+
+        /**
+         * Maximum number of attempts of the write transaction, including the first one, when the debited
+         * account has been changed concurrently.
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Upper bound of the random pause before the first retry, doubled on every next retry.
+         */
+        private Duration minBackoff = Duration.ofMillis(10);
+
+        /**
+         * Upper bound of the random pause before any retry.
+         */
+        private Duration maxBackoff = Duration.ofMillis(200);
+    }
+
+    /**
+     * In-memory ledger engine.
+     */
+    @Setter
+    @Getter
+    public static class Ledger {
+
+        /**
+         * Number of shards the accounts are partitioned into, each owned by a single writer thread.
+         */
+        private int shards = 4;
+
+        /**
+         * Maximum number of transfers persisted by a single database transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * How long the write-behind waits for new transfers when there is nothing to persist.
+         */
+        private Duration flushInterval = Duration.ofMillis(5);
+
+        /**
+         * Pause before persisting a batch again after the database rejected it, doubled on every retry.
+         */
+        private Duration flushRetryBackoff = Duration.ofSeconds(1);
+
+        /**
+         * Maximum pause between the attempts to persist a batch.
+         */
+        private Duration flushMaxRetryBackoff = Duration.ofSeconds(8);
+
+        /**
+         * Maximum number of attempts to persist a batch, after which its transfers are reverted and dead-lettered.
+         */
+        private int flushMaxAttempts = 5;
+
+        /**
+         * How long a transfer waits for its batch to be committed.
+         */
+        private Duration commitTimeout = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Batches of transfers submitted with a single request.
+     */
+    @Setter
+    @Getter
+    public static class Batch {
+
+        /**
+         * Atomicity of the batches which do not choose one: all the transfers of a batch are performed or none,
+         * or every transfer is performed unless it fails on its own.
+         */
+        private BatchAtomicity atomicity = BatchAtomicity.PER_ITEM;
+    }
+
+    /**
+     * Accounts receiving a large share of all credits, whose balance is spread over several slots.
+     */
+    @Setter
+    @Getter
+    public static class HotAccounts {
+
+        /**
+         * Owner IDs of the hot accounts; their credits are added to one of the slots instead of the account row.
+         */
+        private Set<Long> ownerIds = new HashSet<>();
+
+        /**
+         * Number of balance slots of every hot account, the number of credits which may be applied at the same time.
+         */
+        private int slots = 8;
+
+        /**
+         * Pause between the consolidations folding the balance slots into the account rows.
+         */
+        private Duration consolidationInterval = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Idempotency keys given by the clients with the `Idempotency-Key` header, so that a retried transfer is
+     * performed once.
+     */
+    @Setter
+    @Getter
+    public static class Idempotency {
+
+        /**
+         * Maximum number of completed transfers kept in memory by their keys, the least recently used one
+         * is evicted when it is exceeded; the older keys are looked up in the database.
+         */
+        private int cacheSize = 10000;
+
+        /**
+         * How long a key is kept, the retries of a transfer sent later are performed as new transfers.
+         */
+        private Duration retention = Duration.ofHours(24);
+
+        /**
+         * How often the keys older than the retention are deleted from the database.
+         */
+        private Duration evictionInterval = Duration.ofHours(1);
+
+        /**
+         * How long a transfer waits for a concurrent transfer with the same key before it fails with a conflict.
+         */
+        private Duration waitTimeout = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Transfers submitted for asynchronous execution, queued in the database and performed by a bounded pool
+     * of worker threads.
+     */
+    @Setter
+    @Getter
+    public static class Async {
+
+        /**
+         * Number of worker threads performing the submitted transfers.
+         */
+        private int workerThreads = 8;
+
+        /**
+         * Maximum number of submitted transfers waiting in memory for a worker; the transfers submitted
+         * beyond it wait in the database until the dispatcher hands them to the workers.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Pause between the dispatches of the pending transfers found in the database to the workers.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * How long a transfer may stay in processing before it is considered abandoned, e.g. by a stopped
+         * instance, and performed again.
+         */
+        private Duration processingTimeout = Duration.ofMinutes(5);
+
+        /**
+         * Maximum number of attempts of a transfer, including the first one, when it fails with a transient error.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * How long the status of a completed transfer is kept.
+         */
+        private Duration retention = Duration.ofHours(24);
+
+        /**
+         * How often the completed transfers older than the retention are deleted from the database.
+         */
+        private Duration evictionInterval = Duration.ofHours(1);
+
+        /**
+         * How long the application waits on shutdown for the transfers being performed by the workers.
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,29 @@
+package com.account.transfer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "account_balance_slot")
+@Data
+@NoArgsConstructor
+public class AccountBalanceSlotEntity implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "slot", nullable = false)
+    private Integer slot;
+
+    @Column(name = "balance", precision = 38, scale = 2, nullable = false)
+    private BigDecimal balance;
+
+}
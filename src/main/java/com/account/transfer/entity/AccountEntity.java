@@ -23,7 +23,11 @@ public class AccountEntity implements Serializable {
     @Column(name = "currency", length = 3, nullable = false)
     private String currency;
 
-    @Column(name = "balance", nullable = false)
+    @Column(name = "balance", precision = 38, scale = 2, nullable = false)
     private BigDecimal balance;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 }
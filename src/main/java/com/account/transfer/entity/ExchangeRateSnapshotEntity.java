@@ -0,0 +1,33 @@
+package com.account.transfer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+@Entity
+@Table(name = "exchange_rate_snapshot")
+@Data
+@NoArgsConstructor
+public class ExchangeRateSnapshotEntity implements Serializable {
+
+    @Id
+    @Column(name = "base_currency", length = 3, nullable = false)
+    private String baseCurrency;
+
+    @Column(name = "fetched_at", nullable = false)
+    private Instant fetchedAt;
+
+    @Column(name = "next_update_at")
+    private Instant nextUpdateAt;
+
+    @Lob
+    @Convert(converter = ExchangeRatesConverter.class)
+    @Column(name = "rates", nullable = false)
+    private Map<String, BigDecimal> rates;
+
+}
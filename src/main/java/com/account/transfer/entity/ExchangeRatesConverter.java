@@ -0,0 +1,39 @@
+package com.account.transfer.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Stores the conversion rates of an exchange rate snapshot as a JSON object in a single column.
+ */
+@Converter
+public class ExchangeRatesConverter implements AttributeConverter<Map<String, BigDecimal>, String> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, BigDecimal>> RATES_TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, BigDecimal> rates) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(rates);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Exchange rates can not be serialized", ex);
+        }
+    }
+
+    @Override
+    public Map<String, BigDecimal> convertToEntityAttribute(String json) {
+        try {
+            return OBJECT_MAPPER.readValue(json, RATES_TYPE);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Exchange rates can not be deserialized", ex);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.account.transfer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "request_quota_usage")
+@Data
+@NoArgsConstructor
+public class RequestQuotaUsageEntity implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "quota_name", nullable = false)
+    private String quotaName;
+
+    @Column(name = "usage_month", nullable = false)
+    private String usageMonth;
+
+    @Column(name = "used", nullable = false)
+    private Long used;
+
+}
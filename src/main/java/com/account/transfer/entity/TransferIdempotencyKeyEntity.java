@@ -0,0 +1,26 @@
+package com.account.transfer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+
+@Entity
+@Table(name = "transfer_idempotency_key")
+@Data
+@NoArgsConstructor
+public class TransferIdempotencyKeyEntity implements Serializable {
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @Column(name = "created_at", nullable = false)
+    private ZonedDateTime createdAt;
+
+}
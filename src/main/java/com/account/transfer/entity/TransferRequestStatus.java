@@ -0,0 +1,6 @@
+package com.account.transfer.entity;
+
+public enum TransferRequestStatus {
+
+    PENDING, PROCESSING, SUCCESS, FAILED;
+}
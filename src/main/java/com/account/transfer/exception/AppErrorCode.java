@@ -11,7 +11,14 @@ public enum AppErrorCode implements ErrorCode {
     EXCHANGE_RATE_SERVICE_ERROR("003"),
     ACCOUNT_NOT_FOUND_ERROR("004"),
     INSUFFICIENT_BALANCE_ERROR("005"),
-    INVALID_TRANSFER_ERROR("006");
+    INVALID_TRANSFER_ERROR("006"),
+    SUBSCRIPTION_LIMIT_ERROR("007"),
+    QUOTE_NOT_FOUND_ERROR("008"),
+    TRANSFER_CONFLICT_ERROR("009"),
+    TRANSFER_TIMEOUT_ERROR("010"),
+    IDEMPOTENCY_KEY_REUSE_ERROR("011"),
+    TRANSFER_REQUEST_NOT_FOUND_ERROR("012"),
+    TRANSFER_NOT_PERSISTED_ERROR("013");
 
     @Override
     public String getCode() {
@@ -0,0 +1,19 @@
+package com.account.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+
+import static com.account.transfer.exception.AppErrorCode.IDEMPOTENCY_KEY_REUSE_ERROR;
+
+public class IdempotencyKeyReuseException extends ServiceException {
+
+    private static final String msg = "Idempotency key: %s has already been used by another transfer";
+
+    public IdempotencyKeyReuseException(String idempotencyKey) {
+        super(IDEMPOTENCY_KEY_REUSE_ERROR, String.format(msg, idempotencyKey));
+    }
+
+    @Override
+    public HttpStatus getErrorStatus() {
+        return HttpStatus.UNPROCESSABLE_ENTITY;
+    }
+}
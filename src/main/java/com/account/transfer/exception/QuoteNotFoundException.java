@@ -0,0 +1,19 @@
+package com.account.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+
+import static com.account.transfer.exception.AppErrorCode.QUOTE_NOT_FOUND_ERROR;
+
+public class QuoteNotFoundException extends ServiceException {
+
+    private static final String msg = "Exchange rate quote: %s is not found or expired";
+
+    public QuoteNotFoundException(String quoteId) {
+        super(QUOTE_NOT_FOUND_ERROR, String.format(msg, quoteId));
+    }
+
+    @Override
+    public HttpStatus getErrorStatus() {
+        return HttpStatus.NOT_FOUND;
+    }
+}
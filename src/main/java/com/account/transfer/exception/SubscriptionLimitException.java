@@ -0,0 +1,17 @@
+package com.account.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+
+import static com.account.transfer.exception.AppErrorCode.SUBSCRIPTION_LIMIT_ERROR;
+
+public class SubscriptionLimitException extends ServiceException {
+
+    public SubscriptionLimitException(String message) {
+        super(SUBSCRIPTION_LIMIT_ERROR, message);
+    }
+
+    @Override
+    public HttpStatus getErrorStatus() {
+        return HttpStatus.SERVICE_UNAVAILABLE;
+    }
+}
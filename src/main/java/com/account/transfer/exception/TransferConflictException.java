@@ -0,0 +1,17 @@
+package com.account.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+
+import static com.account.transfer.exception.AppErrorCode.TRANSFER_CONFLICT_ERROR;
+
+public class TransferConflictException extends ServiceException {
+
+    public TransferConflictException(String message) {
+        super(TRANSFER_CONFLICT_ERROR, message);
+    }
+
+    @Override
+    public HttpStatus getErrorStatus() {
+        return HttpStatus.CONFLICT;
+    }
+}
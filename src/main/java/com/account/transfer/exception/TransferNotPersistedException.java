@@ -0,0 +1,17 @@
+package com.account.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+
+import static com.account.transfer.exception.AppErrorCode.TRANSFER_NOT_PERSISTED_ERROR;
+
+public class TransferNotPersistedException extends ServiceException {
+
+    public TransferNotPersistedException(String message) {
+        super(TRANSFER_NOT_PERSISTED_ERROR, message);
+    }
+
+    @Override
+    public HttpStatus getErrorStatus() {
+        return HttpStatus.SERVICE_UNAVAILABLE;
+    }
+}
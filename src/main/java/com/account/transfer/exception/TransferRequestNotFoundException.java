@@ -0,0 +1,19 @@
+package com.account.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+
+import static com.account.transfer.exception.AppErrorCode.TRANSFER_REQUEST_NOT_FOUND_ERROR;
+
+public class TransferRequestNotFoundException extends ServiceException {
+
+    private static final String msg = "Transfer request: %s is not found";
+
+    public TransferRequestNotFoundException(Long transferId) {
+        super(TRANSFER_REQUEST_NOT_FOUND_ERROR, String.format(msg, transferId));
+    }
+
+    @Override
+    public HttpStatus getErrorStatus() {
+        return HttpStatus.NOT_FOUND;
+    }
+}
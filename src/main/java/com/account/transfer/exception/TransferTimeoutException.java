@@ -0,0 +1,31 @@
+package com.account.transfer.exception;
+
+import com.account.transfer.service.model.TransactionModel;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.account.transfer.exception.AppErrorCode.TRANSFER_TIMEOUT_ERROR;
+
+/**
+ * The transfer has not been persisted in time, but it is not rolled back: the ledger still persists it, or reverts it
+ * if the database keeps rejecting it, and completes the outcome with the result.
+ */
+public class TransferTimeoutException extends ServiceException {
+
+    private final transient CompletableFuture<TransactionModel> outcome;
+
+    public TransferTimeoutException(String message, CompletableFuture<TransactionModel> outcome) {
+        super(TRANSFER_TIMEOUT_ERROR, message);
+        this.outcome = outcome;
+    }
+
+    public CompletableFuture<TransactionModel> getOutcome() {
+        return outcome;
+    }
+
+    @Override
+    public HttpStatus getErrorStatus() {
+        return HttpStatus.SERVICE_UNAVAILABLE;
+    }
+}
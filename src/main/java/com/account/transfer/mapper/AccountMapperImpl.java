@@ -20,6 +20,7 @@ public class AccountMapperImpl implements AccountMapper {
                 .ownerId(accountEntity.getOwnerId())
                 .currency(accountEntity.getCurrency())
                 .balance(accountEntity.getBalance())
+                .version(accountEntity.getVersion())
                 .build();
     }
 
@@ -34,6 +35,7 @@ public class AccountMapperImpl implements AccountMapper {
         entity.setOwnerId(accountModel.getOwnerId());
         entity.setCurrency(accountModel.getCurrency());
         entity.setBalance(accountModel.getBalance());
+        entity.setVersion(accountModel.getVersion());
 
         return entity;
     }
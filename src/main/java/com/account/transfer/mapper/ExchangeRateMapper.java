@@ -1,7 +1,11 @@
 package com.account.transfer.mapper;
 
+import com.account.transfer.api.dto.ExchangeRateQuoteResponse;
 import com.account.transfer.api.dto.ExchangeRateResponse;
+import com.account.transfer.entity.ExchangeRateSnapshotEntity;
 import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRateQuote;
+import com.account.transfer.service.model.ExchangeRateSnapshot;
 
 import java.math.BigDecimal;
 
@@ -18,6 +22,14 @@ public interface ExchangeRateMapper {
      */
     ExchangeRateResponse mapToExchangeRateResponse(ExchangeRateModel model);
 
+    /**
+     * Maps an ExchangeRateQuote to an ExchangeRateQuoteResponse.
+     *
+     * @param quote The ExchangeRateQuote
+     * @return The mapped ExchangeRateQuoteResponse
+     */
+    ExchangeRateQuoteResponse mapToExchangeRateQuoteResponse(ExchangeRateQuote quote);
+
     /**
      * Maps ExchangeRateModel according to input parameters.
      *
@@ -27,4 +39,20 @@ public interface ExchangeRateMapper {
      * @return The mapped ExchangeRateModel
      */
     ExchangeRateModel buildExchangeRateModel(String fromCurrency, String toCurrency, BigDecimal rate);
+
+    /**
+     * Maps an ExchangeRateSnapshot to an ExchangeRateSnapshotEntity.
+     *
+     * @param snapshot The ExchangeRateSnapshot
+     * @return The mapped ExchangeRateSnapshotEntity
+     */
+    ExchangeRateSnapshotEntity mapToExchangeRateSnapshotEntity(ExchangeRateSnapshot snapshot);
+
+    /**
+     * Maps an ExchangeRateSnapshotEntity to an ExchangeRateSnapshot.
+     *
+     * @param entity The ExchangeRateSnapshotEntity
+     * @return The mapped ExchangeRateSnapshot
+     */
+    ExchangeRateSnapshot mapToExchangeRateSnapshot(ExchangeRateSnapshotEntity entity);
 }
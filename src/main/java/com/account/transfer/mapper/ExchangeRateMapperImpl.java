@@ -1,11 +1,17 @@
 package com.account.transfer.mapper;
 
+import com.account.transfer.api.dto.ExchangeRateQuoteResponse;
 import com.account.transfer.api.dto.ExchangeRateResponse;
+import com.account.transfer.entity.ExchangeRateSnapshotEntity;
 import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRateQuote;
+import com.account.transfer.service.model.ExchangeRateSnapshot;
+import com.account.transfer.service.model.ExchangeRateTable;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
 
 import static java.util.Objects.isNull;
 
@@ -26,6 +32,21 @@ public class ExchangeRateMapperImpl implements ExchangeRateMapper {
                 .build();
     }
 
+    @Override
+    public ExchangeRateQuoteResponse mapToExchangeRateQuoteResponse(ExchangeRateQuote quote) {
+        if (isNull(quote)) {
+            return null;
+        }
+
+        return ExchangeRateQuoteResponse.builder()
+                .quoteId(quote.getQuoteId())
+                .fromCurrency(quote.getFromCurrency())
+                .toCurrency(quote.getToCurrency())
+                .rate(quote.getRate())
+                .expiresAt(quote.getExpiresAt())
+                .build();
+    }
+
     @Override
     public ExchangeRateModel buildExchangeRateModel(String fromCurrency, String toCurrency, BigDecimal rate) {
         return ExchangeRateModel.builder()
@@ -35,4 +56,33 @@ public class ExchangeRateMapperImpl implements ExchangeRateMapper {
                 .dateTime(ZonedDateTime.now())
                 .build();
     }
+
+    @Override
+    public ExchangeRateSnapshotEntity mapToExchangeRateSnapshotEntity(ExchangeRateSnapshot snapshot) {
+        if (isNull(snapshot)) {
+            return null;
+        }
+
+        var entity = new ExchangeRateSnapshotEntity();
+        entity.setBaseCurrency(snapshot.getBaseCurrency());
+        entity.setFetchedAt(snapshot.getFetchedAt());
+        entity.setNextUpdateAt(snapshot.getNextUpdateAt());
+        entity.setRates(new HashMap<>(snapshot.getRates().toMap()));
+
+        return entity;
+    }
+
+    @Override
+    public ExchangeRateSnapshot mapToExchangeRateSnapshot(ExchangeRateSnapshotEntity entity) {
+        if (isNull(entity)) {
+            return null;
+        }
+
+        return ExchangeRateSnapshot.builder()
+                .baseCurrency(entity.getBaseCurrency())
+                .fetchedAt(entity.getFetchedAt())
+                .nextUpdateAt(entity.getNextUpdateAt())
+                .rates(ExchangeRateTable.of(entity.getRates()))
+                .build();
+    }
 }
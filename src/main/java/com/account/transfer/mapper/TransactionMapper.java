@@ -1,12 +1,18 @@
 package com.account.transfer.mapper;
 
+import com.account.transfer.api.dto.TransactionBatchResponse;
 import com.account.transfer.api.dto.TransactionResponse;
+import com.account.transfer.api.dto.TransferRequestResponse;
 import com.account.transfer.entity.TransactionEntity;
 import com.account.transfer.entity.TransactionStatus;
+import com.account.transfer.entity.TransferRequestEntity;
 import com.account.transfer.service.model.AccountModel;
 import com.account.transfer.service.model.TransactionModel;
+import com.account.transfer.service.model.TransferRequestModel;
+import com.account.transfer.service.model.TransferResult;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * Service for mapping account transaction data between different representations.
@@ -29,6 +35,31 @@ public interface TransactionMapper {
      */
     TransactionResponse mapToTransactionResponse(TransactionModel model);
 
+    /**
+     * Maps the results of a batch of transfers to an instance of {@link TransactionBatchResponse}.
+     *
+     * @param results The results of the transfers, in the order of the transfers of the batch
+     * @return The mapped TransactionBatchResponse
+     */
+    TransactionBatchResponse mapToTransactionBatchResponse(List<TransferResult> results);
+
+    /**
+     * Maps an instance of {@link TransferRequestEntity} to an instance of {@link TransferRequestModel}.
+     *
+     * @param entity      The TransferRequestEntity
+     * @param transaction The transaction performed by the transfer, or null if the transfer is not performed
+     * @return The mapped TransferRequestModel
+     */
+    TransferRequestModel mapToTransferRequestModel(TransferRequestEntity entity, TransactionModel transaction);
+
+    /**
+     * Maps an instance of {@link TransferRequestModel} to an instance of {@link TransferRequestResponse}.
+     *
+     * @param model The TransferRequestModel
+     * @return The mapped TransferRequestResponse
+     */
+    TransferRequestResponse mapToTransferRequestResponse(TransferRequestModel model);
+
     /**
      * Constructs a {@link TransactionEntity} object with the provided details.
      *
@@ -1,14 +1,27 @@
 package com.account.transfer.mapper;
 
+import com.account.transfer.api.dto.ErrorResponse;
+import com.account.transfer.api.dto.TransactionBatchItemResponse;
+import com.account.transfer.api.dto.TransactionBatchResponse;
 import com.account.transfer.api.dto.TransactionResponse;
+import com.account.transfer.api.dto.TransferRequestResponse;
 import com.account.transfer.entity.TransactionEntity;
 import com.account.transfer.entity.TransactionStatus;
+import com.account.transfer.entity.TransferRequestEntity;
+import com.account.transfer.entity.TransferRequestStatus;
+import com.account.transfer.exception.ErrorMessage;
+import com.account.transfer.exception.ServiceException;
 import com.account.transfer.service.model.AccountModel;
 import com.account.transfer.service.model.TransactionModel;
+import com.account.transfer.service.model.TransferRequestModel;
+import com.account.transfer.service.model.TransferResult;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static java.util.Objects.isNull;
 
@@ -56,6 +69,92 @@ public class TransactionMapperImpl implements TransactionMapper {
                 .build();
     }
 
+    @Override
+    public TransactionBatchResponse mapToTransactionBatchResponse(List<TransferResult> results) {
+        if (isNull(results)) {
+            return null;
+        }
+
+        var succeeded = (int) results.stream().filter(TransferResult::isSuccess).count();
+        return TransactionBatchResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(IntStream.range(0, results.size())
+                        .mapToObj(index -> mapToTransactionBatchItemResponse(index, results.get(index)))
+                        .toList())
+                .build();
+    }
+
+    @Override
+    public TransferRequestModel mapToTransferRequestModel(TransferRequestEntity entity, TransactionModel transaction) {
+        if (isNull(entity)) {
+            return null;
+        }
+
+        return TransferRequestModel.builder()
+                .transferId(entity.getId())
+                .accountOwnerId(entity.getFromAccountId())
+                .targetAccountId(entity.getToAccountId())
+                .amount(entity.getAmount())
+                .quoteId(entity.getQuoteId())
+                .status(entity.getStatus())
+                .attempts(entity.getAttempts())
+                .transaction(transaction)
+                .errorCode(entity.getErrorCode())
+                .errorKey(entity.getErrorKey())
+                .errorMessage(entity.getErrorMessage())
+                .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .build();
+    }
+
+    @Override
+    public TransferRequestResponse mapToTransferRequestResponse(TransferRequestModel model) {
+        if (isNull(model)) {
+            return null;
+        }
+
+        var failed = model.getStatus() == TransferRequestStatus.FAILED;
+        return TransferRequestResponse.builder()
+                .transferId(model.getTransferId())
+                .accountOwnerId(model.getAccountOwnerId())
+                .targetAccountId(model.getTargetAccountId())
+                .amount(model.getAmount())
+                .status(model.getStatus().toString())
+                .createdAt(model.getCreatedAt())
+                .updatedAt(model.getUpdatedAt())
+                .transaction(mapToTransactionResponse(model.getTransaction()))
+                .error(failed ? ErrorResponse.builder()
+                        .errorCode(model.getErrorCode())
+                        .errorMessage(ErrorMessage.builder()
+                                .key(model.getErrorKey())
+                                .text(model.getErrorMessage())
+                                .build())
+                        .timestamp(model.getUpdatedAt().toInstant().toEpochMilli())
+                        .build() : null)
+                .build();
+    }
+
+    private TransactionBatchItemResponse mapToTransactionBatchItemResponse(int index, TransferResult result) {
+        return TransactionBatchItemResponse.builder()
+                .index(index)
+                .status(result.isSuccess() ? TransactionStatus.SUCCESS.toString() : TransactionStatus.FAILED.toString())
+                .transaction(mapToTransactionResponse(result.getTransaction()))
+                .error(result.isSuccess() ? null : mapToErrorResponse(result.getError()))
+                .build();
+    }
+
+    private ErrorResponse mapToErrorResponse(ServiceException ex) {
+        return ErrorResponse.builder()
+                .errorCode(ex.getErrorStatus().value() + ex.getErrorCode().getCode())
+                .errorMessage(ErrorMessage.builder()
+                        .key(ex.getErrorCode().name())
+                        .text(ex.getMessage())
+                        .build())
+                .timestamp(Instant.now().toEpochMilli())
+                .build();
+    }
+
     public TransactionEntity buildTransactionEntity(AccountModel accountOwner, AccountModel targetAccount,
                                                     BigDecimal amount, TransactionStatus status,
                                                     BigDecimal residualBalance, BigDecimal exchangeRate) {
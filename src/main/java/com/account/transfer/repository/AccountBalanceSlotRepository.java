@@ -0,0 +1,84 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.AccountBalanceSlotEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for managing {@link AccountBalanceSlotEntity} entities,
+ * the sub-balances the credits of the hot accounts are spread over.
+ */
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlotEntity, Long> {
+
+    /**
+     * Finds the balance slots of the accounts by the owners' IDs.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @return the list of found {@link AccountBalanceSlotEntity}.
+     */
+    List<AccountBalanceSlotEntity> findAllByOwnerIdIn(Collection<Long> ownerIds);
+
+    /**
+     * Sums the balance of every account row with the balances of its slots in a single statement, so that
+     * a consolidation committed in the meantime, which moves the slots into the row, is seen either completely
+     * or not at all.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @return the total balances of the found accounts.
+     */
+    @Query("select a.ownerId as ownerId, a.balance + coalesce((select sum(s.balance) from AccountBalanceSlotEntity s " +
+            "where s.ownerId = a.ownerId), 0) as balance from AccountEntity a where a.ownerId in :ownerIds")
+    List<TotalBalance> findTotalBalancesByOwnerIdIn(@Param("ownerIds") Collection<Long> ownerIds);
+
+    /**
+     * Finds the balance slots of the account and locks their rows for update, in the ascending order
+     * of the slot numbers, until the end of the current transaction.
+     *
+     * @param ownerId the ID of the account owner.
+     * @return the locked {@link AccountBalanceSlotEntity} list ordered by the slot number.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AccountBalanceSlotEntity s where s.ownerId = :ownerId order by s.slot")
+    List<AccountBalanceSlotEntity> findAllByOwnerIdForUpdate(@Param("ownerId") Long ownerId);
+
+    /**
+     * Finds the owners' IDs of the accounts holding a balance in any of their slots.
+     *
+     * @return the IDs of the account owners.
+     */
+    @Query("select distinct s.ownerId from AccountBalanceSlotEntity s where s.balance <> 0")
+    List<Long> findOwnerIdsWithBalance();
+
+    /**
+     * Adds the amount to the balance of a single slot of the account in a single statement.
+     *
+     * @param ownerId the ID of the account owner.
+     * @param slot    the number of the slot.
+     * @param amount  the amount to add.
+     * @return the number of updated slots, 0 if the slot is not found.
+     */
+    @Modifying
+    @Query("update AccountBalanceSlotEntity s set s.balance = s.balance + :amount " +
+            "where s.ownerId = :ownerId and s.slot = :slot")
+    int creditSlot(@Param("ownerId") Long ownerId, @Param("slot") int slot, @Param("amount") BigDecimal amount);
+
+    /**
+     * The balance of the account row together with the balances of its slots.
+     */
+    interface TotalBalance {
+
+        Long getOwnerId();
+
+        BigDecimal getBalance();
+    }
+}
@@ -0,0 +1,21 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.AccountEntity;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Repository fragment updating many {@link AccountEntity} rows with a single JDBC batch.
+ */
+public interface AccountBatchRepository {
+
+    /**
+     * Adds the signed change to the balance of every account with one batched statement, without any balance check.
+     * The accounts are updated in the ascending order of the owner IDs.
+     *
+     * @param balanceChanges the signed balance change by the owner ID.
+     * @return the number of updated accounts.
+     */
+    int adjustBalances(Map<Long, BigDecimal> balanceChanges);
+}
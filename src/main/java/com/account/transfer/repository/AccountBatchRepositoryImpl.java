@@ -0,0 +1,34 @@
+package com.account.transfer.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+class AccountBatchRepositoryImpl implements AccountBatchRepository {
+
+    private static final String ADJUST_BALANCE_SQL =
+            "UPDATE account SET balance = balance + ?, version = version + 1 WHERE owner_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int adjustBalances(Map<Long, BigDecimal> balanceChanges) {
+        var changes = new ArrayList<>(new TreeMap<>(balanceChanges).entrySet());
+        var updated = jdbcTemplate.batchUpdate(ADJUST_BALANCE_SQL, changes, changes.size(), (statement, change) -> {
+            statement.setBigDecimal(1, change.getValue());
+            statement.setLong(2, change.getKey());
+        });
+        var count = 0;
+        for (var batch : updated) {
+            for (var rows : batch) {
+                count += rows;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,34 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.AccountEntity;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository fragment locking {@link AccountEntity} rows for update with a lock timeout chosen per call.
+ */
+public interface AccountLockRepository {
+
+    /**
+     * Finds an account by the owner's ID and locks its row for update ({@code SELECT ... FOR UPDATE})
+     * until the end of the current transaction.
+     *
+     * @param ownerId     the ID of the account owner.
+     * @param lockTimeout how long to wait for the row lock held by another transaction.
+     * @return an Optional containing the locked {@link AccountEntity}, or an empty Optional if no account was found.
+     */
+    Optional<AccountEntity> findByOwnerIdForUpdate(Long ownerId, Duration lockTimeout);
+
+    /**
+     * Finds the accounts by the owners' IDs and locks their rows for update with a single query,
+     * in the ascending order of the owner IDs, until the end of the current transaction.
+     *
+     * @param ownerIds    the IDs of the account owners.
+     * @param lockTimeout how long to wait for a row lock held by another transaction.
+     * @return the locked {@link AccountEntity} list ordered by the owner ID; accounts not found are left out.
+     */
+    List<AccountEntity> findAllByOwnerIdInForUpdate(Collection<Long> ownerIds, Duration lockTimeout);
+}
@@ -0,0 +1,39 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.AccountEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+class AccountLockRepositoryImpl implements AccountLockRepository {
+
+    private static final String LOCK_TIMEOUT_HINT = "jakarta.persistence.lock.timeout";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<AccountEntity> findByOwnerIdForUpdate(Long ownerId, Duration lockTimeout) {
+        return entityManager.createQuery("select a from AccountEntity a where a.ownerId = :ownerId", AccountEntity.class)
+                .setParameter("ownerId", ownerId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT_HINT, Math.toIntExact(lockTimeout.toMillis()))
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public List<AccountEntity> findAllByOwnerIdInForUpdate(Collection<Long> ownerIds, Duration lockTimeout) {
+        return entityManager.createQuery("select a from AccountEntity a where a.ownerId in :ownerIds " +
+                        "order by a.ownerId", AccountEntity.class)
+                .setParameter("ownerIds", ownerIds)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT_HINT, Math.toIntExact(lockTimeout.toMillis()))
+                .getResultList();
+    }
+}
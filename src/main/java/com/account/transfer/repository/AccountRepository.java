@@ -2,16 +2,24 @@ package com.account.transfer.repository;
 
 import com.account.transfer.entity.AccountEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository interface for managing {@link AccountEntity} entities.
- * Provides basic CRUD operations.
+ * Provides basic CRUD operations, the row locks of {@link AccountLockRepository}
+ * and the batched balance updates of {@link AccountBatchRepository}.
  */
 @Repository
-public interface AccountRepository extends JpaRepository<AccountEntity, Long> {
+public interface AccountRepository extends JpaRepository<AccountEntity, Long>, AccountLockRepository,
+        AccountBatchRepository {
 
     /**
      * Finds an account by the owner's ID.
@@ -20,4 +28,64 @@ public interface AccountRepository extends JpaRepository<AccountEntity, Long> {
      * @return an Optional containing the found {@link AccountEntity}, or an empty Optional if no account was found.
      */
     Optional<AccountEntity> findByOwnerId(Long ownerId);
+
+    /**
+     * Finds the accounts by the owners' IDs.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @return the list of found {@link AccountEntity}.
+     */
+    List<AccountEntity> findAllByOwnerIdIn(Collection<Long> ownerIds);
+
+    /**
+     * Subtracts the amount from the balance of the account in a single statement, provided that the balance
+     * covers the amount. The balance is checked and updated by the database under the row lock of the update.
+     *
+     * @param ownerId the ID of the account owner.
+     * @param amount  the amount to subtract.
+     * @return the number of updated accounts, 0 if the account is not found or its balance does not cover the amount.
+     */
+    @Modifying
+    @Query("update AccountEntity a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.ownerId = :ownerId and a.balance >= :amount")
+    int debitBalance(@Param("ownerId") Long ownerId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Subtracts the amount from the balance of the account in a single statement, provided that the account
+     * still has the version it was read with.
+     *
+     * @param ownerId the ID of the account owner.
+     * @param amount  the amount to subtract.
+     * @param version the version of the account the balance was checked against.
+     * @return the number of updated accounts, 0 if the account is not found or has been changed since it was read.
+     */
+    @Modifying
+    @Query("update AccountEntity a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.ownerId = :ownerId and a.version = :version")
+    int debitBalanceIfUnchanged(@Param("ownerId") Long ownerId, @Param("amount") BigDecimal amount,
+                                @Param("version") Long version);
+
+    /**
+     * Adds the amount to the balance of the account in a single statement.
+     *
+     * @param ownerId the ID of the account owner.
+     * @param amount  the amount to add.
+     * @return the number of updated accounts, 0 if the account is not found.
+     */
+    @Modifying
+    @Query("update AccountEntity a set a.balance = a.balance + :amount, a.version = a.version + 1 " +
+            "where a.ownerId = :ownerId")
+    int creditBalance(@Param("ownerId") Long ownerId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Adds the signed change to the balance of the account in a single statement, without any balance check.
+     *
+     * @param ownerId the ID of the account owner.
+     * @param change  the amount to add, negative to subtract.
+     * @return the number of updated accounts, 0 if the account is not found.
+     */
+    @Modifying
+    @Query("update AccountEntity a set a.balance = a.balance + :change, a.version = a.version + 1 " +
+            "where a.ownerId = :ownerId")
+    int adjustBalance(@Param("ownerId") Long ownerId, @Param("change") BigDecimal change);
 }
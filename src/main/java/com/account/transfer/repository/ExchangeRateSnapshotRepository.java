@@ -0,0 +1,24 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.ExchangeRateSnapshotEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository interface for managing {@link ExchangeRateSnapshotEntity} entities.
+ * Keeps the latest fetched snapshot of every base currency.
+ */
+@Repository
+public interface ExchangeRateSnapshotRepository extends JpaRepository<ExchangeRateSnapshotEntity, String> {
+
+    /**
+     * Finds the snapshots fetched after the given moment.
+     *
+     * @param fetchedAfter the oldest acceptable fetch time.
+     * @return the list of found {@link ExchangeRateSnapshotEntity}.
+     */
+    List<ExchangeRateSnapshotEntity> findByFetchedAtAfter(Instant fetchedAfter);
+}
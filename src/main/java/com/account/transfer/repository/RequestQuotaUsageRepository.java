@@ -0,0 +1,56 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.RequestQuotaUsageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for managing {@link RequestQuotaUsageEntity} entities,
+ * the requests counted against the monthly request quotas.
+ */
+@Repository
+public interface RequestQuotaUsageRepository extends JpaRepository<RequestQuotaUsageEntity, Long> {
+
+    /**
+     * Finds the number of requests counted against the quota in the given month.
+     *
+     * @param quotaName  the name of the quota.
+     * @param usageMonth the month, e.g. `2026-10`.
+     * @return the number of counted requests, or an empty Optional if none is counted yet.
+     */
+    @Query("select u.used from RequestQuotaUsageEntity u where u.quotaName = :quotaName and u.usageMonth = :usageMonth")
+    Optional<Long> findUsed(@Param("quotaName") String quotaName, @Param("usageMonth") String usageMonth);
+
+    /**
+     * Counts a request against the quota with a single conditional statement, so that the nodes sharing the quota
+     * never count more requests than the limit between them.
+     *
+     * @param quotaName  the name of the quota.
+     * @param usageMonth the month, e.g. `2026-10`.
+     * @param limit      the number of requests of the quota per month.
+     * @return the number of updated usages, 0 if the quota of the month is spent or the usage is not created yet.
+     */
+    @Modifying
+    @Query("update RequestQuotaUsageEntity u set u.used = u.used + 1 " +
+            "where u.quotaName = :quotaName and u.usageMonth = :usageMonth and u.used < :limit")
+    int incrementUsed(@Param("quotaName") String quotaName, @Param("usageMonth") String usageMonth,
+                      @Param("limit") long limit);
+
+    /**
+     * Creates the usage of the quota in the given month with no counted request. A usage already created
+     * by a concurrent node fails the insert instead of being merged.
+     *
+     * @param quotaName  the name of the quota.
+     * @param usageMonth the month, e.g. `2026-10`.
+     * @return the number of inserted usages.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO request_quota_usage (quota_name, usage_month, used) " +
+            "VALUES (:quotaName, :usageMonth, 0)", nativeQuery = true)
+    int insertUsage(@Param("quotaName") String quotaName, @Param("usageMonth") String usageMonth);
+}
@@ -0,0 +1,19 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.TransactionEntity;
+
+import java.util.List;
+
+/**
+ * Repository fragment inserting many {@link TransactionEntity} rows with a single JDBC batch.
+ */
+public interface TransactionBatchRepository {
+
+    /**
+     * Inserts the transactions with one batched statement and sets their generated IDs.
+     *
+     * @param transactions the transactions to insert.
+     * @return the inserted transactions, in the given order.
+     */
+    List<TransactionEntity> insertAll(List<TransactionEntity> transactions);
+}
@@ -0,0 +1,60 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.TransactionEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+@RequiredArgsConstructor
+class TransactionBatchRepositoryImpl implements TransactionBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO transaction (from_account_id, to_account_id, amount, " +
+            "date_time, status, available_balance, residual_balance, base_currency, target_currency, exchange_rate) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<TransactionEntity> insertAll(List<TransactionEntity> transactions) {
+        if (transactions.isEmpty()) {
+            return transactions;
+        }
+
+        var keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        var transaction = transactions.get(i);
+                        statement.setLong(1, transaction.getFromAccountId());
+                        statement.setLong(2, transaction.getToAccountId());
+                        statement.setBigDecimal(3, transaction.getAmount());
+                        statement.setObject(4, transaction.getDateTime().toOffsetDateTime(),
+                                Types.TIMESTAMP_WITH_TIMEZONE);
+                        statement.setString(5, transaction.getStatus().name());
+                        statement.setBigDecimal(6, transaction.getAvailableBalance());
+                        statement.setBigDecimal(7, transaction.getResidualBalance());
+                        statement.setString(8, transaction.getBaseCurrency());
+                        statement.setString(9, transaction.getTargetCurrency());
+                        statement.setBigDecimal(10, transaction.getExchangeRate());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return transactions.size();
+                    }
+                }, keyHolder);
+
+        var keys = keyHolder.getKeyList();
+        for (int i = 0; i < transactions.size(); i++) {
+            transactions.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+        return transactions;
+    }
+}
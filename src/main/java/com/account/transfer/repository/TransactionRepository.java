@@ -6,8 +6,8 @@ import org.springframework.stereotype.Repository;
 
 /**
  * Repository interface for managing {@link TransactionEntity} entities.
- * Provides basic CRUD operations.
+ * Provides basic CRUD operations and the batched inserts of {@link TransactionBatchRepository}.
  */
 @Repository
-public interface TransactionRepository extends JpaRepository<TransactionEntity, Long> {
+public interface TransactionRepository extends JpaRepository<TransactionEntity, Long>, TransactionBatchRepository {
 }
@@ -0,0 +1,43 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.TransferIdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Repository interface for managing {@link TransferIdempotencyKeyEntity} entities,
+ * the idempotency keys of the performed transfers.
+ */
+@Repository
+public interface TransferIdempotencyKeyRepository extends JpaRepository<TransferIdempotencyKeyEntity, String> {
+
+    /**
+     * Records the idempotency key of a transfer with a plain insert, so that a key already recorded by a concurrent
+     * transfer fails the statement, and the write transaction of the transfer, instead of being merged.
+     *
+     * @param idempotencyKey the idempotency key given by the client.
+     * @param transactionId  the ID of the transaction of the transfer.
+     * @param createdAt      the date and time the key is recorded.
+     * @return the number of inserted keys.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transfer_idempotency_key (idempotency_key, transaction_id, created_at) " +
+            "VALUES (:idempotencyKey, :transactionId, :createdAt)", nativeQuery = true)
+    int insertKey(@Param("idempotencyKey") String idempotencyKey, @Param("transactionId") Long transactionId,
+                  @Param("createdAt") ZonedDateTime createdAt);
+
+    /**
+     * Deletes the idempotency keys recorded before the given date and time.
+     *
+     * @param createdBefore the date and time the deleted keys were recorded before.
+     * @return the number of deleted keys.
+     */
+    @Modifying
+    @Query("delete from TransferIdempotencyKeyEntity k where k.createdAt < :createdBefore")
+    int deleteAllCreatedBefore(@Param("createdBefore") ZonedDateTime createdBefore);
+}
@@ -0,0 +1,105 @@
+package com.account.transfer.repository;
+
+import com.account.transfer.entity.TransferRequestEntity;
+import com.account.transfer.entity.TransferRequestStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for managing {@link TransferRequestEntity} entities,
+ * the transfers submitted for asynchronous execution.
+ */
+@Repository
+public interface TransferRequestRepository extends JpaRepository<TransferRequestEntity, Long> {
+
+    /**
+     * Finds the IDs of the transfer requests in the given status, in the order they were submitted.
+     *
+     * @param status   the status of the transfer requests.
+     * @param pageable the maximum number of the returned IDs.
+     * @return the IDs of the transfer requests.
+     */
+    @Query("select r.id from TransferRequestEntity r where r.status = :status order by r.id")
+    List<Long> findIdsByStatus(@Param("status") TransferRequestStatus status, Pageable pageable);
+
+    /**
+     * Claims the pending transfer request for processing with a single conditional statement, so that only one
+     * of the workers racing for a request, of this or any other instance, performs it. Every claim counts
+     * one more attempt of the request.
+     *
+     * @param id        the ID of the transfer request.
+     * @param updatedAt the date and time of the claim.
+     * @return the number of claimed requests, 0 if the request is not pending anymore.
+     */
+    @Modifying
+    @Query("update TransferRequestEntity r set r.status = com.account.transfer.entity.TransferRequestStatus.PROCESSING, " +
+            "r.attempts = r.attempts + 1, r.updatedAt = :updatedAt " +
+            "where r.id = :id and r.status = com.account.transfer.entity.TransferRequestStatus.PENDING")
+    int claim(@Param("id") Long id, @Param("updatedAt") ZonedDateTime updatedAt);
+
+    /**
+     * Records the outcome of the given attempt of the transfer request with a single conditional statement.
+     * The outcome is recorded only while the request is still processed by that attempt, so a worker which
+     * outlived the processing timeout, after the request was released and claimed again, cannot overwrite
+     * the outcome of the newer attempt.
+     *
+     * @param id            the ID of the transfer request.
+     * @param attempts      the attempt the outcome belongs to.
+     * @param status        the new status of the transfer request.
+     * @param transactionId the ID of the performed transaction, if any.
+     * @param errorCode     the code of the error the transfer failed with, if any.
+     * @param errorKey      the key of the error the transfer failed with, if any.
+     * @param errorMessage  the message of the error the transfer failed with, if any.
+     * @param updatedAt     the date and time of the change.
+     * @return the number of updated requests, 0 if the request is not processed by the given attempt anymore.
+     */
+    @Modifying
+    @Query("update TransferRequestEntity r set r.status = :status, r.transactionId = :transactionId, " +
+            "r.errorCode = :errorCode, r.errorKey = :errorKey, r.errorMessage = :errorMessage, " +
+            "r.updatedAt = :updatedAt " +
+            "where r.id = :id and r.status = com.account.transfer.entity.TransferRequestStatus.PROCESSING " +
+            "and r.attempts = :attempts")
+    int updateClaimed(@Param("id") Long id,
+                      @Param("attempts") int attempts,
+                      @Param("status") TransferRequestStatus status,
+                      @Param("transactionId") Long transactionId,
+                      @Param("errorCode") String errorCode,
+                      @Param("errorKey") String errorKey,
+                      @Param("errorMessage") String errorMessage,
+                      @Param("updatedAt") ZonedDateTime updatedAt);
+
+    /**
+     * Moves the transfer requests left in {@link TransferRequestStatus#PROCESSING} since before the given date
+     * and time, e.g. by an instance stopped in the middle of a transfer, back to {@link TransferRequestStatus#PENDING}.
+     *
+     * @param updatedBefore the date and time the released requests were last updated before.
+     * @param updatedAt     the date and time of the change.
+     * @return the number of released requests.
+     */
+    @Modifying
+    @Query("update TransferRequestEntity r set r.status = com.account.transfer.entity.TransferRequestStatus.PENDING, " +
+            "r.updatedAt = :updatedAt " +
+            "where r.status = com.account.transfer.entity.TransferRequestStatus.PROCESSING and r.updatedAt < :updatedBefore")
+    int releaseAllUpdatedBefore(@Param("updatedBefore") ZonedDateTime updatedBefore,
+                                @Param("updatedAt") ZonedDateTime updatedAt);
+
+    /**
+     * Deletes the transfer requests in the given statuses last updated before the given date and time.
+     *
+     * @param statuses      the statuses of the deleted transfer requests.
+     * @param updatedBefore the date and time the deleted requests were last updated before.
+     * @return the number of deleted requests.
+     */
+    @Modifying
+    @Query("delete from TransferRequestEntity r where r.status in :statuses and r.updatedAt < :updatedBefore")
+    int deleteAllUpdatedBefore(@Param("statuses") Collection<TransferRequestStatus> statuses,
+                               @Param("updatedBefore") ZonedDateTime updatedBefore);
+}
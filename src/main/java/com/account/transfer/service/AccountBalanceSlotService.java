@@ -0,0 +1,62 @@
+package com.account.transfer.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Service interface for managing the balance slots of the hot accounts.
+ * <p>
+ * A hot account is backed by its account row and by a number of balance slots. Its credits are added to a randomly
+ * chosen slot, so that concurrent credits lock different rows instead of all waiting for the account row, and
+ * its visible balance is the balance of the account row plus the balances of its slots. The slots are folded
+ * into the account row periodically, and whenever a debit is not covered by the account row alone.
+ */
+public interface AccountBalanceSlotService {
+
+    /**
+     * Checks whether the account is configured as a hot account.
+     *
+     * @param ownerId the ID of the account owner.
+     * @return true if the credits of the account are spread over its balance slots.
+     */
+    boolean isHot(Long ownerId);
+
+    /**
+     * Adds the amount to a randomly chosen balance slot of the hot account with a single update.
+     *
+     * @param ownerId the ID of the account owner.
+     * @param amount  the amount to add.
+     * @return true if the amount is added, false if the account has no balance slots yet.
+     */
+    boolean credit(Long ownerId, BigDecimal amount);
+
+    /**
+     * Retrieves the sum of the balance slots of the hot accounts among the given ones.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @return the sum of the balance slots by the owner ID; accounts without balance slots are left out.
+     */
+    Map<Long, BigDecimal> getSlotBalances(Collection<Long> ownerIds);
+
+    /**
+     * Retrieves the balances of the account rows plus the balances of their slots of the hot accounts among
+     * the given ones, read together by a single statement for the accounts read without their row locks.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @return the total balance by the owner ID; accounts which are not hot are left out.
+     */
+    Map<Long, BigDecimal> getTotalBalances(Collection<Long> ownerIds);
+
+    /**
+     * Folds the balance slots of the account into its account row, locking the account row and then the slots.
+     *
+     * @param ownerId the ID of the account owner.
+     */
+    void consolidate(Long ownerId);
+
+    /**
+     * Folds the balance slots of every account holding a balance in its slots, each in its own transaction.
+     */
+    void consolidateAll();
+}
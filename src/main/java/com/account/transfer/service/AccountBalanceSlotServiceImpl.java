@@ -0,0 +1,152 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.AccountBalanceSlotEntity;
+import com.account.transfer.entity.AccountEntity;
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.repository.AccountBalanceSlotRepository;
+import com.account.transfer.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountBalanceSlotServiceImpl implements AccountBalanceSlotService {
+
+    private final AccountBalanceSlotRepository accountBalanceSlotRepository;
+    private final AccountRepository accountRepository;
+    private final TransferProperties transferProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean isHot(Long ownerId) {
+        return transferProperties.getHotAccounts().getOwnerIds().contains(ownerId);
+    }
+
+    /**
+     * Creates the missing balance slots of the existing hot accounts and folds the slots of the accounts
+     * which are no longer hot. Until then, the credits of the hot accounts are added to their account rows.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSlots() {
+        var hotAccounts = transferProperties.getHotAccounts();
+        if (!hotAccounts.getOwnerIds().isEmpty()) {
+            var existingSlots = accountBalanceSlotRepository.findAllByOwnerIdIn(hotAccounts.getOwnerIds()).stream()
+                    .collect(Collectors.groupingBy(AccountBalanceSlotEntity::getOwnerId,
+                            Collectors.mapping(AccountBalanceSlotEntity::getSlot, Collectors.toSet())));
+            var missingSlots = new ArrayList<AccountBalanceSlotEntity>();
+            for (var account : accountRepository.findAllByOwnerIdIn(hotAccounts.getOwnerIds())) {
+                var slots = existingSlots.getOrDefault(account.getOwnerId(), Set.of());
+                for (int slot = 0; slot < hotAccounts.getSlots(); slot++) {
+                    if (!slots.contains(slot)) {
+                        missingSlots.add(buildSlot(account, slot));
+                    }
+                }
+            }
+            accountBalanceSlotRepository.saveAll(missingSlots);
+            log.info("Created balance slots: {} of hot accounts: {}", missingSlots.size(), hotAccounts.getOwnerIds());
+        }
+        consolidateAll();
+    }
+
+    @Override
+    @Transactional
+    public boolean credit(Long ownerId, BigDecimal amount) {
+        var slot = ThreadLocalRandom.current().nextInt(transferProperties.getHotAccounts().getSlots());
+        log.info("Credit amount: {} to balance slot: {} of account of owner id: {}", amount, slot, ownerId);
+        return accountBalanceSlotRepository.creditSlot(ownerId, slot, amount) > 0;
+    }
+
+    @Override
+    public Map<Long, BigDecimal> getSlotBalances(Collection<Long> ownerIds) {
+        var hotOwnerIds = ownerIds.stream()
+                .filter(this::isHot)
+                .collect(Collectors.toSet());
+        if (hotOwnerIds.isEmpty()) {
+            return Map.of();
+        }
+        return accountBalanceSlotRepository.findAllByOwnerIdIn(hotOwnerIds).stream()
+                .collect(Collectors.groupingBy(AccountBalanceSlotEntity::getOwnerId,
+                        Collectors.reducing(BigDecimal.ZERO, AccountBalanceSlotEntity::getBalance, BigDecimal::add)));
+    }
+
+    @Override
+    public Map<Long, BigDecimal> getTotalBalances(Collection<Long> ownerIds) {
+        var hotOwnerIds = ownerIds.stream()
+                .filter(this::isHot)
+                .collect(Collectors.toSet());
+        if (hotOwnerIds.isEmpty()) {
+            return Map.of();
+        }
+        return accountBalanceSlotRepository.findTotalBalancesByOwnerIdIn(hotOwnerIds).stream()
+                .collect(Collectors.toMap(AccountBalanceSlotRepository.TotalBalance::getOwnerId,
+                        AccountBalanceSlotRepository.TotalBalance::getBalance));
+    }
+
+    @Override
+    @Transactional
+    public void consolidate(Long ownerId) {
+        meterRegistry.timer("account.balance.slots.consolidation").record(() -> foldSlots(ownerId));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${transfer.hot-accounts.consolidation-interval:PT10S}")
+    public void consolidateAll() {
+        for (var ownerId : accountBalanceSlotRepository.findOwnerIdsWithBalance()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> consolidate(ownerId));
+            } catch (RuntimeException ex) {
+                log.warn("Failed to consolidate balance slots of account with owner id: {}", ownerId, ex);
+            }
+        }
+    }
+
+    /**
+     * The account row is locked before the slots, like a debit locks it before it consolidates the slots,
+     * and the credits of the slots never wait for the account row, so the consolidation cannot deadlock with them.
+     * The update of the account row changes its version, which fails the optimistic debits which read the slots
+     * before they were folded.
+     */
+    private void foldSlots(Long ownerId) {
+        accountRepository.findByOwnerIdForUpdate(ownerId, transferProperties.getLock().getTimeout())
+                .orElseThrow(() -> new AccountNotFoundException(
+                        String.format("Account with owner id: [%s] is not found", ownerId)));
+        var slots = accountBalanceSlotRepository.findAllByOwnerIdForUpdate(ownerId);
+        var slotsBalance = slots.stream()
+                .map(AccountBalanceSlotEntity::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (slotsBalance.signum() == 0) {
+            return;
+        }
+
+        log.info("Consolidate balance: {} of slots: {} into account of owner id: {}", slotsBalance, slots.size(),
+                ownerId);
+        accountRepository.adjustBalance(ownerId, slotsBalance);
+        slots.forEach(slot -> slot.setBalance(BigDecimal.ZERO));
+    }
+
+    private AccountBalanceSlotEntity buildSlot(AccountEntity account, int slot) {
+        var entity = new AccountBalanceSlotEntity();
+        entity.setOwnerId(account.getOwnerId());
+        entity.setSlot(slot);
+        entity.setBalance(BigDecimal.ZERO);
+        return entity;
+    }
+}
@@ -1,7 +1,14 @@
 package com.account.transfer.service;
 
 import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InsufficientBalanceException;
 import com.account.transfer.service.model.AccountModel;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service interface for managing accounts.
@@ -17,10 +24,76 @@ public interface AccountService {
      */
     AccountModel getAccountByOwnerId(Long ownerId);
 
+    /**
+     * Retrieves the accounts by the owners' IDs with a single query.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @return the found accounts by the owner ID; accounts not found are left out.
+     */
+    Map<Long, AccountModel> getAccountsByOwnerIds(Collection<Long> ownerIds);
+
     /**
      * Saves the provided account model.
      *
      * @param accountModel the {@link AccountModel} to save.
      */
     void save(AccountModel accountModel);
+
+    /**
+     * Reads and locks the accounts for update until the end of the current transaction.
+     * The rows are always locked in the ascending order of the owner IDs, so that transactions locking
+     * the same accounts in opposite directions wait for each other instead of deadlocking.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @return the locked accounts, in the order of the given owner IDs.
+     * @throws AccountNotFoundException if an account by the owner's ID is not found
+     */
+    List<AccountModel> lockAccounts(List<Long> ownerIds);
+
+    /**
+     * Reads and locks the accounts of a batch of transfers for update with a single query until the end
+     * of the current transaction, in the ascending order of the owner IDs like {@link #lockAccounts(List)}.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @return the locked accounts by the owner ID; accounts not found are left out.
+     */
+    Map<Long, AccountModel> lockAllAccounts(Collection<Long> ownerIds);
+
+    /**
+     * Applies the net balance changes of a batch of transfers with a single batched update, without any balance
+     * check. The accounts have to be locked by {@link #lockAllAccounts(Collection)} in the current transaction.
+     *
+     * @param balanceChanges the signed balance change by the owner ID.
+     * @throws AccountNotFoundException if any of the accounts is not found
+     */
+    void adjustBalances(Map<Long, BigDecimal> balanceChanges);
+
+    /**
+     * Subtracts the amount from the balance of the account with a single conditional update,
+     * so that concurrent debits can never overdraw the account.
+     *
+     * @param ownerId the ID of the account owner.
+     * @param amount  the amount to subtract.
+     * @throws InsufficientBalanceException if the balance of the account does not cover the amount
+     */
+    void debit(Long ownerId, BigDecimal amount);
+
+    /**
+     * Subtracts the amount from the balance of the account with a single update, provided that the account
+     * has not been changed since it was read. The balance of the read account has to cover the amount.
+     *
+     * @param account the account as it was read, with its version.
+     * @param amount  the amount to subtract.
+     * @throws OptimisticLockingFailureException if the account has been changed since it was read
+     */
+    void debitIfUnchanged(AccountModel account, BigDecimal amount);
+
+    /**
+     * Adds the amount to the balance of the account with a single update.
+     *
+     * @param ownerId the ID of the account owner.
+     * @param amount  the amount to add.
+     * @throws AccountNotFoundException if the account by the owner's ID is not found
+     */
+    void credit(Long ownerId, BigDecimal amount);
 }
@@ -1,12 +1,25 @@
 package com.account.transfer.service;
 
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.AccountEntity;
 import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InsufficientBalanceException;
 import com.account.transfer.mapper.AccountMapper;
 import com.account.transfer.repository.AccountRepository;
 import com.account.transfer.service.model.AccountModel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -15,19 +28,140 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
     private final AccountMapper accountMapper;
+    private final TransferProperties transferProperties;
+    private final AccountBalanceSlotService accountBalanceSlotService;
 
     @Override
     public AccountModel getAccountByOwnerId(Long ownerId) {
         log.info("Get account data by owner id: {}", ownerId);
         return accountRepository.findByOwnerId(ownerId)
-                .map(accountMapper::mapToAccountModel)
+                .map(account -> withTotalBalances(List.of(account)).get(ownerId))
                 .orElseThrow(() -> new AccountNotFoundException(
                         String.format("Account with owner id: [%s] is not found", ownerId)));
     }
 
+    @Override
+    public Map<Long, AccountModel> getAccountsByOwnerIds(Collection<Long> ownerIds) {
+        log.info("Get accounts data by owner ids: {}", ownerIds);
+        return withTotalBalances(accountRepository.findAllByOwnerIdIn(ownerIds));
+    }
+
     @Override
     public void save(AccountModel accountModel) {
         log.info("Save account for owner id: {}", accountModel.getOwnerId());
         accountRepository.save(accountMapper.mapToAccountEntity(accountModel));
     }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<AccountModel> lockAccounts(List<Long> ownerIds) {
+        log.info("Lock accounts for owner ids: {}", ownerIds);
+        var lockTimeout = transferProperties.getLock().getTimeout();
+        var lockedAccounts = ownerIds.stream()
+                .distinct()
+                .sorted()
+                .map(ownerId -> accountRepository.findByOwnerIdForUpdate(ownerId, lockTimeout)
+                        .orElseThrow(() -> new AccountNotFoundException(
+                                String.format("Account with owner id: [%s] is not found", ownerId))))
+                .toList();
+        var accounts = withSlotBalances(lockedAccounts);
+        return ownerIds.stream()
+                .map(accounts::get)
+                .toList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, AccountModel> lockAllAccounts(Collection<Long> ownerIds) {
+        log.info("Lock accounts of batch, count: {}", ownerIds.size());
+        return withSlotBalances(accountRepository.findAllByOwnerIdInForUpdate(ownerIds,
+                transferProperties.getLock().getTimeout()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjustBalances(Map<Long, BigDecimal> balanceChanges) {
+        log.info("Adjust balances of accounts: {}", balanceChanges.size());
+        var updated = accountRepository.adjustBalances(balanceChanges);
+        if (updated != balanceChanges.size()) {
+            throw new AccountNotFoundException(String.format("Accounts updated: %s of accounts: %s",
+                    updated, balanceChanges.size()));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void debit(Long ownerId, BigDecimal amount) {
+        log.info("Debit amount: {} from account of owner id: {}", amount, ownerId);
+        var debited = accountRepository.debitBalance(ownerId, amount) > 0;
+        if (!debited && accountBalanceSlotService.isHot(ownerId)) {
+            // the balance may cover the amount only together with the credits not folded into the account row yet
+            accountBalanceSlotService.consolidate(ownerId);
+            debited = accountRepository.debitBalance(ownerId, amount) > 0;
+        }
+        if (!debited) {
+            throw new InsufficientBalanceException(String.format(
+                    "Insufficient balance of account with owner id: [%s] for amount: %s", ownerId, amount));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void debitIfUnchanged(AccountModel account, BigDecimal amount) {
+        log.info("Debit amount: {} from account of owner id: {} with version: {}", amount, account.getOwnerId(),
+                account.getVersion());
+        if (accountRepository.debitBalanceIfUnchanged(account.getOwnerId(), amount, account.getVersion()) == 0) {
+            throw new OptimisticLockingFailureException(String.format(
+                    "Account with owner id: [%s] has been changed since version: %s", account.getOwnerId(),
+                    account.getVersion()));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void credit(Long ownerId, BigDecimal amount) {
+        log.info("Credit amount: {} to account of owner id: {}", amount, ownerId);
+        if (accountBalanceSlotService.isHot(ownerId) && accountBalanceSlotService.credit(ownerId, amount)) {
+            return;
+        }
+        if (accountRepository.creditBalance(ownerId, amount) == 0) {
+            throw new AccountNotFoundException(String.format("Account with owner id: [%s] is not found", ownerId));
+        }
+    }
+
+    /**
+     * Adds the balance slots of the hot accounts to the balances of their account rows. The slots are read after
+     * the account rows: a consolidation committed in between may hide some credits, but never counts them twice.
+     */
+    /**
+     * Adds the slots to the balances of the locked accounts: the consolidation locks the account row first,
+     * so the slots cannot be folded into the row between the two reads.
+     */
+    private Map<Long, AccountModel> withSlotBalances(List<AccountEntity> accounts) {
+        var slotBalances = accountBalanceSlotService.getSlotBalances(accounts.stream()
+                .map(AccountEntity::getOwnerId)
+                .toList());
+        return accounts.stream()
+                .map(accountMapper::mapToAccountModel)
+                .map(account -> slotBalances.containsKey(account.getOwnerId())
+                        ? account.toBuilder().balance(account.getBalance().add(slotBalances.get(account.getOwnerId()))).build()
+                        : account)
+                .collect(Collectors.toMap(AccountModel::getOwnerId, Function.identity()));
+    }
+
+    /**
+     * Replaces the balances of the accounts read without their row locks with the row and slot balances read
+     * by a single statement, since a consolidation may commit between the read of the row and of its slots.
+     */
+    private Map<Long, AccountModel> withTotalBalances(List<AccountEntity> accounts) {
+        var totalBalances = accountBalanceSlotService.getTotalBalances(accounts.stream()
+                .map(AccountEntity::getOwnerId)
+                .toList());
+        return accounts.stream()
+                .map(accountMapper::mapToAccountModel)
+                .map(account -> totalBalances.containsKey(account.getOwnerId())
+                        ? account.toBuilder().balance(totalBalances.get(account.getOwnerId())).build()
+                        : account)
+                .collect(Collectors.toMap(AccountModel::getOwnerId, Function.identity()));
+    }
 }
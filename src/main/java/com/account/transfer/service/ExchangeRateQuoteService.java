@@ -0,0 +1,37 @@
+package com.account.transfer.service;
+
+import com.account.transfer.exception.ExchangeRateNotFoundException;
+import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.QuoteNotFoundException;
+import com.account.transfer.service.model.ExchangeRateQuote;
+
+/**
+ * Service for locking exchange rates in quotes, so that a later transfer is performed with the exact rate
+ * the customer was shown and without fetching the rate again.
+ */
+public interface ExchangeRateQuoteService {
+
+    /**
+     * Locks the current exchange rate of the currency pair in a new quote.
+     *
+     * @param fromCurrency the base currency.
+     * @param toCurrency   the target currency.
+     * @return the {@link ExchangeRateQuote} with the locked rate and its expiry.
+     * @throws ExchangeRateNotFoundException if the exchange rate is not found.
+     * @throws ExchangeRateServiceException  if there is an error fetching the exchange rate.
+     */
+    ExchangeRateQuote createQuote(String fromCurrency, String toCurrency);
+
+    /**
+     * Consumes the quote of the currency pair. A quote can be consumed only once.
+     *
+     * @param quoteId      the ID of the quote.
+     * @param fromCurrency the base currency the quote is expected for.
+     * @param toCurrency   the target currency the quote is expected for.
+     * @return the consumed {@link ExchangeRateQuote}.
+     * @throws QuoteNotFoundException   if the quote is not found, has expired or has already been consumed.
+     * @throws InvalidTransferException if the quote is for another currency pair, the quote is kept in that case.
+     */
+    ExchangeRateQuote consumeQuote(String quoteId, String fromCurrency, String toCurrency);
+}
@@ -0,0 +1,96 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.ExchangeRateQuoteProperties;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.QuoteNotFoundException;
+import com.account.transfer.service.model.ExchangeRateQuote;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+/**
+ * Keeps the quotes in memory, in the order of their creation. As all the quotes live for the same time,
+ * this is also the order of their expiry, so the expired quotes are always at the head of the store and
+ * the eviction never has to scan the live ones. The store is bounded: when it is full the oldest quote
+ * is evicted even if it has not expired yet.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExchangeRateQuoteServiceImpl implements ExchangeRateQuoteService {
+
+    private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateQuoteProperties properties;
+
+    private final LinkedHashMap<String, ExchangeRateQuote> quotes = new LinkedHashMap<>();
+
+    @Override
+    public ExchangeRateQuote createQuote(String fromCurrency, String toCurrency) {
+        var exchangeRate = exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        var quote = ExchangeRateQuote.builder()
+                .quoteId(UUID.randomUUID().toString())
+                .fromCurrency(fromCurrency)
+                .toCurrency(toCurrency)
+                .rate(exchangeRate.getRate())
+                .expiresAt(ZonedDateTime.now().plus(properties.getTtl()))
+                .build();
+
+        synchronized (quotes) {
+            evictExpiredQuotes(ZonedDateTime.now());
+            if (quotes.size() >= properties.getMaxQuotes()) {
+                var eldest = quotes.keySet().iterator().next();
+                quotes.remove(eldest);
+                log.warn("Exchange rate quote store is full, evicted quote with id: {}", eldest);
+            }
+            quotes.put(quote.getQuoteId(), quote);
+        }
+        log.info("Exchange rate quote with id: {} created for pair [{}:{}], rate: {}",
+                quote.getQuoteId(), fromCurrency, toCurrency, quote.getRate());
+        return quote;
+    }
+
+    @Override
+    public ExchangeRateQuote consumeQuote(String quoteId, String fromCurrency, String toCurrency) {
+        synchronized (quotes) {
+            var quote = quotes.get(quoteId);
+            if (quote == null || isExpired(quote, ZonedDateTime.now())) {
+                throw new QuoteNotFoundException(quoteId);
+            }
+            if (!quote.getFromCurrency().equals(fromCurrency) || !quote.getToCurrency().equals(toCurrency)) {
+                throw new InvalidTransferException(String.format(
+                        "Exchange rate quote: %s is for pair [%s:%s], not for pair [%s:%s]",
+                        quoteId, quote.getFromCurrency(), quote.getToCurrency(), fromCurrency, toCurrency));
+            }
+            quotes.remove(quoteId);
+            log.info("Exchange rate quote with id: {} consumed", quoteId);
+            return quote;
+        }
+    }
+
+    /**
+     * Evicts the expired quotes, so that the quotes which are never consumed do not pile up between
+     * the quote creations.
+     */
+    @Scheduled(fixedDelayString = "${exchange-rate.quote.eviction-interval:PT1M}")
+    public void evictExpiredQuotes() {
+        synchronized (quotes) {
+            evictExpiredQuotes(ZonedDateTime.now());
+        }
+    }
+
+    private void evictExpiredQuotes(ZonedDateTime now) {
+        var iterator = quotes.values().iterator();
+        while (iterator.hasNext() && isExpired(iterator.next(), now)) {
+            iterator.remove();
+        }
+    }
+
+    private boolean isExpired(ExchangeRateQuote quote, ZonedDateTime now) {
+        return !now.isBefore(quote.getExpiresAt());
+    }
+}
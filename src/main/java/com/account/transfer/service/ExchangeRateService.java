@@ -4,6 +4,9 @@ import com.account.transfer.exception.ExchangeRateServiceException;
 import com.account.transfer.service.model.ExchangeRateModel;
 import com.account.transfer.exception.ExchangeRateNotFoundException;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Service for working with currency and it exchange rates.
  */
@@ -19,4 +22,29 @@ public interface ExchangeRateService {
      * @throws ExchangeRateServiceException  if the external exchange service returns an error
      */
     ExchangeRateModel getExchangeRate(String fromCurrency, String toCurrency);
+
+    /**
+     * Retrieves the exchange rates from the specified base currency to each of the target currencies.
+     * All the rates are taken from the same exchange rate snapshot.
+     *
+     * @param fromCurrency The base currency for which exchange rates are requested.
+     * @param toCurrencies The target currencies for which exchange rates are requested.
+     * @return a list of exchange rate models in the order of the target currencies
+     * @throws ExchangeRateNotFoundException if the exchange rate for any of the pairs is not found
+     * @throws ExchangeRateServiceException  if the external exchange service returns an error
+     */
+    List<ExchangeRateModel> getExchangeRates(String fromCurrency, List<String> toCurrencies);
+
+    /**
+     * Retrieves the exchange rate for the specified base and target currency without blocking the calling thread.
+     * A cached rate is returned as a completed future, otherwise the rates are fetched with a non-blocking client
+     * within the configured asynchronous timeout. Cancelling the returned future releases the caller only:
+     * the fetch shared with the other callers runs on and refreshes the cache.
+     *
+     * @param fromCurrency The base currency for which exchange rates are requested.
+     * @param toCurrency   The target currency for which exchange rates are requested.
+     * @return the future of the exchange rate model, failed with {@link ExchangeRateNotFoundException}
+     * or {@link ExchangeRateServiceException}
+     */
+    CompletableFuture<ExchangeRateModel> getExchangeRateAsync(String fromCurrency, String toCurrency);
 }
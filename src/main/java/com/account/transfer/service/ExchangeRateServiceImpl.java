@@ -1,57 +1,384 @@
 package com.account.transfer.service;
 
-import com.account.transfer.api.dto.ExchangeRateSourceResponse;
 import com.account.transfer.config.ExchangerateApiProperties;
 import com.account.transfer.exception.ExchangeRateNotFoundException;
 import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.exception.ServiceException;
 import com.account.transfer.mapper.ExchangeRateMapper;
+import com.account.transfer.repository.ExchangeRateSnapshotRepository;
+import com.account.transfer.service.model.CrossRateMatrix;
 import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRateSnapshot;
+import com.account.transfer.service.model.ExchangeRateTable;
+import com.account.transfer.service.model.ExchangeRatesUpdatedEvent;
+import com.account.transfer.service.prefetch.ExchangeRatePrefetchPlanner;
+import com.account.transfer.service.provider.ExchangeRateProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.ResponseEntity;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ExchangeRateServiceImpl implements ExchangeRateService {
 
-    private final RestTemplate restTemplate;
+    private final ExchangeRateProvider provider;
     private final ExchangerateApiProperties properties;
     private final ExchangeRateMapper mapper;
+    private final ExchangeRateSnapshotRepository snapshotRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExchangeRatePrefetchPlanner prefetchPlanner;
+
+    private final ConcurrentMap<String, ExchangeRateSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Optional<ExchangeRateSnapshot>>> inFlightFetches =
+            new ConcurrentHashMap<>();
+    private volatile CrossRateMatrix crossRateMatrix;
 
     @Override
     public ExchangeRateModel getExchangeRate(String fromCurrency, String toCurrency) {
-        log.info("Fetch latest exchange rate from host: {}, for currency: {}, to currency: {}",
-                properties.getHost(), fromCurrency, toCurrency);
-        var apiFullPath = properties.getUrl() + fromCurrency;
+        prefetchPlanner.recordDemand(getSnapshotCurrency(fromCurrency));
+        return buildExchangeRateModel(fromCurrency, toCurrency, getRateSource(fromCurrency, toCurrency));
+    }
+
+    @Override
+    public List<ExchangeRateModel> getExchangeRates(String fromCurrency, List<String> toCurrencies) {
+        prefetchPlanner.recordDemand(getSnapshotCurrency(fromCurrency));
+        var rateSource = getRateSource(fromCurrency, toCurrencies.get(0));
+        return toCurrencies.stream()
+                .map(toCurrency -> buildExchangeRateModel(fromCurrency, toCurrency, rateSource))
+                .toList();
+    }
 
+    @Override
+    public CompletableFuture<ExchangeRateModel> getExchangeRateAsync(String fromCurrency, String toCurrency) {
+        prefetchPlanner.recordDemand(getSnapshotCurrency(fromCurrency));
+        return getSnapshotAsync(getSnapshotCurrency(fromCurrency))
+                .thenApply(snapshot -> buildExchangeRateModel(fromCurrency, toCurrency,
+                        toRateSource(fromCurrency, toCurrency, snapshot)));
+    }
+
+    /**
+     * Warms up the cache with the stored snapshots which are not older than the configured maximum staleness,
+     * so that a freshly started node serves rates before its first upstream call.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpSnapshots() {
+        var fetchedAfter = Instant.now().minus(properties.getCache().getMaxStaleness());
         try {
-            ResponseEntity<ExchangeRateSourceResponse> response =
-                    restTemplate.getForEntity(apiFullPath, ExchangeRateSourceResponse.class);
+            snapshotRepository.findByFetchedAtAfter(fetchedAfter).stream()
+                    .map(mapper::mapToExchangeRateSnapshot)
+                    .forEach(this::cacheSnapshot);
+            log.info("Exchange rate cache warmed up with stored snapshots for currencies: {}", snapshots.keySet());
+        } catch (DataAccessException ex) {
+            log.warn("Warm up of exchange rate cache failed, reason: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Re-fetches the cached snapshots which are going to expire within the configured refresh-ahead window,
+     * so that the request threads keep being served from the cache. A snapshot whose provider has announced
+     * its next update is not re-fetched before that update, the provider having no newer rates until then.
+     * Which of the due snapshots are re-fetched within the request quota is decided by
+     * the {@link ExchangeRatePrefetchPlanner}.
+     */
+    @Scheduled(fixedDelayString = "${external.service.currency-exchange.exchangerate-api.cache.refresh-interval:PT1M}")
+    public void refreshExpiringSnapshots() {
+        var now = Instant.now();
+        var dueBaseCurrencies = snapshots.values().stream()
+                .filter(snapshot -> !getRefreshAt(snapshot).isAfter(now))
+                .map(ExchangeRateSnapshot::getBaseCurrency)
+                .toList();
+        prefetchPlanner.selectPrefetches(dueBaseCurrencies).forEach(this::refreshSnapshot);
+    }
+
+    private void refreshSnapshot(String baseCurrency) {
+        log.info("Refresh expiring exchange rate snapshot for currency: {}", baseCurrency);
+        try {
+            loadSnapshot(baseCurrency);
+        } catch (ServiceException ex) {
+            log.warn("Refresh of exchange rate snapshot for currency: {} failed, reason: {}",
+                    baseCurrency, ex.getMessage());
+        }
+    }
+
+    private ExchangeRateModel buildExchangeRateModel(String fromCurrency, String toCurrency,
+                                                     Function<String, Optional<BigDecimal>> rateSource) {
+        var rate = rateSource.apply(toCurrency)
+                .orElseThrow(() -> new ExchangeRateNotFoundException(fromCurrency, toCurrency));
+
+        log.info("Current exchange rate: {}, for pair: [{}:{}]", rate, fromCurrency, toCurrency);
+        return mapper.buildExchangeRateModel(fromCurrency, toCurrency, rate);
+    }
+
+    /**
+     * Resolves a single snapshot (or the cross rate matrix) for the base currency and returns
+     * the lookup of the rates to the target currencies within it.
+     */
+    private Function<String, Optional<BigDecimal>> getRateSource(String fromCurrency, String toCurrency) {
+        return toRateSource(fromCurrency, toCurrency, getSnapshot(getSnapshotCurrency(fromCurrency)));
+    }
 
-            var rate = Optional.ofNullable(response.getBody())
-                    .filter(it -> fromCurrency.equals(it.getBase()))
-                    .map(ExchangeRateSourceResponse::getRates)
-                    .map(rates -> rates.get(toCurrency))
+    /**
+     * Returns the currency of the snapshot holding the rates of the base currency: the pivot currency
+     * when the cross rate matrix is enabled, the base currency itself otherwise.
+     */
+    private String getSnapshotCurrency(String fromCurrency) {
+        var matrix = properties.getMatrix();
+        return matrix.isEnabled() ? matrix.getPivotCurrency() : fromCurrency;
+    }
+
+    private Function<String, Optional<BigDecimal>> toRateSource(String fromCurrency, String toCurrency,
+                                                                Optional<ExchangeRateSnapshot> snapshot) {
+        if (properties.getMatrix().isEnabled()) {
+            var matrix = snapshot
+                    .flatMap(it -> Optional.ofNullable(crossRateMatrix))
                     .orElseThrow(() -> new ExchangeRateNotFoundException(fromCurrency, toCurrency));
+            return target -> matrix.getRate(fromCurrency, target);
+        }
+
+        return snapshot
+                .orElseThrow(() -> new ExchangeRateNotFoundException(fromCurrency, toCurrency))
+                .getRates()::getRate;
+    }
+
+    private Optional<ExchangeRateSnapshot> getSnapshot(String baseCurrency) {
+        var cached = snapshots.get(baseCurrency);
+        if (cached != null && isFresh(cached)) {
+            return Optional.of(cached);
+        }
+
+        try {
+            return loadSnapshot(baseCurrency);
+        } catch (ExchangeRateServiceException ex) {
+            var staleSnapshot = findStaleSnapshot(baseCurrency).orElseThrow(() -> ex);
+            log.warn("Serve stale exchange rate snapshot for currency: {}, fetched at: {}, reason: {}",
+                    baseCurrency, staleSnapshot.getFetchedAt(), ex.getMessage());
+            return Optional.of(staleSnapshot);
+        }
+    }
 
-            log.info("Current exchange rate: {}, for pair: [{}:{}]", rate, fromCurrency, toCurrency);
-            return mapper.buildExchangeRateModel(fromCurrency, toCurrency, rate);
+    /**
+     * Asynchronous counterpart of {@link #getSnapshot(String)}: a fresh cached snapshot is returned as
+     * a completed future, otherwise the fetch in flight is joined or a new one is started, falling back
+     * to the stale snapshot on failure. The returned future depends on the shared fetch, so cancelling it
+     * never cancels the fetch for the other callers.
+     */
+    private CompletableFuture<Optional<ExchangeRateSnapshot>> getSnapshotAsync(String baseCurrency) {
+        var cached = snapshots.get(baseCurrency);
+        if (cached != null && isFresh(cached)) {
+            return CompletableFuture.completedFuture(Optional.of(cached));
+        }
 
-        } catch (RestClientException ex) {
-            if (ex instanceof HttpClientErrorException.NotFound) {
-                throw new ExchangeRateNotFoundException(fromCurrency, toCurrency);
+        return loadSnapshotAsync(baseCurrency).handle((snapshot, ex) -> {
+            if (ex == null) {
+                return snapshot;
+            }
+            var failure = ex instanceof CompletionException ? ex.getCause() : ex;
+            if (!(failure instanceof ExchangeRateServiceException cause)) {
+                throw new CompletionException(failure);
             }
 
-            var exceptionMsg = String.format("Fetch latest exchange rate from=%s for currency=%s " +
-                    "failed by reason=%s", properties.getHost(), fromCurrency, ex.getMessage());
-            throw new ExchangeRateServiceException(exceptionMsg);
+            var staleSnapshot = findStaleSnapshot(baseCurrency).orElseThrow(() -> cause);
+            log.warn("Serve stale exchange rate snapshot for currency: {}, fetched at: {}, reason: {}",
+                    baseCurrency, staleSnapshot.getFetchedAt(), cause.getMessage());
+            return Optional.of(staleSnapshot);
+        });
+    }
+
+    /**
+     * Finds the last known snapshot of the base currency, in memory or in the database,
+     * which is not older than the configured maximum staleness.
+     */
+    private Optional<ExchangeRateSnapshot> findStaleSnapshot(String baseCurrency) {
+        var fetchedAfter = Instant.now().minus(properties.getCache().getMaxStaleness());
+        var cached = Optional.ofNullable(snapshots.get(baseCurrency))
+                .filter(snapshot -> snapshot.getFetchedAt().isAfter(fetchedAfter));
+        if (cached.isPresent()) {
+            return cached;
         }
+
+        try {
+            var stored = snapshotRepository.findById(baseCurrency)
+                    .map(mapper::mapToExchangeRateSnapshot)
+                    .filter(snapshot -> snapshot.getFetchedAt().isAfter(fetchedAfter));
+            stored.ifPresent(this::cacheSnapshot);
+            return stored;
+        } catch (DataAccessException ex) {
+            log.warn("Read of stored exchange rate snapshot for currency: {} failed, reason: {}",
+                    baseCurrency, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Fetches the snapshot for the base currency and stores it in the cache. Concurrent callers for the same
+     * base currency do not issue their own upstream requests, they wait for the one already in flight and
+     * share its result.
+     */
+    private Optional<ExchangeRateSnapshot> loadSnapshot(String baseCurrency) {
+        var fetch = new CompletableFuture<Optional<ExchangeRateSnapshot>>();
+        var inFlightFetch = inFlightFetches.putIfAbsent(baseCurrency, fetch);
+        if (inFlightFetch != null) {
+            log.info("Wait for in-flight fetch of exchange rates for currency: {}", baseCurrency);
+            return awaitFetch(inFlightFetch);
+        }
+
+        try {
+            var snapshot = toSnapshot(baseCurrency, provider.fetchRates(baseCurrency));
+            applySnapshot(baseCurrency, snapshot);
+            fetch.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException ex) {
+            fetch.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlightFetches.remove(baseCurrency, fetch);
+        }
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #loadSnapshot(String)}, sharing its fetches in flight: a blocking
+     * and an asynchronous caller of the same base currency never issue two upstream requests. A fetch which
+     * times out fails with {@link ExchangeRateServiceException}, as a blocking one does.
+     */
+    private CompletableFuture<Optional<ExchangeRateSnapshot>> loadSnapshotAsync(String baseCurrency) {
+        var fetch = new CompletableFuture<Optional<ExchangeRateSnapshot>>();
+        var inFlightFetch = inFlightFetches.putIfAbsent(baseCurrency, fetch);
+        if (inFlightFetch != null) {
+            log.info("Join in-flight fetch of exchange rates for currency: {}", baseCurrency);
+            return inFlightFetch;
+        }
+
+        provider.fetchRatesAsync(baseCurrency).whenComplete((rates, ex) -> {
+            try {
+                if (ex != null) {
+                    fetch.completeExceptionally(toFetchFailure(baseCurrency, ex));
+                    return;
+                }
+                var snapshot = toSnapshot(baseCurrency, rates);
+                applySnapshot(baseCurrency, snapshot);
+                fetch.complete(snapshot);
+            } catch (RuntimeException failure) {
+                fetch.completeExceptionally(failure);
+            } finally {
+                inFlightFetches.remove(baseCurrency, fetch);
+            }
+        });
+        return fetch;
+    }
+
+    private Throwable toFetchFailure(String baseCurrency, Throwable ex) {
+        var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        if (cause instanceof TimeoutException) {
+            return new ExchangeRateServiceException(String.format(
+                    "Fetch latest exchange rate for currency=%s timed out", baseCurrency));
+        }
+        return cause;
+    }
+
+    private void applySnapshot(String baseCurrency, Optional<ExchangeRateSnapshot> snapshot) {
+        snapshot.ifPresentOrElse(
+                it -> {
+                    cacheSnapshot(it);
+                    storeSnapshot(it);
+                },
+                () -> snapshots.remove(baseCurrency));
+    }
+
+    /**
+     * Stores the snapshot in the cache. The snapshot of the pivot currency first rebuilds the cross rate
+     * matrix, so that a fresh pivot snapshot is never observed together with an outdated matrix.
+     * An {@link ExchangeRatesUpdatedEvent} is published when the snapshot changes the cached rates.
+     */
+    private void cacheSnapshot(ExchangeRateSnapshot snapshot) {
+        var matrix = properties.getMatrix();
+        var isPivotSnapshot = matrix.isEnabled() && matrix.getPivotCurrency().equals(snapshot.getBaseCurrency());
+        if (isPivotSnapshot) {
+            crossRateMatrix = CrossRateMatrix.triangulate(snapshot, matrix.getPrecision(), matrix.getRoundingMode());
+            log.info("Cross rate matrix rebuilt from pivot currency: {}", snapshot.getBaseCurrency());
+        }
+
+        var previous = snapshots.put(snapshot.getBaseCurrency(), snapshot);
+        if (previous == null || !previous.getRates().equals(snapshot.getRates())) {
+            eventPublisher.publishEvent(isPivotSnapshot
+                    ? ExchangeRatesUpdatedEvent.ofAll()
+                    : ExchangeRatesUpdatedEvent.of(snapshot.getBaseCurrency()));
+        }
+    }
+
+    private void storeSnapshot(ExchangeRateSnapshot snapshot) {
+        try {
+            snapshotRepository.save(mapper.mapToExchangeRateSnapshotEntity(snapshot));
+        } catch (DataAccessException ex) {
+            log.warn("Store of exchange rate snapshot for currency: {} failed, reason: {}",
+                    snapshot.getBaseCurrency(), ex.getMessage());
+        }
+    }
+
+    private Optional<ExchangeRateSnapshot> awaitFetch(CompletableFuture<Optional<ExchangeRateSnapshot>> fetch) {
+        try {
+            return fetch.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private boolean isFresh(ExchangeRateSnapshot snapshot) {
+        return getExpiresAt(snapshot).isAfter(Instant.now());
+    }
+
+    /**
+     * A snapshot expires the refresh-ahead window after it is due for a refresh, so that the background refresh
+     * replaces it before the request threads find it expired.
+     */
+    private Instant getExpiresAt(ExchangeRateSnapshot snapshot) {
+        return getRefreshAt(snapshot).plus(properties.getCache().getRefreshAhead());
+    }
+
+    /**
+     * A snapshot is refreshed ahead of its ttl, but never before the next update announced by the provider:
+     * it is then refreshed once the provider has had the schedule grace to publish the new rates.
+     */
+    private Instant getRefreshAt(ExchangeRateSnapshot snapshot) {
+        var cache = properties.getCache();
+        var refreshAt = snapshot.getFetchedAt().plus(cache.getTtl()).minus(cache.getRefreshAhead());
+        var nextUpdateAt = getNextUpdateAt(snapshot);
+        return nextUpdateAt == null ? refreshAt : later(refreshAt, nextUpdateAt.plus(cache.getScheduleGrace()));
+    }
+
+    private Instant getNextUpdateAt(ExchangeRateSnapshot snapshot) {
+        return properties.getCache().isScheduleAware() ? snapshot.getNextUpdateAt() : null;
+    }
+
+    private Instant later(Instant instant, Instant other) {
+        return other != null && other.isAfter(instant) ? other : instant;
+    }
+
+    private Optional<ExchangeRateSnapshot> toSnapshot(String baseCurrency, Optional<ExchangeRateTable> rates) {
+        return rates.map(it -> ExchangeRateSnapshot.builder()
+                .baseCurrency(baseCurrency)
+                .rates(it)
+                .fetchedAt(Instant.now())
+                .nextUpdateAt(provider.getNextUpdateAt(baseCurrency).orElse(null))
+                .build());
     }
 }
@@ -0,0 +1,23 @@
+package com.account.transfer.service;
+
+import com.account.transfer.exception.SubscriptionLimitException;
+import com.account.transfer.service.model.CurrencyPair;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+/**
+ * Service for streaming the exchange rate updates to the subscribed clients.
+ */
+public interface ExchangeRateStreamService {
+
+    /**
+     * Subscribes to the exchange rates of the currency pairs. The current rates are sent right away,
+     * afterwards a rate is sent only when a refreshed snapshot changes it.
+     *
+     * @param pairs the currency pairs to subscribe to.
+     * @return the {@link SseEmitter} of the subscription.
+     * @throws SubscriptionLimitException if the maximum number of subscribers is reached.
+     */
+    SseEmitter subscribe(Set<CurrencyPair> pairs);
+}
@@ -0,0 +1,207 @@
+package com.account.transfer.service;
+
+import com.account.transfer.api.dto.ExchangeRateResponse;
+import com.account.transfer.config.ExchangeRateStreamProperties;
+import com.account.transfer.exception.ServiceException;
+import com.account.transfer.exception.SubscriptionLimitException;
+import com.account.transfer.mapper.ExchangeRateMapper;
+import com.account.transfer.service.model.CurrencyPair;
+import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRatesUpdatedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams the exchange rate updates as server-sent events.
+ * <p>
+ * Every subscriber owns a conflating buffer holding at most one pending rate per subscribed pair: a newer rate
+ * replaces a pending one which has not been sent yet. The events are sent by a small pool of sender threads,
+ * never by the thread which refreshed the rates, and at most one thread sends to a subscriber at a time.
+ * A slow consumer therefore only delays its own updates, and it is disconnected when it has not accepted
+ * a pending event within the configured timeout.
+ */
+@Slf4j
+@Service
+public class ExchangeRateStreamServiceImpl implements ExchangeRateStreamService {
+
+    private static final String EXCHANGE_RATE_EVENT = "exchange-rate";
+    private static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateMapper mapper;
+    private final ExchangeRateStreamProperties properties;
+    private final ExecutorService senderExecutor;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    public ExchangeRateStreamServiceImpl(ExchangeRateService exchangeRateService, ExchangeRateMapper mapper,
+                                         ExchangeRateStreamProperties properties) {
+        this.exchangeRateService = exchangeRateService;
+        this.mapper = mapper;
+        this.properties = properties;
+        this.senderExecutor = Executors.newFixedThreadPool(properties.getSenderThreads());
+    }
+
+    @Override
+    public SseEmitter subscribe(Set<CurrencyPair> pairs) {
+        if (subscriptions.size() >= properties.getMaxSubscribers()) {
+            throw new SubscriptionLimitException(
+                    "Maximum number of exchange rate stream subscribers is reached: " + properties.getMaxSubscribers());
+        }
+
+        var emitter = new SseEmitter(properties.getConnectionTimeout().toMillis());
+        var subscription = new Subscription(emitter, pairs);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(ex -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        log.info("Subscribe to exchange rate updates for pairs: {}, subscribers: {}", pairs, subscriptions.size());
+
+        var currentRates = new HashMap<CurrencyPair, Optional<ExchangeRateModel>>();
+        pairs.forEach(pair -> findExchangeRate(pair, currentRates).ifPresent(subscription::offer));
+        schedule(subscription);
+        return emitter;
+    }
+
+    /**
+     * Offers the changed rates of the affected pairs to their subscribers. Each rate is resolved once
+     * per event, from the just refreshed cache, however many subscribers it has.
+     */
+    @EventListener
+    public void onExchangeRatesUpdated(ExchangeRatesUpdatedEvent event) {
+        var updatedRates = new HashMap<CurrencyPair, Optional<ExchangeRateModel>>();
+        for (var subscription : subscriptions) {
+            subscription.pairs.stream()
+                    .filter(pair -> event.affects(pair.getFromCurrency()))
+                    .forEach(pair -> findExchangeRate(pair, updatedRates).ifPresent(subscription::offer));
+            schedule(subscription);
+        }
+    }
+
+    /**
+     * Sends a heartbeat to every subscriber and disconnects the subscribers which have been blocking
+     * a sender thread for longer than the slow consumer timeout.
+     */
+    @Scheduled(fixedDelayString = "${exchange-rate.stream.heartbeat-interval:PT15S}")
+    public void sendHeartbeats() {
+        var slowConsumerTimeoutNanos = properties.getSlowConsumerTimeout().toNanos();
+        for (var subscription : subscriptions) {
+            if (subscription.isSendingLongerThan(slowConsumerTimeoutNanos)) {
+                log.warn("Disconnect slow exchange rate stream subscriber of pairs: {}", subscription.pairs);
+                subscriptions.remove(subscription);
+                subscription.emitter.complete();
+                continue;
+            }
+            subscription.heartbeatPending.set(true);
+            schedule(subscription);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+        senderExecutor.shutdownNow();
+    }
+
+    private Optional<ExchangeRateModel> findExchangeRate(CurrencyPair pair,
+                                                         Map<CurrencyPair, Optional<ExchangeRateModel>> resolvedRates) {
+        return resolvedRates.computeIfAbsent(pair, it -> {
+            try {
+                return Optional.of(exchangeRateService.getExchangeRate(it.getFromCurrency(), it.getToCurrency()));
+            } catch (ServiceException ex) {
+                log.warn("Exchange rate for stream pair: {} is not available, reason: {}", it, ex.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    private void schedule(Subscription subscription) {
+        if (!subscription.hasPendingEvents() || !subscription.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senderExecutor.execute(() -> drain(subscription));
+        } catch (RejectedExecutionException ex) {
+            subscription.sending.set(false);
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        subscription.sendStartedNanos = System.nanoTime();
+        try {
+            if (subscription.heartbeatPending.getAndSet(false)) {
+                subscription.emitter.send(SseEmitter.event().comment(HEARTBEAT_COMMENT));
+            }
+            for (var pair : subscription.pendingRates.keySet()) {
+                var exchangeRate = subscription.pendingRates.remove(pair);
+                subscription.emitter.send(SseEmitter.event()
+                        .name(EXCHANGE_RATE_EVENT)
+                        .data(mapper.mapToExchangeRateResponse(exchangeRate), MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException ex) {
+            log.info("Exchange rate stream subscriber of pairs: {} is gone, reason: {}", subscription.pairs, ex.getMessage());
+            subscriptions.remove(subscription);
+            subscription.emitter.completeWithError(ex);
+            return;
+        } finally {
+            subscription.sendStartedNanos = 0;
+            subscription.sending.set(false);
+        }
+        schedule(subscription);
+    }
+
+    /**
+     * Stream connection of a single client.
+     */
+    private static final class Subscription {
+
+        private final SseEmitter emitter;
+        private final Set<CurrencyPair> pairs;
+        private final Map<CurrencyPair, ExchangeRateModel> pendingRates = new ConcurrentHashMap<>();
+        private final Map<CurrencyPair, BigDecimal> offeredRates = new ConcurrentHashMap<>();
+        private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long sendStartedNanos;
+
+        private Subscription(SseEmitter emitter, Set<CurrencyPair> pairs) {
+            this.emitter = emitter;
+            this.pairs = Set.copyOf(pairs);
+        }
+
+        /**
+         * Buffers the rate unless the subscriber has already been offered the same rate of the pair.
+         */
+        private void offer(ExchangeRateModel exchangeRate) {
+            var pair = new CurrencyPair(exchangeRate.getFromCurrency(), exchangeRate.getToCurrency());
+            var previousRate = offeredRates.put(pair, exchangeRate.getRate());
+            if (previousRate == null || previousRate.compareTo(exchangeRate.getRate()) != 0) {
+                pendingRates.put(pair, exchangeRate);
+            }
+        }
+
+        private boolean hasPendingEvents() {
+            return heartbeatPending.get() || !pendingRates.isEmpty();
+        }
+
+        private boolean isSendingLongerThan(long timeoutNanos) {
+            var startedNanos = sendStartedNanos;
+            return startedNanos != 0 && System.nanoTime() - startedNanos > timeoutNanos;
+        }
+    }
+}
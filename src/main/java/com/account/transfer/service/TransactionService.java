@@ -3,6 +3,9 @@ package com.account.transfer.service;
 import com.account.transfer.service.model.TransactionModel;
 import com.account.transfer.exception.InvalidTransferException;
 import com.account.transfer.exception.InsufficientBalanceException;
+import com.account.transfer.exception.QuoteNotFoundException;
+import com.account.transfer.exception.TransferConflictException;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
 
@@ -15,13 +18,39 @@ public interface TransactionService {
      * Performs a transfer of a specified amount from one account to another.
      * The transfer can be either in the same currency or in different currencies,
      * applying the appropriate exchange rate if necessary.
+     * <p>
+     * The accounts are validated and the exchange rate is resolved before the write transaction, which locks
+     * both accounts in the ascending order of their owner IDs, moves the funds and records the transaction.
+     * Only the write transaction is retried when locking an account times out, so a quote is consumed once.
      *
      * @param accountOwnerId  the ID of the account from which the money will be transferred.
      * @param targetAccountId the ID of the account to which the money will be transferred.
      * @param amount          the amount of money to transfer.
+     * @param quoteId         the ID of the exchange rate quote to consume for a transfer between different
+     *                        currencies, or null to apply the current exchange rate.
      * @return the {@link TransactionModel} representing the transaction.
-     * @throws InvalidTransferException     if the transfer is attempted to the same account.
+     * @throws InvalidTransferException     if the transfer is attempted to the same account,
+     *                                      or the quote is for another currency pair.
      * @throws InsufficientBalanceException if the balance is insufficient for the transfer.
+     * @throws QuoteNotFoundException       if the quote is not found or has expired.
+     * @throws TransferConflictException    if the accounts could not be locked within the configured attempts.
      */
-    TransactionModel performTransfer(Long accountOwnerId, Long targetAccountId, BigDecimal amount);
+    TransactionModel performTransfer(Long accountOwnerId, Long targetAccountId, BigDecimal amount, String quoteId);
+
+    /**
+     * Performs a transfer like {@link #performTransfer(Long, Long, BigDecimal, String)} and records its idempotency
+     * key with the write transaction of the transfer, so that the transfer is rolled back if the key has already
+     * been recorded by a concurrent transfer.
+     *
+     * @param accountOwnerId  the ID of the account from which the money will be transferred.
+     * @param targetAccountId the ID of the account to which the money will be transferred.
+     * @param amount          the amount of money to transfer.
+     * @param quoteId         the ID of the exchange rate quote to consume, or null to apply the current exchange rate.
+     * @param lockedRate      the exchange rate locked before the transfer, applied instead of the quote when not null.
+     * @param idempotencyKey  the idempotency key given by the client, or null to record no key.
+     * @return the {@link TransactionModel} representing the transaction.
+     * @throws DataIntegrityViolationException if the idempotency key has already been recorded.
+     */
+    TransactionModel performTransfer(Long accountOwnerId, Long targetAccountId, BigDecimal amount, String quoteId,
+                                     BigDecimal lockedRate, String idempotencyKey);
 }
@@ -1,21 +1,39 @@
 package com.account.transfer.service;
 
+import com.account.transfer.config.TransferProperties;
 import com.account.transfer.entity.TransactionEntity;
 import com.account.transfer.exception.InsufficientBalanceException;
 import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.TransferConflictException;
+import com.account.transfer.exception.TransferTimeoutException;
 import com.account.transfer.mapper.TransactionMapper;
 import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferIdempotencyKeyRepository;
 import com.account.transfer.service.model.AccountModel;
+import com.account.transfer.service.ledger.LedgerEngine;
+import com.account.transfer.service.lock.AccountLockStripes;
 import com.account.transfer.service.model.TransactionModel;
+import com.account.transfer.service.model.TransferAmounts;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
+import static com.account.transfer.config.TransferProperties.Locking.OPTIMISTIC;
+import static com.account.transfer.config.TransferProperties.Locking.PESSIMISTIC;
 import static com.account.transfer.entity.TransactionStatus.SUCCESS;
 
 @Slf4j
@@ -24,32 +42,75 @@ import static com.account.transfer.entity.TransactionStatus.SUCCESS;
 public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
     private final TransactionMapper transactionMapper;
     private final AccountService accountService;
     private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateQuoteService exchangeRateQuoteService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final MeterRegistry meterRegistry;
+    private final LedgerEngine ledgerEngine;
+    private final AccountLockStripes accountLockStripes;
 
     @Override
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
-    public TransactionModel performTransfer(Long accountOwnerId, Long targetAccountId, BigDecimal amount) {
+    public TransactionModel performTransfer(Long accountOwnerId, Long targetAccountId, BigDecimal amount,
+                                            String quoteId) {
+        return performTransfer(accountOwnerId, targetAccountId, amount, quoteId, null, null);
+    }
+
+    @Override
+    public TransactionModel performTransfer(Long accountOwnerId, Long targetAccountId, BigDecimal amount,
+                                            String quoteId, BigDecimal lockedRate, String idempotencyKey) {
         log.info("Perform transfer amount: {}, from account: {}, to account: {}", amount, accountOwnerId, targetAccountId);
         if (accountOwnerId.equals(targetAccountId)) {
             throw new InvalidTransferException("Cannot transfer funds to the same account: " + accountOwnerId);
         }
 
-        var accountOwner = accountService.getAccountByOwnerId(accountOwnerId);
-        var targetAccount = accountService.getAccountByOwnerId(targetAccountId);
+        var accountOwner = getAccount(accountOwnerId);
+        var targetAccount = getAccount(targetAccountId);
 
+        // fails fast before the exchange rate lookup, the debit re-checks the balance atomically
         validateBalance(accountOwner, amount);
 
-        var transaction = accountOwner.getCurrency().equals(targetAccount.getCurrency())
-                ? performSameCurrenciesTransfer(accountOwner, targetAccount, amount)
-                : performDifferentCurrenciesTransfer(accountOwner, targetAccount, amount);
+        var exchangeRate = accountOwner.getCurrency().equals(targetAccount.getCurrency())
+                ? null
+                : getExchangeRate(accountOwner.getCurrency(), targetAccount.getCurrency(), quoteId, lockedRate);
 
-        transaction = transactionRepository.save(transaction);
+        TransactionEntity transaction;
+        if (ledgerEngine.isEnabled()) {
+            // the ledger records the idempotency key by the database transaction of the batch of the transfer
+            transaction = performLedgerTransfer(accountOwner, targetAccount, amount, exchangeRate, idempotencyKey);
+        } else {
+            // same node transfers of the accounts queue up here instead of holding connections in the database
+            var lockedAccountIds = getLockedAccountIds(accountOwnerId, targetAccountId);
+            transaction = accountLockStripes.executeLocked(lockedAccountIds,
+                    () -> transferProperties.getLocking() == OPTIMISTIC
+                            ? performOptimisticTransfer(rereadAccountOwner(accountOwner, amount), targetAccount, amount,
+                                    exchangeRate, idempotencyKey)
+                            : performPessimisticTransfer(lockedAccountIds, targetAccount, amount, exchangeRate,
+                                    idempotencyKey));
+        }
         log.info("Transaction with id: {} saved with status: {}", transaction.getId(), transaction.getStatus());
         return transactionMapper.mapToTransactionModel(transaction);
     }
 
+    private AccountModel getAccount(Long ownerId) {
+        return ledgerEngine.isEnabled()
+                ? ledgerEngine.getAccount(ownerId)
+                : accountService.getAccountByOwnerId(ownerId);
+    }
+
+    /**
+     * The credits of a hot target account are spread over its balance slots, so only the account owner is locked
+     * for them: locking the target account would serialize all its credits again.
+     */
+    private List<Long> getLockedAccountIds(Long accountOwnerId, Long targetAccountId) {
+        return transferProperties.getHotAccounts().getOwnerIds().contains(targetAccountId)
+                ? List.of(accountOwnerId)
+                : List.of(accountOwnerId, targetAccountId);
+    }
+
     private void validateBalance(AccountModel accountOwner, BigDecimal amount) {
         var currentBalance = accountOwner.getBalance();
         var isBalanceInsufficient = currentBalance.compareTo(amount) < 0;
@@ -59,43 +120,210 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
 
+    /**
+     * Reads the account owner again once the account locks are held: the version read before waiting for the locks
+     * is most likely outdated by the transfers which held them, and would only fail the first optimistic attempt.
+     */
+    private AccountModel rereadAccountOwner(AccountModel accountOwner, BigDecimal amount) {
+        if (!transferProperties.getAccountLocks().isEnabled()) {
+            return accountOwner;
+        }
+        var currentAccountOwner = accountService.getAccountByOwnerId(accountOwner.getOwnerId());
+        validateBalance(currentAccountOwner, amount);
+        return currentAccountOwner;
+    }
+
+    private TransactionEntity performPessimisticTransfer(List<Long> lockedAccountIds, AccountModel targetAccount,
+                                                         BigDecimal amount, BigDecimal exchangeRate,
+                                                         String idempotencyKey) {
+        var accountOwnerId = lockedAccountIds.get(0);
+        var targetAccountId = targetAccount.getOwnerId();
+        var lock = transferProperties.getLock();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return executeWriteTransaction(PESSIMISTIC, idempotencyKey, () -> {
+                    var accounts = accountService.lockAccounts(lockedAccountIds);
+                    return performTransfer(accounts.get(0), accounts.size() > 1 ? accounts.get(1) : targetAccount,
+                            amount, exchangeRate, () -> accountService.debit(accountOwnerId, amount));
+                });
+            } catch (PessimisticLockingFailureException ex) {
+                recordConflict(PESSIMISTIC);
+                if (attempt >= lock.getMaxAttempts()) {
+                    throw new TransferConflictException(String.format("Transfer from account: %s to account: %s " +
+                            "failed to lock the accounts after attempts: %s", accountOwnerId, targetAccountId, attempt));
+                }
+                log.warn("Retry transfer from account: {} to account: {}, attempt: {} failed to lock the accounts, " +
+                        "reason: {}", accountOwnerId, targetAccountId, attempt, ex.getMessage());
+                recordRetry(PESSIMISTIC);
+                pause(lock.getBackoff(), ex);
+            }
+        }
+    }
+
+    private TransactionEntity performOptimisticTransfer(AccountModel accountOwner, AccountModel targetAccount,
+                                                        BigDecimal amount, BigDecimal exchangeRate,
+                                                        String idempotencyKey) {
+        var optimistic = transferProperties.getOptimistic();
+        var readAccountOwner = accountOwner;
+        for (int attempt = 1; ; attempt++) {
+            var debitedAccount = readAccountOwner;
+            try {
+                return executeWriteTransaction(OPTIMISTIC, idempotencyKey, () -> performTransfer(debitedAccount,
+                        targetAccount, amount, exchangeRate, () -> accountService.debitIfUnchanged(debitedAccount, amount)));
+            } catch (OptimisticLockingFailureException ex) {
+                recordConflict(OPTIMISTIC);
+                if (attempt >= optimistic.getMaxAttempts()) {
+                    throw new TransferConflictException(String.format("Transfer from account: %s to account: %s " +
+                            "failed on concurrent account updates after attempts: %s", accountOwner.getOwnerId(),
+                            targetAccount.getOwnerId(), attempt));
+                }
+                log.warn("Retry transfer from account: {} to account: {}, attempt: {} failed on concurrent account " +
+                        "update, reason: {}", accountOwner.getOwnerId(), targetAccount.getOwnerId(), attempt, ex.getMessage());
+                recordRetry(OPTIMISTIC);
+                pause(getJitteredBackoff(optimistic, attempt), ex);
+
+                readAccountOwner = accountService.getAccountByOwnerId(accountOwner.getOwnerId());
+                validateBalance(readAccountOwner, amount);
+            }
+        }
+    }
+
+    /**
+     * Applies the transfer to the in-memory ledger and waits until the ledger has persisted it.
+     * The outcome of a transfer which is not persisted within the commit timeout is unknown to the client,
+     * the ledger still applies and persists it, and completes the outcome carried by the timeout.
+     */
+    private TransactionEntity performLedgerTransfer(AccountModel accountOwner, AccountModel targetAccount,
+                                                    BigDecimal amount, BigDecimal exchangeRate, String idempotencyKey) {
+        var creditedAmount = TransferAmounts.creditedAmount(amount, exchangeRate);
+        var commitTimeout = transferProperties.getLedger().getCommitTimeout();
+        var result = ledgerEngine.transfer(accountOwner, targetAccount, amount, creditedAmount,
+                TransferAmounts.recordedRate(exchangeRate), idempotencyKey);
+        try {
+            return result.get(commitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ledger failed to perform the transfer", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new TransferTimeoutException(String.format("Transfer from account: %s to account: %s is not " +
+                    "persisted within: %s", accountOwner.getOwnerId(), targetAccount.getOwnerId(), commitTimeout),
+                    result.thenApply(transactionMapper::mapToTransactionModel));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TransferTimeoutException(String.format("Transfer from account: %s to account: %s is " +
+                    "interrupted before it is persisted", accountOwner.getOwnerId(), targetAccount.getOwnerId()),
+                    result.thenApply(transactionMapper::mapToTransactionModel));
+        }
+    }
+
+    /**
+     * Runs the write transaction of a transfer. The connection is borrowed from the pool only for the duration
+     * of the transaction, which is published as the `transfer.write.transaction` timer.
+     * The idempotency key of the transfer, if any, is recorded by the same transaction.
+     */
+    private TransactionEntity executeWriteTransaction(TransferProperties.Locking locking, String idempotencyKey,
+                                                      Supplier<TransactionEntity> transfer) {
+        return meterRegistry.timer("transfer.write.transaction", "locking", locking.name().toLowerCase())
+                .record(() -> transactionTemplate.execute(status -> {
+                    var transaction = transfer.get();
+                    if (idempotencyKey != null) {
+                        recordIdempotencyKey(idempotencyKey, transaction);
+                    }
+                    return transaction;
+                }));
+    }
+
+    /**
+     * A key already recorded by a concurrent transfer fails the insert, which rolls the whole transfer back.
+     */
+    private void recordIdempotencyKey(String idempotencyKey, TransactionEntity transaction) {
+        transferIdempotencyKeyRepository.insertKey(idempotencyKey, transaction.getId(), transaction.getDateTime());
+    }
+
+    private TransactionEntity performTransfer(AccountModel accountOwner, AccountModel targetAccount, BigDecimal amount,
+                                              BigDecimal exchangeRate, Runnable debit) {
+        var transaction = exchangeRate == null
+                ? performSameCurrenciesTransfer(accountOwner, targetAccount, amount, debit)
+                : performDifferentCurrenciesTransfer(accountOwner, targetAccount, amount, exchangeRate, debit);
+        return transactionRepository.save(transaction);
+    }
+
     private TransactionEntity performSameCurrenciesTransfer(AccountModel accountOwner, AccountModel targetAccount,
-                                                            BigDecimal amount) {
+                                                            BigDecimal amount, Runnable debit) {
         log.info("Perform the same currencies transfer, from currency: {}, to currency: {}",
                 accountOwner.getCurrency(), targetAccount.getCurrency());
-        var updatedAccountOwner = accountOwner.toBuilder()
-                .balance(accountOwner.getBalance().subtract(amount))
-                .build();
-        accountService.save(updatedAccountOwner);
-
-        var updatedTargetAccount = targetAccount.toBuilder()
-                .balance(targetAccount.getBalance().add(amount))
-                .build();
-        accountService.save(updatedTargetAccount);
+        moveFunds(accountOwner, targetAccount, debit, () -> accountService.credit(targetAccount.getOwnerId(), amount));
 
         return transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
-                updatedAccountOwner.getBalance(), BigDecimal.ONE);
+                accountOwner.getBalance().subtract(amount), BigDecimal.ONE);
     }
 
     private TransactionEntity performDifferentCurrenciesTransfer(AccountModel accountOwner, AccountModel targetAccount,
-                                                                 BigDecimal amount) {
-        var fromCurrency = accountOwner.getCurrency();
-        var toCurrency = targetAccount.getCurrency();
-        log.info("Perform the different currencies transfer, from currency: {}, to currency: {}", fromCurrency, toCurrency);
-        var actualExchangeRate = exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
-        var exchangeAmount = amount.multiply(actualExchangeRate.getRate()).setScale(2, RoundingMode.HALF_UP);
-
-        var updatedAccountOwner = accountOwner.toBuilder()
-                .balance(accountOwner.getBalance().subtract(amount))
-                .build();
-        accountService.save(updatedAccountOwner);
-
-        var updatedTargetAccount = targetAccount.toBuilder()
-                .balance(targetAccount.getBalance().add(exchangeAmount))
-                .build();
-        accountService.save(updatedTargetAccount);
+                                                                 BigDecimal amount, BigDecimal actualExchangeRate,
+                                                                 Runnable debit) {
+        log.info("Perform the different currencies transfer, from currency: {}, to currency: {}",
+                accountOwner.getCurrency(), targetAccount.getCurrency());
+        var exchangeAmount = TransferAmounts.creditedAmount(amount, actualExchangeRate);
+
+        moveFunds(accountOwner, targetAccount, debit,
+                () -> accountService.credit(targetAccount.getOwnerId(), exchangeAmount));
 
         return transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
-                updatedAccountOwner.getBalance(), actualExchangeRate.getRate());
+                accountOwner.getBalance().subtract(amount), actualExchangeRate);
+    }
+
+    /**
+     * Updates the accounts in the ascending order of the owner IDs, so that the row locks taken by the updates
+     * of transfers in opposite directions cannot deadlock when the accounts have not been locked up front.
+     */
+    private void moveFunds(AccountModel accountOwner, AccountModel targetAccount, Runnable debit, Runnable credit) {
+        if (accountOwner.getOwnerId() < targetAccount.getOwnerId()) {
+            debit.run();
+            credit.run();
+        } else {
+            credit.run();
+            debit.run();
+        }
+    }
+
+    private BigDecimal getExchangeRate(String fromCurrency, String toCurrency, String quoteId, BigDecimal lockedRate) {
+        if (lockedRate != null) {
+            log.info("Use the exchange rate locked before the transfer: {}", lockedRate);
+            return lockedRate;
+        }
+        if (quoteId == null) {
+            return exchangeRateService.getExchangeRate(fromCurrency, toCurrency).getRate();
+        }
+        log.info("Use the locked rate of exchange rate quote: {}", quoteId);
+        return exchangeRateQuoteService.consumeQuote(quoteId, fromCurrency, toCurrency).getRate();
+    }
+
+    private void recordConflict(TransferProperties.Locking locking) {
+        meterRegistry.counter("transfer.conflicts", "locking", locking.name().toLowerCase()).increment();
+    }
+
+    private void recordRetry(TransferProperties.Locking locking) {
+        meterRegistry.counter("transfer.retries", "locking", locking.name().toLowerCase()).increment();
+    }
+
+    /**
+     * Picks a random pause up to the backoff doubled on every retry, so that the transfers which
+     * conflicted with each other do not retry in lockstep.
+     */
+    private Duration getJitteredBackoff(TransferProperties.Optimistic optimistic, int attempt) {
+        var maxBackoffNanos = optimistic.getMaxBackoff().toNanos();
+        var backoffNanos = Math.min(maxBackoffNanos, optimistic.getMinBackoff().toNanos() << Math.min(attempt - 1, 30));
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(backoffNanos + 1));
+    }
+
+    private void pause(Duration backoff, DataAccessException cause) {
+        try {
+            Thread.sleep(backoff.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
     }
 }
@@ -0,0 +1,32 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties.BatchAtomicity;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.TransferConflictException;
+import com.account.transfer.service.model.TransferOrder;
+import com.account.transfer.service.model.TransferResult;
+
+import java.util.List;
+
+/**
+ * Service for performing batches of transfers, e.g. payroll jobs, with a single write transaction per batch.
+ */
+public interface TransferBatchService {
+
+    /**
+     * Performs the transfers of the batch.
+     * <p>
+     * The accounts of the batch are read and the exchange rates resolved before the write transaction, which locks
+     * all the accounts of the batch in the ascending order of their owner IDs, checks every transfer against the
+     * balances left by the transfers before it, then updates the balances and records the transactions with
+     * batched statements. With {@link BatchAtomicity#ALL_OR_NOTHING} a single failed transfer aborts the batch
+     * before anything is written; with {@link BatchAtomicity#PER_ITEM} the failed transfers are left out.
+     *
+     * @param orders     the transfers, in the order they are performed.
+     * @param atomicity  the atomicity of the batch, or null to apply the configured one.
+     * @return the result of every transfer, in the order of the given transfers.
+     * @throws InvalidTransferException  if the atomicity is not supported by the configured transfer engine.
+     * @throws TransferConflictException if the accounts could not be locked within the configured attempts.
+     */
+    List<TransferResult> performTransfers(List<TransferOrder> orders, BatchAtomicity atomicity);
+}
@@ -0,0 +1,303 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.config.TransferProperties.BatchAtomicity;
+import com.account.transfer.entity.TransactionEntity;
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InsufficientBalanceException;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.ServiceException;
+import com.account.transfer.exception.TransferConflictException;
+import com.account.transfer.mapper.TransactionMapper;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.service.ledger.LedgerEngine;
+import com.account.transfer.service.lock.AccountLockStripes;
+import com.account.transfer.service.model.AccountModel;
+import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.TransferAmounts;
+import com.account.transfer.service.model.TransferOrder;
+import com.account.transfer.service.model.TransferResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.account.transfer.config.TransferProperties.BatchAtomicity.ALL_OR_NOTHING;
+import static com.account.transfer.entity.TransactionStatus.SUCCESS;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferBatchServiceImpl implements TransferBatchService {
+
+    private final TransactionService transactionService;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final AccountService accountService;
+    private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateQuoteService exchangeRateQuoteService;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountLockStripes accountLockStripes;
+    private final LedgerEngine ledgerEngine;
+    private final TransferProperties transferProperties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public List<TransferResult> performTransfers(List<TransferOrder> orders, BatchAtomicity atomicity) {
+        var batchAtomicity = atomicity == null ? transferProperties.getBatch().getAtomicity() : atomicity;
+        log.info("Perform batch of transfers: {}, atomicity: {}", orders.size(), batchAtomicity);
+
+        var results = ledgerEngine.isEnabled()
+                ? performLedgerTransfers(orders, batchAtomicity)
+                : performDatabaseTransfers(orders, batchAtomicity);
+
+        var succeeded = results.stream().filter(TransferResult::isSuccess).count();
+        log.info("Batch of transfers: {} performed, succeeded: {}", orders.size(), succeeded);
+        meterRegistry.counter("transfer.batch.items", "result", "success").increment(succeeded);
+        meterRegistry.counter("transfer.batch.items", "result", "failure").increment(results.size() - succeeded);
+        return results;
+    }
+
+    /**
+     * The ledger engine applies every transfer on its own, so the transfers are passed to it one by one.
+     */
+    private List<TransferResult> performLedgerTransfers(List<TransferOrder> orders, BatchAtomicity atomicity) {
+        if (atomicity == ALL_OR_NOTHING) {
+            throw new InvalidTransferException("Batch atomicity: " + atomicity + " is not supported by the ledger engine");
+        }
+        return orders.stream()
+                .map(order -> {
+                    try {
+                        return TransferResult.builder()
+                                .transaction(transactionService.performTransfer(order.getAccountOwnerId(),
+                                        order.getTargetAccountId(), order.getAmount(), order.getQuoteId()))
+                                .build();
+                    } catch (ServiceException ex) {
+                        return TransferResult.builder().error(ex).build();
+                    }
+                })
+                .toList();
+    }
+
+    private List<TransferResult> performDatabaseTransfers(List<TransferOrder> orders, BatchAtomicity atomicity) {
+        var errors = new ServiceException[orders.size()];
+        var ownerIds = new TreeSet<Long>();
+        orders.forEach(order -> {
+            ownerIds.add(order.getAccountOwnerId());
+            ownerIds.add(order.getTargetAccountId());
+        });
+
+        var accounts = accountService.getAccountsByOwnerIds(ownerIds);
+        for (int i = 0; i < orders.size(); i++) {
+            errors[i] = validate(orders.get(i), accounts);
+        }
+        if (isAborted(atomicity, errors)) {
+            return buildAbortedResults(errors);
+        }
+
+        // the quotes are consumed only once every transfer of an all or nothing batch has passed the validation
+        var exchangeRates = resolveExchangeRates(orders, accounts, errors);
+        if (isAborted(atomicity, errors)) {
+            return buildAbortedResults(errors);
+        }
+
+        var lock = transferProperties.getLock();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return accountLockStripes.executeLocked(List.copyOf(ownerIds), () ->
+                        meterRegistry.timer("transfer.batch.write.transaction", "atomicity", atomicity.name().toLowerCase())
+                                .record(() -> transactionTemplate.execute(status ->
+                                        writeTransfers(orders, atomicity, ownerIds, exchangeRates, errors.clone()))));
+            } catch (PessimisticLockingFailureException ex) {
+                if (attempt >= lock.getMaxAttempts()) {
+                    throw new TransferConflictException(String.format("Batch of transfers: %s failed to lock " +
+                            "the accounts after attempts: %s", orders.size(), attempt));
+                }
+                log.warn("Retry batch of transfers: {}, attempt: {} failed to lock the accounts, reason: {}",
+                        orders.size(), attempt, ex.getMessage());
+                pause(lock.getBackoff().toMillis(), ex);
+            }
+        }
+    }
+
+    private ServiceException validate(TransferOrder order, Map<Long, AccountModel> accounts) {
+        if (order.getAccountOwnerId().equals(order.getTargetAccountId())) {
+            return new InvalidTransferException("Cannot transfer funds to the same account: " + order.getAccountOwnerId());
+        }
+        for (var ownerId : List.of(order.getAccountOwnerId(), order.getTargetAccountId())) {
+            if (!accounts.containsKey(ownerId)) {
+                return new AccountNotFoundException(String.format("Account with owner id: [%s] is not found", ownerId));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the exchange rate of every transfer between different currencies, the current rate of a currency
+     * pair is looked up once per batch. The lookups of all the pairs are started together and joined afterwards,
+     * so the batch waits for the slowest pair instead of the sum of them. The rate of a transfer between the same
+     * currencies is null.
+     */
+    private BigDecimal[] resolveExchangeRates(List<TransferOrder> orders, Map<Long, AccountModel> accounts,
+                                              ServiceException[] errors) {
+        var exchangeRates = new BigDecimal[orders.size()];
+        var pairs = new String[orders.size()];
+        var currentRates = new HashMap<String, CompletableFuture<ExchangeRateModel>>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            var order = orders.get(i);
+            var fromCurrency = accounts.get(order.getAccountOwnerId()).getCurrency();
+            var toCurrency = accounts.get(order.getTargetAccountId()).getCurrency();
+            if (fromCurrency.equals(toCurrency)) {
+                continue;
+            }
+
+            if (order.getQuoteId() == null) {
+                pairs[i] = fromCurrency + "/" + toCurrency;
+                currentRates.computeIfAbsent(pairs[i],
+                        key -> exchangeRateService.getExchangeRateAsync(fromCurrency, toCurrency));
+                continue;
+            }
+            try {
+                exchangeRates[i] = exchangeRateQuoteService.consumeQuote(order.getQuoteId(), fromCurrency, toCurrency)
+                        .getRate();
+            } catch (ServiceException ex) {
+                errors[i] = ex;
+            }
+        }
+
+        for (int i = 0; i < orders.size(); i++) {
+            if (pairs[i] == null) {
+                continue;
+            }
+            try {
+                exchangeRates[i] = currentRates.get(pairs[i]).join().getRate();
+            } catch (CompletionException ex) {
+                if (!(ex.getCause() instanceof ServiceException cause)) {
+                    throw ex;
+                }
+                errors[i] = cause;
+            }
+        }
+        return exchangeRates;
+    }
+
+    /**
+     * Checks every transfer against the locked balances left by the transfers before it, then applies the net
+     * balance change of every account and records the transactions with batched statements.
+     */
+    private List<TransferResult> writeTransfers(List<TransferOrder> orders, BatchAtomicity atomicity,
+                                                TreeSet<Long> ownerIds, BigDecimal[] exchangeRates,
+                                                ServiceException[] errors) {
+        var accounts = accountService.lockAllAccounts(ownerIds);
+        var balances = new HashMap<Long, BigDecimal>();
+        accounts.forEach((ownerId, account) -> balances.put(ownerId, account.getBalance()));
+
+        var balanceChanges = new HashMap<Long, BigDecimal>();
+        var transactions = new TransactionEntity[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            var order = orders.get(i);
+            var accountOwner = accounts.get(order.getAccountOwnerId());
+            var targetAccount = accounts.get(order.getTargetAccountId());
+            var amount = order.getAmount();
+            var availableBalance = balances.get(order.getAccountOwnerId());
+            if (availableBalance.compareTo(amount) < 0) {
+                errors[i] = new InsufficientBalanceException("Insufficient balance: " + availableBalance + " for amount: " + amount);
+                if (atomicity == ALL_OR_NOTHING) {
+                    return buildAbortedResults(errors);
+                }
+                continue;
+            }
+
+            var exchangeRate = exchangeRates[i];
+            var creditedAmount = TransferAmounts.creditedAmount(amount, exchangeRate);
+            var residualBalance = availableBalance.subtract(amount);
+            balances.put(order.getAccountOwnerId(), residualBalance);
+            balances.merge(order.getTargetAccountId(), creditedAmount, BigDecimal::add);
+            balanceChanges.merge(order.getAccountOwnerId(), amount.negate(), BigDecimal::add);
+            balanceChanges.merge(order.getTargetAccountId(), creditedAmount, BigDecimal::add);
+
+            transactions[i] = transactionMapper.buildTransactionEntity(accountOwner.toBuilder().balance(availableBalance).build(),
+                    targetAccount, amount, SUCCESS, residualBalance, TransferAmounts.recordedRate(exchangeRate));
+        }
+
+        balanceChanges.values().removeIf(change -> change.signum() == 0);
+        if (!balanceChanges.isEmpty()) {
+            accountService.adjustBalances(balanceChanges);
+        }
+        var performed = new ArrayList<TransactionEntity>();
+        for (var transaction : transactions) {
+            if (transaction != null) {
+                performed.add(transaction);
+            }
+        }
+        transactionRepository.insertAll(performed);
+
+        var results = new ArrayList<TransferResult>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            results.add(TransferResult.builder()
+                    .transaction(transactionMapper.mapToTransactionModel(transactions[i]))
+                    .error(errors[i])
+                    .build());
+        }
+        return results;
+    }
+
+    private boolean isAborted(BatchAtomicity atomicity, ServiceException[] errors) {
+        if (atomicity != ALL_OR_NOTHING) {
+            return false;
+        }
+        for (var error : errors) {
+            if (error != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the results of an aborted batch: the transfers which failed keep their errors, the others fail
+     * because of the first failed transfer.
+     */
+    private List<TransferResult> buildAbortedResults(ServiceException[] errors) {
+        var failedIndex = 0;
+        while (errors[failedIndex] == null) {
+            failedIndex++;
+        }
+        var abortedError = new InvalidTransferException(String.format("Transfer is not performed, the batch is " +
+                "aborted by the transfer at index: %s", failedIndex));
+
+        var results = new ArrayList<TransferResult>(errors.length);
+        for (var error : errors) {
+            results.add(TransferResult.builder()
+                    .error(error == null ? abortedError : error)
+                    .build());
+        }
+        return results;
+    }
+
+    private void pause(long backoffMillis, PessimisticLockingFailureException cause) {
+        try {
+            Thread.sleep(backoffMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
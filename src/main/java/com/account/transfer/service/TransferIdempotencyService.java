@@ -0,0 +1,32 @@
+package com.account.transfer.service;
+
+import com.account.transfer.exception.IdempotencyKeyReuseException;
+import com.account.transfer.exception.TransferConflictException;
+import com.account.transfer.service.model.TransactionModel;
+
+import java.math.BigDecimal;
+
+/**
+ * Service interface for performing the transfers with an idempotency key given by the client.
+ */
+public interface TransferIdempotencyService {
+
+    /**
+     * Performs the transfer once per idempotency key. A repeated key returns the transaction of the transfer
+     * performed with it, from memory or from the database, without touching the accounts; a transfer with a key
+     * of a transfer still in progress waits for it to complete and returns its outcome. A failed transfer records
+     * no key, so its retry is performed again.
+     *
+     * @param idempotencyKey  the idempotency key given by the client.
+     * @param accountOwnerId  the ID of the account from which the money will be transferred.
+     * @param targetAccountId the ID of the account to which the money will be transferred.
+     * @param amount          the amount of money to transfer.
+     * @param quoteId         the ID of the exchange rate quote to consume, or null to apply the current exchange rate.
+     * @param lockedRate      the exchange rate locked before the transfer, applied instead of the quote when not null.
+     * @return the {@link TransactionModel} representing the transaction performed with the key.
+     * @throws IdempotencyKeyReuseException if the key has been used by a transfer of other accounts or amount.
+     * @throws TransferConflictException    if the transfer with the same key does not complete within the wait timeout.
+     */
+    TransactionModel performTransfer(String idempotencyKey, Long accountOwnerId, Long targetAccountId,
+                                     BigDecimal amount, String quoteId, BigDecimal lockedRate);
+}
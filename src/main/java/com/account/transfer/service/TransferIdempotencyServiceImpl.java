@@ -0,0 +1,229 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.exception.IdempotencyKeyReuseException;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.TransferConflictException;
+import com.account.transfer.exception.TransferTimeoutException;
+import com.account.transfer.mapper.TransactionMapper;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferIdempotencyKeyRepository;
+import com.account.transfer.service.model.TransactionModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Performs the transfers with an idempotency key once per key.
+ * <p>
+ * The transactions of the completed transfers are kept in memory by their keys, in a map bounded to the configured
+ * cache size which evicts the least recently used key. A key missing in memory is looked up in the database, where
+ * it is recorded by the write transaction of its transfer, so that it survives the eviction, a restart and
+ * the transfers performed by other instances. The transfers in progress are tracked by their keys as well,
+ * so that a concurrent duplicate waits for the first transfer instead of racing it to the database. A transfer
+ * which timed out before the ledger persisted it stays in progress until the ledger persists or reverts it,
+ * so that a retry of the timeout cannot perform it a second time.
+ */
+@Slf4j
+@Service
+public class TransferIdempotencyServiceImpl implements TransferIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final TransactionService transactionService;
+    private final TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TransactionModel> completedTransfers;
+    private final Map<String, CompletableFuture<TransactionModel>> transfersInProgress = new ConcurrentHashMap<>();
+
+    public TransferIdempotencyServiceImpl(TransactionService transactionService,
+                                          TransferIdempotencyKeyRepository transferIdempotencyKeyRepository,
+                                          TransactionRepository transactionRepository,
+                                          TransactionMapper transactionMapper,
+                                          TransactionTemplate transactionTemplate,
+                                          TransferProperties transferProperties,
+                                          MeterRegistry meterRegistry) {
+        this.transactionService = transactionService;
+        this.transferIdempotencyKeyRepository = transferIdempotencyKeyRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionMapper = transactionMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.transferProperties = transferProperties;
+        this.meterRegistry = meterRegistry;
+        var cacheSize = transferProperties.getIdempotency().getCacheSize();
+        this.completedTransfers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TransactionModel> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public TransactionModel performTransfer(String idempotencyKey, Long accountOwnerId, Long targetAccountId,
+                                            BigDecimal amount, String quoteId, BigDecimal lockedRate) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidTransferException(String.format(
+                    "Idempotency key must have from 1 to %s characters", MAX_KEY_LENGTH));
+        }
+
+        var completedTransfer = getCompletedTransfer(idempotencyKey);
+        if (completedTransfer != null) {
+            return replay(idempotencyKey, completedTransfer, "cache", accountOwnerId, targetAccountId, amount);
+        }
+
+        var transfer = new CompletableFuture<TransactionModel>();
+        var transferInProgress = transfersInProgress.putIfAbsent(idempotencyKey, transfer);
+        if (transferInProgress != null) {
+            log.info("Wait for transfer in progress with idempotency key: {}", idempotencyKey);
+            return replay(idempotencyKey, await(idempotencyKey, transferInProgress), "in-progress",
+                    accountOwnerId, targetAccountId, amount);
+        }
+
+        var settled = true;
+        try {
+            var storedTransfer = findStoredTransfer(idempotencyKey);
+            var transaction = storedTransfer.isPresent()
+                    ? replay(idempotencyKey, storedTransfer.get(), "database", accountOwnerId, targetAccountId, amount)
+                    : performOnce(idempotencyKey, accountOwnerId, targetAccountId, amount, quoteId,
+                            lockedRate);
+            putCompletedTransfer(idempotencyKey, transaction);
+            transfer.complete(transaction);
+            return transaction;
+        } catch (TransferTimeoutException ex) {
+            settled = false;
+            settleOnOutcome(idempotencyKey, transfer, ex.getOutcome());
+            throw ex;
+        } catch (RuntimeException ex) {
+            transfer.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            if (settled) {
+                transfersInProgress.remove(idempotencyKey, transfer);
+            }
+        }
+    }
+
+    /**
+     * Deletes the keys older than the retention from the database, so that the key table does not grow
+     * with every transfer. The keys kept in memory are checked against the retention when they are read.
+     */
+    @Scheduled(fixedDelayString = "${transfer.idempotency.eviction-interval:PT1H}")
+    public void evictExpiredKeys() {
+        var createdBefore = ZonedDateTime.now().minus(transferProperties.getIdempotency().getRetention());
+        var deleted = transactionTemplate.execute(status ->
+                transferIdempotencyKeyRepository.deleteAllCreatedBefore(createdBefore));
+        log.info("Evicted idempotency keys: {} created before: {}", deleted, createdBefore);
+    }
+
+    private TransactionModel performOnce(String idempotencyKey, Long accountOwnerId, Long targetAccountId,
+                                         BigDecimal amount, String quoteId, BigDecimal lockedRate) {
+        try {
+            return transactionService.performTransfer(accountOwnerId, targetAccountId, amount, quoteId, lockedRate,
+                    idempotencyKey);
+        } catch (DataIntegrityViolationException ex) {
+            // the key has been recorded by a transfer of another instance, this transfer has been rolled back
+            var storedTransfer = findStoredTransfer(idempotencyKey).orElseThrow(() -> ex);
+            return replay(idempotencyKey, storedTransfer, "database", accountOwnerId, targetAccountId, amount);
+        }
+    }
+
+    /**
+     * Keeps the key of a transfer which timed out in progress until the ledger completes its outcome: the key is
+     * recorded together with the persisted transfer, and a reverted transfer may be performed again.
+     */
+    private void settleOnOutcome(String idempotencyKey, CompletableFuture<TransactionModel> transfer,
+                                 CompletableFuture<TransactionModel> outcome) {
+        log.warn("Transfer with idempotency key: {} is kept in progress until it is persisted", idempotencyKey);
+        outcome.whenComplete((transaction, ex) -> {
+            if (ex == null) {
+                putCompletedTransfer(idempotencyKey, transaction);
+                transfer.complete(transaction);
+            } else {
+                transfer.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null
+                        ? ex.getCause() : ex);
+            }
+            transfersInProgress.remove(idempotencyKey, transfer);
+        });
+    }
+
+    private Optional<TransactionModel> findStoredTransfer(String idempotencyKey) {
+        return transferIdempotencyKeyRepository.findById(idempotencyKey)
+                .flatMap(key -> transactionRepository.findById(key.getTransactionId()))
+                .map(transactionMapper::mapToTransactionModel);
+    }
+
+    private TransactionModel await(String idempotencyKey, CompletableFuture<TransactionModel> transferInProgress) {
+        var waitTimeout = transferProperties.getIdempotency().getWaitTimeout();
+        try {
+            return transferInProgress.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Transfer with idempotency key: " + idempotencyKey + " failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new TransferConflictException(String.format("Transfer with idempotency key: %s is still in " +
+                    "progress after: %s", idempotencyKey, waitTimeout));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TransferConflictException(String.format("Transfer with idempotency key: %s is interrupted " +
+                    "while waiting for the transfer in progress", idempotencyKey));
+        }
+    }
+
+    /**
+     * Returns the transaction performed with the key, provided that it transfers the same amount
+     * between the same accounts as the repeated request.
+     */
+    private TransactionModel replay(String idempotencyKey, TransactionModel transaction, String source,
+                                    Long accountOwnerId, Long targetAccountId, BigDecimal amount) {
+        if (!transaction.getAccountOwnerId().equals(accountOwnerId)
+                || !transaction.getTargetAccountId().equals(targetAccountId)
+                || transaction.getAmount().compareTo(amount) != 0) {
+            throw new IdempotencyKeyReuseException(idempotencyKey);
+        }
+        log.info("Replay transaction with id: {} of idempotency key: {} from: {}", transaction.getTransactionId(),
+                idempotencyKey, source);
+        meterRegistry.counter("transfer.idempotency.replays", "source", source).increment();
+        return transaction;
+    }
+
+    private TransactionModel getCompletedTransfer(String idempotencyKey) {
+        synchronized (completedTransfers) {
+            var transaction = completedTransfers.get(idempotencyKey);
+            var retainedSince = ZonedDateTime.now().minus(transferProperties.getIdempotency().getRetention());
+            if (transaction != null && transaction.getDateTime().isBefore(retainedSince)) {
+                completedTransfers.remove(idempotencyKey);
+                return null;
+            }
+            return transaction;
+        }
+    }
+
+    private void putCompletedTransfer(String idempotencyKey, TransactionModel transaction) {
+        synchronized (completedTransfers) {
+            completedTransfers.put(idempotencyKey, transaction);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.account.transfer.service;
+
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.QuoteNotFoundException;
+import com.account.transfer.exception.TransferRequestNotFoundException;
+import com.account.transfer.service.model.TransferRequestModel;
+
+import java.math.BigDecimal;
+
+/**
+ * Service interface for the transfers submitted for asynchronous execution.
+ */
+public interface TransferRequestService {
+
+    /**
+     * Validates the transfer and records it in the database as pending, then hands it to the worker pool
+     * without waiting for it to be performed. The transfer is performed once, with the given idempotency key
+     * or a key of its own, so that a transfer performed again after a failure or a restart does not move
+     * the funds twice. The exchange rate quote is consumed when the transfer is submitted and its locked rate is
+     * recorded with the transfer, so that any instance can perform it with that rate.
+     *
+     * @param accountOwnerId  the ID of the account from which the money will be transferred.
+     * @param targetAccountId the ID of the account to which the money will be transferred.
+     * @param amount          the amount of money to transfer.
+     * @param quoteId         the ID of the exchange rate quote to consume, or null to apply the current exchange rate.
+     * @param idempotencyKey  the idempotency key given by the client, or null.
+     * @return the {@link TransferRequestModel} representing the pending transfer.
+     * @throws InvalidTransferException if the transfer is between the same account or the idempotency key is invalid.
+     * @throws AccountNotFoundException if any of the accounts is not found.
+     * @throws QuoteNotFoundException   if the quote is not found, has expired or has already been consumed.
+     */
+    TransferRequestModel submitTransfer(Long accountOwnerId, Long targetAccountId, BigDecimal amount, String quoteId,
+                                        String idempotencyKey);
+
+    /**
+     * Retrieves the submitted transfer with its current status.
+     *
+     * @param transferId the ID of the submitted transfer.
+     * @return the {@link TransferRequestModel} representing the submitted transfer, with the performed transaction
+     * if it succeeded or the error if it failed.
+     * @throws TransferRequestNotFoundException if the transfer is not found, e.g. it has been evicted after the retention.
+     */
+    TransferRequestModel getTransferRequest(Long transferId);
+}
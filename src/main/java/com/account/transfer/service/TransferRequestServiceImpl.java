@@ -0,0 +1,363 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.TransferRequestEntity;
+import com.account.transfer.entity.TransferRequestStatus;
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.ServiceException;
+import com.account.transfer.exception.TransferConflictException;
+import com.account.transfer.exception.TransferNotPersistedException;
+import com.account.transfer.exception.TransferRequestNotFoundException;
+import com.account.transfer.exception.TransferTimeoutException;
+import com.account.transfer.mapper.TransactionMapper;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferRequestRepository;
+import com.account.transfer.service.model.AccountModel;
+import com.account.transfer.service.model.TransactionModel;
+import com.account.transfer.service.model.TransferRequestModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Performs the transfers submitted for asynchronous execution.
+ * <p>
+ * A submitted transfer is recorded in the database as pending before it is acknowledged, so the table is the durable
+ * queue of the transfers. The transfer is then handed to a fixed pool of worker threads through a bounded in-memory
+ * queue; a transfer which does not fit into it stays pending in the database and is handed over by the dispatcher,
+ * which periodically polls the pending transfers, including the ones left by a restart, as the queue drains.
+ * A worker claims a transfer with a conditional update, so every transfer is taken by a single worker of any
+ * instance, and performs it with an idempotency key: a transfer abandoned in processing and performed again
+ * returns the transaction of its first execution instead of moving the funds twice.
+ */
+@Slf4j
+@Service
+public class TransferRequestServiceImpl implements TransferRequestService {
+
+    private static final String IDEMPOTENCY_KEY_PREFIX = "transfer-request:";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+    private static final String INTERNAL_ERROR_MESSAGE = "Transfer failed with an internal error";
+
+    private final TransferRequestRepository transferRequestRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountService accountService;
+    private final TransferIdempotencyService transferIdempotencyService;
+    private final ExchangeRateQuoteService exchangeRateQuoteService;
+    private final TransactionMapper transactionMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor workers;
+    private final Set<Long> queuedTransferIds = ConcurrentHashMap.newKeySet();
+
+    public TransferRequestServiceImpl(TransferRequestRepository transferRequestRepository,
+                                      TransactionRepository transactionRepository,
+                                      AccountService accountService,
+                                      TransferIdempotencyService transferIdempotencyService,
+                                      ExchangeRateQuoteService exchangeRateQuoteService,
+                                      TransactionMapper transactionMapper,
+                                      TransactionTemplate transactionTemplate,
+                                      TransferProperties transferProperties,
+                                      MeterRegistry meterRegistry) {
+        this.transferRequestRepository = transferRequestRepository;
+        this.transactionRepository = transactionRepository;
+        this.accountService = accountService;
+        this.transferIdempotencyService = transferIdempotencyService;
+        this.exchangeRateQuoteService = exchangeRateQuoteService;
+        this.transactionMapper = transactionMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.transferProperties = transferProperties;
+        this.meterRegistry = meterRegistry;
+        var async = transferProperties.getAsync();
+        this.workers = new ThreadPoolExecutor(async.getWorkerThreads(), async.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(async.getQueueCapacity()),
+                new CustomizableThreadFactory("transfer-worker-"));
+        new ExecutorServiceMetrics(workers, "transfer.async.workers", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    @Override
+    public TransferRequestModel submitTransfer(Long accountOwnerId, Long targetAccountId, BigDecimal amount,
+                                               String quoteId, String idempotencyKey) {
+        if (accountOwnerId.equals(targetAccountId)) {
+            throw new InvalidTransferException("Cannot transfer funds to the same account: " + accountOwnerId);
+        }
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new InvalidTransferException(String.format(
+                    "Idempotency key must have from 1 to %s characters", MAX_IDEMPOTENCY_KEY_LENGTH));
+        }
+        var accounts = accountService.getAccountsByOwnerIds(List.of(accountOwnerId, targetAccountId));
+        for (var ownerId : List.of(accountOwnerId, targetAccountId)) {
+            if (!accounts.containsKey(ownerId)) {
+                throw new AccountNotFoundException(String.format("Account with owner id: [%s] is not found", ownerId));
+            }
+        }
+        var exchangeRate = lockQuotedRate(accounts.get(accountOwnerId), accounts.get(targetAccountId), quoteId);
+
+        var now = ZonedDateTime.now();
+        var request = new TransferRequestEntity();
+        request.setFromAccountId(accountOwnerId);
+        request.setToAccountId(targetAccountId);
+        request.setAmount(amount);
+        request.setQuoteId(quoteId);
+        request.setExchangeRate(exchangeRate);
+        request.setIdempotencyKey(idempotencyKey);
+        request.setStatus(TransferRequestStatus.PENDING);
+        request.setCreatedAt(now);
+        request.setUpdatedAt(now);
+        var submittedRequest = transferRequestRepository.save(request);
+        log.info("Submitted transfer request with id: {} from account: {} to account: {}", submittedRequest.getId(),
+                accountOwnerId, targetAccountId);
+        meterRegistry.counter("transfer.async.submitted").increment();
+
+        var transferRequest = transactionMapper.mapToTransferRequestModel(submittedRequest, null);
+        enqueue(submittedRequest.getId());
+        return transferRequest;
+    }
+
+    @Override
+    public TransferRequestModel getTransferRequest(Long transferId) {
+        var request = transferRequestRepository.findById(transferId)
+                .orElseThrow(() -> new TransferRequestNotFoundException(transferId));
+        var transaction = request.getTransactionId() == null ? null
+                : transactionRepository.findById(request.getTransactionId())
+                        .map(transactionMapper::mapToTransactionModel)
+                        .orElse(null);
+        return transactionMapper.mapToTransferRequestModel(request, transaction);
+    }
+
+    /**
+     * Quotes are kept in the memory of the instance which created them, so the quote is consumed on submission
+     * and its locked rate is recorded with the transfer, for a worker of any instance and any attempt to apply it.
+     */
+    private BigDecimal lockQuotedRate(AccountModel accountOwner, AccountModel targetAccount, String quoteId) {
+        if (quoteId == null || accountOwner.getCurrency().equals(targetAccount.getCurrency())) {
+            return null;
+        }
+        log.info("Lock the rate of exchange rate quote: {} for the submitted transfer", quoteId);
+        return exchangeRateQuoteService.consumeQuote(quoteId, accountOwner.getCurrency(), targetAccount.getCurrency())
+                .getRate();
+    }
+
+    /**
+     * Hands the pending transfers to the workers, as many as fit into the in-memory queue, after releasing
+     * the transfers left in processing longer than the processing timeout.
+     */
+    @Scheduled(fixedDelayString = "${transfer.async.poll-interval:PT1S}")
+    public void dispatchPendingTransfers() {
+        var now = ZonedDateTime.now();
+        var releasedBefore = now.minus(transferProperties.getAsync().getProcessingTimeout());
+        var released = transactionTemplate.execute(status ->
+                transferRequestRepository.releaseAllUpdatedBefore(releasedBefore, now));
+        if (released != null && released > 0) {
+            log.warn("Released transfer requests: {} left in processing since before: {}", released, releasedBefore);
+        }
+
+        var capacity = workers.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        transferRequestRepository.findIdsByStatus(TransferRequestStatus.PENDING, PageRequest.of(0, capacity))
+                .forEach(this::enqueue);
+    }
+
+    /**
+     * Deletes the completed transfers older than the retention from the database.
+     */
+    @Scheduled(fixedDelayString = "${transfer.async.eviction-interval:PT1H}")
+    public void evictCompletedTransfers() {
+        var updatedBefore = ZonedDateTime.now().minus(transferProperties.getAsync().getRetention());
+        var deleted = transactionTemplate.execute(status -> transferRequestRepository.deleteAllUpdatedBefore(
+                List.of(TransferRequestStatus.SUCCESS, TransferRequestStatus.FAILED), updatedBefore));
+        log.info("Evicted transfer requests: {} completed before: {}", deleted, updatedBefore);
+    }
+
+    /**
+     * Stops the workers. The transfers still waiting in the in-memory queue are dropped, they stay pending
+     * in the database and are performed after the restart.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.getQueue().clear();
+        workers.shutdown();
+        var shutdownTimeout = transferProperties.getAsync().getShutdownTimeout();
+        try {
+            if (!workers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+
+    private void enqueue(Long transferId) {
+        if (!queuedTransferIds.add(transferId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> process(transferId));
+        } catch (RejectedExecutionException ex) {
+            queuedTransferIds.remove(transferId);
+            log.info("Transfer request with id: {} is left pending, the worker queue is full", transferId);
+            meterRegistry.counter("transfer.async.deferred").increment();
+        }
+    }
+
+    private void process(Long transferId) {
+        queuedTransferIds.remove(transferId);
+        var claimed = transactionTemplate.execute(status ->
+                transferRequestRepository.claim(transferId, ZonedDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            // the transfer has been taken by another worker, or it is completed
+            return;
+        }
+
+        var request = transferRequestRepository.findById(transferId).orElseThrow();
+        try {
+            var transaction = transferIdempotencyService.performTransfer(getIdempotencyKey(request),
+                    request.getFromAccountId(), request.getToAccountId(), request.getAmount(), request.getQuoteId(),
+                    request.getExchangeRate());
+            complete(request, transaction);
+        } catch (TransferTimeoutException ex) {
+            awaitOutcome(request, ex);
+        } catch (RuntimeException ex) {
+            handleFailure(request, ex);
+        }
+    }
+
+    /**
+     * A transfer which timed out before the ledger persisted it is not performed again, the request stays
+     * in processing until the ledger persists or reverts it. A request whose outcome is still unknown after
+     * the processing timeout is left to the release, and its next attempt waits for the transfer under
+     * the same idempotency key.
+     */
+    private void awaitOutcome(TransferRequestEntity request, TransferTimeoutException timeout) {
+        var processingTimeout = transferProperties.getAsync().getProcessingTimeout();
+        try {
+            complete(request, timeout.getOutcome().get(processingTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (ExecutionException ex) {
+            handleFailure(request, ex.getCause() instanceof RuntimeException cause
+                    ? cause : new IllegalStateException(ex.getCause()));
+        } catch (TimeoutException ex) {
+            log.warn("Transfer request with id: {} is left in processing, its transfer is not persisted after: {}",
+                    request.getId(), processingTimeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.warn("Transfer request with id: {} is left in processing, interrupted while its transfer is persisted",
+                    request.getId());
+        }
+    }
+
+    private void handleFailure(TransferRequestEntity request, RuntimeException failure) {
+        if (failure instanceof TransferConflictException || failure instanceof TransferNotPersistedException) {
+            retryOrFail(request, failure);
+        } else if (failure instanceof ServiceException ex) {
+            fail(request, ex.getErrorStatus().value() + ex.getErrorCode().getCode(), ex.getErrorCode().name(),
+                    ex.getMessage());
+        } else {
+            log.error("Transfer request with id: {} failed", request.getId(), failure);
+            retryOrFail(request, failure);
+        }
+    }
+
+    private String getIdempotencyKey(TransferRequestEntity request) {
+        return request.getIdempotencyKey() != null
+                ? request.getIdempotencyKey()
+                : IDEMPOTENCY_KEY_PREFIX + request.getId();
+    }
+
+    private void complete(TransferRequestEntity request, TransactionModel transaction) {
+        if (!update(request, TransferRequestStatus.SUCCESS, transaction.getTransactionId(), null, null, null)) {
+            return;
+        }
+        log.info("Transfer request with id: {} completed with transaction id: {}", request.getId(),
+                transaction.getTransactionId());
+        recordCompletion(request, TransferRequestStatus.SUCCESS);
+    }
+
+    /**
+     * Returns a transfer failed with a transient error, e.g. the accounts could not be locked in time,
+     * to the pending transfers until it runs out of attempts.
+     */
+    private void retryOrFail(TransferRequestEntity request, RuntimeException cause) {
+        if (request.getAttempts() >= transferProperties.getAsync().getMaxAttempts()) {
+            if (cause instanceof ServiceException ex) {
+                fail(request, ex.getErrorStatus().value() + ex.getErrorCode().getCode(), ex.getErrorCode().name(),
+                        ex.getMessage());
+            } else {
+                fail(request, String.valueOf(HttpStatus.INTERNAL_SERVER_ERROR.value()),
+                        HttpStatus.INTERNAL_SERVER_ERROR.name(), INTERNAL_ERROR_MESSAGE);
+            }
+            return;
+        }
+
+        if (!update(request, TransferRequestStatus.PENDING, null, null, null, null)) {
+            return;
+        }
+        log.warn("Transfer request with id: {} failed attempt: {}, reason: {}", request.getId(), request.getAttempts(),
+                cause.getMessage());
+        meterRegistry.counter("transfer.async.retries").increment();
+    }
+
+    private void fail(TransferRequestEntity request, String errorCode, String errorKey, String errorMessage) {
+        var storedMessage = errorMessage == null || errorMessage.length() <= MAX_ERROR_MESSAGE_LENGTH
+                ? errorMessage : errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+        if (!update(request, TransferRequestStatus.FAILED, null, errorCode, errorKey, storedMessage)) {
+            return;
+        }
+        log.warn("Transfer request with id: {} failed with error: {}, reason: {}", request.getId(), errorKey,
+                errorMessage);
+        recordCompletion(request, TransferRequestStatus.FAILED);
+    }
+
+    /**
+     * Records the outcome of the attempt the request was claimed with. The outcome is dropped when the request
+     * has been released meanwhile, e.g. the transfer outlived the processing timeout, and claimed again: it is
+     * then owned by the newer attempt, which performs the transfer with the same idempotency key.
+     *
+     * @return whether the outcome is recorded.
+     */
+    private boolean update(TransferRequestEntity request, TransferRequestStatus status, Long transactionId,
+                           String errorCode, String errorKey, String errorMessage) {
+        var updated = transactionTemplate.execute(txStatus -> transferRequestRepository.updateClaimed(
+                request.getId(), request.getAttempts(), status, transactionId, errorCode, errorKey, errorMessage,
+                ZonedDateTime.now()));
+        if (updated == null || updated == 0) {
+            log.warn("Dropped outcome: {} of transfer request with id: {} attempt: {}, the request was claimed again",
+                    status, request.getId(), request.getAttempts());
+            meterRegistry.counter("transfer.async.stale").increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void recordCompletion(TransferRequestEntity request, TransferRequestStatus status) {
+        meterRegistry.counter("transfer.async.completed", "status", status.name()).increment();
+        meterRegistry.timer("transfer.async.latency", "status", status.name())
+                .record(Duration.between(request.getCreatedAt(), ZonedDateTime.now()));
+    }
+}
@@ -0,0 +1,35 @@
+package com.account.transfer.service.ledger;
+
+import com.account.transfer.service.model.AccountModel;
+
+import java.math.BigDecimal;
+
+/**
+ * Account held in memory by a {@link LedgerShard}. The balance is changed only by the writer thread
+ * of the shard and may be read by any thread.
+ */
+final class LedgerAccount {
+
+    private final AccountModel account;
+    private volatile BigDecimal balance;
+
+    LedgerAccount(AccountModel account) {
+        this.account = account;
+        this.balance = account.getBalance();
+    }
+
+    BigDecimal getBalance() {
+        return balance;
+    }
+
+    void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    AccountModel toAccountModel() {
+        return account.toBuilder()
+                .balance(balance)
+                .version(null)
+                .build();
+    }
+}
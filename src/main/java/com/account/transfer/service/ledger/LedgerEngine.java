@@ -0,0 +1,205 @@
+package com.account.transfer.service.ledger;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.TransactionEntity;
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.mapper.AccountMapper;
+import com.account.transfer.mapper.TransactionMapper;
+import com.account.transfer.repository.AccountRepository;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferIdempotencyKeyRepository;
+import com.account.transfer.service.AccountBalanceSlotService;
+import com.account.transfer.service.model.AccountModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.account.transfer.entity.TransactionStatus.SUCCESS;
+
+/**
+ * In-memory ledger of the account balances, the transfer engine selected with `transfer.engine: ledger`.
+ * <p>
+ * The accounts are partitioned by owner ID into {@link LedgerShard}s, each owned by a single writer thread.
+ * A transfer is executed by the shards of its accounts in two steps: the shard of the source account debits it,
+ * then hands the credit of the target account over to the shard of the target account, which is the same shard
+ * for a transfer within a shard. A debit rejected for an insufficient balance ends the transfer before anything
+ * is changed; a credit of an account unknown to its shard is compensated by crediting the source account back.
+ * <p>
+ * The applied transfers are persisted by the {@link LedgerWriteBehind} in batches, and a transfer is reported
+ * as completed once its batch is committed, or as failed and reverted once the database has kept rejecting it.
+ * The database therefore holds every completed transfer, and the shards are rebuilt from the account table when
+ * the engine starts, before the application accepts requests.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerEngine implements SmartLifecycle {
+
+    private final TransferProperties transferProperties;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+    private final AccountBalanceSlotService accountBalanceSlotService;
+    private final AccountMapper accountMapper;
+    private final TransactionMapper transactionMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private LedgerShard[] shards;
+    private LedgerWriteBehind writeBehind;
+    private volatile boolean running;
+
+    public boolean isEnabled() {
+        return transferProperties.getEngine() == TransferProperties.Engine.LEDGER;
+    }
+
+    /**
+     * Rebuilds the shards from the account table and starts their writer threads and the write-behind.
+     */
+    @Override
+    public void start() {
+        if (isEnabled()) {
+            var properties = transferProperties.getLedger();
+            shards = new LedgerShard[properties.getShards()];
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new LedgerShard(i);
+            }
+            // the shards hold the whole balance of the hot accounts in memory, without their balance slots
+            accountBalanceSlotService.consolidateAll();
+            var accounts = accountRepository.findAll();
+            accounts.forEach(account -> getShard(account.getOwnerId()).load(accountMapper.mapToAccountModel(account)));
+            log.info("Ledger recovered accounts: {} into shards: {}", accounts.size(), shards.length);
+
+            writeBehind = new LedgerWriteBehind(properties, transactionRepository, accountRepository,
+                    transferIdempotencyKeyRepository, transactionTemplate, this::revert, meterRegistry);
+            writeBehind.start();
+            for (var shard : shards) {
+                shard.start();
+            }
+        }
+        running = true;
+    }
+
+    /**
+     * Stops the shards once the submitted transfers have been applied, then persists the pending batches.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (shards == null) {
+            return;
+        }
+        try {
+            for (var shard : shards) {
+                shard.stop();
+            }
+            writeBehind.stop();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.warn("Ledger stopped before the pending transfers were persisted");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts the ledger before the web server accepts requests and stops it after the web server has stopped.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Returns the account with its current in-memory balance.
+     *
+     * @param ownerId the ID of the account owner.
+     * @return the {@link AccountModel} representing the account.
+     * @throws AccountNotFoundException if the account by the owner's ID is not found
+     */
+    public AccountModel getAccount(Long ownerId) {
+        return getShard(ownerId).findAccount(ownerId)
+                .orElseThrow(() -> new AccountNotFoundException(
+                        String.format("Account with owner id: [%s] is not found", ownerId)));
+    }
+
+    /**
+     * Transfers the funds between the accounts.
+     *
+     * @param accountOwner   the account from which the funds are transferred.
+     * @param targetAccount  the account to which the funds are transferred.
+     * @param amount         the amount debited from the source account.
+     * @param creditedAmount the amount credited to the target account, in its currency.
+     * @param exchangeRate   the applied exchange rate.
+     * @param idempotencyKey the idempotency key recorded together with the transaction, or null if it has none.
+     * @return the future completed with the persisted transaction, or failed with the reason of the rejection.
+     */
+    public CompletableFuture<TransactionEntity> transfer(AccountModel accountOwner, AccountModel targetAccount,
+                                                         BigDecimal amount, BigDecimal creditedAmount,
+                                                         BigDecimal exchangeRate, String idempotencyKey) {
+        var result = new CompletableFuture<TransactionEntity>();
+        var ownerId = accountOwner.getOwnerId();
+        var targetId = targetAccount.getOwnerId();
+        var sourceShard = getShard(ownerId);
+        var targetShard = getShard(targetId);
+
+        sourceShard.submit(() -> {
+            BigDecimal residualBalance;
+            try {
+                residualBalance = sourceShard.debit(ownerId, amount);
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            targetShard.submit(() -> {
+                try {
+                    targetShard.credit(targetId, creditedAmount);
+                } catch (RuntimeException ex) {
+                    sourceShard.submit(() -> sourceShard.credit(ownerId, amount));
+                    result.completeExceptionally(ex);
+                    return;
+                }
+                var availableAccountOwner = accountOwner.toBuilder()
+                        .balance(residualBalance.add(amount))
+                        .build();
+                var transaction = transactionMapper.buildTransactionEntity(availableAccountOwner, targetAccount,
+                        amount, SUCCESS, residualBalance, exchangeRate);
+                var balanceChanges = Map.of(ownerId, amount.negate(), targetId, creditedAmount);
+                writeBehind.append(transaction, balanceChanges, idempotencyKey)
+                        .whenComplete((persisted, ex) -> {
+                            if (ex == null) {
+                                result.complete(persisted);
+                            } else {
+                                result.completeExceptionally(ex);
+                            }
+                        });
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Reverts the balance changes of the transfers which the write-behind failed to persist, so that the shards
+     * match the database again. The changes are applied by the writer threads of the shards without any balance check.
+     */
+    private void revert(Map<Long, BigDecimal> balanceChanges) {
+        balanceChanges.forEach((ownerId, change) -> {
+            var shard = getShard(ownerId);
+            shard.submit(() -> shard.credit(ownerId, change.negate()));
+        });
+    }
+
+    private LedgerShard getShard(Long ownerId) {
+        return shards[Math.floorMod(Long.hashCode(ownerId), shards.length)];
+    }
+}
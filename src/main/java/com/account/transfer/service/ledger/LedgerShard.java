@@ -0,0 +1,120 @@
+package com.account.transfer.service.ledger;
+
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InsufficientBalanceException;
+import com.account.transfer.service.model.AccountModel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Partition of the in-memory ledger owning the balances of a subset of the accounts.
+ * <p>
+ * The balances are changed only by the single writer thread of the shard, which executes the submitted
+ * commands one at a time in submission order, so no command ever needs a lock. Commands are submitted
+ * through a lock-free queue by any thread, including the writer threads of the other shards.
+ */
+@Slf4j
+final class LedgerShard implements Runnable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final int index;
+    private final Map<Long, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    LedgerShard(int index) {
+        this.index = index;
+        this.writer = new Thread(this, "ledger-shard-" + index);
+        this.writer.setDaemon(true);
+    }
+
+    void load(AccountModel account) {
+        accounts.put(account.getOwnerId(), new LedgerAccount(account));
+    }
+
+    void start() {
+        writer.start();
+    }
+
+    /**
+     * Stops the writer thread once the commands submitted so far have been executed.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    Optional<AccountModel> findAccount(Long ownerId) {
+        return Optional.ofNullable(accounts.get(ownerId)).map(LedgerAccount::toAccountModel);
+    }
+
+    /**
+     * Queues the command for the writer thread of the shard.
+     */
+    void submit(Runnable command) {
+        commands.add(command);
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Subtracts the amount from the balance of the account. Has to be called by the writer thread.
+     *
+     * @return the balance of the account after the debit.
+     * @throws InsufficientBalanceException if the balance of the account does not cover the amount
+     */
+    BigDecimal debit(Long ownerId, BigDecimal amount) {
+        var account = getAccount(ownerId);
+        if (account.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientBalanceException("Insufficient balance: " + account.getBalance() + " for amount: " + amount);
+        }
+        account.setBalance(account.getBalance().subtract(amount));
+        return account.getBalance();
+    }
+
+    /**
+     * Adds the amount to the balance of the account. Has to be called by the writer thread.
+     *
+     * @return the balance of the account after the credit.
+     */
+    BigDecimal credit(Long ownerId, BigDecimal amount) {
+        var account = getAccount(ownerId);
+        account.setBalance(account.getBalance().add(amount));
+        return account.getBalance();
+    }
+
+    @Override
+    public void run() {
+        while (running || !commands.isEmpty()) {
+            var command = commands.poll();
+            if (command == null) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                command.run();
+            } catch (RuntimeException ex) {
+                log.error("Ledger shard: {} failed to execute command", index, ex);
+            }
+        }
+    }
+
+    private LedgerAccount getAccount(Long ownerId) {
+        var account = accounts.get(ownerId);
+        if (account == null) {
+            throw new AccountNotFoundException(String.format("Account with owner id: [%s] is not found", ownerId));
+        }
+        return account;
+    }
+}
@@ -0,0 +1,211 @@
+package com.account.transfer.service.ledger;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.TransactionEntity;
+import com.account.transfer.exception.TransferNotPersistedException;
+import com.account.transfer.repository.AccountRepository;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferIdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Persists the transfers applied by the ledger shards in batches, one database transaction per batch.
+ * <p>
+ * A batch inserts the transaction rows of its transfers and applies the net balance change of every account
+ * it touches with a single update, so a hot account costs one statement per batch instead of one per transfer.
+ * The idempotency keys of the transfers are recorded by the same transaction, so a key is never missing for
+ * a committed transfer, nor recorded for one which is not.
+ * The balance changes are deltas, which commute, so the transfers of different shards may be persisted in any
+ * order. A transfer is committed once its batch is. A batch rejected by the database is retried with a growing
+ * backoff, up to the configured number of attempts. The shards have already applied the transfers of a batch which
+ * is still rejected then, so they are reverted in the shards to match the database again, their futures fail and
+ * the batch is dead-lettered to the error log and counted by the `ledger.write.behind.dead.letters` metric.
+ * The reverted changes may leave an account which has spent a reverted credit meanwhile with a negative balance,
+ * as it is in the database.
+ */
+@Slf4j
+final class LedgerWriteBehind implements Runnable {
+
+    private final TransferProperties.Ledger properties;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Consumer<Map<Long, BigDecimal>> revert;
+    private final Queue<PendingTransfer> pendingTransfers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final DistributionSummary batchSizes;
+    private final Counter deadLetters;
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param revert applies the negated balance changes of a dead-lettered batch to the shards.
+     */
+    LedgerWriteBehind(TransferProperties.Ledger properties, TransactionRepository transactionRepository,
+                      AccountRepository accountRepository,
+                      TransferIdempotencyKeyRepository transferIdempotencyKeyRepository,
+                      TransactionTemplate transactionTemplate, Consumer<Map<Long, BigDecimal>> revert,
+                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.transferIdempotencyKeyRepository = transferIdempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.revert = revert;
+        this.batchSizes = meterRegistry.summary("ledger.write.behind.batch.size");
+        this.deadLetters = meterRegistry.counter("ledger.write.behind.dead.letters");
+        Gauge.builder("ledger.write.behind.pending", pendingCount, AtomicInteger::get)
+                .register(meterRegistry);
+        this.flusher = new Thread(this, "ledger-write-behind");
+        this.flusher.setDaemon(true);
+    }
+
+    void start() {
+        flusher.start();
+    }
+
+    /**
+     * Stops the flusher thread once the transfers appended so far have been persisted.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join();
+    }
+
+    /**
+     * Appends an applied transfer to the next batch.
+     *
+     * @param transaction    the transaction row of the transfer.
+     * @param balanceChanges the signed balance change of every account of the transfer, by owner ID.
+     * @param idempotencyKey the idempotency key of the transfer, or null if it has none.
+     * @return the future completed with the persisted transaction once the batch of the transfer is committed.
+     */
+    CompletableFuture<TransactionEntity> append(TransactionEntity transaction, Map<Long, BigDecimal> balanceChanges,
+                                                String idempotencyKey) {
+        var pendingTransfer = new PendingTransfer(transaction, balanceChanges, idempotencyKey,
+                new CompletableFuture<>());
+        pendingTransfers.add(pendingTransfer);
+        pendingCount.incrementAndGet();
+        return pendingTransfer.getCommitted();
+    }
+
+    @Override
+    public void run() {
+        while (running || !pendingTransfers.isEmpty()) {
+            var batch = new ArrayList<PendingTransfer>();
+            PendingTransfer pendingTransfer;
+            while (batch.size() < properties.getBatchSize() && (pendingTransfer = pendingTransfers.poll()) != null) {
+                batch.add(pendingTransfer);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, properties.getFlushInterval().toNanos());
+                continue;
+            }
+            flushWithRetry(batch);
+        }
+    }
+
+    private void flushWithRetry(List<PendingTransfer> batch) {
+        var balanceChanges = new HashMap<Long, BigDecimal>();
+        batch.forEach(pendingTransfer -> pendingTransfer.getBalanceChanges()
+                .forEach((ownerId, change) -> balanceChanges.merge(ownerId, change, BigDecimal::add)));
+        balanceChanges.values().removeIf(change -> change.signum() == 0);
+
+        var backoff = properties.getFlushRetryBackoff();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flush(batch, balanceChanges);
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt >= properties.getFlushMaxAttempts()) {
+                    deadLetter(batch, balanceChanges, ex);
+                    return;
+                }
+                log.error("Persist ledger batch of transfers: {} failed, attempt: {}, retry in: {}, reason: {}",
+                        batch.size(), attempt, backoff, ex.getMessage());
+                LockSupport.parkNanos(this, backoff.toNanos());
+                backoff = min(backoff.multipliedBy(2), properties.getFlushMaxRetryBackoff());
+            }
+        }
+    }
+
+    /**
+     * Inserts the transaction rows of the batch with a single JDBC batch, records the idempotency keys of
+     * its transfers, and applies the net balance changes of its accounts with another JDBC batch, in one
+     * database transaction. A key already recorded fails the batch like any other rejection.
+     */
+    private void flush(List<PendingTransfer> batch, Map<Long, BigDecimal> balanceChanges) {
+        var transactions = transactionTemplate.execute(status -> {
+            var inserted = transactionRepository.insertAll(batch.stream()
+                    .map(PendingTransfer::getTransaction)
+                    .collect(Collectors.toCollection(ArrayList::new)));
+            for (int i = 0; i < batch.size(); i++) {
+                var idempotencyKey = batch.get(i).getIdempotencyKey();
+                if (idempotencyKey != null) {
+                    transferIdempotencyKeyRepository.insertKey(idempotencyKey, inserted.get(i).getId(),
+                            inserted.get(i).getDateTime());
+                }
+            }
+            accountRepository.adjustBalances(balanceChanges);
+            return inserted;
+        });
+
+        pendingCount.addAndGet(-batch.size());
+        batchSizes.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).getCommitted().complete(transactions.get(i));
+        }
+    }
+
+    private void deadLetter(List<PendingTransfer> batch, Map<Long, BigDecimal> balanceChanges, RuntimeException cause) {
+        log.error("Persist ledger batch of transfers: {} failed after attempts: {}, the transfers are reverted, " +
+                "reason: {}", batch.size(), properties.getFlushMaxAttempts(), cause.getMessage());
+        revert.accept(balanceChanges);
+        pendingCount.addAndGet(-batch.size());
+        deadLetters.increment(batch.size());
+        for (var pendingTransfer : batch) {
+            var transaction = pendingTransfer.getTransaction();
+            log.error("Dead-lettered ledger transfer from account: {} to account: {}, amount: {}, balance changes: {}, " +
+                            "date time: {}", transaction.getFromAccountId(), transaction.getToAccountId(),
+                    transaction.getAmount(), pendingTransfer.getBalanceChanges(), transaction.getDateTime());
+            pendingTransfer.getCommitted().completeExceptionally(new TransferNotPersistedException(String.format(
+                    "Transfer from account: %s to account: %s is reverted, it was not persisted by reason: %s",
+                    transaction.getFromAccountId(), transaction.getToAccountId(), cause.getMessage())));
+        }
+    }
+
+    private Duration min(Duration duration, Duration other) {
+        return duration.compareTo(other) <= 0 ? duration : other;
+    }
+
+    @Value
+    private static class PendingTransfer {
+        TransactionEntity transaction;
+        Map<Long, BigDecimal> balanceChanges;
+        String idempotencyKey;
+        CompletableFuture<TransactionEntity> committed;
+    }
+}
@@ -0,0 +1,106 @@
+package com.account.transfer.service.lock;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.exception.TransferConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Table of in-process locks serializing the transfers of the same accounts within the application.
+ * <p>
+ * The accounts are spread by owner ID over a fixed number of {@link ReentrantLock} stripes. A transfer takes
+ * the stripes of both its accounts before it borrows a database connection, so the transfers of a hot account
+ * queue up in the JVM instead of holding connections while they wait for the row locks in the database.
+ * The stripes are always taken in ascending stripe order, so transfers in opposite directions cannot deadlock.
+ * <p>
+ * The time spent waiting for the stripes is published as the `transfer.account.lock.wait` timer
+ * and the transfers which gave up waiting as the `transfer.account.lock.timeouts` counter.
+ */
+@Component
+public class AccountLockStripes {
+
+    private final boolean enabled;
+    private final Duration timeout;
+    private final ReentrantLock[] stripes;
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    public AccountLockStripes(TransferProperties transferProperties, MeterRegistry meterRegistry) {
+        var properties = transferProperties.getAccountLocks();
+        this.enabled = properties.isEnabled();
+        this.timeout = properties.getTimeout();
+        this.stripes = IntStream.range(0, properties.getStripes())
+                .mapToObj(stripe -> new ReentrantLock(properties.isFair()))
+                .toArray(ReentrantLock[]::new);
+        this.waitTimer = Timer.builder("transfer.account.lock.wait")
+                .tag("fair", String.valueOf(properties.isFair()))
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("transfer.account.lock.timeouts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the action while holding the stripes of the accounts.
+     *
+     * @param ownerIds the IDs of the account owners.
+     * @param action   the action to run.
+     * @return the result of the action.
+     * @throws TransferConflictException if the stripes are not acquired within the configured timeout
+     */
+    public <T> T executeLocked(List<Long> ownerIds, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        var locked = lock(ownerIds);
+        try {
+            return action.get();
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                locked.get(i).unlock();
+            }
+        }
+    }
+
+    private List<ReentrantLock> lock(List<Long> ownerIds) {
+        var locked = new ArrayList<ReentrantLock>(ownerIds.size());
+        var startNanos = System.nanoTime();
+        var deadlineNanos = startNanos + timeout.toNanos();
+        try {
+            for (var stripe : ownerIds.stream().mapToInt(this::getStripe).distinct().sorted().toArray()) {
+                if (!stripes[stripe].tryLock(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    timeoutCounter.increment();
+                    throw new TransferConflictException(String.format("Transfer of accounts: %s failed to lock " +
+                            "the accounts within: %s", ownerIds, timeout));
+                }
+                locked.add(stripes[stripe]);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            locked.forEach(ReentrantLock::unlock);
+            throw new TransferConflictException(String.format("Transfer of accounts: %s is interrupted while " +
+                    "locking the accounts", ownerIds));
+        } catch (RuntimeException ex) {
+            locked.forEach(ReentrantLock::unlock);
+            throw ex;
+        } finally {
+            waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        return locked;
+    }
+
+    private int getStripe(Long ownerId) {
+        var hash = Long.hashCode(ownerId);
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+}
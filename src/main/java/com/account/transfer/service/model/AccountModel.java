@@ -13,4 +13,5 @@ public class AccountModel {
     Long ownerId;
     String currency;
     BigDecimal balance;
+    Long version;
 }
@@ -0,0 +1,90 @@
+package com.account.transfer.service.model;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Optional;
+
+/**
+ * Exchange rates between every pair of currencies, triangulated from the snapshot of a single pivot currency.
+ * <p>
+ * The rate of a pair is {@code rate(pivot -> to) / rate(pivot -> from)}. Every rate of the matrix, including
+ * the ones of the pivot currency itself, is rounded once, to the configured number of significant digits with
+ * the configured rounding mode, at the end of that division, so that the rates of the weak currencies, e.g.
+ * VND to USD, keep the same relative precision as the others. Currencies published with a zero rate cannot be
+ * triangulated and are left out.
+ */
+public final class CrossRateMatrix {
+
+    @Getter
+    private final String pivotCurrency;
+    @Getter
+    private final Instant fetchedAt;
+    /**
+     * Rates indexed by the {@link CurrencyIndex} ordinals of the base and the target currency.
+     * The rows of the currencies which are not part of the matrix are null.
+     */
+    private final BigDecimal[][] rates;
+
+    private CrossRateMatrix(String pivotCurrency, Instant fetchedAt, BigDecimal[][] rates) {
+        this.pivotCurrency = pivotCurrency;
+        this.fetchedAt = fetchedAt;
+        this.rates = rates;
+    }
+
+    /**
+     * Builds the complete matrix of cross rates from the snapshot of the pivot currency.
+     *
+     * @param pivotSnapshot the snapshot of the pivot currency.
+     * @param precision     the number of significant digits of every rate in the matrix.
+     * @param roundingMode  the rounding mode applied to every rate in the matrix.
+     * @return the triangulated {@link CrossRateMatrix}
+     */
+    public static CrossRateMatrix triangulate(ExchangeRateSnapshot pivotSnapshot, int precision, RoundingMode roundingMode) {
+        var mathContext = new MathContext(precision, roundingMode);
+        var pivotRates = new HashMap<>(pivotSnapshot.getRates().toMap());
+        pivotRates.put(pivotSnapshot.getBaseCurrency(), BigDecimal.ONE);
+        pivotRates.values().removeIf(rate -> rate.signum() == 0);
+
+        var pivotTable = ExchangeRateTable.of(pivotRates);
+        var ordinals = new int[pivotTable.size()];
+        var currencyRates = new BigDecimal[pivotTable.size()];
+        var count = new int[1];
+        pivotTable.forEach((currency, rate) -> {
+            ordinals[count[0]] = CurrencyIndex.ordinalOf(currency);
+            currencyRates[count[0]++] = rate;
+        });
+
+        var dimension = ordinals.length == 0 ? 0 : ordinals[ordinals.length - 1] + 1;
+        var rates = new BigDecimal[dimension][];
+        for (int from = 0; from < ordinals.length; from++) {
+            var row = new BigDecimal[dimension];
+            for (int to = 0; to < ordinals.length; to++) {
+                row[ordinals[to]] = currencyRates[to].divide(currencyRates[from], mathContext);
+            }
+            rates[ordinals[from]] = row;
+        }
+
+        return new CrossRateMatrix(pivotSnapshot.getBaseCurrency(), pivotSnapshot.getFetchedAt(), rates);
+    }
+
+    /**
+     * Returns the exchange rate of the currency pair.
+     *
+     * @param fromCurrency the base currency.
+     * @param toCurrency   the target currency.
+     * @return the rate, or an empty Optional if any of the currencies is not part of the matrix.
+     */
+    public Optional<BigDecimal> getRate(String fromCurrency, String toCurrency) {
+        var from = CurrencyIndex.ordinalOf(fromCurrency);
+        var to = CurrencyIndex.ordinalOf(toCurrency);
+        if (from < 0 || to < 0 || from >= rates.length || to >= rates.length || rates[from] == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(rates[from][to]);
+    }
+}
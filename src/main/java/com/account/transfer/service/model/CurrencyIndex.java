@@ -0,0 +1,94 @@
+package com.account.transfer.service.model;
+
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Dense ordinals of the currency codes, used to index the rate arrays of {@link ExchangeRateTable}.
+ * <p>
+ * The ISO-4217 currencies known to the JDK get their ordinals up front, in the alphabetical order of their
+ * codes; any other 3 letter code published by the provider gets the next free ordinal when it is first seen.
+ * The ordinal of a code is read from a table addressed by the code letters themselves, so resolving
+ * it neither hashes the code nor allocates.
+ */
+public final class CurrencyIndex {
+
+    private static final int LETTERS = 26;
+    private static final int CODE_SPACE = LETTERS * LETTERS * LETTERS;
+
+    /**
+     * Ordinal + 1 of every assigned code, addressed by {@link #codeKey(String)}; 0 marks an unassigned code.
+     * Written only under the class lock; the tables built from the ordinals are published to the readers
+     * through volatile or concurrent structures, which publishes the written ordinals as well.
+     */
+    private static final short[] ORDINALS = new short[CODE_SPACE];
+    private static final String[] CODES = new String[CODE_SPACE];
+    private static int size;
+
+    static {
+        Currency.getAvailableCurrencies().stream()
+                .map(Currency::getCurrencyCode)
+                .sorted()
+                .forEach(CurrencyIndex::register);
+    }
+
+    private CurrencyIndex() {
+    }
+
+    /**
+     * Returns the ordinal of the currency code.
+     *
+     * @param currency the 3 letter upper case currency code.
+     * @return the ordinal, or -1 if the code is malformed or has no ordinal yet.
+     */
+    public static int ordinalOf(String currency) {
+        var key = codeKey(currency);
+        return key < 0 ? -1 : ORDINALS[key] - 1;
+    }
+
+    /**
+     * Returns the ordinal of the currency code, assigning the next free one to a code seen for the first time.
+     *
+     * @param currency the 3 letter upper case currency code.
+     * @return the ordinal, or -1 if the code is malformed.
+     */
+    public static int register(String currency) {
+        var ordinal = ordinalOf(currency);
+        if (ordinal >= 0 || codeKey(currency) < 0) {
+            return ordinal;
+        }
+        synchronized (CurrencyIndex.class) {
+            var key = codeKey(currency);
+            if (ORDINALS[key] == 0) {
+                CODES[size] = currency;
+                ORDINALS[key] = (short) ++size;
+            }
+            return ORDINALS[key] - 1;
+        }
+    }
+
+    /**
+     * Returns the currency code of the ordinal.
+     *
+     * @param ordinal the ordinal returned by {@link #register(String)}.
+     * @return the currency code.
+     */
+    public static String codeOf(int ordinal) {
+        return Objects.requireNonNull(CODES[ordinal], () -> "Currency ordinal: " + ordinal + " is not assigned");
+    }
+
+    private static int codeKey(String currency) {
+        if (currency == null || currency.length() != 3) {
+            return -1;
+        }
+        int key = 0;
+        for (int i = 0; i < 3; i++) {
+            var letter = currency.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS) {
+                return -1;
+            }
+            key = key * LETTERS + letter;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,31 @@
+package com.account.transfer.service.model;
+
+import lombok.Value;
+
+/**
+ * Pair of currencies, written as "FROM:TO", e.g. "USD:EUR".
+ */
+@Value
+public class CurrencyPair {
+
+    private static final String SEPARATOR = ":";
+
+    String fromCurrency;
+    String toCurrency;
+
+    /**
+     * Parses the currency pair written as "FROM:TO".
+     *
+     * @param pair the currency pair, e.g. "USD:EUR".
+     * @return the parsed {@link CurrencyPair} with upper case currency codes.
+     */
+    public static CurrencyPair parse(String pair) {
+        var currencies = pair.toUpperCase().split(SEPARATOR);
+        return new CurrencyPair(currencies[0], currencies[1]);
+    }
+
+    @Override
+    public String toString() {
+        return fromCurrency + SEPARATOR + toCurrency;
+    }
+}
@@ -0,0 +1,22 @@
+package com.account.transfer.service.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Full set of conversion rates published by the exchange rate provider for a single base currency.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ExchangeRateSnapshot {
+
+    String baseCurrency;
+    ExchangeRateTable rates;
+    Instant fetchedAt;
+    /**
+     * When the provider publishes its next rates of the base currency, null if the provider does not announce it.
+     */
+    Instant nextUpdateAt;
+}
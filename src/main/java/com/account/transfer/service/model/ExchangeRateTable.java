@@ -0,0 +1,148 @@
+package com.account.transfer.service.model;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable exchange rates of a single base currency, held in an array indexed by the {@link CurrencyIndex}
+ * ordinal of the target currency.
+ * <p>
+ * A lookup is a read of the ordinal plus a read of the rate, it neither hashes the currency code nor
+ * boxes anything, and a table of all the published currencies takes a few hundred array slots instead
+ * of a hash map entry per currency.
+ */
+public final class ExchangeRateTable {
+
+    private static final ExchangeRateTable EMPTY = new ExchangeRateTable(new BigDecimal[0], 0);
+
+    private final BigDecimal[] rates;
+    private final int size;
+
+    private ExchangeRateTable(BigDecimal[] rates, int size) {
+        this.rates = rates;
+        this.size = size;
+    }
+
+    /**
+     * Builds the table from the rates keyed by the currency codes. Malformed codes and missing rates are left out.
+     *
+     * @param rates the rates keyed by the target currency codes.
+     * @return the {@link ExchangeRateTable} of the rates.
+     */
+    public static ExchangeRateTable of(Map<String, BigDecimal> rates) {
+        var builder = builder();
+        if (rates != null) {
+            rates.forEach(builder::rate);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the exchange rate to the target currency.
+     *
+     * @param currency the target currency.
+     * @return the rate, or an empty Optional if the table has no rate of the currency.
+     */
+    public Optional<BigDecimal> getRate(String currency) {
+        var ordinal = CurrencyIndex.ordinalOf(currency);
+        return ordinal >= 0 && ordinal < rates.length ? Optional.ofNullable(rates[ordinal]) : Optional.empty();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Performs the action for every target currency and its rate, in the order of the currency ordinals.
+     *
+     * @param action the action taking the target currency code and its rate.
+     */
+    public void forEach(BiConsumer<String, BigDecimal> action) {
+        for (int ordinal = 0; ordinal < rates.length; ordinal++) {
+            if (rates[ordinal] != null) {
+                action.accept(CurrencyIndex.codeOf(ordinal), rates[ordinal]);
+            }
+        }
+    }
+
+    /**
+     * Returns the rates keyed by the target currency codes.
+     *
+     * @return an unmodifiable map of the rates.
+     */
+    public Map<String, BigDecimal> toMap() {
+        var map = new HashMap<String, BigDecimal>();
+        forEach(map::put);
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof ExchangeRateTable table && Arrays.equals(rates, table.rates);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(rates);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private static BigDecimal[] trim(BigDecimal[] table) {
+        var length = table.length;
+        while (length > 0 && table[length - 1] == null) {
+            length--;
+        }
+        return Arrays.copyOf(table, length);
+    }
+
+    /**
+     * Collects the rates one by one, e.g. while they are read from a payload, without an intermediate map.
+     */
+    public static final class Builder {
+
+        private BigDecimal[] rates = new BigDecimal[0];
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the rate of the target currency. Malformed codes and missing rates are left out.
+         *
+         * @param currency the target currency code.
+         * @param rate     the rate.
+         * @return this builder.
+         */
+        public Builder rate(String currency, BigDecimal rate) {
+            var ordinal = CurrencyIndex.register(currency);
+            if (ordinal < 0 || rate == null) {
+                return this;
+            }
+            if (ordinal >= rates.length) {
+                rates = Arrays.copyOf(rates, Math.max(ordinal + 1, rates.length * 2));
+            }
+            if (rates[ordinal] == null) {
+                size++;
+            }
+            rates[ordinal] = rate;
+            return this;
+        }
+
+        public ExchangeRateTable build() {
+            return size == 0 ? EMPTY : new ExchangeRateTable(trim(rates), size);
+        }
+    }
+}
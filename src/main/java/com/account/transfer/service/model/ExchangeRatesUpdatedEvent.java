@@ -0,0 +1,28 @@
+package com.account.transfer.service.model;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Published when a refreshed snapshot changed the cached exchange rates of the base currencies.
+ * An event without base currencies affects the rates of all base currencies, e.g. after the cross rate
+ * matrix has been rebuilt.
+ */
+@Value
+public class ExchangeRatesUpdatedEvent {
+
+    Set<String> baseCurrencies;
+
+    public static ExchangeRatesUpdatedEvent of(String baseCurrency) {
+        return new ExchangeRatesUpdatedEvent(Set.of(baseCurrency));
+    }
+
+    public static ExchangeRatesUpdatedEvent ofAll() {
+        return new ExchangeRatesUpdatedEvent(Set.of());
+    }
+
+    public boolean affects(String baseCurrency) {
+        return baseCurrencies.isEmpty() || baseCurrencies.contains(baseCurrency);
+    }
+}
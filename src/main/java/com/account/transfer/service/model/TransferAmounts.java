@@ -0,0 +1,40 @@
+package com.account.transfer.service.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts of a transfer, computed alike by the single, the ledger and the batched transfers, so that the same
+ * amount and rate always credit the same amount. A transfer between accounts of the same currency has no exchange rate.
+ */
+public final class TransferAmounts {
+
+    /**
+     * Scale of the account balances.
+     */
+    private static final int BALANCE_SCALE = 2;
+
+    private TransferAmounts() {
+    }
+
+    /**
+     * Converts the debited amount to the currency of the target account.
+     *
+     * @param amount       the amount debited from the source account.
+     * @param exchangeRate the exchange rate from the source to the target currency, null for the same currency.
+     * @return the amount credited to the target account, rounded half up to the scale of the balances.
+     */
+    public static BigDecimal creditedAmount(BigDecimal amount, BigDecimal exchangeRate) {
+        return exchangeRate == null ? amount : amount.multiply(exchangeRate).setScale(BALANCE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Returns the exchange rate recorded with the transaction of the transfer.
+     *
+     * @param exchangeRate the exchange rate from the source to the target currency, null for the same currency.
+     * @return the exchange rate, 1 for the same currency.
+     */
+    public static BigDecimal recordedRate(BigDecimal exchangeRate) {
+        return exchangeRate == null ? BigDecimal.ONE : exchangeRate;
+    }
+}
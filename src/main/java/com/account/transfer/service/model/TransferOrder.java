@@ -0,0 +1,16 @@
+package com.account.transfer.service.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+@Builder(toBuilder = true)
+public class TransferOrder {
+
+    Long accountOwnerId;
+    Long targetAccountId;
+    BigDecimal amount;
+    String quoteId;
+}
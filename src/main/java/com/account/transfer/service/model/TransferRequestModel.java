@@ -0,0 +1,31 @@
+package com.account.transfer.service.model;
+
+import com.account.transfer.entity.TransferRequestStatus;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+/**
+ * Transfer submitted for asynchronous execution: its status, and the performed transaction
+ * or the error the transfer failed with once it is completed.
+ */
+@Value
+@Builder(toBuilder = true)
+public class TransferRequestModel {
+
+    Long transferId;
+    Long accountOwnerId;
+    Long targetAccountId;
+    BigDecimal amount;
+    String quoteId;
+    TransferRequestStatus status;
+    int attempts;
+    TransactionModel transaction;
+    String errorCode;
+    String errorKey;
+    String errorMessage;
+    ZonedDateTime createdAt;
+    ZonedDateTime updatedAt;
+}
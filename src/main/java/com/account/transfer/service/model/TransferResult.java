@@ -0,0 +1,20 @@
+package com.account.transfer.service.model;
+
+import com.account.transfer.exception.ServiceException;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of a single transfer of a batch: the performed transaction, or the error the transfer failed with.
+ */
+@Value
+@Builder(toBuilder = true)
+public class TransferResult {
+
+    TransactionModel transaction;
+    ServiceException error;
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
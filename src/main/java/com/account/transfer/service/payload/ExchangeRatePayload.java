@@ -0,0 +1,21 @@
+package com.account.transfer.service.payload;
+
+import com.account.transfer.service.model.ExchangeRateTable;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Served rates of an exchangerate-api payload together with the update schedule announced by the payload.
+ */
+@Value
+@Builder
+public class ExchangeRatePayload {
+
+    ExchangeRateTable rates;
+    /**
+     * When the provider publishes its next rates, null if the payload does not announce it.
+     */
+    Instant nextUpdateAt;
+}
@@ -0,0 +1,92 @@
+package com.account.transfer.service.payload;
+
+import com.account.transfer.service.model.ExchangeRateTable;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the exchangerate-api payload token by token.
+ * <p>
+ * Only the rates of the served currencies are materialized as {@link java.math.BigDecimal}, the other rates are
+ * skipped without being decoded, and the currency codes are the field names canonicalized by Jackson, so no
+ * per-currency map entry or key is allocated. Besides the base currency and the rates only the announced time
+ * of the next update is read, every other field of the payload is skipped.
+ */
+@Component
+public class ExchangeRatePayloadParser {
+
+    private static final String BASE_CODE_FIELD = "base_code";
+    private static final String RATES_FIELD = "conversion_rates";
+    private static final String NEXT_UPDATE_FIELD = "time_next_update_unix";
+
+    private final JsonFactory jsonFactory;
+
+    public ExchangeRatePayloadParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Parses the rates and the update schedule of the payload.
+     *
+     * @param payload      the response payload.
+     * @param baseCurrency the base currency the payload is expected for.
+     * @param currencies   the served currencies, all the currencies are served when empty.
+     * @return the served rates with the schedule, or an empty Optional if the payload is not for the base currency.
+     * @throws IOException if the payload cannot be read or is not well-formed JSON.
+     */
+    public Optional<ExchangeRatePayload> parse(InputStream payload, String baseCurrency, Set<String> currencies)
+            throws IOException {
+        String payloadBase = null;
+        Instant nextUpdateAt = null;
+        var rates = ExchangeRateTable.builder();
+
+        try (var parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Optional.empty();
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.currentName();
+                var value = parser.nextToken();
+                if (BASE_CODE_FIELD.equals(field) && value == JsonToken.VALUE_STRING) {
+                    payloadBase = parser.getText();
+                } else if (RATES_FIELD.equals(field) && value == JsonToken.START_OBJECT) {
+                    readRates(parser, currencies, rates);
+                } else if (NEXT_UPDATE_FIELD.equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    nextUpdateAt = Instant.ofEpochSecond(parser.getLongValue());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (!baseCurrency.equals(payloadBase)) {
+            return Optional.empty();
+        }
+        return Optional.of(ExchangeRatePayload.builder()
+                .rates(rates.build())
+                .nextUpdateAt(nextUpdateAt)
+                .build());
+    }
+
+    private void readRates(JsonParser parser, Set<String> currencies, ExchangeRateTable.Builder rates)
+            throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var currency = parser.currentName();
+            var value = parser.nextToken();
+            if (value.isNumeric() && (currencies.isEmpty() || currencies.contains(currency))) {
+                rates.rate(currency, parser.getDecimalValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.account.transfer.service.prefetch;
+
+import com.account.transfer.config.ExchangerateApiProperties;
+import com.account.transfer.service.resilience.RequestQuota;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which expiring snapshots are prefetched, so that the request quota is spent on the rates in demand.
+ * <p>
+ * The demand of a base currency is the number of its rate lookups, decaying by half every configured half-life.
+ * All the pairs of a base currency are served by one snapshot, fetched with one request, so the demand is
+ * tracked per base currency. The snapshots of the most demanded base currencies are always prefetched before
+ * they expire. The snapshots of the other demanded base currencies share the quota left for the rest of
+ * the month, spread evenly over the refresh intervals; the ones which do not fit are left to expire and are
+ * fetched on their next lookup. Snapshots without demand are never prefetched.
+ * <p>
+ * The prefetches are published as the `exchange.rate.prefetches` counter tagged with the tier (hot or long-tail)
+ * and the skipped ones as the `exchange.rate.prefetches.skipped` counter.
+ */
+@Slf4j
+@Component
+public class ExchangeRatePrefetchPlanner {
+
+    /**
+     * Demand below which a base currency counts as not demanded: a single lookup decays below it
+     * after a little more than four half-lives.
+     */
+    static final double MIN_DEMAND = 0.05;
+
+    private final ExchangerateApiProperties properties;
+    private final RequestQuota requestQuota;
+    private final ConcurrentMap<String, DecayingCounter> demand = new ConcurrentHashMap<>();
+    private final Counter hotPrefetches;
+    private final Counter longTailPrefetches;
+    private final Counter skippedPrefetches;
+
+    private double longTailCredit;
+
+    public ExchangeRatePrefetchPlanner(ExchangerateApiProperties properties, RequestQuota requestQuota,
+                                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.requestQuota = requestQuota;
+        this.hotPrefetches = meterRegistry.counter("exchange.rate.prefetches", "tier", "hot");
+        this.longTailPrefetches = meterRegistry.counter("exchange.rate.prefetches", "tier", "long-tail");
+        this.skippedPrefetches = meterRegistry.counter("exchange.rate.prefetches.skipped");
+    }
+
+    /**
+     * Records a lookup of the rates of the base currency.
+     *
+     * @param baseCurrency the currency of the snapshot serving the lookup.
+     */
+    public void recordDemand(String baseCurrency) {
+        demand.computeIfAbsent(baseCurrency, it -> new DecayingCounter(getHalfLifeNanos()))
+                .increment(System.nanoTime());
+    }
+
+    /**
+     * Returns the current demand of the base currency.
+     *
+     * @param baseCurrency the currency of the snapshot.
+     * @return the decayed number of lookups, 0 if the base currency has never been looked up.
+     */
+    public double getDemand(String baseCurrency) {
+        var counter = demand.get(baseCurrency);
+        return counter == null ? 0 : counter.get(System.nanoTime());
+    }
+
+    /**
+     * Selects the snapshots to prefetch among the ones due for a refresh. Called once per refresh interval.
+     *
+     * @param dueBaseCurrencies the currencies of the snapshots due for a refresh.
+     * @return the currencies of the snapshots to prefetch, the most demanded first.
+     */
+    public synchronized List<String> selectPrefetches(Collection<String> dueBaseCurrencies) {
+        var nowNanos = System.nanoTime();
+        var demands = demand.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, it -> it.getValue().get(nowNanos)));
+        var hotBases = demands.entrySet().stream()
+                .filter(it -> it.getValue() >= MIN_DEMAND)
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(properties.getQuota().getHotBases())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+
+        var allowance = requestQuota.getAllowance(properties.getCache().getRefreshInterval());
+        longTailCredit = Math.min(longTailCredit + allowance, Math.max(1, allowance));
+
+        var prefetches = new ArrayList<String>();
+        dueBaseCurrencies.stream()
+                .sorted(Comparator.comparing((String it) -> demands.getOrDefault(it, 0d)).reversed())
+                .forEach(baseCurrency -> {
+                    if (hotBases.contains(baseCurrency)) {
+                        hotPrefetches.increment();
+                        prefetches.add(baseCurrency);
+                    } else if (demands.getOrDefault(baseCurrency, 0d) >= MIN_DEMAND && longTailCredit >= 1) {
+                        longTailCredit--;
+                        longTailPrefetches.increment();
+                        prefetches.add(baseCurrency);
+                    } else {
+                        skippedPrefetches.increment();
+                    }
+                });
+
+        if (prefetches.size() < dueBaseCurrencies.size()) {
+            log.info("Prefetch exchange rate snapshots for currencies: {}, left to expire: {}",
+                    prefetches, dueBaseCurrencies.size() - prefetches.size());
+        }
+        return prefetches;
+    }
+
+    private long getHalfLifeNanos() {
+        return properties.getQuota().getDemandHalfLife().toNanos();
+    }
+
+    /**
+     * Counter decaying exponentially with the configured half-life.
+     */
+    private static final class DecayingCounter {
+
+        private final long halfLifeNanos;
+        private double value;
+        private long updatedAtNanos;
+
+        private DecayingCounter(long halfLifeNanos) {
+            this.halfLifeNanos = halfLifeNanos;
+            this.updatedAtNanos = System.nanoTime();
+        }
+
+        private synchronized void increment(long nowNanos) {
+            value = decayed(nowNanos) + 1;
+            updatedAtNanos = nowNanos;
+        }
+
+        private synchronized double get(long nowNanos) {
+            return decayed(nowNanos);
+        }
+
+        private double decayed(long nowNanos) {
+            return value * Math.pow(0.5, (double) (nowNanos - updatedAtNanos) / halfLifeNanos);
+        }
+    }
+}
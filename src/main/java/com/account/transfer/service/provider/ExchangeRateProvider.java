@@ -0,0 +1,59 @@
+package com.account.transfer.service.provider;
+
+import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.service.model.ExchangeRateTable;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of the latest exchange rates of a base currency.
+ */
+public interface ExchangeRateProvider {
+
+    /**
+     * Returns the name of the provider, used to configure the providers and to tag their metrics.
+     *
+     * @return the name of the provider.
+     */
+    String getName();
+
+    /**
+     * Fetches the latest exchange rates of the base currency.
+     *
+     * @param baseCurrency the base currency.
+     * @return the rates, or an empty Optional if the provider does not publish the base currency.
+     * @throws ExchangeRateServiceException if the rates cannot be fetched.
+     */
+    Optional<ExchangeRateTable> fetchRates(String baseCurrency);
+
+    /**
+     * Returns when the provider publishes its next exchange rates of the base currency, as announced
+     * with its last fetched rates. The rates fetched before that time are the same as the last ones.
+     *
+     * @param baseCurrency the base currency.
+     * @return the time of the next update, or an empty Optional if the provider does not announce it.
+     */
+    default Optional<Instant> getNextUpdateAt(String baseCurrency) {
+        return Optional.empty();
+    }
+
+    /**
+     * Fetches the latest exchange rates of the base currency without blocking the calling thread.
+     * <p>
+     * The default implementation fetches in the calling thread and returns a completed future, which suits
+     * the providers reading local data. Providers doing network I/O override it with a non-blocking fetch.
+     * Cancelling the returned future abandons the fetch.
+     *
+     * @param baseCurrency the base currency.
+     * @return the future of the rates, failed with {@link ExchangeRateServiceException} if they cannot be fetched.
+     */
+    default CompletableFuture<Optional<ExchangeRateTable>> fetchRatesAsync(String baseCurrency) {
+        try {
+            return CompletableFuture.completedFuture(fetchRates(baseCurrency));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.account.transfer.service.provider;
+
+import com.account.transfer.api.dto.ExchangeRateSourceResponse;
+import com.account.transfer.config.ExchangerateApiProperties;
+import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.service.model.ExchangeRateTable;
+import com.account.transfer.service.payload.ExchangeRatePayload;
+import com.account.transfer.service.payload.ExchangeRatePayloadParser;
+import com.account.transfer.service.resilience.CircuitBreaker;
+import com.account.transfer.service.resilience.RequestQuota;
+import com.account.transfer.service.resilience.RetryBudget;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Fetches the exchange rates from the exchangerate-api, guarded by the circuit breaker, the retry budget and
+ * the monthly request quota, every attempt taking a unit of the quota.
+ * The blocking fetches go through the pooled {@link RestTemplate}, the asynchronous ones through
+ * the non-blocking {@link HttpClient}. The rates are re-fetched with conditional requests, and the update
+ * schedule announced by the last payload is exposed as {@link #getNextUpdateAt(String)}. The binding mode
+ * of the payload always fetches the full payload.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExchangerateApiProvider implements ExchangeRateProvider {
+
+    public static final String NAME = "exchangerate-api";
+
+    private final RestTemplate restTemplate;
+    private final ExchangerateApiProperties properties;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final RequestQuota requestQuota;
+    private final ExchangeRatePayloadParser payloadParser;
+    private final HttpClient asyncHttpClient;
+
+    /**
+     * The last fetched payload of every base currency with its validators, answering the conditional requests.
+     */
+    private final ConcurrentMap<String, FetchedPayload> fetchedPayloads = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Optional<Instant> getNextUpdateAt(String baseCurrency) {
+        return Optional.ofNullable(fetchedPayloads.get(baseCurrency)).map(FetchedPayload::getNextUpdateAt);
+    }
+
+    /**
+     * Fetches the rates through the circuit breaker. An open breaker rejects the fetch without calling
+     * the exchangerate-api, so that the callers fall back to the stale snapshots immediately.
+     */
+    @Override
+    public Optional<ExchangeRateTable> fetchRates(String baseCurrency) {
+        acquirePermission(baseCurrency);
+
+        try {
+            var rates = requestRatesWithRetry(baseCurrency);
+            circuitBreaker.onSuccess();
+            return rates;
+
+        } catch (RestClientException ex) {
+            if (ex instanceof HttpClientErrorException.NotFound) {
+                circuitBreaker.onSuccess();
+                return Optional.empty();
+            }
+
+            circuitBreaker.onFailure();
+            throw fetchFailure(baseCurrency, ex);
+        }
+    }
+
+    /**
+     * Fetches the rates with the non-blocking HTTP client, through the circuit breaker and with the same retries
+     * as {@link #fetchRates(String)}, the backoff being scheduled instead of slept. The payload is always read
+     * with the streaming parser. The fetch fails with a {@link TimeoutException} when it does not complete
+     * within the configured asynchronous timeout; a timed out or cancelled fetch aborts its HTTP exchange.
+     */
+    @Override
+    public CompletableFuture<Optional<ExchangeRateTable>> fetchRatesAsync(String baseCurrency) {
+        try {
+            acquirePermission(baseCurrency);
+        } catch (ExchangeRateServiceException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        var result = new CompletableFuture<Optional<ExchangeRateTable>>();
+        var exchange = new AtomicReference<CompletableFuture<?>>();
+        result.whenComplete((rates, ex) -> {
+            Optional.ofNullable(exchange.get()).ifPresent(it -> it.cancel(true));
+            if (ex == null) {
+                circuitBreaker.onSuccess();
+            } else if (ex instanceof CancellationException) {
+                circuitBreaker.releasePermission();
+            } else {
+                circuitBreaker.onFailure();
+            }
+        });
+
+        retryBudget.onCall();
+        sendRequestAsync(baseCurrency, 1, result, exchange);
+        return result.orTimeout(properties.getHttp().getAsyncTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acquires the permission of the circuit breaker and a unit of the request quota for a fetch.
+     */
+    private void acquirePermission(String baseCurrency) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new ExchangeRateServiceException(String.format("Fetch latest exchange rate from=%s for currency=%s " +
+                    "rejected by circuit breaker in state=%s", properties.getHost(), baseCurrency, circuitBreaker.getState()));
+        }
+        if (!requestQuota.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            throw new ExchangeRateServiceException(String.format("Fetch latest exchange rate from=%s for currency=%s " +
+                    "rejected by exhausted request quota", properties.getHost(), baseCurrency));
+        }
+    }
+
+    private ExchangeRateServiceException fetchFailure(String baseCurrency, RestClientException cause) {
+        var exceptionMsg = String.format("Fetch latest exchange rate from=%s for currency=%s " +
+                "failed by reason=%s", properties.getHost(), baseCurrency, cause.getMessage());
+        return new ExchangeRateServiceException(exceptionMsg);
+    }
+
+    /**
+     * Requests the rates, retrying the I/O errors and the server errors of the exchangerate-api
+     * as long as the attempts and the retry budget allow.
+     */
+    private Optional<ExchangeRateTable> requestRatesWithRetry(String baseCurrency) {
+        var retry = properties.getRetry();
+        retryBudget.onCall();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return requestRates(baseCurrency);
+            } catch (ResourceAccessException | HttpServerErrorException ex) {
+                if (attempt >= retry.getMaxAttempts() || !retryBudget.tryAcquireRetry() || !requestQuota.tryAcquire()) {
+                    throw ex;
+                }
+                log.warn("Retry fetch of exchange rates for currency: {}, attempt: {} failed, reason: {}",
+                        baseCurrency, attempt, ex.getMessage());
+                pause(retry.getBackoff(), ex);
+            }
+        }
+    }
+
+    private Optional<ExchangeRateTable> requestRates(String baseCurrency) {
+        log.info("Fetch latest exchange rates from host: {}, for currency: {}", properties.getHost(), baseCurrency);
+        var apiFullPath = properties.getUrl() + baseCurrency;
+
+        if (properties.getPayload().isStreaming()) {
+            return restTemplate.execute(apiFullPath, HttpMethod.GET,
+                    request -> addValidators(baseCurrency, request.getHeaders()::set),
+                    response -> readRates(response, baseCurrency));
+        }
+
+        ResponseEntity<ExchangeRateSourceResponse> response =
+                restTemplate.getForEntity(apiFullPath, ExchangeRateSourceResponse.class);
+
+        var payload = Optional.ofNullable(response.getBody())
+                .filter(it -> baseCurrency.equals(it.getBase()))
+                .map(it -> ExchangeRatePayload.builder()
+                        .rates(servedRates(it.getRates()))
+                        .nextUpdateAt(it.getNextUpdateUnix() == null ? null : Instant.ofEpochSecond(it.getNextUpdateUnix()))
+                        .build());
+        return rememberPayload(baseCurrency, payload, null, null);
+    }
+
+    /**
+     * Reads the served rates straight from the response payload. A malformed payload is not retried,
+     * so it is reported as a plain {@link RestClientException} instead of an I/O error.
+     */
+    private Optional<ExchangeRateTable> readRates(ClientHttpResponse response, String baseCurrency)
+            throws IOException {
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return notModifiedRates(baseCurrency, response.getHeaders());
+        }
+
+        try {
+            var payload = payloadParser.parse(response.getBody(), baseCurrency, properties.getPayload().getCurrencies());
+            return rememberPayload(baseCurrency, payload, response.getHeaders().getETag(),
+                    response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+        } catch (JsonProcessingException ex) {
+            throw new RestClientException("Malformed exchange rates payload: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    /**
+     * Makes the request conditional on the validators of the last fetched payload of the base currency.
+     */
+    private void addValidators(String baseCurrency, BiConsumer<String, String> header) {
+        var fetched = fetchedPayloads.get(baseCurrency);
+        if (!properties.getHttp().isConditionalRequests() || fetched == null) {
+            return;
+        }
+        if (fetched.getEntityTag() != null) {
+            header.accept(HttpHeaders.IF_NONE_MATCH, fetched.getEntityTag());
+        }
+        if (fetched.getLastModified() != null) {
+            header.accept(HttpHeaders.IF_MODIFIED_SINCE, fetched.getLastModified());
+        }
+    }
+
+    private Optional<ExchangeRateTable> notModifiedRates(String baseCurrency, HttpHeaders headers) {
+        var fetched = fetchedPayloads.get(baseCurrency);
+        if (fetched == null) {
+            throw new RestClientException("Not modified exchange rates response without a fetched payload");
+        }
+        log.info("Exchange rates for currency: {} not modified since the last fetch", baseCurrency);
+        fetchedPayloads.put(baseCurrency, new FetchedPayload(fetched.getRates(),
+                getNotModifiedNextUpdateAt(fetched.getNextUpdateAt(), headers), fetched.getEntityTag(),
+                fetched.getLastModified()));
+        return Optional.of(fetched.getRates());
+    }
+
+    /**
+     * A not modified response has no payload announcing the next update, which is taken from its Expires header
+     * instead. Without the header, the last announced update which has already passed is moved forward
+     * by the update interval of the provider, so that the snapshot is not refreshed again right away.
+     */
+    private Instant getNotModifiedNextUpdateAt(Instant lastNextUpdateAt, HttpHeaders headers) {
+        var now = Instant.now();
+        var expires = headers.getExpires();
+        if (expires > now.toEpochMilli()) {
+            return Instant.ofEpochMilli(expires);
+        }
+        if (lastNextUpdateAt == null || lastNextUpdateAt.isAfter(now)) {
+            return lastNextUpdateAt;
+        }
+        var updateInterval = properties.getPayload().getUpdateInterval();
+        var passedUpdates = Duration.between(lastNextUpdateAt, now).dividedBy(updateInterval) + 1;
+        return lastNextUpdateAt.plus(updateInterval.multipliedBy(passedUpdates));
+    }
+
+    private Optional<ExchangeRateTable> rememberPayload(String baseCurrency, Optional<ExchangeRatePayload> payload,
+                                                        String entityTag, String lastModified) {
+        payload.ifPresentOrElse(
+                it -> fetchedPayloads.put(baseCurrency,
+                        new FetchedPayload(it.getRates(), it.getNextUpdateAt(), entityTag, lastModified)),
+                () -> fetchedPayloads.remove(baseCurrency));
+        return payload.map(ExchangeRatePayload::getRates);
+    }
+
+    /**
+     * Sends a single attempt of the asynchronous fetch and completes the result with its outcome, or schedules
+     * the next attempt. The attempts stop as soon as the result is completed by the timeout or cancelled.
+     */
+    private void sendRequestAsync(String baseCurrency, int attempt,
+                                  CompletableFuture<Optional<ExchangeRateTable>> result,
+                                  AtomicReference<CompletableFuture<?>> exchange) {
+        if (result.isDone()) {
+            return;
+        }
+
+        log.info("Fetch latest exchange rates from host: {}, for currency: {}", properties.getHost(), baseCurrency);
+        var requestBuilder = HttpRequest.newBuilder(URI.create(properties.getUrl() + baseCurrency))
+                .timeout(properties.getHttp().getReadTimeout())
+                .GET();
+        addValidators(baseCurrency, requestBuilder::header);
+        var request = requestBuilder.build();
+        var response = asyncHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        exchange.set(response);
+
+        response.whenComplete((it, failure) -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(readRates(request, it, failure, baseCurrency));
+
+            } catch (HttpClientErrorException.NotFound ex) {
+                result.complete(Optional.empty());
+
+            } catch (ResourceAccessException | HttpServerErrorException ex) {
+                var retry = properties.getRetry();
+                if (attempt >= retry.getMaxAttempts() || !retryBudget.tryAcquireRetry() || !requestQuota.tryAcquire()) {
+                    result.completeExceptionally(fetchFailure(baseCurrency, ex));
+                    return;
+                }
+                log.warn("Retry fetch of exchange rates for currency: {}, attempt: {} failed, reason: {}",
+                        baseCurrency, attempt, ex.getMessage());
+                CompletableFuture.delayedExecutor(retry.getBackoff().toMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> sendRequestAsync(baseCurrency, attempt + 1, result, exchange));
+
+            } catch (RestClientException ex) {
+                result.completeExceptionally(fetchFailure(baseCurrency, ex));
+            }
+        });
+    }
+
+    /**
+     * Reads the served rates of an asynchronous response, reporting the failures with the same
+     * {@link RestClientException} types as the {@link RestTemplate} does, so that both paths retry alike.
+     */
+    private Optional<ExchangeRateTable> readRates(HttpRequest request, HttpResponse<byte[]> response,
+                                                  Throwable failure, String baseCurrency) {
+        if (failure != null) {
+            var cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            throw new ResourceAccessException(String.format("I/O error on GET request for \"%s\": %s",
+                    request.uri(), cause.getMessage()));
+        }
+
+        var status = HttpStatusCode.valueOf(response.statusCode());
+        if (status.isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            var headers = new HttpHeaders();
+            response.headers().map().forEach(headers::addAll);
+            return notModifiedRates(baseCurrency, headers);
+        }
+        var statusText = Optional.ofNullable(HttpStatus.resolve(response.statusCode()))
+                .map(HttpStatus::getReasonPhrase)
+                .orElse("");
+        if (status.is4xxClientError()) {
+            throw HttpClientErrorException.create(status, statusText, HttpHeaders.EMPTY, response.body(), null);
+        }
+        if (status.is5xxServerError()) {
+            throw HttpServerErrorException.create(status, statusText, HttpHeaders.EMPTY, response.body(), null);
+        }
+
+        try {
+            var payload = payloadParser.parse(new ByteArrayInputStream(response.body()), baseCurrency,
+                    properties.getPayload().getCurrencies());
+            return rememberPayload(baseCurrency, payload, response.headers().firstValue(HttpHeaders.ETAG).orElse(null),
+                    response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null));
+        } catch (IOException ex) {
+            throw new RestClientException("Malformed exchange rates payload: " + ex.getMessage(), ex);
+        }
+    }
+
+    private ExchangeRateTable servedRates(Map<String, BigDecimal> rates) {
+        var currencies = properties.getPayload().getCurrencies();
+        var table = ExchangeRateTable.builder();
+        rates.forEach((currency, rate) -> {
+            if (currencies.isEmpty() || currencies.contains(currency)) {
+                table.rate(currency, rate);
+            }
+        });
+        return table.build();
+    }
+
+    private void pause(Duration backoff, RestClientException cause) {
+        try {
+            Thread.sleep(backoff.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    /**
+     * Payload fetched for a base currency with the ETag and the Last-Modified validators of its response.
+     */
+    @Value
+    private static class FetchedPayload {
+
+        ExchangeRateTable rates;
+        Instant nextUpdateAt;
+        String entityTag;
+        String lastModified;
+    }
+}
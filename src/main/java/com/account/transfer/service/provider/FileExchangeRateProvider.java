@@ -0,0 +1,57 @@
+package com.account.transfer.service.provider;
+
+import com.account.transfer.config.ExchangeRateProviderProperties;
+import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.service.model.ExchangeRateTable;
+import com.account.transfer.service.payload.ExchangeRatePayload;
+import com.account.transfer.service.payload.ExchangeRatePayloadParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the exchange rates from local files, one file per base currency named after it, e.g. `USD.json`,
+ * in the payload format of the exchangerate-api. Serves as a stub of the remote providers in the local
+ * and test environments, and as their last resort fallback. The default location `classpath:exchange-rates/`
+ * holds the stub rates of the currencies of the pre-filled accounts.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileExchangeRateProvider implements ExchangeRateProvider {
+
+    public static final String NAME = "file";
+
+    private static final String FILE_EXTENSION = ".json";
+
+    private final ExchangeRateProviderProperties properties;
+    private final ResourceLoader resourceLoader;
+    private final ExchangeRatePayloadParser payloadParser;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Optional<ExchangeRateTable> fetchRates(String baseCurrency) {
+        var location = properties.getFile().getLocation();
+        var resource = resourceLoader.getResource(location + baseCurrency + FILE_EXTENSION);
+        if (!resource.exists()) {
+            return Optional.empty();
+        }
+
+        log.info("Read latest exchange rates from location: {}, for currency: {}", location, baseCurrency);
+        try (var payload = resource.getInputStream()) {
+            return payloadParser.parse(payload, baseCurrency, Set.of()).map(ExchangeRatePayload::getRates);
+        } catch (IOException ex) {
+            throw new ExchangeRateServiceException(String.format("Read latest exchange rate from=%s for currency=%s " +
+                    "failed by reason=%s", location, baseCurrency, ex.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.account.transfer.service.provider;
+
+import com.account.transfer.config.ExchangeRateProviderProperties;
+import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.service.model.ExchangeRateTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Asks the configured providers for the exchange rates, the primary provider first, and returns the first answer
+ * with the rates. A provider which has not published the rates of the currency is followed by the next provider
+ * the same way as a failed one, the rates are reported as not published only when no provider has published them.
+ * <p>
+ * A provider which has not answered within its hedge delay is hedged: the same request is sent to the next
+ * provider while the first one keeps running, and whichever answers first wins. A provider which fails is
+ * followed by the next provider right away. The hedge delay of a provider is the configured percentile of
+ * its own recent latency, so only its slowest requests are hedged and the extra load stays proportional
+ * to that percentile. The losing requests are not cancelled: they complete in the background and keep
+ * feeding the latency histogram of their provider.
+ * <p>
+ * The blocking fetches run the providers on the hedging thread pool, the asynchronous fetches use
+ * the non-blocking fetches of the providers and only schedule the hedges on that pool.
+ * <p>
+ * The latency of every provider is published as the `exchange.rate.provider.latency` timer and the hedged
+ * requests as the `exchange.rate.provider.hedges` counter, both tagged with the provider name.
+ */
+@Slf4j
+@Primary
+@Component
+public class HedgingExchangeRateProvider implements ExchangeRateProvider {
+
+    private final ExchangeRateProviderProperties properties;
+    private final List<TimedProvider> providers;
+    private final ExecutorService executor;
+
+    public HedgingExchangeRateProvider(List<ExchangeRateProvider> providers, ExchangeRateProviderProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        var providersByName = providers.stream()
+                .collect(Collectors.toMap(ExchangeRateProvider::getName, it -> it));
+        this.providers = properties.getOrder().stream()
+                .map(name -> {
+                    var provider = providersByName.get(name);
+                    if (provider == null) {
+                        throw new IllegalStateException("Unknown exchange rate provider: " + name
+                                + ", available providers: " + providersByName.keySet());
+                    }
+                    return new TimedProvider(provider, meterRegistry, properties.getHedging());
+                })
+                .toList();
+        if (this.providers.isEmpty()) {
+            throw new IllegalStateException("No exchange rate provider is configured");
+        }
+        this.executor = Executors.newFixedThreadPool(properties.getHedging().getThreads());
+    }
+
+    @Override
+    public String getName() {
+        return providers.stream()
+                .map(it -> it.provider.getName())
+                .collect(Collectors.joining(","));
+    }
+
+    @Override
+    public Optional<ExchangeRateTable> fetchRates(String baseCurrency) {
+        if (!isHedging()) {
+            return fetchInOrder(baseCurrency);
+        }
+
+        var fetch = new Hedge(baseCurrency,
+                provider -> CompletableFuture.supplyAsync(() -> provider.fetchRates(baseCurrency), executor)).start();
+        try {
+            return fetch.get();
+        } catch (ExecutionException ex) {
+            throw (ExchangeRateServiceException) ex.getCause();
+        } catch (InterruptedException ex) {
+            fetch.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ExchangeRateServiceException(String.format(
+                    "Fetch latest exchange rate for currency=%s interrupted", baseCurrency));
+        }
+    }
+
+    /**
+     * Fetches the rates with the asynchronous fetches of the providers, hedged and failed over the same way
+     * as the blocking fetch. Cancelling the returned future cancels the fetches of the providers still running.
+     */
+    @Override
+    public CompletableFuture<Optional<ExchangeRateTable>> fetchRatesAsync(String baseCurrency) {
+        return new Hedge(baseCurrency, provider -> provider.fetchRatesAsync(baseCurrency)).start();
+    }
+
+    /**
+     * Returns the earliest next update announced by the providers, any of which may answer the next fetch.
+     */
+    @Override
+    public Optional<Instant> getNextUpdateAt(String baseCurrency) {
+        return providers.stream()
+                .flatMap(it -> it.provider.getNextUpdateAt(baseCurrency).stream())
+                .min(Comparator.naturalOrder());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean isHedging() {
+        return providers.size() > 1 && properties.getHedging().isEnabled();
+    }
+
+    private Optional<ExchangeRateTable> fetchInOrder(String baseCurrency) {
+        ExchangeRateServiceException failure = null;
+        for (var provider : providers) {
+            try {
+                var rates = provider.fetchRates(baseCurrency);
+                if (rates.isPresent()) {
+                    return rates;
+                }
+                log.info("Exchange rate provider: {} has not published rates for currency: {}",
+                        provider.provider.getName(), baseCurrency);
+            } catch (ExchangeRateServiceException ex) {
+                failure = failure == null ? ex : failure;
+                log.warn("Exchange rate provider: {} failed for currency: {}, reason: {}",
+                        provider.provider.getName(), baseCurrency, ex.getMessage());
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return Optional.empty();
+    }
+
+    private ExchangeRateServiceException toServiceException(TimedProvider provider, String baseCurrency,
+                                                            Throwable cause) {
+        if (cause instanceof ExchangeRateServiceException serviceException) {
+            return serviceException;
+        }
+        return new ExchangeRateServiceException(String.format("Fetch latest exchange rate from=%s for currency=%s " +
+                "failed by reason=%s", provider.provider.getName(), baseCurrency, cause.getMessage()));
+    }
+
+    /**
+     * A single fetch across the providers. The providers are launched in order: the next one when the last
+     * launched has not answered within its hedge delay, or right away when it has failed or answered without
+     * the rates. The first answer with the rates completes the fetch. Once all the providers have answered
+     * without them, the fetch fails with the first failure, or completes empty when none of them has failed.
+     */
+    private final class Hedge {
+
+        private final String baseCurrency;
+        private final Function<ExchangeRateProvider, CompletableFuture<Optional<ExchangeRateTable>>> attempt;
+        private final boolean hedging = isHedging();
+        private final CompletableFuture<Optional<ExchangeRateTable>> result = new CompletableFuture<>();
+        private final List<CompletableFuture<Optional<ExchangeRateTable>>> attempts = new ArrayList<>();
+        private int failed;
+        private int unpublished;
+        private ExchangeRateServiceException failure;
+
+        private Hedge(String baseCurrency,
+                      Function<ExchangeRateProvider, CompletableFuture<Optional<ExchangeRateTable>>> attempt) {
+            this.baseCurrency = baseCurrency;
+            this.attempt = attempt;
+        }
+
+        private CompletableFuture<Optional<ExchangeRateTable>> start() {
+            result.whenComplete((rates, ex) -> {
+                if (result.isCancelled()) {
+                    cancelAttempts();
+                }
+            });
+            launchNext();
+            return result;
+        }
+
+        private synchronized void launchNext() {
+            if (result.isDone() || attempts.size() == providers.size()) {
+                return;
+            }
+
+            var index = attempts.size();
+            var provider = providers.get(index);
+            var startedNanos = System.nanoTime();
+            var fetch = provider.fetch(attempt);
+            attempts.add(fetch);
+            fetch.whenComplete((rates, ex) -> onAttemptComplete(provider, startedNanos, rates, ex));
+
+            if (hedging && index + 1 < providers.size()) {
+                CompletableFuture.delayedExecutor(provider.hedgeDelayNanos(), TimeUnit.NANOSECONDS, executor)
+                        .execute(() -> hedge(index));
+            }
+        }
+
+        private synchronized void hedge(int index) {
+            if (result.isDone() || attempts.size() != index + 1) {
+                return;
+            }
+
+            var hedge = providers.get(index + 1);
+            log.info("Exchange rate provider: {} has not answered for currency: {}, hedge by provider: {}",
+                    providers.get(index).provider.getName(), baseCurrency, hedge.provider.getName());
+            hedge.hedges.increment();
+            launchNext();
+        }
+
+        /**
+         * Completes the fetch with the first answer with the rates. Only the latency of the answered requests
+         * is recorded: the failures of a provider, e.g. rejected by an open circuit breaker, would otherwise make
+         * it look fast.
+         */
+        private synchronized void onAttemptComplete(TimedProvider provider, long startedNanos,
+                                                    Optional<ExchangeRateTable> rates, Throwable ex) {
+            if (ex == null) {
+                provider.recordLatency(startedNanos);
+                if (rates.isPresent()) {
+                    result.complete(rates);
+                    return;
+                }
+            }
+            if (result.isDone()) {
+                return;
+            }
+
+            if (ex == null) {
+                unpublished++;
+                log.info("Exchange rate provider: {} has not published rates for currency: {}",
+                        provider.provider.getName(), baseCurrency);
+            } else {
+                var cause = toServiceException(provider, baseCurrency,
+                        ex instanceof CompletionException ? ex.getCause() : ex);
+                failure = failure == null ? cause : failure;
+                failed++;
+                log.warn("Exchange rate provider: {} failed for currency: {}, reason: {}",
+                        provider.provider.getName(), baseCurrency, cause.getMessage());
+            }
+
+            if (attempts.size() < providers.size()) {
+                launchNext();
+            } else if (failed + unpublished == attempts.size()) {
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(Optional.empty());
+                }
+            }
+        }
+
+        private synchronized void cancelAttempts() {
+            attempts.forEach(it -> it.cancel(true));
+        }
+    }
+
+    /**
+     * Provider with its latency histogram.
+     */
+    private static final class TimedProvider {
+
+        private final ExchangeRateProvider provider;
+        private final ExchangeRateProviderProperties.Hedging hedging;
+        private final Timer latency;
+        private final Counter hedges;
+
+        private TimedProvider(ExchangeRateProvider provider, MeterRegistry meterRegistry,
+                              ExchangeRateProviderProperties.Hedging hedging) {
+            this.provider = provider;
+            this.hedging = hedging;
+            this.latency = Timer.builder("exchange.rate.provider.latency")
+                    .tag("provider", provider.getName())
+                    .publishPercentiles(hedging.getPercentile())
+                    .distributionStatisticExpiry(hedging.getLatencyWindow())
+                    .register(meterRegistry);
+            this.hedges = Counter.builder("exchange.rate.provider.hedges")
+                    .tag("provider", provider.getName())
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Fetches the rates, recording the latency of the answered requests only: the failures of a provider,
+         * e.g. rejected by an open circuit breaker, would otherwise make it look fast.
+         */
+        private Optional<ExchangeRateTable> fetchRates(String baseCurrency) {
+            var startedNanos = System.nanoTime();
+            var rates = provider.fetchRates(baseCurrency);
+            recordLatency(startedNanos);
+            return rates;
+        }
+
+        /**
+         * Starts a fetch of the provider. A fetch which fails to start fails its future instead.
+         */
+        private CompletableFuture<Optional<ExchangeRateTable>> fetch(
+                Function<ExchangeRateProvider, CompletableFuture<Optional<ExchangeRateTable>>> attempt) {
+            try {
+                return attempt.apply(provider);
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+
+        private void recordLatency(long startedNanos) {
+            latency.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private long hedgeDelayNanos() {
+            var maxDelayNanos = hedging.getMaxDelay().toNanos();
+            if (latency.count() < hedging.getMinSamples()) {
+                return maxDelayNanos;
+            }
+            var percentiles = latency.takeSnapshot().percentileValues();
+            var percentileNanos = percentiles.length == 0
+                    ? maxDelayNanos
+                    : (long) percentiles[0].value(TimeUnit.NANOSECONDS);
+            return Math.min(maxDelayNanos, Math.max(hedging.getMinDelay().toNanos(), percentileNanos));
+        }
+    }
+}
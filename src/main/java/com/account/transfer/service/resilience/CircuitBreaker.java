@@ -0,0 +1,132 @@
+package com.account.transfer.service.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker guarding the calls to a remote dependency.
+ * <p>
+ * The breaker is {@link State#CLOSED} while the calls succeed and opens after the configured number of
+ * consecutive failures. An {@link State#OPEN} breaker rejects every call without touching the dependency
+ * until the open duration elapses, then turns {@link State#HALF_OPEN} and lets a limited number of probe
+ * calls through: a successful probe closes the breaker, a failed one opens it again.
+ * <p>
+ * The current state, the transitions and the rejected calls are published as `circuit.breaker.*` metrics
+ * tagged with the breaker name.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenMaxCalls;
+    private final MeterRegistry meterRegistry;
+    private final Counter notPermittedCounter;
+
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int halfOpenCalls;
+    private long openedAtNanos;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, int halfOpenMaxCalls,
+                          MeterRegistry meterRegistry) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenMaxCalls = halfOpenMaxCalls;
+        this.meterRegistry = meterRegistry;
+        this.notPermittedCounter = Counter.builder("circuit.breaker.calls.not.permitted")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("circuit.breaker.state", this, breaker -> breaker.getState().ordinal())
+                .tag("name", name)
+                .description("0 - closed, 1 - open, 2 - half open")
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Checks whether a call may be sent to the dependency. Every permitted call has to be reported
+     * with {@link #onSuccess()} or {@link #onFailure()}, or released with {@link #releasePermission()}.
+     *
+     * @return true if the call is permitted, false if the breaker rejects it.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && halfOpenCalls < halfOpenMaxCalls) {
+            halfOpenCalls++;
+            return true;
+        }
+
+        notPermittedCounter.increment();
+        return false;
+    }
+
+    /**
+     * Reports a successful call of the dependency.
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    /**
+     * Reports a failed call of the dependency.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * Releases the permission of a call abandoned by the caller before the dependency answered,
+     * e.g. a cancelled asynchronous call, so that it does not hold one of the half open probe calls.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenCalls > 0) {
+            halfOpenCalls--;
+        }
+    }
+
+    private void transitionTo(State newState) {
+        var oldState = state;
+        state = newState;
+        halfOpenCalls = 0;
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        if (newState == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+
+        log.warn("Circuit breaker: {} changed state from: {} to: {}", name, oldState, newState);
+        meterRegistry.counter("circuit.breaker.transitions",
+                "name", name, "from", oldState.name(), "to", newState.name()).increment();
+    }
+}
@@ -0,0 +1,68 @@
+package com.account.transfer.service.resilience;
+
+import com.account.transfer.repository.RequestQuotaUsageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+
+/**
+ * Counts the requests of the quotas in the `request_quota_usage` table, so that the count survives restarts
+ * and is shared by all the nodes. Every request is counted by a single conditional update.
+ * <p>
+ * A request is let through when the database cannot count it: the quota guards the bill of the remote
+ * dependency, which is not worth failing its calls for while the database is unavailable.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DatabaseRequestQuotaStore implements RequestQuotaStore {
+
+    private final RequestQuotaUsageRepository requestQuotaUsageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public boolean tryIncrement(String name, YearMonth month, long limit) {
+        var usageMonth = month.toString();
+        try {
+            if (incrementUsed(name, usageMonth, limit)) {
+                return true;
+            }
+            if (requestQuotaUsageRepository.findUsed(name, usageMonth).isPresent()) {
+                return false;
+            }
+            createUsage(name, usageMonth);
+            return incrementUsed(name, usageMonth, limit);
+        } catch (DataAccessException ex) {
+            log.warn("Count of request against quota: {} failed, request let through, reason: {}",
+                    name, ex.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public long getUsed(String name, YearMonth month) {
+        return requestQuotaUsageRepository.findUsed(name, month.toString()).orElse(0L);
+    }
+
+    private boolean incrementUsed(String name, String usageMonth, long limit) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(
+                status -> requestQuotaUsageRepository.incrementUsed(name, usageMonth, limit) > 0));
+    }
+
+    /**
+     * The first request of the month creates its usage, a usage created by a concurrent node is counted instead.
+     */
+    private void createUsage(String name, String usageMonth) {
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> requestQuotaUsageRepository.insertUsage(name, usageMonth));
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Usage of quota: {} for month: {} created concurrently", name, usageMonth);
+        }
+    }
+}
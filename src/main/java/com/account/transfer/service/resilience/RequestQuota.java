@@ -0,0 +1,123 @@
+package com.account.transfer.service.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Monthly quota of the requests to a remote dependency, e.g. the request quota of a paid API plan.
+ * <p>
+ * Every request takes a unit of the quota of the current calendar month (UTC). Once the quota is spent the
+ * requests are rejected until the next month, so the dependency is never called beyond the plan. The requests
+ * are counted by the {@link RequestQuotaStore}: a quota counted in the database is shared by all the nodes and
+ * survives their restarts, a quota created without a store is counted in memory by the process on its own.
+ * The used and the remaining quota are published as `request.quota.*` metrics tagged with the quota name.
+ */
+public class RequestQuota {
+
+    private final String name;
+    private final long monthlyRequests;
+    private final RequestQuotaStore store;
+    private final Clock clock;
+    private final Counter rejectedCounter;
+
+    public RequestQuota(String name, long monthlyRequests, MeterRegistry meterRegistry) {
+        this(name, monthlyRequests, Clock.systemUTC(), meterRegistry);
+    }
+
+    public RequestQuota(String name, long monthlyRequests, Clock clock, MeterRegistry meterRegistry) {
+        this(name, monthlyRequests, new InMemoryStore(), clock, meterRegistry);
+    }
+
+    public RequestQuota(String name, long monthlyRequests, RequestQuotaStore store, Clock clock,
+                        MeterRegistry meterRegistry) {
+        this.name = name;
+        this.monthlyRequests = monthlyRequests;
+        this.store = store;
+        this.clock = clock;
+        this.rejectedCounter = Counter.builder("request.quota.rejected")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("request.quota.used", this, RequestQuota::getUsed)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("request.quota.remaining", this, RequestQuota::getRemaining)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a unit of the quota for a request.
+     *
+     * @return true if the request is within the quota, false if the quota of the month is spent.
+     */
+    public boolean tryAcquire() {
+        if (!store.tryIncrement(name, YearMonth.now(clock), monthlyRequests)) {
+            rejectedCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public long getUsed() {
+        return store.getUsed(name, YearMonth.now(clock));
+    }
+
+    public long getRemaining() {
+        return Math.max(0, monthlyRequests - getUsed());
+    }
+
+    /**
+     * Spreads the remaining quota of the month evenly over the rest of the month.
+     *
+     * @param interval the length of the interval.
+     * @return the share of the remaining quota falling to an interval of the given length.
+     */
+    public double getAllowance(Duration interval) {
+        var now = clock.instant();
+        var monthEnd = YearMonth.now(clock).plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        var remaining = getRemaining();
+        var left = Duration.between(now, monthEnd);
+        if (left.compareTo(interval) <= 0) {
+            return remaining;
+        }
+        return (double) remaining * interval.toNanos() / left.toNanos();
+    }
+
+    /**
+     * Counts the requests of a single quota in memory, from the start of the current month.
+     */
+    private static final class InMemoryStore implements RequestQuotaStore {
+
+        private YearMonth month;
+        private long used;
+
+        @Override
+        public synchronized boolean tryIncrement(String name, YearMonth month, long limit) {
+            rollOver(month);
+            if (used >= limit) {
+                return false;
+            }
+            used++;
+            return true;
+        }
+
+        @Override
+        public synchronized long getUsed(String name, YearMonth month) {
+            rollOver(month);
+            return used;
+        }
+
+        private void rollOver(YearMonth currentMonth) {
+            if (!currentMonth.equals(month)) {
+                month = currentMonth;
+                used = 0;
+            }
+        }
+    }
+}
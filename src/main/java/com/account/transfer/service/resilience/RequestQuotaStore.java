@@ -0,0 +1,28 @@
+package com.account.transfer.service.resilience;
+
+import java.time.YearMonth;
+
+/**
+ * Counter of the requests taken from a {@link RequestQuota}, one count per quota name and calendar month.
+ */
+public interface RequestQuotaStore {
+
+    /**
+     * Counts a request against the quota unless the limit of the month is reached.
+     *
+     * @param name  the name of the quota.
+     * @param month the month of the request.
+     * @param limit the number of requests of the quota per month.
+     * @return true if the request is counted, false if the limit of the month is reached.
+     */
+    boolean tryIncrement(String name, YearMonth month, long limit);
+
+    /**
+     * Returns the number of requests counted against the quota in the given month.
+     *
+     * @param name  the name of the quota.
+     * @param month the month of the requests.
+     * @return the number of counted requests.
+     */
+    long getUsed(String name, YearMonth month);
+}
@@ -0,0 +1,55 @@
+package com.account.transfer.service.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Token bucket limiting the retries of the calls to a remote dependency to a share of the original calls.
+ * <p>
+ * Every original call deposits the configured ratio of a token, up to the bucket capacity, and every
+ * retry withdraws a whole token. While the dependency is healthy the bucket stays full; during an outage
+ * the retries drain it quickly, so that retries can never multiply the load on a failing dependency.
+ */
+public class RetryBudget {
+
+    private final double depositPerCall;
+    private final double maxTokens;
+    private final Counter retriesCounter;
+    private final Counter exhaustedCounter;
+
+    private double tokens;
+
+    public RetryBudget(String name, double retryRatio, int maxRetries, MeterRegistry meterRegistry) {
+        this.depositPerCall = retryRatio;
+        this.maxTokens = maxRetries;
+        this.tokens = maxRetries;
+        this.retriesCounter = Counter.builder("retry.budget.retries")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("retry.budget.exhausted")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records an original (not retried) call.
+     */
+    public synchronized void onCall() {
+        tokens = Math.min(maxTokens, tokens + depositPerCall);
+    }
+
+    /**
+     * Withdraws a token for a retry.
+     *
+     * @return true if the retry is within the budget, false if the budget is exhausted.
+     */
+    public synchronized boolean tryAcquireRetry() {
+        if (tokens < 1) {
+            exhaustedCounter.increment();
+            return false;
+        }
+        tokens -= 1;
+        retriesCounter.increment();
+        return true;
+    }
+}
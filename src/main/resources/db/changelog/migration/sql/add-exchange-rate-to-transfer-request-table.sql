@@ -0,0 +1,2 @@
+ALTER TABLE transfer_request
+    ADD COLUMN exchange_rate NUMERIC(38, 18);
\ No newline at end of file
@@ -0,0 +1,2 @@
+ALTER TABLE exchange_rate_snapshot
+    ADD COLUMN next_update_at TIMESTAMP(6) WITH TIME ZONE;
\ No newline at end of file
@@ -0,0 +1,2 @@
+ALTER TABLE account
+    ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
\ No newline at end of file
@@ -0,0 +1,9 @@
+CREATE TABLE account_balance_slot
+(
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    owner_id BIGINT         NOT NULL,
+    slot     INT            NOT NULL,
+    balance  NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_account_balance_slot_owner_id_slot UNIQUE (owner_id, slot)
+);
\ No newline at end of file
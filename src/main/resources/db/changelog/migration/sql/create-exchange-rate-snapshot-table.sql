@@ -0,0 +1,7 @@
+CREATE TABLE exchange_rate_snapshot
+(
+    base_currency VARCHAR(3)                  NOT NULL,
+    fetched_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    rates         CLOB                        NOT NULL,
+    PRIMARY KEY (base_currency)
+);
\ No newline at end of file
@@ -0,0 +1,9 @@
+CREATE TABLE request_quota_usage
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    quota_name  VARCHAR(64) NOT NULL,
+    usage_month VARCHAR(7)  NOT NULL,
+    used        BIGINT      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_request_quota_usage_quota_name_usage_month UNIQUE (quota_name, usage_month)
+);
\ No newline at end of file
@@ -0,0 +1,7 @@
+CREATE TABLE transfer_idempotency_key
+(
+    idempotency_key VARCHAR(255)                NOT NULL,
+    transaction_id  BIGINT                      NOT NULL,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (idempotency_key)
+);
\ No newline at end of file
@@ -0,0 +1,20 @@
+CREATE TABLE transfer_request
+(
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    from_account_id   BIGINT                      NOT NULL,
+    to_account_id     BIGINT                      NOT NULL,
+    amount            NUMERIC(38, 2)              NOT NULL,
+    quote_id          VARCHAR(255),
+    idempotency_key   VARCHAR(255),
+    status            VARCHAR(10)                 NOT NULL,
+    attempts          INT                         NOT NULL,
+    transaction_id    BIGINT,
+    error_code        VARCHAR(255),
+    error_key         VARCHAR(255),
+    error_message     VARCHAR(1000),
+    created_at        TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at        TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_transfer_request_status ON transfer_request (status, id);
\ No newline at end of file
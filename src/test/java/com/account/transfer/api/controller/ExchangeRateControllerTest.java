@@ -1,26 +1,40 @@
 package com.account.transfer.api.controller;
 
+import com.account.transfer.api.dto.ExchangeRateQuoteRequest;
+import com.account.transfer.api.dto.ExchangeRateQuoteResponse;
 import com.account.transfer.api.dto.ExchangeRateResponse;
 import com.account.transfer.exception.ExchangeRateNotFoundException;
 import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.exception.SubscriptionLimitException;
 import com.account.transfer.mapper.ExchangeRateMapper;
+import com.account.transfer.service.ExchangeRateQuoteService;
 import com.account.transfer.service.ExchangeRateService;
+import com.account.transfer.service.ExchangeRateStreamService;
+import com.account.transfer.service.model.CurrencyPair;
 import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRateQuote;
 import com.account.transfer.util.DateTimeUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
 
 import static com.account.transfer.exception.AppErrorCode.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -33,9 +47,17 @@ class ExchangeRateControllerTest {
     @MockBean
     private ExchangeRateService exchangeRateService;
 
+    @MockBean
+    private ExchangeRateQuoteService exchangeRateQuoteService;
+
+    @MockBean
+    private ExchangeRateStreamService exchangeRateStreamService;
+
     @MockBean
     private ExchangeRateMapper exchangeRateMapper;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Test
     public void should_return_200_when_success() throws Exception {
         // given
@@ -151,6 +173,151 @@ class ExchangeRateControllerTest {
                 .andExpect(jsonPath("$.errorMessage.text").value("Parameter 'toCurrency' must be 3 latin letters"));
     }
 
+    @Test
+    public void should_return_200_when_matrix_success() throws Exception {
+        // given
+        String base = "USD";
+        ZonedDateTime dateTime = ZonedDateTime.now();
+
+        ExchangeRateModel eurModel = prepareExchangeRateModel(base, "EUR", BigDecimal.valueOf(0.85), dateTime);
+        ExchangeRateModel gbpModel = prepareExchangeRateModel(base, "GBP", BigDecimal.valueOf(0.78), dateTime);
+
+        when(exchangeRateService.getExchangeRates(base, List.of("EUR", "GBP"))).thenReturn(List.of(eurModel, gbpModel));
+        when(exchangeRateMapper.mapToExchangeRateResponse(eurModel))
+                .thenReturn(prepareExchangeRateResponse(base, "EUR", BigDecimal.valueOf(0.85), dateTime));
+        when(exchangeRateMapper.mapToExchangeRateResponse(gbpModel))
+                .thenReturn(prepareExchangeRateResponse(base, "GBP", BigDecimal.valueOf(0.78), dateTime));
+
+        // when & then
+        mockMvc.perform(get("/exchange-rate/matrix")
+                .param("base", "usd")
+                .param("targets", "eur,GBP,EUR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].fromCurrency").value(base))
+                .andExpect(jsonPath("$[0].toCurrency").value("EUR"))
+                .andExpect(jsonPath("$[0].rate").value(0.85))
+                .andExpect(jsonPath("$[1].toCurrency").value("GBP"))
+                .andExpect(jsonPath("$[1].rate").value(0.78));
+    }
+
+    @Test
+    public void should_return_400_when_invalid_matrix_targets_param() throws Exception {
+        // when & then
+        mockMvc.perform(get("/exchange-rate/matrix")
+                .param("base", "USD")
+                .param("targets", "EUR,INVALID"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage.key").value(FIELDS_VALIDATION_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value("Parameter 'targets' must contain 3 latin letters codes"));
+    }
+
+    @Test
+    public void should_return_404_when_matrix_throws_ExchangeRateNotFoundException() throws Exception {
+        // given
+        String base = "USD";
+        String expectedErrorMsg = String.format("Exchange rate for pairs [%s:%s] is not found", base, "XXX");
+
+        when(exchangeRateService.getExchangeRates(base, List.of("EUR", "XXX")))
+                .thenThrow(new ExchangeRateNotFoundException(base, "XXX"));
+
+        // when & then
+        mockMvc.perform(get("/exchange-rate/matrix")
+                .param("base", base)
+                .param("targets", "EUR,XXX"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage.key").value(EXCHANGE_RATE_NOT_FOUND_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value(expectedErrorMsg));
+    }
+
+    @Test
+    public void should_start_stream_when_subscribe_success() throws Exception {
+        // given
+        Set<CurrencyPair> pairs = Set.of(new CurrencyPair("USD", "EUR"), new CurrencyPair("GBP", "JPY"));
+
+        when(exchangeRateStreamService.subscribe(pairs)).thenReturn(new SseEmitter());
+
+        // when & then
+        mockMvc.perform(get("/exchange-rate/stream")
+                .param("pairs", "usd:eur,GBP:JPY"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    public void should_return_400_when_invalid_stream_pair() throws Exception {
+        // when & then
+        mockMvc.perform(get("/exchange-rate/stream")
+                .param("pairs", "USD:EUR,USDEUR"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage.key").value(FIELDS_VALIDATION_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text")
+                        .value("Parameter 'pairs' must contain FROM:TO pairs of 3 latin letters codes"));
+    }
+
+    @Test
+    public void should_return_503_when_stream_throws_SubscriptionLimitException() throws Exception {
+        // given
+        String expectedErrorMsg = "Maximum number of exchange rate stream subscribers is reached: 1000";
+
+        when(exchangeRateStreamService.subscribe(Set.of(new CurrencyPair("USD", "EUR"))))
+                .thenThrow(new SubscriptionLimitException(expectedErrorMsg));
+
+        // when & then
+        mockMvc.perform(get("/exchange-rate/stream")
+                .param("pairs", "USD:EUR"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.errorMessage.key").value(SUBSCRIPTION_LIMIT_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value(expectedErrorMsg));
+    }
+
+    @Test
+    public void should_return_200_when_quote_created() throws Exception {
+        // given
+        String quoteId = "6f1c1a52-3d2e-4a55-9a4f-2b8f0c1d7e90";
+        BigDecimal rate = BigDecimal.valueOf(0.85);
+        ZonedDateTime expiresAt = ZonedDateTime.now().plusMinutes(1);
+
+        ExchangeRateQuote quote = ExchangeRateQuote.builder()
+                .quoteId(quoteId)
+                .fromCurrency("USD")
+                .toCurrency("EUR")
+                .rate(rate)
+                .expiresAt(expiresAt)
+                .build();
+        ExchangeRateQuoteResponse quoteResponse = ExchangeRateQuoteResponse.builder()
+                .quoteId(quoteId)
+                .fromCurrency("USD")
+                .toCurrency("EUR")
+                .rate(rate)
+                .expiresAt(expiresAt)
+                .build();
+
+        when(exchangeRateQuoteService.createQuote("USD", "EUR")).thenReturn(quote);
+        when(exchangeRateMapper.mapToExchangeRateQuoteResponse(quote)).thenReturn(quoteResponse);
+
+        // when & then
+        mockMvc.perform(post("/exchange-rate/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ExchangeRateQuoteRequest("usd", "eur"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quoteId").value(quoteId))
+                .andExpect(jsonPath("$.fromCurrency").value("USD"))
+                .andExpect(jsonPath("$.toCurrency").value("EUR"))
+                .andExpect(jsonPath("$.rate").value(rate));
+    }
+
+    @Test
+    public void should_return_400_when_invalid_quote_currency() throws Exception {
+        // when & then
+        mockMvc.perform(post("/exchange-rate/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ExchangeRateQuoteRequest("USD", "INVALID"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage.key").value(FIELDS_VALIDATION_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value("To currency must be 3 latin letters"));
+    }
+
     private ExchangeRateModel prepareExchangeRateModel(String fromCurrency, String toCurrency, BigDecimal rate,
                                                        ZonedDateTime dateTime) {
         return ExchangeRateModel.builder()
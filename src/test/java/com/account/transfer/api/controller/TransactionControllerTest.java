@@ -1,12 +1,24 @@
 package com.account.transfer.api.controller;
 
+import com.account.transfer.api.dto.TransactionBatchItemResponse;
+import com.account.transfer.api.dto.TransactionBatchRequest;
+import com.account.transfer.api.dto.TransactionBatchResponse;
 import com.account.transfer.api.dto.TransactionRequest;
 import com.account.transfer.api.dto.TransactionResponse;
+import com.account.transfer.api.dto.TransferRequestResponse;
 import com.account.transfer.entity.TransactionStatus;
+import com.account.transfer.entity.TransferRequestStatus;
 import com.account.transfer.exception.*;
 import com.account.transfer.mapper.TransactionMapper;
+import com.account.transfer.config.TransferProperties.BatchAtomicity;
 import com.account.transfer.service.TransactionService;
+import com.account.transfer.service.TransferBatchService;
+import com.account.transfer.service.TransferIdempotencyService;
+import com.account.transfer.service.TransferRequestService;
 import com.account.transfer.service.model.TransactionModel;
+import com.account.transfer.service.model.TransferRequestModel;
+import com.account.transfer.service.model.TransferOrder;
+import com.account.transfer.service.model.TransferResult;
 import com.account.transfer.util.DateTimeUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -19,12 +31,18 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import static com.account.transfer.entity.TransactionStatus.SUCCESS;
 import static com.account.transfer.exception.AppErrorCode.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -38,6 +56,15 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransferBatchService transferBatchService;
+
+    @MockBean
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @MockBean
+    private TransferRequestService transferRequestService;
+
     @MockBean
     private TransactionMapper transactionMapper;
 
@@ -57,7 +84,7 @@ class TransactionControllerTest {
         String targetCurrency = "GBP";
         BigDecimal exchangeRate = BigDecimal.valueOf(0.24);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
         TransactionModel transactionModel = prepareTransactionModel(transactionId, accountOwnerId, targetAccountId,
                 amount, dateTime, SUCCESS, availableBalance, residualBalance, baseCurrency, targetCurrency, exchangeRate);
@@ -65,7 +92,8 @@ class TransactionControllerTest {
         TransactionResponse transactionResponse = prepareTransactionResponse(transactionId, accountOwnerId, targetAccountId,
                 amount, dateTime, SUCCESS, residualBalance, baseCurrency, targetCurrency, exchangeRate);
 
-        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(), request.getAmount()))
+        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(),
+                request.getAmount(), request.getQuoteId()))
                 .thenReturn(transactionModel);
         when(transactionMapper.mapToTransactionResponse(any())).thenReturn(transactionResponse);
 
@@ -93,7 +121,7 @@ class TransactionControllerTest {
         Long targetAccountId = 1002L;
         BigDecimal amount = BigDecimal.valueOf(0.42);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
         // when & then
         mockMvc.perform(post("/transfer")
@@ -111,7 +139,7 @@ class TransactionControllerTest {
         Long targetAccountId = null;
         BigDecimal amount = BigDecimal.valueOf(0.42);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
         // when & then
         mockMvc.perform(post("/transfer")
@@ -129,7 +157,7 @@ class TransactionControllerTest {
         Long targetAccountId = 1002L;
         BigDecimal amount = BigDecimal.valueOf(123456789123456789123456789123456789123.42);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
         // when & then
         mockMvc.perform(post("/transfer")
@@ -148,7 +176,7 @@ class TransactionControllerTest {
         Long targetAccountId = 1002L;
         BigDecimal amount = BigDecimal.valueOf(0.423);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
         // when & then
         mockMvc.perform(post("/transfer")
@@ -167,7 +195,7 @@ class TransactionControllerTest {
         Long targetAccountId = 1002L;
         BigDecimal amount = null;
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
         // when & then
         mockMvc.perform(post("/transfer")
@@ -185,7 +213,7 @@ class TransactionControllerTest {
         Long targetAccountId = 1002L;
         BigDecimal amount = BigDecimal.ZERO;
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
         // when & then
         mockMvc.perform(post("/transfer")
@@ -203,7 +231,7 @@ class TransactionControllerTest {
         Long targetAccountId = 1002L;
         BigDecimal amount = BigDecimal.valueOf(-1);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
         // when & then
         mockMvc.perform(post("/transfer")
@@ -222,9 +250,10 @@ class TransactionControllerTest {
         BigDecimal amount = BigDecimal.valueOf(4.2);
         String expectedErrorMsg = String.format("Cannot transfer funds to the same account: %s", accountOwnerId);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
-        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(), request.getAmount()))
+        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(),
+                request.getAmount(), request.getQuoteId()))
                 .thenThrow(new InvalidTransferException(expectedErrorMsg));
 
         // when & then
@@ -236,6 +265,41 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.errorMessage.text").value(expectedErrorMsg));
     }
 
+    @Test
+    public void should_return_400_when_invalid_quoteId() throws Exception {
+        // given
+        TransactionRequest request = new TransactionRequest(1001L, 1002L, BigDecimal.valueOf(4.2), "invalid");
+
+        // when & then
+        mockMvc.perform(post("/transfer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage.key").value(FIELDS_VALIDATION_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value("Quote id must be a UUID"));
+    }
+
+    @Test
+    public void should_return_404_when_throws_QuoteNotFoundException() throws Exception {
+        // given
+        String quoteId = "6f1c1a52-3d2e-4a55-9a4f-2b8f0c1d7e90";
+        String expectedErrorMsg = String.format("Exchange rate quote: %s is not found or expired", quoteId);
+
+        TransactionRequest request = new TransactionRequest(1001L, 1002L, BigDecimal.valueOf(4.2), quoteId);
+
+        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(),
+                request.getAmount(), request.getQuoteId()))
+                .thenThrow(new QuoteNotFoundException(quoteId));
+
+        // when & then
+        mockMvc.perform(post("/transfer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage.key").value(QUOTE_NOT_FOUND_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value(expectedErrorMsg));
+    }
+
     @Test
     public void should_return_404_when_throws_AccountNotFoundException() throws Exception {
         // given
@@ -244,9 +308,10 @@ class TransactionControllerTest {
         BigDecimal amount = BigDecimal.valueOf(4.2);
         String expectedErrorMsg = String.format("Account with owner id: [%s] is not found", accountOwnerId);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
-        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(), request.getAmount()))
+        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(),
+                request.getAmount(), request.getQuoteId()))
                 .thenThrow(new AccountNotFoundException(expectedErrorMsg));
 
         // when & then
@@ -266,9 +331,10 @@ class TransactionControllerTest {
         BigDecimal amount = BigDecimal.valueOf(4.2);
         String expectedErrorMsg = String.format("Insufficient balance: 0.00 for amount: %s", amount);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
-        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(), request.getAmount()))
+        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(),
+                request.getAmount(), request.getQuoteId()))
                 .thenThrow(new InsufficientBalanceException(expectedErrorMsg));
 
         // when & then
@@ -290,9 +356,10 @@ class TransactionControllerTest {
         String toCurrency = "GBP";
         String expectedErrorMsg = String.format("Exchange rate for pairs [%s:%s] is not found", fromCurrency, toCurrency);
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
-        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(), request.getAmount()))
+        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(),
+                request.getAmount(), request.getQuoteId()))
                 .thenThrow(new ExchangeRateNotFoundException(fromCurrency, toCurrency));
 
         // when & then
@@ -312,9 +379,10 @@ class TransactionControllerTest {
         BigDecimal amount = BigDecimal.valueOf(4.2);
         String expectedErrorMsg = "test";
 
-        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount);
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
 
-        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(), request.getAmount()))
+        when(transactionService.performTransfer(request.getAccountOwnerId(), request.getTargetAccountId(),
+                request.getAmount(), request.getQuoteId()))
                 .thenThrow(new ExchangeRateServiceException(expectedErrorMsg));
 
         // when & then
@@ -326,6 +394,244 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.errorMessage.text").value(expectedErrorMsg));
     }
 
+    @Test
+    public void should_return_200_when_idempotency_key_given() throws Exception {
+        // given
+        Long transactionId = 123L;
+        Long accountOwnerId = 1001L;
+        Long targetAccountId = 1002L;
+        BigDecimal amount = BigDecimal.valueOf(4.2);
+        String idempotencyKey = "5c0e9d2a-8f3b-4d61-9a7e-1b2c3d4e5f60";
+
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
+
+        TransactionModel transactionModel = TransactionModel.builder()
+                .transactionId(transactionId)
+                .accountOwnerId(accountOwnerId)
+                .targetAccountId(targetAccountId)
+                .amount(amount)
+                .status(SUCCESS)
+                .build();
+        TransactionResponse transactionResponse = TransactionResponse.builder()
+                .transactionId(transactionId)
+                .accountOwnerId(accountOwnerId)
+                .targetAccountId(targetAccountId)
+                .amount(amount)
+                .status(SUCCESS.toString())
+                .build();
+
+        when(transferIdempotencyService.performTransfer(idempotencyKey, accountOwnerId, targetAccountId, amount, null,
+                null))
+                .thenReturn(transactionModel);
+        when(transactionMapper.mapToTransactionResponse(transactionModel)).thenReturn(transactionResponse);
+
+        // when & then
+        mockMvc.perform(post("/transfer")
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionId").value(transactionId));
+        verify(transactionService, never()).performTransfer(any(), any(), any(), any());
+    }
+
+    @Test
+    public void should_return_422_when_throws_IdempotencyKeyReuseException() throws Exception {
+        // given
+        Long accountOwnerId = 1001L;
+        Long targetAccountId = 1002L;
+        BigDecimal amount = BigDecimal.valueOf(4.2);
+        String idempotencyKey = "5c0e9d2a-8f3b-4d61-9a7e-1b2c3d4e5f60";
+        String expectedErrorMsg = String.format("Idempotency key: %s has already been used by another transfer",
+                idempotencyKey);
+
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
+
+        when(transferIdempotencyService.performTransfer(idempotencyKey, accountOwnerId, targetAccountId, amount, null,
+                null))
+                .thenThrow(new IdempotencyKeyReuseException(idempotencyKey));
+
+        // when & then
+        mockMvc.perform(post("/transfer")
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.errorMessage.key").value(IDEMPOTENCY_KEY_REUSE_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value(expectedErrorMsg));
+    }
+
+    @Test
+    public void should_return_202_when_transfer_submitted() throws Exception {
+        // given
+        Long transferId = 5L;
+        Long accountOwnerId = 1001L;
+        Long targetAccountId = 1002L;
+        BigDecimal amount = BigDecimal.valueOf(4.2);
+
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
+
+        TransferRequestModel transferRequestModel = TransferRequestModel.builder()
+                .transferId(transferId)
+                .accountOwnerId(accountOwnerId)
+                .targetAccountId(targetAccountId)
+                .amount(amount)
+                .status(TransferRequestStatus.PENDING)
+                .build();
+        TransferRequestResponse transferRequestResponse = TransferRequestResponse.builder()
+                .transferId(transferId)
+                .accountOwnerId(accountOwnerId)
+                .targetAccountId(targetAccountId)
+                .amount(amount)
+                .status(TransferRequestStatus.PENDING.toString())
+                .build();
+
+        when(transferRequestService.submitTransfer(accountOwnerId, targetAccountId, amount, null, null))
+                .thenReturn(transferRequestModel);
+        when(transactionMapper.mapToTransferRequestResponse(transferRequestModel)).thenReturn(transferRequestResponse);
+
+        // when & then
+        mockMvc.perform(post("/transfer/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/transfer/" + transferId))
+                .andExpect(jsonPath("$.transferId").value(transferId))
+                .andExpect(jsonPath("$.status").value(TransferRequestStatus.PENDING.toString()));
+        verify(transactionService, never()).performTransfer(any(), any(), any(), any());
+    }
+
+    @Test
+    public void should_return_404_when_submitted_transfer_throws_AccountNotFoundException() throws Exception {
+        // given
+        Long accountOwnerId = 1001L;
+        Long targetAccountId = 1009L;
+        BigDecimal amount = BigDecimal.valueOf(4.2);
+        String expectedErrorMsg = String.format("Account with owner id: [%s] is not found", targetAccountId);
+
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, amount, null);
+
+        when(transferRequestService.submitTransfer(accountOwnerId, targetAccountId, amount, null, null))
+                .thenThrow(new AccountNotFoundException(expectedErrorMsg));
+
+        // when & then
+        mockMvc.perform(post("/transfer/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage.key").value(ACCOUNT_NOT_FOUND_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value(expectedErrorMsg));
+    }
+
+    @Test
+    public void should_return_200_when_transfer_status_found() throws Exception {
+        // given
+        Long transferId = 5L;
+        Long transactionId = 123L;
+
+        TransferRequestModel transferRequestModel = TransferRequestModel.builder()
+                .transferId(transferId)
+                .status(TransferRequestStatus.SUCCESS)
+                .build();
+        TransferRequestResponse transferRequestResponse = TransferRequestResponse.builder()
+                .transferId(transferId)
+                .status(TransferRequestStatus.SUCCESS.toString())
+                .transaction(TransactionResponse.builder()
+                        .transactionId(transactionId)
+                        .status(SUCCESS.toString())
+                        .build())
+                .build();
+
+        when(transferRequestService.getTransferRequest(transferId)).thenReturn(transferRequestModel);
+        when(transactionMapper.mapToTransferRequestResponse(transferRequestModel)).thenReturn(transferRequestResponse);
+
+        // when & then
+        mockMvc.perform(get("/transfer/" + transferId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transferId").value(transferId))
+                .andExpect(jsonPath("$.status").value(TransferRequestStatus.SUCCESS.toString()))
+                .andExpect(jsonPath("$.transaction.transactionId").value(transactionId));
+    }
+
+    @Test
+    public void should_return_404_when_throws_TransferRequestNotFoundException() throws Exception {
+        // given
+        Long transferId = 5L;
+
+        when(transferRequestService.getTransferRequest(transferId))
+                .thenThrow(new TransferRequestNotFoundException(transferId));
+
+        // when & then
+        mockMvc.perform(get("/transfer/" + transferId))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorMessage.key").value(TRANSFER_REQUEST_NOT_FOUND_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value("Transfer request: " + transferId + " is not found"));
+    }
+
+    @Test
+    public void should_return_200_when_batch_processed() throws Exception {
+        // given
+        TransactionBatchRequest request = new TransactionBatchRequest(BatchAtomicity.PER_ITEM, List.of(
+                new TransactionRequest(1001L, 1002L, BigDecimal.valueOf(4.2), null),
+                new TransactionRequest(1003L, 1001L, BigDecimal.valueOf(1.5), null)));
+        List<TransferOrder> expectedOrders = List.of(
+                TransferOrder.builder().accountOwnerId(1001L).targetAccountId(1002L).amount(BigDecimal.valueOf(4.2)).build(),
+                TransferOrder.builder().accountOwnerId(1003L).targetAccountId(1001L).amount(BigDecimal.valueOf(1.5)).build());
+        List<TransferResult> results = List.of(
+                TransferResult.builder().transaction(TransactionModel.builder().transactionId(1L).build()).build(),
+                TransferResult.builder().error(new InsufficientBalanceException("Insufficient balance")).build());
+        TransactionBatchResponse response = TransactionBatchResponse.builder()
+                .succeeded(1)
+                .failed(1)
+                .results(List.of(
+                        TransactionBatchItemResponse.builder().index(0).status(SUCCESS.toString()).build(),
+                        TransactionBatchItemResponse.builder().index(1).status(TransactionStatus.FAILED.toString()).build()))
+                .build();
+
+        when(transferBatchService.performTransfers(eq(expectedOrders), eq(BatchAtomicity.PER_ITEM))).thenReturn(results);
+        when(transactionMapper.mapToTransactionBatchResponse(results)).thenReturn(response);
+
+        // when & then
+        mockMvc.perform(post("/transfer/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].index").value(1))
+                .andExpect(jsonPath("$.results[1].status").value(TransactionStatus.FAILED.toString()));
+    }
+
+    @Test
+    public void should_return_400_when_batch_is_empty() throws Exception {
+        // given
+        TransactionBatchRequest request = new TransactionBatchRequest(null, List.of());
+
+        // when & then
+        mockMvc.perform(post("/transfer/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage.key").value(FIELDS_VALIDATION_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value("Transfers can not be empty"));
+    }
+
+    @Test
+    public void should_return_400_when_batch_has_invalid_transfer() throws Exception {
+        // given
+        TransactionBatchRequest request = new TransactionBatchRequest(null, List.of(
+                new TransactionRequest(1001L, 1002L, BigDecimal.valueOf(4.2), null),
+                new TransactionRequest(1001L, null, BigDecimal.valueOf(4.2), null)));
+
+        // when & then
+        mockMvc.perform(post("/transfer/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage.key").value(FIELDS_VALIDATION_ERROR.toString()))
+                .andExpect(jsonPath("$.errorMessage.text").value("Target account id can not be empty"));
+    }
+
     private TransactionModel prepareTransactionModel(Long transactionId, Long accountOwnerId, Long targetAccountId,
                                                      BigDecimal amount, ZonedDateTime dateTime, TransactionStatus status,
                                                      BigDecimal availableBalance, BigDecimal residualBalance,
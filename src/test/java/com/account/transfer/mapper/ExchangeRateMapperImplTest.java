@@ -1,11 +1,16 @@
 package com.account.transfer.mapper;
 
 import com.account.transfer.api.dto.ExchangeRateResponse;
+import com.account.transfer.entity.ExchangeRateSnapshotEntity;
 import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRateSnapshot;
+import com.account.transfer.service.model.ExchangeRateTable;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,4 +68,55 @@ class ExchangeRateMapperImplTest {
         assertNotNull(model.getDateTime());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testMapToExchangeRateSnapshotEntity_ValidSnapshot() {
+        // given
+        ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.builder()
+                .baseCurrency("USD")
+                .rates(ExchangeRateTable.of(Map.of("EUR", BigDecimal.valueOf(0.85))))
+                .fetchedAt(Instant.now())
+                .nextUpdateAt(Instant.now().plusSeconds(3600))
+                .build();
+
+        // when
+        ExchangeRateSnapshotEntity entity = exchangeRateMapper.mapToExchangeRateSnapshotEntity(snapshot);
+
+        // then
+        assertNotNull(entity);
+
+        assertEquals(snapshot.getBaseCurrency(), entity.getBaseCurrency());
+        assertEquals(snapshot.getRates().toMap(), entity.getRates());
+        assertEquals(snapshot.getFetchedAt(), entity.getFetchedAt());
+        assertEquals(snapshot.getNextUpdateAt(), entity.getNextUpdateAt());
+    }
+
+    @Test
+    public void testMapToExchangeRateSnapshot_ValidEntity() {
+        // given
+        ExchangeRateSnapshotEntity entity = new ExchangeRateSnapshotEntity();
+        entity.setBaseCurrency("USD");
+        entity.setRates(Map.of("EUR", BigDecimal.valueOf(0.85)));
+        entity.setFetchedAt(Instant.now());
+        entity.setNextUpdateAt(Instant.now().plusSeconds(3600));
+
+        // when
+        ExchangeRateSnapshot snapshot = exchangeRateMapper.mapToExchangeRateSnapshot(entity);
+
+        // then
+        assertNotNull(snapshot);
+
+        assertEquals(entity.getBaseCurrency(), snapshot.getBaseCurrency());
+        assertEquals(entity.getRates(), snapshot.getRates().toMap());
+        assertEquals(entity.getFetchedAt(), snapshot.getFetchedAt());
+        assertEquals(entity.getNextUpdateAt(), snapshot.getNextUpdateAt());
+    }
+
+    @Test
+    public void testMapToExchangeRateSnapshot_NullEntity() {
+        // when
+        ExchangeRateSnapshot snapshot = exchangeRateMapper.mapToExchangeRateSnapshot(null);
+
+        // then
+        assertNull(snapshot);
+    }
+}
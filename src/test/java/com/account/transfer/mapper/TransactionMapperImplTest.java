@@ -1,14 +1,21 @@
 package com.account.transfer.mapper;
 
+import com.account.transfer.api.dto.TransactionBatchResponse;
 import com.account.transfer.api.dto.TransactionResponse;
+import com.account.transfer.api.dto.TransferRequestResponse;
 import com.account.transfer.entity.TransactionEntity;
 import com.account.transfer.entity.TransactionStatus;
+import com.account.transfer.entity.TransferRequestEntity;
+import com.account.transfer.entity.TransferRequestStatus;
+import com.account.transfer.exception.InsufficientBalanceException;
 import com.account.transfer.service.model.AccountModel;
 import com.account.transfer.service.model.TransactionModel;
+import com.account.transfer.service.model.TransferResult;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -104,6 +111,69 @@ class TransactionMapperImplTest {
         assertNull(response);
     }
 
+    @Test
+    public void testMapToTransactionBatchResponse_MixedResults() {
+        // given
+        TransactionModel model = TransactionModel.builder()
+                .transactionId(1L)
+                .accountOwnerId(2L)
+                .targetAccountId(3L)
+                .amount(BigDecimal.TEN)
+                .dateTime(ZonedDateTime.now())
+                .status(TransactionStatus.SUCCESS)
+                .build();
+        List<TransferResult> results = List.of(
+                TransferResult.builder().transaction(model).build(),
+                TransferResult.builder().error(new InsufficientBalanceException("Insufficient balance: 1 for amount: 10")).build());
+
+        // when
+        TransactionBatchResponse response = transactionMapper.mapToTransactionBatchResponse(results);
+
+        // then
+        assertEquals(1, response.getSucceeded());
+        assertEquals(1, response.getFailed());
+        assertEquals("SUCCESS", response.getResults().get(0).getStatus());
+        assertEquals(1L, response.getResults().get(0).getTransaction().getTransactionId());
+        assertNull(response.getResults().get(0).getError());
+        assertEquals(1, response.getResults().get(1).getIndex());
+        assertEquals("FAILED", response.getResults().get(1).getStatus());
+        assertNull(response.getResults().get(1).getTransaction());
+        assertEquals("INSUFFICIENT_BALANCE_ERROR", response.getResults().get(1).getError().getErrorMessage().getKey());
+        assertEquals("Insufficient balance: 1 for amount: 10", response.getResults().get(1).getError().getErrorMessage().getText());
+    }
+
+    @Test
+    public void testMapToTransferRequestResponse_FailedRequest() {
+        // given
+        TransferRequestEntity entity = new TransferRequestEntity();
+        entity.setId(5L);
+        entity.setFromAccountId(2L);
+        entity.setToAccountId(3L);
+        entity.setAmount(BigDecimal.TEN);
+        entity.setStatus(TransferRequestStatus.FAILED);
+        entity.setAttempts(1);
+        entity.setErrorCode("4000005");
+        entity.setErrorKey("INSUFFICIENT_BALANCE_ERROR");
+        entity.setErrorMessage("Insufficient balance: 1 for amount: 10");
+        entity.setCreatedAt(ZonedDateTime.now());
+        entity.setUpdatedAt(ZonedDateTime.now());
+
+        // when
+        TransferRequestResponse response = transactionMapper.mapToTransferRequestResponse(
+                transactionMapper.mapToTransferRequestModel(entity, null));
+
+        // then
+        assertEquals(5L, response.getTransferId());
+        assertEquals(2L, response.getAccountOwnerId());
+        assertEquals(3L, response.getTargetAccountId());
+        assertEquals("FAILED", response.getStatus());
+        assertNull(response.getTransaction());
+        assertEquals("4000005", response.getError().getErrorCode());
+        assertEquals("INSUFFICIENT_BALANCE_ERROR", response.getError().getErrorMessage().getKey());
+        assertEquals("Insufficient balance: 1 for amount: 10", response.getError().getErrorMessage().getText());
+        assertEquals(entity.getUpdatedAt().toInstant().toEpochMilli(), response.getError().getTimestamp());
+    }
+
     @Test
     public void testBuildTransactionEntity() {
         // given
@@ -0,0 +1,123 @@
+package com.account.transfer.service;
+
+import com.account.transfer.entity.AccountBalanceSlotEntity;
+import com.account.transfer.entity.AccountEntity;
+import com.account.transfer.repository.AccountBalanceSlotRepository;
+import com.account.transfer.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs on a database of its own with the periodic consolidation pinned out of the test, so the balance slots
+ * are folded into the account row only by the debit they are needed for.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:account_balance_slot_db;LOCK_TIMEOUT=2000",
+        "transfer.hot-accounts.owner-ids=1003",
+        "transfer.hot-accounts.consolidation-interval=PT1H"})
+class AccountBalanceSlotIntegrationTest {
+
+    private static final Long FIRST_OWNER_ID = 1001L;
+    private static final Long SECOND_OWNER_ID = 1003L;
+    private static final int CLIENTS = 8;
+    private static final int TRANSFERS_PER_CLIENT = 10;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private ExchangeRateService exchangeRateService;
+
+    @Test
+    public void testPerformTransfer_CreditsBalanceSlots_when_TargetAccountIsHot() throws Exception {
+        // given
+        BigDecimal amount = BigDecimal.ONE;
+        BigDecimal firstInitialBalance = getBalance(FIRST_OWNER_ID);
+        BigDecimal secondInitialBalance = getBalance(SECOND_OWNER_ID);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+
+        // when
+        var results = new ArrayList<Future<?>>();
+        for (int client = 0; client < CLIENTS; client++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_CLIENT; i++) {
+                    transactionService.performTransfer(FIRST_OWNER_ID, SECOND_OWNER_ID, amount, null);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        // then
+        BigDecimal credited = BigDecimal.valueOf((long) CLIENTS * TRANSFERS_PER_CLIENT);
+        assertEquals(0, secondInitialBalance.compareTo(getBalance(SECOND_OWNER_ID)));
+        assertEquals(0, credited.compareTo(getSlotsBalance(SECOND_OWNER_ID)));
+        assertEquals(0, secondInitialBalance.add(credited)
+                .compareTo(accountService.getAccountByOwnerId(SECOND_OWNER_ID).getBalance()));
+        assertEquals(0, firstInitialBalance.subtract(credited).compareTo(getBalance(FIRST_OWNER_ID)));
+    }
+
+    @Test
+    public void testPerformTransfer_ConsolidatesBalanceSlots_when_DebitIsCoveredOnlyWithSlots() {
+        // given
+        BigDecimal credited = BigDecimal.TEN;
+        transactionService.performTransfer(FIRST_OWNER_ID, SECOND_OWNER_ID, credited, null);
+        BigDecimal firstInitialBalance = getBalance(FIRST_OWNER_ID);
+        BigDecimal secondRowBalance = getBalance(SECOND_OWNER_ID);
+        BigDecimal slotsBalance = getSlotsBalance(SECOND_OWNER_ID);
+        BigDecimal debited = secondRowBalance.add(BigDecimal.ONE);
+        long consolidations = meterRegistry.timer("account.balance.slots.consolidation").count();
+
+        // when
+        transactionService.performTransfer(SECOND_OWNER_ID, FIRST_OWNER_ID, debited, null);
+
+        // then
+        assertEquals(consolidations + 1, meterRegistry.timer("account.balance.slots.consolidation").count());
+        assertEquals(0, BigDecimal.ZERO.compareTo(getSlotsBalance(SECOND_OWNER_ID)));
+        assertEquals(0, secondRowBalance.add(slotsBalance).subtract(debited).compareTo(getBalance(SECOND_OWNER_ID)));
+        assertEquals(0, firstInitialBalance.add(debited).compareTo(getBalance(FIRST_OWNER_ID)));
+    }
+
+    private BigDecimal getSlotsBalance(Long ownerId) {
+        return accountBalanceSlotRepository.findAllByOwnerIdIn(List.of(ownerId)).stream()
+                .map(AccountBalanceSlotEntity::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private BigDecimal getBalance(Long ownerId) {
+        return accountRepository.findByOwnerId(ownerId)
+                .map(AccountEntity::getBalance)
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,219 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.AccountBalanceSlotEntity;
+import com.account.transfer.entity.AccountEntity;
+import com.account.transfer.repository.AccountBalanceSlotRepository;
+import com.account.transfer.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountBalanceSlotServiceImplTest {
+
+    private static final Long HOT_OWNER_ID = 1001L;
+    private static final Long OWNER_ID = 1002L;
+
+    @Mock
+    private AccountBalanceSlotRepository accountBalanceSlotRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AccountBalanceSlotServiceImpl accountBalanceSlotService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transferProperties.getHotAccounts().getOwnerIds().add(HOT_OWNER_ID);
+        transferProperties.getHotAccounts().setSlots(4);
+    }
+
+    @Test
+    public void testCredit_CreditsSlotWithinConfiguredSlots() {
+        // given
+        BigDecimal amount = BigDecimal.TEN;
+        ArgumentCaptor<Integer> slotCaptor = ArgumentCaptor.forClass(Integer.class);
+        when(accountBalanceSlotRepository.creditSlot(eq(HOT_OWNER_ID), anyInt(), eq(amount))).thenReturn(1);
+
+        // when
+        boolean credited = accountBalanceSlotService.credit(HOT_OWNER_ID, amount);
+
+        // then
+        assertTrue(credited);
+        verify(accountBalanceSlotRepository).creditSlot(eq(HOT_OWNER_ID), slotCaptor.capture(), eq(amount));
+        assertTrue(slotCaptor.getValue() >= 0 && slotCaptor.getValue() < 4);
+    }
+
+    @Test
+    public void testGetSlotBalances_QueriesNoSlots_when_NoAccountIsHot() {
+        // when
+        Map<Long, BigDecimal> slotBalances = accountBalanceSlotService.getSlotBalances(List.of(OWNER_ID));
+
+        // then
+        assertTrue(slotBalances.isEmpty());
+        verify(accountBalanceSlotRepository, never()).findAllByOwnerIdIn(anyCollection());
+    }
+
+    @Test
+    public void testGetTotalBalances_ReadsTotalBalancesOfHotAccounts() {
+        // given
+        AccountBalanceSlotRepository.TotalBalance totalBalance = mock(AccountBalanceSlotRepository.TotalBalance.class);
+        when(totalBalance.getOwnerId()).thenReturn(HOT_OWNER_ID);
+        when(totalBalance.getBalance()).thenReturn(BigDecimal.valueOf(115.0));
+        when(accountBalanceSlotRepository.findTotalBalancesByOwnerIdIn(Set.of(HOT_OWNER_ID)))
+                .thenReturn(List.of(totalBalance));
+
+        // when
+        Map<Long, BigDecimal> totalBalances = accountBalanceSlotService.getTotalBalances(List.of(HOT_OWNER_ID, OWNER_ID));
+
+        // then
+        assertEquals(Map.of(HOT_OWNER_ID, BigDecimal.valueOf(115.0)), totalBalances);
+    }
+
+    @Test
+    public void testGetSlotBalances_SumsSlotsOfHotAccounts() {
+        // given
+        when(accountBalanceSlotRepository.findAllByOwnerIdIn(anyCollection())).thenReturn(List.of(
+                prepareSlot(HOT_OWNER_ID, 0, BigDecimal.valueOf(10.5)),
+                prepareSlot(HOT_OWNER_ID, 1, BigDecimal.valueOf(4.5))));
+
+        // when
+        Map<Long, BigDecimal> slotBalances = accountBalanceSlotService.getSlotBalances(List.of(HOT_OWNER_ID, OWNER_ID));
+
+        // then
+        assertEquals(1, slotBalances.size());
+        assertEquals(0, BigDecimal.valueOf(15.0).compareTo(slotBalances.get(HOT_OWNER_ID)));
+    }
+
+    @Test
+    public void testConsolidate_FoldsSlotsIntoAccount() {
+        // given
+        Duration lockTimeout = transferProperties.getLock().getTimeout();
+        AccountBalanceSlotEntity firstSlot = prepareSlot(HOT_OWNER_ID, 0, BigDecimal.valueOf(10.5));
+        AccountBalanceSlotEntity secondSlot = prepareSlot(HOT_OWNER_ID, 1, BigDecimal.valueOf(4.5));
+        when(accountRepository.findByOwnerIdForUpdate(HOT_OWNER_ID, lockTimeout))
+                .thenReturn(Optional.of(prepareAccount(HOT_OWNER_ID)));
+        when(accountBalanceSlotRepository.findAllByOwnerIdForUpdate(HOT_OWNER_ID))
+                .thenReturn(List.of(firstSlot, secondSlot));
+
+        // when
+        accountBalanceSlotService.consolidate(HOT_OWNER_ID);
+
+        // then
+        InOrder inOrder = inOrder(accountRepository, accountBalanceSlotRepository);
+        inOrder.verify(accountRepository).findByOwnerIdForUpdate(HOT_OWNER_ID, lockTimeout);
+        inOrder.verify(accountBalanceSlotRepository).findAllByOwnerIdForUpdate(HOT_OWNER_ID);
+        inOrder.verify(accountRepository).adjustBalance(HOT_OWNER_ID, BigDecimal.valueOf(15.0));
+        assertEquals(0, BigDecimal.ZERO.compareTo(firstSlot.getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(secondSlot.getBalance()));
+    }
+
+    @Test
+    public void testConsolidate_ChangesNoAccount_when_SlotsAreEmpty() {
+        // given
+        when(accountRepository.findByOwnerIdForUpdate(eq(HOT_OWNER_ID), any()))
+                .thenReturn(Optional.of(prepareAccount(HOT_OWNER_ID)));
+        when(accountBalanceSlotRepository.findAllByOwnerIdForUpdate(HOT_OWNER_ID))
+                .thenReturn(List.of(prepareSlot(HOT_OWNER_ID, 0, BigDecimal.ZERO)));
+
+        // when
+        accountBalanceSlotService.consolidate(HOT_OWNER_ID);
+
+        // then
+        verify(accountRepository, never()).adjustBalance(anyLong(), any());
+    }
+
+    @Test
+    public void testConsolidateAll_ConsolidatesNextAccount_when_AccountFailed() {
+        // given
+        when(accountBalanceSlotRepository.findOwnerIdsWithBalance()).thenReturn(List.of(OWNER_ID, HOT_OWNER_ID));
+        when(accountRepository.findByOwnerIdForUpdate(eq(OWNER_ID), any()))
+                .thenThrow(new QueryTimeoutException("Timeout trying to lock table"));
+        when(accountRepository.findByOwnerIdForUpdate(eq(HOT_OWNER_ID), any()))
+                .thenReturn(Optional.of(prepareAccount(HOT_OWNER_ID)));
+        when(accountBalanceSlotRepository.findAllByOwnerIdForUpdate(HOT_OWNER_ID))
+                .thenReturn(List.of(prepareSlot(HOT_OWNER_ID, 0, BigDecimal.ONE)));
+
+        // when
+        accountBalanceSlotService.consolidateAll();
+
+        // then
+        verify(accountRepository).adjustBalance(HOT_OWNER_ID, BigDecimal.ONE);
+    }
+
+    @Test
+    public void testCreateSlots_CreatesMissingSlotsOfHotAccounts() {
+        // given
+        when(accountBalanceSlotRepository.findAllByOwnerIdIn(anyCollection()))
+                .thenReturn(List.of(prepareSlot(HOT_OWNER_ID, 1, BigDecimal.ZERO)));
+        when(accountRepository.findAllByOwnerIdIn(anyCollection())).thenReturn(List.of(prepareAccount(HOT_OWNER_ID)));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AccountBalanceSlotEntity>> slotsCaptor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        accountBalanceSlotService.createSlots();
+
+        // then
+        verify(accountBalanceSlotRepository).saveAll(slotsCaptor.capture());
+        assertEquals(List.of(0, 2, 3), slotsCaptor.getValue().stream().map(AccountBalanceSlotEntity::getSlot).toList());
+        assertTrue(slotsCaptor.getValue().stream().allMatch(slot -> HOT_OWNER_ID.equals(slot.getOwnerId())));
+        verify(accountBalanceSlotRepository).findOwnerIdsWithBalance();
+    }
+
+    private AccountEntity prepareAccount(Long ownerId) {
+        AccountEntity accountEntity = new AccountEntity();
+        accountEntity.setOwnerId(ownerId);
+        accountEntity.setCurrency("USD");
+        accountEntity.setBalance(BigDecimal.valueOf(100.0));
+        return accountEntity;
+    }
+
+    private AccountBalanceSlotEntity prepareSlot(Long ownerId, int slot, BigDecimal balance) {
+        AccountBalanceSlotEntity slotEntity = new AccountBalanceSlotEntity();
+        slotEntity.setOwnerId(ownerId);
+        slotEntity.setSlot(slot);
+        slotEntity.setBalance(balance);
+        return slotEntity;
+    }
+}
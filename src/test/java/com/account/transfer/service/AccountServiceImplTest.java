@@ -1,7 +1,9 @@
 package com.account.transfer.service;
 
+import com.account.transfer.config.TransferProperties;
 import com.account.transfer.entity.AccountEntity;
 import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InsufficientBalanceException;
 import com.account.transfer.mapper.AccountMapper;
 import com.account.transfer.repository.AccountRepository;
 import com.account.transfer.service.model.AccountModel;
@@ -10,13 +12,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.InOrder;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -28,6 +41,12 @@ class AccountServiceImplTest {
     @Mock
     private AccountMapper accountMapper;
 
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+
+    @Mock
+    private AccountBalanceSlotService accountBalanceSlotService;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -84,6 +103,213 @@ class AccountServiceImplTest {
         verify(accountRepository).save(accountEntity);
     }
 
+    @Test
+    public void testLockAccounts_LocksInAscendingOrderOfOwnerIds() {
+        // given
+        Long accountOwnerId = 456L;
+        Long targetAccountId = 123L;
+        Duration lockTimeout = transferProperties.getLock().getTimeout();
+        AccountEntity ownerEntity = prepareAccountEntity(2L, accountOwnerId, BigDecimal.valueOf(1000.0), "USD");
+        AccountEntity targetEntity = prepareAccountEntity(1L, targetAccountId, BigDecimal.valueOf(500.0), "EUR");
+        AccountModel ownerModel = prepareAccountModel(2L, accountOwnerId, BigDecimal.valueOf(1000.0), "USD");
+        AccountModel targetModel = prepareAccountModel(1L, targetAccountId, BigDecimal.valueOf(500.0), "EUR");
+
+        when(accountRepository.findByOwnerIdForUpdate(accountOwnerId, lockTimeout)).thenReturn(Optional.of(ownerEntity));
+        when(accountRepository.findByOwnerIdForUpdate(targetAccountId, lockTimeout)).thenReturn(Optional.of(targetEntity));
+        when(accountMapper.mapToAccountModel(ownerEntity)).thenReturn(ownerModel);
+        when(accountMapper.mapToAccountModel(targetEntity)).thenReturn(targetModel);
+
+        // when
+        List<AccountModel> lockedAccounts = accountService.lockAccounts(List.of(accountOwnerId, targetAccountId));
+
+        // then
+        assertEquals(List.of(ownerModel, targetModel), lockedAccounts);
+
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).findByOwnerIdForUpdate(targetAccountId, lockTimeout);
+        inOrder.verify(accountRepository).findByOwnerIdForUpdate(accountOwnerId, lockTimeout);
+    }
+
+    @Test
+    public void testLockAllAccounts_LocksAccountsWithSingleQuery() {
+        // given
+        Set<Long> ownerIds = Set.of(123L, 456L);
+        Duration lockTimeout = transferProperties.getLock().getTimeout();
+        AccountEntity firstEntity = prepareAccountEntity(1L, 123L, BigDecimal.valueOf(500.0), "EUR");
+        AccountEntity secondEntity = prepareAccountEntity(2L, 456L, BigDecimal.valueOf(1000.0), "USD");
+        AccountModel firstModel = prepareAccountModel(1L, 123L, BigDecimal.valueOf(500.0), "EUR");
+        AccountModel secondModel = prepareAccountModel(2L, 456L, BigDecimal.valueOf(1000.0), "USD");
+
+        when(accountRepository.findAllByOwnerIdInForUpdate(ownerIds, lockTimeout)).thenReturn(List.of(firstEntity, secondEntity));
+        when(accountMapper.mapToAccountModel(firstEntity)).thenReturn(firstModel);
+        when(accountMapper.mapToAccountModel(secondEntity)).thenReturn(secondModel);
+
+        // when
+        Map<Long, AccountModel> lockedAccounts = accountService.lockAllAccounts(ownerIds);
+
+        // then
+        assertEquals(Map.of(123L, firstModel, 456L, secondModel), lockedAccounts);
+        verify(accountRepository, never()).findByOwnerIdForUpdate(anyLong(), any(Duration.class));
+    }
+
+    @Test
+    public void testAdjustBalances_Failure_when_AccountNotUpdated() {
+        // given
+        Map<Long, BigDecimal> balanceChanges = Map.of(123L, BigDecimal.TEN, 456L, BigDecimal.TEN.negate());
+        when(accountRepository.adjustBalances(balanceChanges)).thenReturn(1);
+
+        // when
+        Throwable exception = Assertions.assertThrows(AccountNotFoundException.class,
+                () -> accountService.adjustBalances(balanceChanges));
+
+        // then
+        assertEquals("Accounts updated: 1 of accounts: 2", exception.getMessage());
+    }
+
+    @Test
+    public void testDebit_UpdatesBalance_when_BalanceCoversAmount() {
+        // given
+        Long ownerId = 123L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+
+        when(accountRepository.debitBalance(ownerId, amount)).thenReturn(1);
+
+        // when
+        accountService.debit(ownerId, amount);
+
+        // then
+        verify(accountRepository).debitBalance(ownerId, amount);
+    }
+
+    @Test
+    public void testDebit_Failure_when_BalanceDoesNotCoverAmount() {
+        // given
+        Long ownerId = 123L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        String expectedMessage = String.format("Insufficient balance of account with owner id: [%s] for amount: %s",
+                ownerId, amount);
+
+        when(accountRepository.debitBalance(ownerId, amount)).thenReturn(0);
+
+        // when
+        Throwable exception = Assertions.assertThrows(InsufficientBalanceException.class,
+                () -> accountService.debit(ownerId, amount));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+    }
+
+    @Test
+    public void testDebitIfUnchanged_Failure_when_AccountChangedSinceRead() {
+        // given
+        AccountModel accountModel = prepareAccountModel(1L, 123L, BigDecimal.valueOf(1000.0), "USD").toBuilder()
+                .version(7L)
+                .build();
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        String expectedMessage = "Account with owner id: [123] has been changed since version: 7";
+
+        when(accountRepository.debitBalanceIfUnchanged(123L, amount, 7L)).thenReturn(0);
+
+        // when
+        Throwable exception = Assertions.assertThrows(OptimisticLockingFailureException.class,
+                () -> accountService.debitIfUnchanged(accountModel, amount));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+    }
+
+    @Test
+    public void testCredit_Failure_when_AccountNotFound() {
+        // given
+        Long ownerId = 123L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        String expectedMessage = String.format("Account with owner id: [%s] is not found", ownerId);
+
+        when(accountRepository.creditBalance(ownerId, amount)).thenReturn(0);
+
+        // when
+        Throwable exception = Assertions.assertThrows(AccountNotFoundException.class,
+                () -> accountService.credit(ownerId, amount));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+    }
+
+    @Test
+    public void testGetAccountByOwnerId_ReadsTotalBalance_when_AccountIsHot() {
+        // given
+        Long ownerId = 123L;
+        AccountEntity accountEntity = prepareAccountEntity(1L, ownerId, BigDecimal.valueOf(1000.0), "USD");
+        AccountModel accountModel = prepareAccountModel(1L, ownerId, BigDecimal.valueOf(1000.0), "USD");
+
+        when(accountRepository.findByOwnerId(ownerId)).thenReturn(Optional.of(accountEntity));
+        when(accountMapper.mapToAccountModel(accountEntity)).thenReturn(accountModel);
+        when(accountBalanceSlotService.getTotalBalances(List.of(ownerId)))
+                .thenReturn(Map.of(ownerId, BigDecimal.valueOf(1250.0)));
+
+        // when
+        AccountModel actualAccountModel = accountService.getAccountByOwnerId(ownerId);
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(1250.0).compareTo(actualAccountModel.getBalance()));
+        InOrder inOrder = inOrder(accountRepository, accountBalanceSlotService);
+        inOrder.verify(accountRepository).findByOwnerId(ownerId);
+        inOrder.verify(accountBalanceSlotService).getTotalBalances(List.of(ownerId));
+        verify(accountBalanceSlotService, never()).getSlotBalances(any());
+    }
+
+    @Test
+    public void testDebit_ConsolidatesSlots_when_HotAccountBalanceDoesNotCoverAmount() {
+        // given
+        Long ownerId = 123L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+
+        when(accountBalanceSlotService.isHot(ownerId)).thenReturn(true);
+        when(accountRepository.debitBalance(ownerId, amount)).thenReturn(0, 1);
+
+        // when
+        accountService.debit(ownerId, amount);
+
+        // then
+        InOrder inOrder = inOrder(accountRepository, accountBalanceSlotService);
+        inOrder.verify(accountRepository).debitBalance(ownerId, amount);
+        inOrder.verify(accountBalanceSlotService).consolidate(ownerId);
+        inOrder.verify(accountRepository).debitBalance(ownerId, amount);
+    }
+
+    @Test
+    public void testCredit_CreditsBalanceSlot_when_AccountIsHot() {
+        // given
+        Long ownerId = 123L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+
+        when(accountBalanceSlotService.isHot(ownerId)).thenReturn(true);
+        when(accountBalanceSlotService.credit(ownerId, amount)).thenReturn(true);
+
+        // when
+        accountService.credit(ownerId, amount);
+
+        // then
+        verify(accountRepository, never()).creditBalance(anyLong(), any());
+    }
+
+    @Test
+    public void testCredit_CreditsAccount_when_HotAccountHasNoSlots() {
+        // given
+        Long ownerId = 123L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+
+        when(accountBalanceSlotService.isHot(ownerId)).thenReturn(true);
+        when(accountBalanceSlotService.credit(ownerId, amount)).thenReturn(false);
+        when(accountRepository.creditBalance(ownerId, amount)).thenReturn(1);
+
+        // when
+        accountService.credit(ownerId, amount);
+
+        // then
+        verify(accountRepository).creditBalance(ownerId, amount);
+    }
+
     private AccountEntity prepareAccountEntity(Long id, Long ownerId, BigDecimal balance, String currency) {
         AccountEntity accountEntity = new AccountEntity();
         accountEntity.setId(id);
@@ -0,0 +1,125 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.ExchangeRateQuoteProperties;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.QuoteNotFoundException;
+import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRateQuote;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class ExchangeRateQuoteServiceImplTest {
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    @Spy
+    private ExchangeRateQuoteProperties properties = new ExchangeRateQuoteProperties();
+
+    @InjectMocks
+    private ExchangeRateQuoteServiceImpl quoteService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testCreateQuote_LocksCurrentRate() {
+        // given
+        BigDecimal rate = BigDecimal.valueOf(0.85);
+        when(exchangeRateService.getExchangeRate("USD", "EUR")).thenReturn(prepareExchangeRateModel(rate));
+
+        // when
+        ExchangeRateQuote quote = quoteService.createQuote("USD", "EUR");
+
+        // then
+        assertNotNull(quote.getQuoteId());
+        assertEquals(rate, quote.getRate());
+        assertTrue(quote.getExpiresAt().isAfter(ZonedDateTime.now()));
+    }
+
+    @Test
+    public void testConsumeQuote_ReturnsLockedRate_only_once() {
+        // given
+        BigDecimal rate = BigDecimal.valueOf(0.85);
+        when(exchangeRateService.getExchangeRate("USD", "EUR"))
+                .thenReturn(prepareExchangeRateModel(rate))
+                .thenReturn(prepareExchangeRateModel(BigDecimal.valueOf(0.9)));
+        String quoteId = quoteService.createQuote("USD", "EUR").getQuoteId();
+
+        // when
+        ExchangeRateQuote quote = quoteService.consumeQuote(quoteId, "USD", "EUR");
+
+        // then
+        assertEquals(rate, quote.getRate());
+        Assertions.assertThrows(QuoteNotFoundException.class, () -> quoteService.consumeQuote(quoteId, "USD", "EUR"));
+        verify(exchangeRateService, times(1)).getExchangeRate("USD", "EUR");
+    }
+
+    @Test
+    public void testConsumeQuote_Failure_when_QuoteExpired() {
+        // given
+        properties.setTtl(Duration.ZERO);
+        when(exchangeRateService.getExchangeRate("USD", "EUR")).thenReturn(prepareExchangeRateModel(BigDecimal.ONE));
+        String quoteId = quoteService.createQuote("USD", "EUR").getQuoteId();
+
+        // when
+        Throwable exception = Assertions.assertThrows(QuoteNotFoundException.class,
+                () -> quoteService.consumeQuote(quoteId, "USD", "EUR"));
+
+        // then
+        assertEquals(String.format("Exchange rate quote: %s is not found or expired", quoteId), exception.getMessage());
+    }
+
+    @Test
+    public void testConsumeQuote_KeepsQuote_when_CurrencyPairDiffers() {
+        // given
+        when(exchangeRateService.getExchangeRate("USD", "EUR")).thenReturn(prepareExchangeRateModel(BigDecimal.ONE));
+        String quoteId = quoteService.createQuote("USD", "EUR").getQuoteId();
+
+        // when
+        Assertions.assertThrows(InvalidTransferException.class, () -> quoteService.consumeQuote(quoteId, "USD", "GBP"));
+
+        // then
+        assertEquals(quoteId, quoteService.consumeQuote(quoteId, "USD", "EUR").getQuoteId());
+    }
+
+    @Test
+    public void testCreateQuote_EvictsOldestQuote_when_StoreIsFull() {
+        // given
+        properties.setMaxQuotes(1);
+        when(exchangeRateService.getExchangeRate("USD", "EUR")).thenReturn(prepareExchangeRateModel(BigDecimal.ONE));
+        String oldestQuoteId = quoteService.createQuote("USD", "EUR").getQuoteId();
+
+        // when
+        String newestQuoteId = quoteService.createQuote("USD", "EUR").getQuoteId();
+
+        // then
+        Assertions.assertThrows(QuoteNotFoundException.class, () -> quoteService.consumeQuote(oldestQuoteId, "USD", "EUR"));
+        assertEquals(newestQuoteId, quoteService.consumeQuote(newestQuoteId, "USD", "EUR").getQuoteId());
+    }
+
+    private ExchangeRateModel prepareExchangeRateModel(BigDecimal rate) {
+        return ExchangeRateModel.builder()
+                .fromCurrency("USD")
+                .toCurrency("EUR")
+                .rate(rate)
+                .dateTime(ZonedDateTime.now())
+                .build();
+    }
+}
@@ -4,27 +4,66 @@ import com.account.transfer.api.dto.ExchangeRateSourceResponse;
 import com.account.transfer.config.ExchangerateApiProperties;
 import com.account.transfer.exception.ExchangeRateNotFoundException;
 import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.entity.ExchangeRateSnapshotEntity;
 import com.account.transfer.mapper.ExchangeRateMapper;
+import com.account.transfer.repository.ExchangeRateSnapshotRepository;
 import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRateSnapshot;
+import com.account.transfer.service.model.ExchangeRateTable;
+import com.account.transfer.service.model.ExchangeRatesUpdatedEvent;
+import com.account.transfer.service.payload.ExchangeRatePayloadParser;
+import com.account.transfer.service.prefetch.ExchangeRatePrefetchPlanner;
+import com.account.transfer.service.provider.ExchangeRateProvider;
+import com.account.transfer.service.provider.ExchangerateApiProvider;
+import com.account.transfer.service.resilience.CircuitBreaker;
+import com.account.transfer.service.resilience.RequestQuota;
+import com.account.transfer.service.resilience.RetryBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class ExchangeRateServiceImplTest {
@@ -32,13 +71,34 @@ class ExchangeRateServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @Mock
-    private ExchangerateApiProperties properties;
+    @Spy
+    private ExchangerateApiProperties properties = new ExchangerateApiProperties();
 
     @Mock
     private ExchangeRateMapper mapper;
 
-    @InjectMocks
+    @Mock
+    private ExchangeRateSnapshotRepository snapshotRepository;
+
+    @Spy
+    private CircuitBreaker circuitBreaker =
+            new CircuitBreaker("test", 2, Duration.ofMinutes(1), 1, new SimpleMeterRegistry());
+
+    @Spy
+    private RetryBudget retryBudget = new RetryBudget("test", 0.2, 10, new SimpleMeterRegistry());
+
+    @Spy
+    private RequestQuota requestQuota = new RequestQuota("test", 1000, new SimpleMeterRegistry());
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ExchangeRatePayloadParser payloadParser = new ExchangeRatePayloadParser(new ObjectMapper());
+
+    @Mock
+    private HttpClient asyncHttpClient;
+
     private ExchangeRateServiceImpl exchangeRateService;
 
     private static final String TEST_API_URI = "https://api.test.com/exchangerate/";
@@ -47,6 +107,14 @@ class ExchangeRateServiceImplTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        ExchangeRateProvider provider =
+                new ExchangerateApiProvider(restTemplate, properties, circuitBreaker, retryBudget, requestQuota,
+                        payloadParser, asyncHttpClient);
+        var prefetchPlanner = new ExchangeRatePrefetchPlanner(properties, requestQuota, new SimpleMeterRegistry());
+        exchangeRateService = new ExchangeRateServiceImpl(provider, properties, mapper, snapshotRepository,
+                eventPublisher, prefetchPlanner);
+        properties.getRetry().setBackoff(Duration.ZERO);
+        properties.getPayload().setStreaming(false);
     }
 
     @Test
@@ -160,7 +228,7 @@ class ExchangeRateServiceImplTest {
         // then
         assertEquals(expectedMessage, exception.getMessage());
 
-        verifyNoInteractions(mapper);
+        verify(mapper, never()).buildExchangeRateModel(anyString(), anyString(), any(BigDecimal.class));
     }
 
     @Test
@@ -212,6 +280,964 @@ class ExchangeRateServiceImplTest {
         verifyNoInteractions(mapper);
     }
 
+    @Test
+    public void testGetExchangeRate_Success_with_StreamingPayload() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = new BigDecimal("0.85");
+
+        properties.getPayload().setStreaming(true);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        mockStreamingResponse(TEST_API_URI + fromCurrency,
+                "{\"result\":\"success\",\"base_code\":\"USD\"," +
+                        "\"conversion_rates\":{\"USD\":1,\"EUR\":0.85,\"GBP\":0.78}}");
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(mapper, times(1)).buildExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+        verify(restTemplate, never()).getForEntity(anyString(), eq(ExchangeRateSourceResponse.class));
+    }
+
+    @Test
+    public void testGetExchangeRate_RateNotFound_when_CurrencyIsNotServed() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "GBP";
+
+        properties.getPayload().setStreaming(true);
+        properties.getPayload().setCurrencies(Set.of("EUR"));
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        mockStreamingResponse(TEST_API_URI + fromCurrency,
+                "{\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85,\"GBP\":0.78}}");
+
+        // when & then
+        Assertions.assertThrows(ExchangeRateNotFoundException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+        verify(mapper, never()).buildExchangeRateModel(anyString(), anyString(), any(BigDecimal.class));
+    }
+
+    @Test
+    public void testGetExchangeRate_FailedToFetchRate_when_StreamingPayloadIsMalformed() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+
+        properties.getPayload().setStreaming(true);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(properties.getHost()).thenReturn(TEST_HOST);
+        mockStreamingResponse(TEST_API_URI + fromCurrency, "{\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":");
+
+        // when
+        Throwable exception = Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+
+        // then
+        assertTrue(exception.getMessage().contains("Malformed exchange rates payload"));
+        verify(restTemplate, times(1)).execute(eq(TEST_API_URI + fromCurrency), eq(HttpMethod.GET),
+                any(RequestCallback.class), any(ResponseExtractor.class));
+    }
+
+    @Test
+    public void testGetExchangeRate_ServedFromCache_when_SnapshotIsFresh() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        String otherToCurrency = "GBP";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+        BigDecimal otherExpectedRate = BigDecimal.valueOf(0.78);
+
+        ExchangeRateSourceResponse sourceResponse = prepareExchangeRateSourceResponse(fromCurrency, toCurrency, expectedRate);
+        sourceResponse.getRates().put(otherToCurrency, otherExpectedRate);
+        ResponseEntity<ExchangeRateSourceResponse> responseEntity = new ResponseEntity<>(sourceResponse, HttpStatus.OK);
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(responseEntity);
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.getExchangeRate(fromCurrency, otherToCurrency);
+
+        // then
+        verify(restTemplate, times(1)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+        verify(mapper, times(2)).buildExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+        verify(mapper, times(1)).buildExchangeRateModel(fromCurrency, otherToCurrency, otherExpectedRate);
+    }
+
+    @Test
+    public void testGetExchangeRate_FetchedAgain_when_SnapshotIsExpired() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+
+        ExchangeRateSourceResponse sourceResponse = prepareExchangeRateSourceResponse(fromCurrency, toCurrency, expectedRate);
+        ResponseEntity<ExchangeRateSourceResponse> responseEntity = new ResponseEntity<>(sourceResponse, HttpStatus.OK);
+
+        properties.getCache().setTtl(Duration.ZERO);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(responseEntity);
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(restTemplate, times(2)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+    }
+
+    @Test
+    public void testRefreshExpiringSnapshots_RefreshesSnapshot_within_RefreshAheadWindow() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal staleRate = BigDecimal.valueOf(0.85);
+        BigDecimal refreshedRate = BigDecimal.valueOf(0.86);
+
+        properties.getCache().setTtl(Duration.ofMinutes(30));
+        properties.getCache().setRefreshAhead(Duration.ofMinutes(30));
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, staleRate), HttpStatus.OK))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, refreshedRate), HttpStatus.OK));
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // when
+        exchangeRateService.refreshExpiringSnapshots();
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(restTemplate, times(2)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+        verify(mapper, times(1)).buildExchangeRateModel(fromCurrency, toCurrency, refreshedRate);
+    }
+
+    @Test
+    public void testRefreshExpiringSnapshots_KeepsSnapshot_when_RefreshFailed() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+
+        properties.getCache().setRefreshAhead(properties.getCache().getTtl());
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, expectedRate), HttpStatus.OK))
+                .thenThrow(new RestClientException("INTERNAL SERVER ERROR"));
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // when
+        exchangeRateService.refreshExpiringSnapshots();
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(restTemplate, times(2)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+        verify(mapper, times(2)).buildExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+    }
+
+    @Test
+    public void testRefreshExpiringSnapshots_PublishesUpdate_only_when_RatesChanged() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal rate = BigDecimal.valueOf(0.85);
+        BigDecimal changedRate = BigDecimal.valueOf(0.86);
+
+        properties.getCache().setRefreshAhead(properties.getCache().getTtl());
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, rate), HttpStatus.OK))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, rate), HttpStatus.OK))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, changedRate), HttpStatus.OK));
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // when
+        exchangeRateService.refreshExpiringSnapshots();
+        exchangeRateService.refreshExpiringSnapshots();
+
+        // then
+        verify(restTemplate, times(3)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+        verify(eventPublisher, times(2)).publishEvent(ExchangeRatesUpdatedEvent.of(fromCurrency));
+    }
+
+    @Test
+    public void testGetExchangeRate_ConcurrentCallers_ShareSingleUpstreamFetch() throws Exception {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+        int callers = 8;
+
+        ExchangeRateSourceResponse sourceResponse = prepareExchangeRateSourceResponse(fromCurrency, toCurrency, expectedRate);
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFetch = new CountDownLatch(1);
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenAnswer(invocation -> {
+                    fetchStarted.countDown();
+                    releaseFetch.await(5, TimeUnit.SECONDS);
+                    return new ResponseEntity<>(sourceResponse, HttpStatus.OK);
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            // when
+            List<Future<ExchangeRateModel>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency)));
+            }
+            fetchStarted.await(5, TimeUnit.SECONDS);
+            releaseFetch.countDown();
+            for (Future<ExchangeRateModel> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // then
+        verify(restTemplate, times(1)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+        verify(mapper, times(callers)).buildExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+    }
+
+    @Test
+    public void testGetExchangeRate_ConcurrentCallers_ShareUpstreamFailure() throws Exception {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFetch = new CountDownLatch(1);
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenAnswer(invocation -> {
+                    fetchStarted.countDown();
+                    releaseFetch.await(5, TimeUnit.SECONDS);
+                    throw new RestClientException("INTERNAL SERVER ERROR");
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // when
+            Future<ExchangeRateModel> leader =
+                    executor.submit(() -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+            fetchStarted.await(5, TimeUnit.SECONDS);
+            Future<ExchangeRateModel> follower =
+                    executor.submit(() -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+            releaseFetch.countDown();
+
+            // then
+            ExecutionException leaderException = Assertions.assertThrows(ExecutionException.class,
+                    () -> leader.get(5, TimeUnit.SECONDS));
+            ExecutionException followerException = Assertions.assertThrows(ExecutionException.class,
+                    () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ExchangeRateServiceException.class, leaderException.getCause());
+            assertInstanceOf(ExchangeRateServiceException.class, followerException.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    public void testGetExchangeRate_TriangulatedFromPivotSnapshot_when_MatrixEnabled() {
+        // given
+        String pivotCurrency = "USD";
+        ExchangeRateSourceResponse sourceResponse = prepareExchangeRateSourceResponse(pivotCurrency, "EUR",
+                new BigDecimal("0.9"));
+        sourceResponse.getRates().put("GBP", new BigDecimal("0.8"));
+        sourceResponse.getRates().put("JPY", new BigDecimal("150"));
+        ResponseEntity<ExchangeRateSourceResponse> responseEntity = new ResponseEntity<>(sourceResponse, HttpStatus.OK);
+
+        properties.getMatrix().setEnabled(true);
+        properties.getMatrix().setPivotCurrency(pivotCurrency);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + pivotCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(responseEntity);
+
+        // when
+        exchangeRateService.getExchangeRate("EUR", "GBP");
+        exchangeRateService.getExchangeRate("GBP", "JPY");
+        exchangeRateService.getExchangeRate("JPY", "USD");
+
+        // then
+        verify(restTemplate, times(1)).getForEntity(anyString(), eq(ExchangeRateSourceResponse.class));
+        verify(mapper, times(1)).buildExchangeRateModel("EUR", "GBP", new BigDecimal("0.8888888889"));
+        verify(mapper, times(1)).buildExchangeRateModel("GBP", "JPY", new BigDecimal("187.5"));
+        verify(mapper, times(1)).buildExchangeRateModel("JPY", "USD", new BigDecimal("0.006666666667"));
+    }
+
+    @Test
+    public void testGetExchangeRate_RateNotFound_when_MatrixEnabled_and_CurrencyIsAbsent() {
+        // given
+        String pivotCurrency = "USD";
+        String fromCurrency = "EUR";
+        String toCurrency = "XXX";
+        String expectedMessage = String.format("Exchange rate for pairs [%s:%s] is not found", fromCurrency, toCurrency);
+        ExchangeRateSourceResponse sourceResponse = prepareExchangeRateSourceResponse(pivotCurrency, fromCurrency,
+                new BigDecimal("0.9"));
+
+        properties.getMatrix().setEnabled(true);
+        properties.getMatrix().setPivotCurrency(pivotCurrency);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + pivotCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(sourceResponse, HttpStatus.OK));
+
+        // when
+        Throwable exception = Assertions.assertThrows(ExchangeRateNotFoundException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+
+        verify(mapper, never()).buildExchangeRateModel(anyString(), anyString(), any(BigDecimal.class));
+    }
+
+    @Test
+    public void testGetExchangeRate_StoresFetchedSnapshot() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+        ExchangeRateSnapshotEntity snapshotEntity = new ExchangeRateSnapshotEntity();
+
+        ExchangeRateSourceResponse sourceResponse = prepareExchangeRateSourceResponse(fromCurrency, toCurrency, expectedRate);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(sourceResponse, HttpStatus.OK));
+        when(mapper.mapToExchangeRateSnapshotEntity(any(ExchangeRateSnapshot.class))).thenReturn(snapshotEntity);
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(snapshotRepository, times(1)).save(snapshotEntity);
+    }
+
+    @Test
+    public void testGetExchangeRate_ServedFromExpiredSnapshot_when_FetchFailed() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+
+        properties.getCache().setTtl(Duration.ZERO);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, expectedRate), HttpStatus.OK))
+                .thenThrow(new RestClientException("INTERNAL SERVER ERROR"));
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(restTemplate, times(2)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+        verify(mapper, times(2)).buildExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+        verify(snapshotRepository, never()).findById(anyString());
+    }
+
+    @Test
+    public void testGetExchangeRate_ServedFromStoredSnapshot_when_FetchFailed() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+        ExchangeRateSnapshotEntity snapshotEntity = new ExchangeRateSnapshotEntity();
+        ExchangeRateSnapshot storedSnapshot =
+                prepareExchangeRateSnapshot(fromCurrency, toCurrency, expectedRate, Instant.now().minus(Duration.ofHours(1)));
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenThrow(new RestClientException("INTERNAL SERVER ERROR"));
+        when(snapshotRepository.findById(fromCurrency)).thenReturn(Optional.of(snapshotEntity));
+        when(mapper.mapToExchangeRateSnapshot(snapshotEntity)).thenReturn(storedSnapshot);
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(snapshotRepository, times(1)).findById(fromCurrency);
+        verify(mapper, times(1)).buildExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+    }
+
+    @Test
+    public void testGetExchangeRate_FailedToFetchRate_when_StoredSnapshotIsTooStale() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        ExchangeRateSnapshotEntity snapshotEntity = new ExchangeRateSnapshotEntity();
+        ExchangeRateSnapshot storedSnapshot = prepareExchangeRateSnapshot(fromCurrency, toCurrency,
+                BigDecimal.valueOf(0.85), Instant.now().minus(Duration.ofDays(2)));
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenThrow(new RestClientException("INTERNAL SERVER ERROR"));
+        when(snapshotRepository.findById(fromCurrency)).thenReturn(Optional.of(snapshotEntity));
+        when(mapper.mapToExchangeRateSnapshot(snapshotEntity)).thenReturn(storedSnapshot);
+
+        // when & then
+        Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+
+        verify(mapper, never()).buildExchangeRateModel(anyString(), anyString(), any(BigDecimal.class));
+    }
+
+    @Test
+    public void testWarmUpSnapshots_ServesStoredSnapshotWithoutFetch() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+        ExchangeRateSnapshotEntity snapshotEntity = new ExchangeRateSnapshotEntity();
+        ExchangeRateSnapshot storedSnapshot = prepareExchangeRateSnapshot(fromCurrency, toCurrency, expectedRate,
+                Instant.now().minus(Duration.ofMinutes(1)));
+
+        when(snapshotRepository.findByFetchedAtAfter(any(Instant.class))).thenReturn(List.of(snapshotEntity));
+        when(mapper.mapToExchangeRateSnapshot(snapshotEntity)).thenReturn(storedSnapshot);
+
+        // when
+        exchangeRateService.warmUpSnapshots();
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verifyNoInteractions(restTemplate);
+        verify(mapper, times(1)).buildExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+    }
+
+    @Test
+    public void testGetExchangeRate_Retried_when_ServerError() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, expectedRate), HttpStatus.OK));
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(restTemplate, times(2)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+        verify(retryBudget, times(1)).tryAcquireRetry();
+        verify(circuitBreaker, times(1)).onSuccess();
+        verify(mapper, times(1)).buildExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+    }
+
+    @Test
+    public void testGetExchangeRate_NotRetried_when_RetryBudgetExhausted() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(retryBudget.tryAcquireRetry()).thenReturn(false);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        // when
+        Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+
+        // then
+        verify(restTemplate, times(1)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+        verify(circuitBreaker, times(1)).onFailure();
+    }
+
+    @Test
+    public void testGetExchangeRate_RejectedWithoutFetch_when_CircuitBreakerIsOpen() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        String expectedMessage = String.format("Fetch latest exchange rate from=%s for currency=%s " +
+                "rejected by circuit breaker in state=OPEN", TEST_HOST, fromCurrency);
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(properties.getHost()).thenReturn(TEST_HOST);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenThrow(new RestClientException("INTERNAL SERVER ERROR"));
+        Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+        Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+
+        // when
+        Throwable exception = Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        verify(restTemplate, times(2)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+    }
+
+    @Test
+    public void testGetExchangeRate_RejectedWithoutFetch_when_RequestQuotaIsExhausted() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        String expectedMessage = String.format("Fetch latest exchange rate from=%s for currency=%s " +
+                "rejected by exhausted request quota", TEST_HOST, fromCurrency);
+
+        when(properties.getHost()).thenReturn(TEST_HOST);
+        when(requestQuota.tryAcquire()).thenReturn(false);
+
+        // when
+        Throwable exception = Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> exchangeRateService.getExchangeRate(fromCurrency, toCurrency));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        verify(circuitBreaker, times(1)).releasePermission();
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    public void testRefreshExpiringSnapshots_SkipsSnapshot_when_QuotaAllowanceIsSpent() {
+        // given
+        String toCurrency = "EUR";
+        List<String> baseCurrencies = List.of("USD", "GBP", "JPY", "CHF", "CAD", "AUD");
+        Clock midMonth = Clock.fixed(Instant.parse("2026-10-15T00:00:00Z"), ZoneOffset.UTC);
+        requestQuota = new RequestQuota("test", baseCurrencies.size() + 2, midMonth, new SimpleMeterRegistry());
+        ExchangeRateProvider provider =
+                new ExchangerateApiProvider(restTemplate, properties, circuitBreaker, retryBudget, requestQuota,
+                        payloadParser, asyncHttpClient);
+        properties.getQuota().setHotBases(2);
+        var prefetchPlanner = new ExchangeRatePrefetchPlanner(properties, requestQuota, new SimpleMeterRegistry());
+        exchangeRateService = new ExchangeRateServiceImpl(provider, properties, mapper, snapshotRepository,
+                eventPublisher, prefetchPlanner);
+
+        properties.getCache().setRefreshAhead(properties.getCache().getTtl());
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        for (String fromCurrency : baseCurrencies) {
+            when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                    .thenReturn(new ResponseEntity<>(prepareExchangeRateSourceResponse(fromCurrency, toCurrency,
+                            BigDecimal.ONE), HttpStatus.OK));
+            exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        }
+        exchangeRateService.getExchangeRate("USD", toCurrency);
+        exchangeRateService.getExchangeRate("GBP", toCurrency);
+
+        // when
+        exchangeRateService.refreshExpiringSnapshots();
+
+        // then
+        verify(restTemplate, times(2)).getForEntity(TEST_API_URI + "USD", ExchangeRateSourceResponse.class);
+        verify(restTemplate, times(2)).getForEntity(TEST_API_URI + "GBP", ExchangeRateSourceResponse.class);
+        verify(restTemplate, times(1)).getForEntity(TEST_API_URI + "JPY", ExchangeRateSourceResponse.class);
+        verify(restTemplate, times(1)).getForEntity(TEST_API_URI + "CAD", ExchangeRateSourceResponse.class);
+    }
+
+    @Test
+    public void testGetExchangeRates_AllTargetsFromSingleSnapshot() {
+        // given
+        String fromCurrency = "USD";
+        ExchangeRateSourceResponse sourceResponse = prepareExchangeRateSourceResponse(fromCurrency, "EUR",
+                BigDecimal.valueOf(0.85));
+        sourceResponse.getRates().put("GBP", BigDecimal.valueOf(0.78));
+        ExchangeRateModel eurModel = prepareExchangeRateModel(fromCurrency, "EUR", BigDecimal.valueOf(0.85));
+        ExchangeRateModel gbpModel = prepareExchangeRateModel(fromCurrency, "GBP", BigDecimal.valueOf(0.78));
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(sourceResponse, HttpStatus.OK));
+        when(mapper.buildExchangeRateModel(fromCurrency, "EUR", BigDecimal.valueOf(0.85))).thenReturn(eurModel);
+        when(mapper.buildExchangeRateModel(fromCurrency, "GBP", BigDecimal.valueOf(0.78))).thenReturn(gbpModel);
+
+        // when
+        List<ExchangeRateModel> result = exchangeRateService.getExchangeRates(fromCurrency, List.of("EUR", "GBP"));
+
+        // then
+        assertEquals(List.of(eurModel, gbpModel), result);
+        verify(restTemplate, times(1)).getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class);
+    }
+
+    @Test
+    public void testGetExchangeRates_RateNotFound_when_AnyTargetIsAbsent() {
+        // given
+        String fromCurrency = "USD";
+        String expectedMessage = String.format("Exchange rate for pairs [%s:%s] is not found", fromCurrency, "XXX");
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, "EUR", BigDecimal.valueOf(0.85)), HttpStatus.OK));
+
+        // when
+        Throwable exception = Assertions.assertThrows(ExchangeRateNotFoundException.class,
+                () -> exchangeRateService.getExchangeRates(fromCurrency, List.of("EUR", "XXX")));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+    }
+
+    @Test
+    public void testGetExchangeRateAsync_Success() throws Exception {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = new BigDecimal("0.85");
+        ExchangeRateModel expectedExchangeRateModel = prepareExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+        HttpResponse<Object> response =
+                prepareHttpResponse(200, "{\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}");
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(asyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, expectedRate)).thenReturn(expectedExchangeRateModel);
+
+        // when
+        ExchangeRateModel result = exchangeRateService.getExchangeRateAsync(fromCurrency, toCurrency)
+                .get(1, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(expectedExchangeRateModel, result);
+        verify(asyncHttpClient, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    public void testGetExchangeRateAsync_CompletedFromCache_when_SnapshotIsFresh() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = BigDecimal.valueOf(0.85);
+        ExchangeRateModel expectedExchangeRateModel = prepareExchangeRateModel(fromCurrency, toCurrency, expectedRate);
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.getForEntity(TEST_API_URI + fromCurrency, ExchangeRateSourceResponse.class))
+                .thenReturn(new ResponseEntity<>(
+                        prepareExchangeRateSourceResponse(fromCurrency, toCurrency, expectedRate), HttpStatus.OK));
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, expectedRate)).thenReturn(expectedExchangeRateModel);
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // when
+        CompletableFuture<ExchangeRateModel> result = exchangeRateService.getExchangeRateAsync(fromCurrency, toCurrency);
+
+        // then
+        assertTrue(result.isDone());
+        assertEquals(expectedExchangeRateModel, result.join());
+        verifyNoInteractions(asyncHttpClient);
+    }
+
+    @Test
+    public void testGetExchangeRateAsync_Success_after_RetriedServerError() throws Exception {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = new BigDecimal("0.85");
+        HttpResponse<Object> serverError = prepareHttpResponse(503, "");
+        HttpResponse<Object> response =
+                prepareHttpResponse(200, "{\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}");
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(asyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(serverError))
+                .thenReturn(CompletableFuture.completedFuture(response));
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, expectedRate))
+                .thenReturn(prepareExchangeRateModel(fromCurrency, toCurrency, expectedRate));
+
+        // when
+        ExchangeRateModel result = exchangeRateService.getExchangeRateAsync(fromCurrency, toCurrency)
+                .get(1, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(expectedRate, result.getRate());
+        verify(asyncHttpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        verify(retryBudget, times(1)).tryAcquireRetry();
+    }
+
+    @Test
+    public void testGetExchangeRateAsync_Failure_when_FetchTimesOut() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        String expectedMessage = String.format("Fetch latest exchange rate for currency=%s timed out", fromCurrency);
+        CompletableFuture<HttpResponse<Object>> exchange = new CompletableFuture<>();
+
+        properties.getHttp().setAsyncTimeout(Duration.ofMillis(50));
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(asyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(exchange);
+
+        // when
+        Throwable exception = Assertions.assertThrows(ExecutionException.class,
+                () -> exchangeRateService.getExchangeRateAsync(fromCurrency, toCurrency).get(1, TimeUnit.SECONDS));
+
+        // then
+        assertInstanceOf(ExchangeRateServiceException.class, exception.getCause());
+        assertEquals(expectedMessage, exception.getCause().getMessage());
+        Assertions.assertThrows(CancellationException.class, () -> exchange.get(1, TimeUnit.SECONDS));
+        verify(circuitBreaker, timeout(1000).times(1)).onFailure();
+    }
+
+    @Test
+    public void testGetExchangeRateAsync_SharesInFlightFetch_when_CallerCancels() throws Exception {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = new BigDecimal("0.85");
+        CompletableFuture<HttpResponse<Object>> exchange = new CompletableFuture<>();
+        HttpResponse<Object> response =
+                prepareHttpResponse(200, "{\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}");
+
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(asyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(exchange);
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, expectedRate))
+                .thenReturn(prepareExchangeRateModel(fromCurrency, toCurrency, expectedRate));
+
+        CompletableFuture<ExchangeRateModel> cancelled = exchangeRateService.getExchangeRateAsync(fromCurrency, toCurrency);
+        CompletableFuture<ExchangeRateModel> joined = exchangeRateService.getExchangeRateAsync(fromCurrency, toCurrency);
+
+        // when
+        cancelled.cancel(true);
+        exchange.complete(response);
+
+        // then
+        assertTrue(cancelled.isCancelled());
+        assertEquals(expectedRate, joined.get(1, TimeUnit.SECONDS).getRate());
+        assertTrue(exchange.isDone() && !exchange.isCancelled());
+        verify(asyncHttpClient, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse<Object> prepareHttpResponse(int statusCode, String payload) {
+        HttpResponse<Object> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(statusCode);
+        when(response.body()).thenReturn(payload.getBytes(StandardCharsets.UTF_8));
+        when(response.headers()).thenReturn(java.net.http.HttpHeaders.of(Map.of(), (name, value) -> true));
+        return response;
+    }
+
+    @Test
+    public void testGetExchangeRate_RefetchedConditionally_when_SnapshotExpired() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = new BigDecimal("0.85");
+        List<HttpHeaders> requestHeaders = new ArrayList<>();
+
+        properties.getPayload().setStreaming(true);
+        properties.getCache().setTtl(Duration.ZERO);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.execute(eq(TEST_API_URI + fromCurrency), eq(HttpMethod.GET), any(RequestCallback.class),
+                any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> {
+                    MockClientHttpRequest request = new MockClientHttpRequest();
+                    invocation.<RequestCallback>getArgument(2).doWithRequest(request);
+                    requestHeaders.add(request.getHeaders());
+
+                    MockClientHttpResponse response = request.getHeaders().getIfNoneMatch().contains("\"v1\"")
+                            ? new MockClientHttpResponse(new byte[0], HttpStatus.NOT_MODIFIED)
+                            : new MockClientHttpResponse("{\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}"
+                            .getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+                    response.getHeaders().setETag("\"v1\"");
+                    return invocation.<ResponseExtractor<?>>getArgument(3).extractData(response);
+                });
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, expectedRate))
+                .thenReturn(prepareExchangeRateModel(fromCurrency, toCurrency, expectedRate));
+
+        // when
+        ExchangeRateModel fetched = exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        ExchangeRateModel notModified = exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        assertEquals(expectedRate, fetched.getRate());
+        assertEquals(expectedRate, notModified.getRate());
+        assertEquals(2, requestHeaders.size());
+        assertTrue(requestHeaders.get(0).getIfNoneMatch().isEmpty());
+        assertEquals(List.of("\"v1\""), requestHeaders.get(1).getIfNoneMatch());
+    }
+
+    @Test
+    public void testGetExchangeRate_ServedFromCache_until_AnnouncedNextUpdate() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = new BigDecimal("0.85");
+        long nextUpdateUnix = Instant.now().plus(Duration.ofHours(1)).getEpochSecond();
+
+        properties.getPayload().setStreaming(true);
+        properties.getCache().setTtl(Duration.ZERO);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        mockStreamingResponse(TEST_API_URI + fromCurrency, "{\"time_next_update_unix\":" + nextUpdateUnix +
+                ",\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}");
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, expectedRate))
+                .thenReturn(prepareExchangeRateModel(fromCurrency, toCurrency, expectedRate));
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.refreshExpiringSnapshots();
+        ExchangeRateModel result = exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        assertEquals(expectedRate, result.getRate());
+        verify(restTemplate, times(1)).execute(eq(TEST_API_URI + fromCurrency), eq(HttpMethod.GET),
+                any(RequestCallback.class), any(ResponseExtractor.class));
+        ArgumentCaptor<ExchangeRateSnapshot> snapshotCaptor = ArgumentCaptor.forClass(ExchangeRateSnapshot.class);
+        verify(mapper, times(1)).mapToExchangeRateSnapshotEntity(snapshotCaptor.capture());
+        assertEquals(Instant.ofEpochSecond(nextUpdateUnix), snapshotCaptor.getValue().getNextUpdateAt());
+    }
+
+    @Test
+    public void testGetExchangeRate_RefetchedAfterTtl_when_ScheduleIsIgnored() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = new BigDecimal("0.85");
+        long nextUpdateUnix = Instant.now().plus(Duration.ofHours(1)).getEpochSecond();
+
+        properties.getPayload().setStreaming(true);
+        properties.getCache().setTtl(Duration.ZERO);
+        properties.getCache().setScheduleAware(false);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        mockStreamingResponse(TEST_API_URI + fromCurrency, "{\"time_next_update_unix\":" + nextUpdateUnix +
+                ",\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}");
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, expectedRate))
+                .thenReturn(prepareExchangeRateModel(fromCurrency, toCurrency, expectedRate));
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        verify(restTemplate, times(2)).execute(eq(TEST_API_URI + fromCurrency), eq(HttpMethod.GET),
+                any(RequestCallback.class), any(ResponseExtractor.class));
+    }
+
+    @Test
+    public void testRefreshExpiringSnapshots_RefreshesBeforeExpiry_when_AnnouncedUpdateHasPassed() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        BigDecimal expectedRate = new BigDecimal("0.85");
+        long nextUpdateUnix = Instant.now().minus(Duration.ofMinutes(2)).getEpochSecond();
+
+        properties.getPayload().setStreaming(true);
+        properties.getCache().setTtl(Duration.ZERO);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        mockStreamingResponse(TEST_API_URI + fromCurrency, "{\"time_next_update_unix\":" + nextUpdateUnix +
+                ",\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}");
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, expectedRate))
+                .thenReturn(prepareExchangeRateModel(fromCurrency, toCurrency, expectedRate));
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.refreshExpiringSnapshots();
+
+        // then
+        verify(restTemplate, times(2)).execute(eq(TEST_API_URI + fromCurrency), eq(HttpMethod.GET),
+                any(RequestCallback.class), any(ResponseExtractor.class));
+    }
+
+    @Test
+    public void testGetExchangeRate_TakesNextUpdateFromExpires_when_NotModified() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        long nextUpdateUnix = Instant.now().minus(Duration.ofHours(1)).getEpochSecond();
+        Instant expires = Instant.ofEpochSecond(Instant.now().plus(Duration.ofHours(2)).getEpochSecond());
+
+        mockConditionalResponse(TEST_API_URI + fromCurrency, nextUpdateUnix,
+                headers -> headers.setExpires(expires.toEpochMilli()));
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, new BigDecimal("0.85")))
+                .thenReturn(prepareExchangeRateModel(fromCurrency, toCurrency, new BigDecimal("0.85")));
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        ArgumentCaptor<ExchangeRateSnapshot> snapshotCaptor = ArgumentCaptor.forClass(ExchangeRateSnapshot.class);
+        verify(mapper, times(2)).mapToExchangeRateSnapshotEntity(snapshotCaptor.capture());
+        assertEquals(expires, snapshotCaptor.getAllValues().get(1).getNextUpdateAt());
+    }
+
+    @Test
+    public void testGetExchangeRate_MovesNextUpdateForward_when_NotModifiedWithoutExpires() {
+        // given
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        long nextUpdateUnix = Instant.now().minus(Duration.ofHours(1)).getEpochSecond();
+
+        mockConditionalResponse(TEST_API_URI + fromCurrency, nextUpdateUnix, headers -> {
+        });
+        when(mapper.buildExchangeRateModel(fromCurrency, toCurrency, new BigDecimal("0.85")))
+                .thenReturn(prepareExchangeRateModel(fromCurrency, toCurrency, new BigDecimal("0.85")));
+
+        // when
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+        exchangeRateService.getExchangeRate(fromCurrency, toCurrency);
+
+        // then
+        ArgumentCaptor<ExchangeRateSnapshot> snapshotCaptor = ArgumentCaptor.forClass(ExchangeRateSnapshot.class);
+        verify(mapper, times(2)).mapToExchangeRateSnapshotEntity(snapshotCaptor.capture());
+        assertEquals(Instant.ofEpochSecond(nextUpdateUnix).plus(properties.getPayload().getUpdateInterval()),
+                snapshotCaptor.getAllValues().get(1).getNextUpdateAt());
+    }
+
+    /**
+     * Answers the first request with a payload announcing the given next update, and the conditional requests
+     * following it with a not modified response.
+     */
+    @SuppressWarnings("unchecked")
+    private void mockConditionalResponse(String url, long nextUpdateUnix, Consumer<HttpHeaders> notModifiedHeaders) {
+        properties.getPayload().setStreaming(true);
+        properties.getCache().setTtl(Duration.ZERO);
+        when(properties.getUrl()).thenReturn(TEST_API_URI);
+        when(restTemplate.execute(eq(url), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> {
+                    MockClientHttpRequest request = new MockClientHttpRequest();
+                    invocation.<RequestCallback>getArgument(2).doWithRequest(request);
+
+                    MockClientHttpResponse response;
+                    if (request.getHeaders().getIfNoneMatch().isEmpty()) {
+                        response = new MockClientHttpResponse(("{\"time_next_update_unix\":" + nextUpdateUnix +
+                                ",\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}")
+                                .getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+                    } else {
+                        response = new MockClientHttpResponse(new byte[0], HttpStatus.NOT_MODIFIED);
+                        notModifiedHeaders.accept(response.getHeaders());
+                    }
+                    response.getHeaders().setETag("\"v1\"");
+                    return invocation.<ResponseExtractor<?>>getArgument(3).extractData(response);
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockStreamingResponse(String url, String payload) {
+        when(restTemplate.execute(eq(url), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> invocation.<ResponseExtractor<?>>getArgument(3).extractData(
+                        new MockClientHttpResponse(payload.getBytes(StandardCharsets.UTF_8), HttpStatus.OK)));
+    }
+
+    private ExchangeRateSnapshot prepareExchangeRateSnapshot(String fromCurrency, String toCurrency, BigDecimal rate,
+                                                             Instant fetchedAt) {
+        return ExchangeRateSnapshot.builder()
+                .baseCurrency(fromCurrency)
+                .rates(ExchangeRateTable.of(Map.of(toCurrency, rate)))
+                .fetchedAt(fetchedAt)
+                .build();
+    }
+
     private ExchangeRateSourceResponse prepareExchangeRateSourceResponse(String fromCurrency, String toCurrency,
                                                                          BigDecimal rate) {
         Map<String, BigDecimal> rates = new HashMap<>() {{
@@ -0,0 +1,119 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.ExchangeRateStreamProperties;
+import com.account.transfer.exception.ExchangeRateNotFoundException;
+import com.account.transfer.exception.SubscriptionLimitException;
+import com.account.transfer.mapper.ExchangeRateMapper;
+import com.account.transfer.service.model.CurrencyPair;
+import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRatesUpdatedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.*;
+
+class ExchangeRateStreamServiceImplTest {
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    @Mock
+    private ExchangeRateMapper mapper;
+
+    private ExchangeRateStreamProperties properties;
+
+    private ExchangeRateStreamServiceImpl streamService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new ExchangeRateStreamProperties();
+        properties.setMaxSubscribers(2);
+        streamService = new ExchangeRateStreamServiceImpl(exchangeRateService, mapper, properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    public void testSubscribe_SendsCurrentRates() {
+        // given
+        CurrencyPair pair = new CurrencyPair("USD", "EUR");
+        when(exchangeRateService.getExchangeRate("USD", "EUR"))
+                .thenReturn(prepareExchangeRateModel("USD", "EUR", BigDecimal.valueOf(0.85)));
+
+        // when
+        var emitter = streamService.subscribe(Set.of(pair));
+
+        // then
+        assertNotNull(emitter);
+        verify(exchangeRateService, times(1)).getExchangeRate("USD", "EUR");
+    }
+
+    @Test
+    public void testSubscribe_Rejected_when_MaxSubscribersReached() {
+        // given
+        Set<CurrencyPair> pairs = Set.of(new CurrencyPair("USD", "EUR"));
+        when(exchangeRateService.getExchangeRate("USD", "EUR"))
+                .thenReturn(prepareExchangeRateModel("USD", "EUR", BigDecimal.valueOf(0.85)));
+        streamService.subscribe(pairs);
+        streamService.subscribe(pairs);
+
+        // when & then
+        Assertions.assertThrows(SubscriptionLimitException.class, () -> streamService.subscribe(pairs));
+    }
+
+    @Test
+    public void testOnExchangeRatesUpdated_ResolvesRateOnce_for_AllSubscribers() {
+        // given
+        CurrencyPair pair = new CurrencyPair("USD", "EUR");
+        CurrencyPair otherPair = new CurrencyPair("GBP", "EUR");
+        when(exchangeRateService.getExchangeRate("USD", "EUR"))
+                .thenReturn(prepareExchangeRateModel("USD", "EUR", BigDecimal.valueOf(0.85)));
+        when(exchangeRateService.getExchangeRate("GBP", "EUR"))
+                .thenReturn(prepareExchangeRateModel("GBP", "EUR", BigDecimal.valueOf(1.17)));
+        streamService.subscribe(Set.of(pair));
+        streamService.subscribe(Set.of(pair, otherPair));
+        clearInvocations(exchangeRateService);
+
+        // when
+        streamService.onExchangeRatesUpdated(ExchangeRatesUpdatedEvent.of("USD"));
+
+        // then
+        verify(exchangeRateService, times(1)).getExchangeRate("USD", "EUR");
+        verify(exchangeRateService, never()).getExchangeRate("GBP", "EUR");
+    }
+
+    @Test
+    public void testOnExchangeRatesUpdated_SkipsPair_when_RateNotAvailable() {
+        // given
+        CurrencyPair pair = new CurrencyPair("USD", "XYZ");
+        when(exchangeRateService.getExchangeRate("USD", "XYZ"))
+                .thenThrow(new ExchangeRateNotFoundException("USD", "XYZ"));
+        streamService.subscribe(Set.of(pair));
+
+        // when & then
+        Assertions.assertDoesNotThrow(() -> streamService.onExchangeRatesUpdated(ExchangeRatesUpdatedEvent.ofAll()));
+        verifyNoInteractions(mapper);
+    }
+
+    private ExchangeRateModel prepareExchangeRateModel(String fromCurrency, String toCurrency, BigDecimal rate) {
+        return ExchangeRateModel.builder()
+                .fromCurrency(fromCurrency)
+                .toCurrency(toCurrency)
+                .rate(rate)
+                .dateTime(ZonedDateTime.now())
+                .build();
+    }
+}
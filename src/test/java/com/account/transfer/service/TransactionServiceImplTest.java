@@ -1,21 +1,36 @@
 package com.account.transfer.service;
 
+import com.account.transfer.config.TransferProperties;
 import com.account.transfer.entity.TransactionEntity;
 import com.account.transfer.entity.TransactionStatus;
 import com.account.transfer.exception.*;
 import com.account.transfer.mapper.TransactionMapper;
 import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferIdempotencyKeyRepository;
+import com.account.transfer.service.ledger.LedgerEngine;
+import com.account.transfer.service.lock.AccountLockStripes;
 import com.account.transfer.service.model.AccountModel;
 import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.ExchangeRateQuote;
 import com.account.transfer.service.model.TransactionModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.account.transfer.entity.TransactionStatus.SUCCESS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -27,6 +42,9 @@ class TransactionServiceImplTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+
     @Mock
     private TransactionMapper transactionMapper;
 
@@ -36,15 +54,32 @@ class TransactionServiceImplTest {
     @Mock
     private ExchangeRateService exchangeRateService;
 
+    @Mock
+    private ExchangeRateQuoteService exchangeRateQuoteService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Spy
+    private AccountLockStripes accountLockStripes = new AccountLockStripes(new TransferProperties(), new SimpleMeterRegistry());
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
-    @Captor
-    private ArgumentCaptor<AccountModel> accountCaptor;
-
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        transferProperties.getLock().setBackoff(Duration.ZERO);
+        transferProperties.getOptimistic().setMinBackoff(Duration.ZERO);
     }
 
     @Test
@@ -59,7 +94,6 @@ class TransactionServiceImplTest {
         AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
 
         AccountModel expectedAccountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(100.0), "USD");
-        AccountModel expectedTargetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(400.0), "USD");
 
         TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, accountOwner, targetAccount, amount,
                 dateTime, SUCCESS, expectedAccountOwner.getBalance(), BigDecimal.ONE);
@@ -68,28 +102,25 @@ class TransactionServiceImplTest {
 
         when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
         when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
-        doNothing().when(accountService).save(accountCaptor.capture());
+        when(accountService.lockAccounts(List.of(accountOwnerId, targetAccountId)))
+                .thenReturn(List.of(accountOwner, targetAccount));
         when(transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
                 expectedAccountOwner.getBalance(), BigDecimal.ONE)).thenReturn(expectedTransactionEntity);
         when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
         when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
 
         // when
-        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount);
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null);
 
         // then
         assertNotNull(result);
         assertEquals(expectedTransactionModel, result);
-        assertNotNull(accountCaptor.getAllValues());
-        assertEquals(2, accountCaptor.getAllValues().size());
-
-        AccountModel capturedAccountOwner = accountCaptor.getAllValues().get(0);
-        AccountModel capturedTargetAccount = accountCaptor.getAllValues().get(1);
-        assertEquals(expectedAccountOwner, capturedAccountOwner);
-        assertEquals(expectedTargetAccount, capturedTargetAccount);
 
+        InOrder inOrder = inOrder(accountService);
+        inOrder.verify(accountService).debit(accountOwnerId, amount);
+        inOrder.verify(accountService).credit(targetAccountId, amount);
         verify(accountService, times(2)).getAccountByOwnerId(anyLong());
-        verify(accountService, times(2)).save(any(AccountModel.class));
+        verify(accountService, never()).save(any(AccountModel.class));
         verify(transactionRepository, times(1)).save(any(TransactionEntity.class));
         verify(transactionMapper, times(1)).mapToTransactionModel(any(TransactionEntity.class));
         verifyNoInteractions(exchangeRateService);
@@ -110,7 +141,7 @@ class TransactionServiceImplTest {
         AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), toCurrency);
 
         AccountModel expectedAccountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(100.0), fromCurrency);
-        AccountModel expectedTargetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(410.0).setScale(2), toCurrency);
+        BigDecimal expectedExchangeAmount = BigDecimal.valueOf(110.0).setScale(2);
 
         ExchangeRateModel expectedExchangeRateModel =
                 prepareExchangeRateModel(fromCurrency, toCurrency, exchangeRate, dateTime);
@@ -122,32 +153,149 @@ class TransactionServiceImplTest {
 
         when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
         when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(accountService.lockAccounts(List.of(accountOwnerId, targetAccountId)))
+                .thenReturn(List.of(accountOwner, targetAccount));
         when(exchangeRateService.getExchangeRate(fromCurrency, toCurrency)).thenReturn(expectedExchangeRateModel);
-        doNothing().when(accountService).save(accountCaptor.capture());
         when(transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
                 expectedAccountOwner.getBalance(), exchangeRate)).thenReturn(expectedTransactionEntity);
         when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
         when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
 
         // when
-        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount);
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null);
 
         // then
         assertNotNull(result);
         assertEquals(expectedTransactionModel, result);
-        assertNotNull(accountCaptor.getAllValues());
-        assertEquals(2, accountCaptor.getAllValues().size());
-
-        AccountModel capturedAccountOwner = accountCaptor.getAllValues().get(0);
-        AccountModel capturedTargetAccount = accountCaptor.getAllValues().get(1);
-        assertEquals(expectedAccountOwner, capturedAccountOwner);
-        assertEquals(expectedTargetAccount, capturedTargetAccount);
 
-        verify(accountService, times(2)).getAccountByOwnerId(anyLong());
-        verify(exchangeRateService, times(1)).getExchangeRate(fromCurrency, toCurrency);
-        verify(accountService, times(2)).save(any(AccountModel.class));
+        InOrder inOrder = inOrder(accountService, exchangeRateService, accountLockStripes, transactionTemplate);
+        inOrder.verify(accountService).getAccountByOwnerId(accountOwnerId);
+        inOrder.verify(accountService).getAccountByOwnerId(targetAccountId);
+        inOrder.verify(exchangeRateService).getExchangeRate(fromCurrency, toCurrency);
+        inOrder.verify(accountLockStripes).executeLocked(eq(List.of(accountOwnerId, targetAccountId)), any());
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(accountService).lockAccounts(List.of(accountOwnerId, targetAccountId));
+        inOrder.verify(accountService).debit(accountOwnerId, amount);
+        inOrder.verify(accountService).credit(targetAccountId, expectedExchangeAmount);
+        verify(accountService, never()).save(any(AccountModel.class));
         verify(transactionRepository, times(1)).save(any(TransactionEntity.class));
         verify(transactionMapper, times(1)).mapToTransactionModel(any(TransactionEntity.class));
+        assertEquals(1, meterRegistry.get("transfer.write.transaction").tag("locking", "pessimistic").timer().count());
+    }
+
+    @Test
+    public void testPerformTransfer_DifferentCurrency_Success_with_LockedQuoteRate() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        String fromCurrency = "USD";
+        String toCurrency = "EUR";
+        String quoteId = "6f1c1a52-3d2e-4a55-9a4f-2b8f0c1d7e90";
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        BigDecimal quotedRate = BigDecimal.valueOf(1.2);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), fromCurrency);
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), toCurrency);
+
+        BigDecimal expectedExchangeAmount = BigDecimal.valueOf(120.0).setScale(2);
+
+        ExchangeRateQuote quote = ExchangeRateQuote.builder()
+                .quoteId(quoteId)
+                .fromCurrency(fromCurrency)
+                .toCurrency(toCurrency)
+                .rate(quotedRate)
+                .expiresAt(dateTime.plusMinutes(1))
+                .build();
+
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), quotedRate);
+        TransactionModel expectedTransactionModel = prepareTransactionModel(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), quotedRate);
+
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(accountService.lockAccounts(List.of(accountOwnerId, targetAccountId)))
+                .thenReturn(List.of(accountOwner, targetAccount));
+        when(exchangeRateQuoteService.consumeQuote(quoteId, fromCurrency, toCurrency)).thenReturn(quote);
+        when(transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
+                BigDecimal.valueOf(100.0), quotedRate)).thenReturn(expectedTransactionEntity);
+        when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
+        when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
+
+        // when
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount, quoteId);
+
+        // then
+        assertEquals(expectedTransactionModel, result);
+        verify(accountService, times(1)).debit(accountOwnerId, amount);
+        verify(accountService, times(1)).credit(targetAccountId, expectedExchangeAmount);
+
+        verify(exchangeRateQuoteService, times(1)).consumeQuote(quoteId, fromCurrency, toCurrency);
+        verifyNoInteractions(exchangeRateService);
+    }
+
+    @Test
+    public void testPerformTransfer_DifferentCurrency_Success_with_RateLockedBeforeTransfer() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        BigDecimal lockedRate = BigDecimal.valueOf(1.2);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "EUR");
+
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), lockedRate);
+        TransactionModel expectedTransactionModel = prepareTransactionModel(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), lockedRate);
+
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(accountService.lockAccounts(List.of(accountOwnerId, targetAccountId)))
+                .thenReturn(List.of(accountOwner, targetAccount));
+        when(transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
+                BigDecimal.valueOf(100.0), lockedRate)).thenReturn(expectedTransactionEntity);
+        when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
+        when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
+
+        // when
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount,
+                "6f1c1a52-3d2e-4a55-9a4f-2b8f0c1d7e90", lockedRate, null);
+
+        // then
+        assertEquals(expectedTransactionModel, result);
+        verify(accountService, times(1)).credit(targetAccountId, BigDecimal.valueOf(120.0).setScale(2));
+        verifyNoInteractions(exchangeRateQuoteService, exchangeRateService);
+    }
+
+    @Test
+    public void testPerformTransfer_Failure_when_QuoteNotFound() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        String quoteId = "6f1c1a52-3d2e-4a55-9a4f-2b8f0c1d7e90";
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        String expectedMessage = String.format("Exchange rate quote: %s is not found or expired", quoteId);
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "EUR");
+
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(exchangeRateQuoteService.consumeQuote(quoteId, "USD", "EUR")).thenThrow(new QuoteNotFoundException(quoteId));
+
+        // when
+        Throwable exception = Assertions.assertThrows(QuoteNotFoundException.class,
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, quoteId));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+
+        verify(accountService, never()).debit(anyLong(), any(BigDecimal.class));
+        verifyNoInteractions(exchangeRateService, transactionRepository, transactionMapper);
     }
 
     @Test
@@ -159,7 +307,7 @@ class TransactionServiceImplTest {
 
         // when
         Throwable exception = Assertions.assertThrows(InvalidTransferException.class,
-                () -> transactionService.performTransfer(accountOwnerId, accountOwnerId, amount));
+                () -> transactionService.performTransfer(accountOwnerId, accountOwnerId, amount, null));
 
         // then
         assertEquals(expectedMessage, exception.getMessage());
@@ -179,7 +327,7 @@ class TransactionServiceImplTest {
 
         // when
         Throwable exception = Assertions.assertThrows(AccountNotFoundException.class,
-                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount));
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
 
         // then
         assertEquals(expectedMessage, exception.getMessage());
@@ -203,7 +351,7 @@ class TransactionServiceImplTest {
 
         // when
         Throwable exception = Assertions.assertThrows(AccountNotFoundException.class,
-                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount));
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
 
         // then
         assertEquals(expectedMessage, exception.getMessage());
@@ -228,7 +376,7 @@ class TransactionServiceImplTest {
 
         // when
         Throwable exception = Assertions.assertThrows(InsufficientBalanceException.class,
-                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount));
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
 
         // then
         assertEquals(expectedMessage, exception.getMessage());
@@ -237,6 +385,391 @@ class TransactionServiceImplTest {
         verifyNoInteractions(exchangeRateService, transactionRepository, transactionMapper);
     }
 
+    @Test
+    public void testPerformTransfer_Failure_when_BalanceSpentByConcurrentTransfer() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+        String expectedMessage = String.format("Insufficient balance of account with owner id: [%s] for amount: %s",
+                accountOwnerId, amount);
+
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(accountService.lockAccounts(List.of(accountOwnerId, targetAccountId)))
+                .thenReturn(List.of(accountOwner, targetAccount));
+        doThrow(new InsufficientBalanceException(expectedMessage)).when(accountService).debit(accountOwnerId, amount);
+
+        // when
+        Throwable exception = Assertions.assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+
+        verify(accountService, never()).credit(anyLong(), any(BigDecimal.class));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    public void testPerformTransfer_RetriesWriteTransaction_when_LockTimedOut() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        String quoteId = "6f1c1a52-3d2e-4a55-9a4f-2b8f0c1d7e90";
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        BigDecimal quotedRate = BigDecimal.valueOf(1.2);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "EUR");
+        ExchangeRateQuote quote = ExchangeRateQuote.builder()
+                .quoteId(quoteId)
+                .fromCurrency("USD")
+                .toCurrency("EUR")
+                .rate(quotedRate)
+                .expiresAt(dateTime.plusMinutes(1))
+                .build();
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), quotedRate);
+        TransactionModel expectedTransactionModel = prepareTransactionModel(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), quotedRate);
+
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(exchangeRateQuoteService.consumeQuote(quoteId, "USD", "EUR")).thenReturn(quote);
+        when(accountService.lockAccounts(List.of(accountOwnerId, targetAccountId)))
+                .thenThrow(new CannotAcquireLockException("Timeout trying to lock table"))
+                .thenReturn(List.of(accountOwner, targetAccount));
+        when(transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
+                BigDecimal.valueOf(100.0), quotedRate)).thenReturn(expectedTransactionEntity);
+        when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
+        when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
+
+        // when
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount, quoteId);
+
+        // then
+        assertEquals(expectedTransactionModel, result);
+
+        verify(accountService, times(2)).lockAccounts(List.of(accountOwnerId, targetAccountId));
+        verify(accountService, times(1)).debit(accountOwnerId, amount);
+        verify(exchangeRateQuoteService, times(1)).consumeQuote(quoteId, "USD", "EUR");
+    }
+
+    @Test
+    public void testPerformTransfer_Failure_when_LockTimedOutOnEveryAttempt() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        String expectedMessage = String.format("Transfer from account: %s to account: %s " +
+                "failed to lock the accounts after attempts: %s", accountOwnerId, targetAccountId, 3);
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(accountService.lockAccounts(List.of(accountOwnerId, targetAccountId)))
+                .thenThrow(new CannotAcquireLockException("Timeout trying to lock table"));
+
+        // when
+        Throwable exception = Assertions.assertThrows(TransferConflictException.class,
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+
+        verify(accountService, times(3)).lockAccounts(List.of(accountOwnerId, targetAccountId));
+        verify(accountService, never()).debit(anyLong(), any(BigDecimal.class));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    public void testPerformTransfer_RetriesWithFreshAccount_when_OptimisticDebitConflicted() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel changedAccountOwner = accountOwner.toBuilder()
+                .balance(BigDecimal.valueOf(150.0))
+                .version(1L)
+                .build();
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, changedAccountOwner, targetAccount,
+                amount, dateTime, SUCCESS, BigDecimal.valueOf(50.0), BigDecimal.ONE);
+        TransactionModel expectedTransactionModel = prepareTransactionModel(1L, changedAccountOwner, targetAccount,
+                amount, dateTime, SUCCESS, BigDecimal.valueOf(50.0), BigDecimal.ONE);
+
+        transferProperties.setLocking(TransferProperties.Locking.OPTIMISTIC);
+        // conflicts with the transfers of other nodes, which the in-process account locks do not serialize
+        transferProperties.getAccountLocks().setEnabled(false);
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner).thenReturn(changedAccountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        doThrow(new OptimisticLockingFailureException("Account with owner id: [1] has been changed since version: null"))
+                .when(accountService).debitIfUnchanged(accountOwner, amount);
+        when(transactionMapper.buildTransactionEntity(changedAccountOwner, targetAccount, amount, SUCCESS,
+                BigDecimal.valueOf(50.0), BigDecimal.ONE)).thenReturn(expectedTransactionEntity);
+        when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
+        when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
+
+        // when
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null);
+
+        // then
+        assertEquals(expectedTransactionModel, result);
+        assertEquals(1.0, meterRegistry.get("transfer.conflicts").tag("locking", "optimistic").counter().count());
+        assertEquals(1.0, meterRegistry.get("transfer.retries").tag("locking", "optimistic").counter().count());
+
+        verify(accountService, times(1)).debitIfUnchanged(changedAccountOwner, amount);
+        verify(accountService, times(1)).credit(targetAccountId, amount);
+        verify(accountService, never()).lockAccounts(anyList());
+        verify(accountService, never()).debit(anyLong(), any(BigDecimal.class));
+    }
+
+    @Test
+    public void testPerformTransfer_Failure_when_OptimisticDebitConflictedOnEveryAttempt() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        String expectedMessage = String.format("Transfer from account: %s to account: %s " +
+                "failed on concurrent account updates after attempts: %s", accountOwnerId, targetAccountId, 5);
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+
+        transferProperties.setLocking(TransferProperties.Locking.OPTIMISTIC);
+        // conflicts with the transfers of other nodes, which the in-process account locks do not serialize
+        transferProperties.getAccountLocks().setEnabled(false);
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        doThrow(new OptimisticLockingFailureException("Account with owner id: [1] has been changed since version: null"))
+                .when(accountService).debitIfUnchanged(accountOwner, amount);
+
+        // when
+        Throwable exception = Assertions.assertThrows(TransferConflictException.class,
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+        assertEquals(5.0, meterRegistry.get("transfer.conflicts").tag("locking", "optimistic").counter().count());
+        assertEquals(4.0, meterRegistry.get("transfer.retries").tag("locking", "optimistic").counter().count());
+
+        verify(accountService, never()).credit(anyLong(), any(BigDecimal.class));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    public void testPerformTransfer_DebitsFreshAccount_when_OptimisticTransferAcquiredAccountLocks() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel changedAccountOwner = accountOwner.toBuilder()
+                .balance(BigDecimal.valueOf(150.0))
+                .version(1L)
+                .build();
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, changedAccountOwner, targetAccount,
+                amount, dateTime, SUCCESS, BigDecimal.valueOf(50.0), BigDecimal.ONE);
+        TransactionModel expectedTransactionModel = prepareTransactionModel(1L, changedAccountOwner, targetAccount,
+                amount, dateTime, SUCCESS, BigDecimal.valueOf(50.0), BigDecimal.ONE);
+
+        transferProperties.setLocking(TransferProperties.Locking.OPTIMISTIC);
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner).thenReturn(changedAccountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(transactionMapper.buildTransactionEntity(changedAccountOwner, targetAccount, amount, SUCCESS,
+                BigDecimal.valueOf(50.0), BigDecimal.ONE)).thenReturn(expectedTransactionEntity);
+        when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
+        when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
+
+        // when
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null);
+
+        // then
+        assertEquals(expectedTransactionModel, result);
+        verify(accountService, times(1)).debitIfUnchanged(changedAccountOwner, amount);
+        verify(accountService, never()).debitIfUnchanged(accountOwner, amount);
+        assertEquals(0.0, meterRegistry.counter("transfer.conflicts", "locking", "optimistic").count());
+    }
+
+    @Test
+    public void testPerformTransfer_RecordsIdempotencyKey_with_WriteTransaction() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+        String idempotencyKey = "5c0e9d2a-8f3b-4d61-9a7e-1b2c3d4e5f60";
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), BigDecimal.ONE);
+
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(accountService.lockAccounts(List.of(accountOwnerId, targetAccountId)))
+                .thenReturn(List.of(accountOwner, targetAccount));
+        when(transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
+                BigDecimal.valueOf(100.0), BigDecimal.ONE)).thenReturn(expectedTransactionEntity);
+        when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
+
+        // when
+        transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null, null, idempotencyKey);
+
+        // then
+        InOrder inOrder = inOrder(transactionRepository, transferIdempotencyKeyRepository, transactionTemplate);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(transactionRepository).save(expectedTransactionEntity);
+        inOrder.verify(transferIdempotencyKeyRepository).insertKey(idempotencyKey, 1L, dateTime);
+    }
+
+    @Test
+    public void testPerformTransfer_LocksAccountOwnerOnly_when_TargetAccountIsHot() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), BigDecimal.ONE);
+        TransactionModel expectedTransactionModel = prepareTransactionModel(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), BigDecimal.ONE);
+
+        transferProperties.getHotAccounts().getOwnerIds().add(targetAccountId);
+        when(accountService.getAccountByOwnerId(accountOwnerId)).thenReturn(accountOwner);
+        when(accountService.getAccountByOwnerId(targetAccountId)).thenReturn(targetAccount);
+        when(accountService.lockAccounts(List.of(accountOwnerId))).thenReturn(List.of(accountOwner));
+        when(transactionMapper.buildTransactionEntity(accountOwner, targetAccount, amount, SUCCESS,
+                BigDecimal.valueOf(100.0), BigDecimal.ONE)).thenReturn(expectedTransactionEntity);
+        when(transactionRepository.save(expectedTransactionEntity)).thenReturn(expectedTransactionEntity);
+        when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
+
+        // when
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null);
+
+        // then
+        assertEquals(expectedTransactionModel, result);
+        verify(accountLockStripes).executeLocked(eq(List.of(accountOwnerId)), any());
+        verify(accountService, never()).lockAccounts(List.of(accountOwnerId, targetAccountId));
+        verify(accountService, times(1)).debit(accountOwnerId, amount);
+        verify(accountService, times(1)).credit(targetAccountId, amount);
+    }
+
+    @Test
+    public void testPerformTransfer_DifferentCurrencies_Success_with_LedgerEngine() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        BigDecimal exchangeRate = BigDecimal.valueOf(1.1);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "EUR");
+        BigDecimal expectedExchangeAmount = BigDecimal.valueOf(110.0).setScale(2);
+
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), exchangeRate);
+        TransactionModel expectedTransactionModel = prepareTransactionModel(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), exchangeRate);
+
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.getAccount(accountOwnerId)).thenReturn(accountOwner);
+        when(ledgerEngine.getAccount(targetAccountId)).thenReturn(targetAccount);
+        when(exchangeRateService.getExchangeRate("USD", "EUR"))
+                .thenReturn(prepareExchangeRateModel("USD", "EUR", exchangeRate, dateTime));
+        when(ledgerEngine.transfer(accountOwner, targetAccount, amount, expectedExchangeAmount, exchangeRate, null))
+                .thenReturn(CompletableFuture.completedFuture(expectedTransactionEntity));
+        when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
+
+        // when
+        TransactionModel result = transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null);
+
+        // then
+        assertEquals(expectedTransactionModel, result);
+        verifyNoInteractions(accountService, transactionRepository, transactionTemplate, accountLockStripes);
+    }
+
+    @Test
+    public void testPerformTransfer_Failure_when_LedgerRejectedDebit() {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+        String expectedMessage = "Insufficient balance: 50.0 for amount: 100.0";
+
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.getAccount(accountOwnerId)).thenReturn(accountOwner);
+        when(ledgerEngine.getAccount(targetAccountId)).thenReturn(targetAccount);
+        when(ledgerEngine.transfer(accountOwner, targetAccount, amount, amount, BigDecimal.ONE, null))
+                .thenReturn(CompletableFuture.failedFuture(new InsufficientBalanceException(expectedMessage)));
+
+        // when
+        Throwable exception = Assertions.assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
+
+        // then
+        assertEquals(expectedMessage, exception.getMessage());
+        verify(transactionMapper, never()).mapToTransactionModel(any(TransactionEntity.class));
+    }
+
+    @Test
+    public void testPerformTransfer_Failure_when_LedgerCommitTimedOut() throws Exception {
+        // given
+        Long accountOwnerId = 1L;
+        Long targetAccountId = 2L;
+        BigDecimal amount = BigDecimal.valueOf(100.0);
+        ZonedDateTime dateTime = ZonedDateTime.now();
+        String idempotencyKey = "5c0e9d2a-8f3b-4d61-9a7e-1b2c3d4e5f60";
+        transferProperties.getLedger().setCommitTimeout(Duration.ofMillis(10));
+
+        AccountModel accountOwner = prepareAccountModel(1L, accountOwnerId, BigDecimal.valueOf(200.0), "USD");
+        AccountModel targetAccount = prepareAccountModel(2L, targetAccountId, BigDecimal.valueOf(300.0), "USD");
+        TransactionEntity expectedTransactionEntity = prepareTransactionEntity(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), BigDecimal.ONE);
+        TransactionModel expectedTransactionModel = prepareTransactionModel(1L, accountOwner, targetAccount, amount,
+                dateTime, SUCCESS, BigDecimal.valueOf(100.0), BigDecimal.ONE);
+        CompletableFuture<TransactionEntity> ledgerResult = new CompletableFuture<>();
+
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.getAccount(accountOwnerId)).thenReturn(accountOwner);
+        when(ledgerEngine.getAccount(targetAccountId)).thenReturn(targetAccount);
+        when(ledgerEngine.transfer(accountOwner, targetAccount, amount, amount, BigDecimal.ONE, idempotencyKey))
+                .thenReturn(ledgerResult);
+        when(transactionMapper.mapToTransactionModel(expectedTransactionEntity)).thenReturn(expectedTransactionModel);
+
+        // when
+        TransferTimeoutException exception = Assertions.assertThrows(TransferTimeoutException.class,
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null, null,
+                        idempotencyKey));
+        ledgerResult.complete(expectedTransactionEntity);
+
+        // then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getErrorStatus());
+        assertEquals("Transfer from account: 1 to account: 2 is not persisted within: PT0.01S", exception.getMessage());
+        assertEquals(expectedTransactionModel, exception.getOutcome().get(5, TimeUnit.SECONDS));
+        verifyNoInteractions(transactionTemplate, transferIdempotencyKeyRepository);
+    }
+
     @Test
     public void testPerformTransfer_Failure_when_ExchangeRateNotFound() {
         // given
@@ -257,7 +790,7 @@ class TransactionServiceImplTest {
 
         // when
         Throwable exception = Assertions.assertThrows(ExchangeRateNotFoundException.class,
-                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount));
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
 
         // then
         assertEquals(expectedMessage, exception.getMessage());
@@ -287,7 +820,7 @@ class TransactionServiceImplTest {
 
         // when
         Throwable exception = Assertions.assertThrows(ExchangeRateServiceException.class,
-                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount));
+                () -> transactionService.performTransfer(accountOwnerId, targetAccountId, amount, null));
 
         // then
         assertEquals(expectedMessage, exception.getMessage());
@@ -0,0 +1,343 @@
+package com.account.transfer.service;
+
+import com.account.transfer.api.dto.TransactionRequest;
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.AccountEntity;
+import com.account.transfer.entity.TransferRequestStatus;
+import com.account.transfer.exception.TransferConflictException;
+import com.account.transfer.repository.AccountRepository;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.TransactionModel;
+import com.account.transfer.service.model.TransferRequestModel;
+import com.account.transfer.service.model.TransferOrder;
+import com.account.transfer.service.model.TransferResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Slf4j
+@SpringBootTest
+@AutoConfigureMockMvc
+class TransactionServiceIntegrationTest {
+
+    private static final Long FIRST_OWNER_ID = 1001L;
+    private static final Long SECOND_OWNER_ID = 1003L;
+    private static final int CLIENTS = 64;
+    private static final int TRANSFERS_PER_CLIENT = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransferBatchService transferBatchService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @Autowired
+    private TransferRequestService transferRequestService;
+
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private ExchangeRateService exchangeRateService;
+
+    @AfterEach
+    public void tearDown() {
+        transferProperties.setLocking(TransferProperties.Locking.PESSIMISTIC);
+    }
+
+    @Test
+    public void testPerformTransfer_HoldsNoConnection_during_ExchangeRateLookup() throws Exception {
+        // given
+        Long accountOwnerId = 1001L;
+        Long targetAccountId = 1002L;
+        TransactionRequest request = new TransactionRequest(accountOwnerId, targetAccountId, BigDecimal.ONE, null);
+        AtomicInteger activeConnectionsDuringLookup = new AtomicInteger(-1);
+
+        when(exchangeRateService.getExchangeRate("USD", "EUR")).thenAnswer(invocation -> {
+            activeConnectionsDuringLookup.set(((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections());
+            return ExchangeRateModel.builder()
+                    .fromCurrency("USD")
+                    .toCurrency("EUR")
+                    .rate(BigDecimal.valueOf(0.85))
+                    .dateTime(ZonedDateTime.now())
+                    .build();
+        });
+
+        // when
+        mockMvc.perform(post("/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.exchangeRate").value(0.85));
+
+        // then
+        assertEquals(0, activeConnectionsDuringLookup.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(TransferProperties.Locking.class)
+    public void testPerformTransfer_NoLostUpdates_when_ConcurrentClientsTransferWithinHotAccountPair(
+            TransferProperties.Locking locking) throws Exception {
+        // given
+        transferProperties.setLocking(locking);
+        String lockingTag = locking.name().toLowerCase();
+        double initialConflicts = meterRegistry.counter("transfer.conflicts", "locking", lockingTag).count();
+        double initialRetries = meterRegistry.counter("transfer.retries", "locking", lockingTag).count();
+        BigDecimal amount = BigDecimal.ONE;
+        BigDecimal firstInitialBalance = getBalance(FIRST_OWNER_ID);
+        BigDecimal secondInitialBalance = getBalance(SECOND_OWNER_ID);
+        AtomicInteger firstToSecond = new AtomicInteger();
+        AtomicInteger secondToFirst = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+
+        // when
+        var results = new ArrayList<Future<?>>();
+        for (int client = 0; client < CLIENTS; client++) {
+            boolean forward = client % 2 == 0;
+            results.add(clients.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_CLIENT; i++) {
+                    try {
+                        if (forward) {
+                            transactionService.performTransfer(FIRST_OWNER_ID, SECOND_OWNER_ID, amount, null);
+                            firstToSecond.incrementAndGet();
+                        } else {
+                            transactionService.performTransfer(SECOND_OWNER_ID, FIRST_OWNER_ID, amount, null);
+                            secondToFirst.incrementAndGet();
+                        }
+                    } catch (TransferConflictException ex) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long startedNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsedNanos = System.nanoTime() - startedNanos;
+        clients.shutdown();
+
+        // then
+        int completed = firstToSecond.get() + secondToFirst.get();
+        log.info("Locking: {}, clients: {}, completed transfers: {}, failed transfers: {}, conflicts: {}, retries: {}, " +
+                        "throughput: {} transfers/s", lockingTag, CLIENTS, completed, conflicts.get(),
+                meterRegistry.counter("transfer.conflicts", "locking", lockingTag).count() - initialConflicts,
+                meterRegistry.counter("transfer.retries", "locking", lockingTag).count() - initialRetries,
+                Math.round(completed * 1e9 / elapsedNanos));
+
+        BigDecimal netFlow = BigDecimal.valueOf(firstToSecond.get() - secondToFirst.get());
+        assertTrue(completed > 0);
+        assertEquals(CLIENTS * TRANSFERS_PER_CLIENT, completed + conflicts.get());
+        assertEquals(0, firstInitialBalance.subtract(netFlow).compareTo(getBalance(FIRST_OWNER_ID)));
+        assertEquals(0, secondInitialBalance.add(netFlow).compareTo(getBalance(SECOND_OWNER_ID)));
+    }
+
+    @Test
+    public void testPerformTransfers_PersistsEveryTransfer_with_SingleWriteTransaction() {
+        // given
+        int transfers = 500;
+        BigDecimal amount = new BigDecimal("0.01");
+        BigDecimal firstInitialBalance = getBalance(FIRST_OWNER_ID);
+        BigDecimal secondInitialBalance = getBalance(SECOND_OWNER_ID);
+        List<TransferOrder> orders = new ArrayList<>();
+        for (int i = 0; i < transfers; i++) {
+            orders.add(TransferOrder.builder()
+                    .accountOwnerId(i % 5 == 0 ? SECOND_OWNER_ID : FIRST_OWNER_ID)
+                    .targetAccountId(i % 5 == 0 ? FIRST_OWNER_ID : SECOND_OWNER_ID)
+                    .amount(amount)
+                    .build());
+        }
+
+        // when
+        long batchStartedNanos = System.nanoTime();
+        List<TransferResult> results = transferBatchService.performTransfers(orders,
+                TransferProperties.BatchAtomicity.ALL_OR_NOTHING);
+        long batchElapsedNanos = System.nanoTime() - batchStartedNanos;
+
+        int singleTransfers = 50;
+        long singleStartedNanos = System.nanoTime();
+        for (TransferOrder order : orders.subList(0, singleTransfers)) {
+            transactionService.performTransfer(order.getAccountOwnerId(), order.getTargetAccountId(), amount, null);
+        }
+        long singleElapsedNanos = System.nanoTime() - singleStartedNanos;
+
+        // then
+        log.info("Batch throughput: {} transfers/s, single transfer throughput: {} transfers/s",
+                Math.round(transfers * 1e9 / batchElapsedNanos), Math.round(singleTransfers * 1e9 / singleElapsedNanos));
+
+        assertTrue(results.stream().allMatch(TransferResult::isSuccess));
+        var lastTransaction = results.get(transfers - 1).getTransaction();
+        var persistedTransaction = transactionRepository.findById(lastTransaction.getTransactionId()).orElseThrow();
+        assertEquals(0, amount.compareTo(persistedTransaction.getAmount()));
+        assertEquals(FIRST_OWNER_ID, persistedTransaction.getFromAccountId());
+        assertEquals(0, lastTransaction.getResidualBalance().compareTo(persistedTransaction.getResidualBalance()));
+        assertTrue(Duration.between(lastTransaction.getDateTime(), persistedTransaction.getDateTime()).abs()
+                .compareTo(Duration.of(1, ChronoUnit.MICROS)) <= 0);
+        BigDecimal netFlow = Stream.concat(orders.stream(), orders.subList(0, singleTransfers).stream())
+                .map(order -> FIRST_OWNER_ID.equals(order.getAccountOwnerId()) ? amount : amount.negate())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, firstInitialBalance.subtract(netFlow).compareTo(getBalance(FIRST_OWNER_ID)));
+        assertEquals(0, secondInitialBalance.add(netFlow).compareTo(getBalance(SECOND_OWNER_ID)));
+    }
+
+    @Test
+    public void testPerformTransfers_ChangesNoBalance_when_AllOrNothingBatchAborted() {
+        // given
+        BigDecimal firstInitialBalance = getBalance(FIRST_OWNER_ID);
+        BigDecimal secondInitialBalance = getBalance(SECOND_OWNER_ID);
+        long initialTransactions = transactionRepository.count();
+        List<TransferOrder> orders = List.of(
+                TransferOrder.builder().accountOwnerId(FIRST_OWNER_ID).targetAccountId(SECOND_OWNER_ID)
+                        .amount(BigDecimal.ONE).build(),
+                TransferOrder.builder().accountOwnerId(SECOND_OWNER_ID).targetAccountId(FIRST_OWNER_ID)
+                        .amount(secondInitialBalance.add(BigDecimal.TEN)).build());
+
+        // when
+        List<TransferResult> results = transferBatchService.performTransfers(orders,
+                TransferProperties.BatchAtomicity.ALL_OR_NOTHING);
+
+        // then
+        assertTrue(results.stream().noneMatch(TransferResult::isSuccess));
+        assertEquals(0, firstInitialBalance.compareTo(getBalance(FIRST_OWNER_ID)));
+        assertEquals(0, secondInitialBalance.compareTo(getBalance(SECOND_OWNER_ID)));
+        assertEquals(initialTransactions, transactionRepository.count());
+    }
+
+    @Test
+    public void testPerformTransfer_DebitsOnce_when_ConcurrentRetriesWithSameIdempotencyKey() throws Exception {
+        // given
+        int retries = 8;
+        String idempotencyKey = UUID.randomUUID().toString();
+        BigDecimal amount = BigDecimal.TEN;
+        BigDecimal firstInitialBalance = getBalance(FIRST_OWNER_ID);
+        long initialTransactions = transactionRepository.count();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(retries);
+
+        // when
+        var results = new ArrayList<Future<TransactionModel>>();
+        for (int retry = 0; retry < retries; retry++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return transferIdempotencyService.performTransfer(idempotencyKey, FIRST_OWNER_ID, SECOND_OWNER_ID,
+                        amount, null, null);
+            }));
+        }
+        start.countDown();
+        var transactionIds = new ArrayList<Long>();
+        for (Future<TransactionModel> result : results) {
+            transactionIds.add(result.get().getTransactionId());
+        }
+        executor.shutdown();
+        TransactionModel lateRetry = transferIdempotencyService.performTransfer(idempotencyKey, FIRST_OWNER_ID,
+                SECOND_OWNER_ID, amount, null, null);
+
+        // then
+        assertEquals(1, transactionIds.stream().distinct().count());
+        assertEquals(transactionIds.get(0), lateRetry.getTransactionId());
+        assertEquals(initialTransactions + 1, transactionRepository.count());
+        assertEquals(0, firstInitialBalance.subtract(amount).compareTo(getBalance(FIRST_OWNER_ID)));
+    }
+
+    @Test
+    public void testSubmitTransfer_PerformsTransferOnWorker_when_SubmittedAsync() throws Exception {
+        // given
+        BigDecimal amount = BigDecimal.ONE;
+        BigDecimal firstInitialBalance = getBalance(FIRST_OWNER_ID);
+        TransactionRequest request = new TransactionRequest(FIRST_OWNER_ID, SECOND_OWNER_ID, amount, null);
+
+        // when
+        String response = mockMvc.perform(post("/transfer/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        Long transferId = new ObjectMapper().readTree(response).get("transferId").asLong();
+        TransferRequestModel transferRequest = awaitCompletion(transferId);
+
+        // then
+        assertEquals(TransferRequestStatus.SUCCESS, transferRequest.getStatus());
+        assertEquals(0, firstInitialBalance.subtract(amount).compareTo(getBalance(FIRST_OWNER_ID)));
+        mockMvc.perform(get("/transfer/" + transferId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(TransferRequestStatus.SUCCESS.toString()))
+                .andExpect(jsonPath("$.transaction.transactionId").value(transferRequest.getTransaction().getTransactionId()));
+    }
+
+    private TransferRequestModel awaitCompletion(Long transferId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        TransferRequestModel transferRequest = transferRequestService.getTransferRequest(transferId);
+        while ((transferRequest.getStatus() == TransferRequestStatus.PENDING
+                || transferRequest.getStatus() == TransferRequestStatus.PROCESSING) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+            transferRequest = transferRequestService.getTransferRequest(transferId);
+        }
+        return transferRequest;
+    }
+
+    private BigDecimal getBalance(Long ownerId) {
+        return accountRepository.findByOwnerId(ownerId)
+                .map(AccountEntity::getBalance)
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,281 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.TransactionEntity;
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.ExchangeRateNotFoundException;
+import com.account.transfer.exception.InsufficientBalanceException;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.mapper.TransactionMapper;
+import com.account.transfer.mapper.TransactionMapperImpl;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.service.ledger.LedgerEngine;
+import com.account.transfer.service.lock.AccountLockStripes;
+import com.account.transfer.service.model.AccountModel;
+import com.account.transfer.service.model.ExchangeRateModel;
+import com.account.transfer.service.model.TransferOrder;
+import com.account.transfer.service.model.TransferResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.account.transfer.config.TransferProperties.BatchAtomicity.ALL_OR_NOTHING;
+import static com.account.transfer.config.TransferProperties.BatchAtomicity.PER_ITEM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TransferBatchServiceImplTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Spy
+    private TransactionMapper transactionMapper = new TransactionMapperImpl();
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private ExchangeRateService exchangeRateService;
+
+    @Mock
+    private ExchangeRateQuoteService exchangeRateQuoteService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private AccountLockStripes accountLockStripes = new AccountLockStripes(new TransferProperties(), new SimpleMeterRegistry());
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Spy
+    private TransferProperties transferProperties = new TransferProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private TransferBatchServiceImpl transferBatchService;
+
+    private final Map<Long, AccountModel> accounts = Map.of(
+            1L, prepareAccountModel(1L, BigDecimal.valueOf(100.0), "USD"),
+            2L, prepareAccountModel(2L, BigDecimal.valueOf(50.0), "USD"),
+            3L, prepareAccountModel(3L, BigDecimal.valueOf(10.0), "EUR"));
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(accountService.getAccountsByOwnerIds(anyCollection())).thenReturn(accounts);
+        when(accountService.lockAllAccounts(anyCollection())).thenReturn(accounts);
+        when(transactionRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    public void testPerformTransfers_PerItem_SkipsTransfer_when_BalanceSpentByPreviousTransfers() {
+        // given
+        List<TransferOrder> orders = List.of(
+                prepareTransferOrder(1L, 2L, BigDecimal.valueOf(70.0)),
+                prepareTransferOrder(1L, 2L, BigDecimal.valueOf(40.0)),
+                prepareTransferOrder(2L, 1L, BigDecimal.valueOf(120.0)));
+
+        // when
+        List<TransferResult> results = transferBatchService.performTransfers(orders, PER_ITEM);
+
+        // then
+        assertTrue(results.get(0).isSuccess());
+        assertInstanceOf(InsufficientBalanceException.class, results.get(1).getError());
+        assertEquals("Insufficient balance: 30.0 for amount: 40.0", results.get(1).getError().getMessage());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(BigDecimal.valueOf(0.0), results.get(2).getTransaction().getResidualBalance());
+
+        ArgumentCaptor<Map<Long, BigDecimal>> balanceChanges = ArgumentCaptor.forClass(Map.class);
+        verify(accountService).adjustBalances(balanceChanges.capture());
+        assertEquals(Map.of(1L, BigDecimal.valueOf(50.0), 2L, BigDecimal.valueOf(-50.0)), balanceChanges.getValue());
+        verify(transactionRepository, times(1)).insertAll(anyList());
+        verify(accountLockStripes, times(1)).executeLocked(any(), any());
+    }
+
+    @Test
+    public void testPerformTransfers_AllOrNothing_WritesNothing_when_TransferFailsUnderLock() {
+        // given
+        List<TransferOrder> orders = List.of(
+                prepareTransferOrder(1L, 2L, BigDecimal.valueOf(70.0)),
+                prepareTransferOrder(1L, 2L, BigDecimal.valueOf(40.0)));
+
+        // when
+        List<TransferResult> results = transferBatchService.performTransfers(orders, ALL_OR_NOTHING);
+
+        // then
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("Transfer is not performed, the batch is aborted by the transfer at index: 1",
+                results.get(0).getError().getMessage());
+        assertInstanceOf(InsufficientBalanceException.class, results.get(1).getError());
+        verify(accountService, never()).adjustBalances(anyMap());
+        verify(transactionRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    public void testPerformTransfers_AllOrNothing_ConsumesNoQuote_when_AccountNotFound() {
+        // given
+        List<TransferOrder> orders = List.of(
+                prepareTransferOrder(1L, 3L, BigDecimal.valueOf(10.0)).toBuilder()
+                        .quoteId("6f1c1a52-3d2e-4a55-9a4f-2b8f0c1d7e90")
+                        .build(),
+                prepareTransferOrder(1L, 4L, BigDecimal.valueOf(10.0)));
+
+        // when
+        List<TransferResult> results = transferBatchService.performTransfers(orders, ALL_OR_NOTHING);
+
+        // then
+        assertInstanceOf(InvalidTransferException.class, results.get(0).getError());
+        assertInstanceOf(AccountNotFoundException.class, results.get(1).getError());
+        verifyNoInteractions(exchangeRateQuoteService, transactionTemplate);
+    }
+
+    @Test
+    public void testPerformTransfers_LooksUpExchangeRateOncePerCurrencyPair() {
+        // given
+        List<TransferOrder> orders = List.of(
+                prepareTransferOrder(1L, 3L, BigDecimal.valueOf(10.0)),
+                prepareTransferOrder(2L, 3L, BigDecimal.valueOf(20.0)));
+        when(exchangeRateService.getExchangeRateAsync("USD", "EUR"))
+                .thenReturn(CompletableFuture.completedFuture(prepareExchangeRateModel("USD", "EUR", 0.5)));
+
+        // when
+        List<TransferResult> results = transferBatchService.performTransfers(orders, null);
+
+        // then
+        assertTrue(results.stream().allMatch(TransferResult::isSuccess));
+        verify(exchangeRateService, times(1)).getExchangeRateAsync("USD", "EUR");
+
+        ArgumentCaptor<Map<Long, BigDecimal>> balanceChanges = ArgumentCaptor.forClass(Map.class);
+        verify(accountService).adjustBalances(balanceChanges.capture());
+        assertEquals(new BigDecimal("15.00"), balanceChanges.getValue().get(3L));
+    }
+
+    @Test
+    public void testPerformTransfers_LooksUpExchangeRatesOfCurrencyPairsConcurrently() {
+        // given
+        List<TransferOrder> orders = List.of(
+                prepareTransferOrder(1L, 3L, BigDecimal.valueOf(10.0)),
+                prepareTransferOrder(3L, 2L, BigDecimal.valueOf(5.0)));
+        // the first rate arrives only once the lookup of the second pair is started
+        CompletableFuture<ExchangeRateModel> usdToEur = new CompletableFuture<ExchangeRateModel>()
+                .orTimeout(5, TimeUnit.SECONDS);
+        when(exchangeRateService.getExchangeRateAsync("USD", "EUR")).thenReturn(usdToEur);
+        when(exchangeRateService.getExchangeRateAsync("EUR", "USD")).thenAnswer(invocation -> {
+            usdToEur.complete(prepareExchangeRateModel("USD", "EUR", 0.5));
+            return CompletableFuture.completedFuture(prepareExchangeRateModel("EUR", "USD", 2.0));
+        });
+
+        // when
+        List<TransferResult> results = transferBatchService.performTransfers(orders, PER_ITEM);
+
+        // then
+        assertTrue(results.stream().allMatch(TransferResult::isSuccess));
+
+        ArgumentCaptor<Map<Long, BigDecimal>> balanceChanges = ArgumentCaptor.forClass(Map.class);
+        verify(accountService).adjustBalances(balanceChanges.capture());
+        assertNull(balanceChanges.getValue().get(3L));
+        assertEquals(new BigDecimal("10.00"), balanceChanges.getValue().get(2L));
+    }
+
+    @Test
+    public void testPerformTransfers_PerItem_FailsTransfersOfPair_when_ExchangeRateNotFound() {
+        // given
+        List<TransferOrder> orders = List.of(
+                prepareTransferOrder(1L, 3L, BigDecimal.valueOf(10.0)),
+                prepareTransferOrder(2L, 3L, BigDecimal.valueOf(20.0)),
+                prepareTransferOrder(1L, 2L, BigDecimal.valueOf(30.0)));
+        when(exchangeRateService.getExchangeRateAsync("USD", "EUR"))
+                .thenReturn(CompletableFuture.failedFuture(new ExchangeRateNotFoundException("USD", "EUR")));
+
+        // when
+        List<TransferResult> results = transferBatchService.performTransfers(orders, PER_ITEM);
+
+        // then
+        assertInstanceOf(ExchangeRateNotFoundException.class, results.get(0).getError());
+        assertInstanceOf(ExchangeRateNotFoundException.class, results.get(1).getError());
+        assertTrue(results.get(2).isSuccess());
+        verify(exchangeRateService, times(1)).getExchangeRateAsync("USD", "EUR");
+
+        ArgumentCaptor<List<TransactionEntity>> transactions = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).insertAll(transactions.capture());
+        assertEquals(1, transactions.getValue().size());
+    }
+
+    @Test
+    public void testPerformTransfers_Failure_when_AllOrNothingWithLedgerEngine() {
+        // given
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        List<TransferOrder> orders = List.of(prepareTransferOrder(1L, 2L, BigDecimal.valueOf(10.0)));
+
+        // when
+        Throwable exception = Assertions.assertThrows(InvalidTransferException.class,
+                () -> transferBatchService.performTransfers(orders, ALL_OR_NOTHING));
+
+        // then
+        assertEquals("Batch atomicity: ALL_OR_NOTHING is not supported by the ledger engine", exception.getMessage());
+        verifyNoInteractions(transactionService, accountService);
+    }
+
+    private TransferOrder prepareTransferOrder(Long accountOwnerId, Long targetAccountId, BigDecimal amount) {
+        return TransferOrder.builder()
+                .accountOwnerId(accountOwnerId)
+                .targetAccountId(targetAccountId)
+                .amount(amount)
+                .build();
+    }
+
+    private ExchangeRateModel prepareExchangeRateModel(String fromCurrency, String toCurrency, double rate) {
+        return ExchangeRateModel.builder()
+                .fromCurrency(fromCurrency)
+                .toCurrency(toCurrency)
+                .rate(BigDecimal.valueOf(rate))
+                .dateTime(ZonedDateTime.now())
+                .build();
+    }
+
+    private AccountModel prepareAccountModel(Long ownerId, BigDecimal balance, String currency) {
+        return AccountModel.builder()
+                .id(ownerId)
+                .ownerId(ownerId)
+                .balance(balance)
+                .currency(currency)
+                .build();
+    }
+}
@@ -0,0 +1,270 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.TransactionEntity;
+import com.account.transfer.entity.TransferIdempotencyKeyEntity;
+import com.account.transfer.exception.IdempotencyKeyReuseException;
+import com.account.transfer.exception.InsufficientBalanceException;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.TransferNotPersistedException;
+import com.account.transfer.exception.TransferTimeoutException;
+import com.account.transfer.mapper.TransactionMapper;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferIdempotencyKeyRepository;
+import com.account.transfer.service.model.TransactionModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.account.transfer.entity.TransactionStatus.SUCCESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferIdempotencyServiceImplTest {
+
+    private static final String IDEMPOTENCY_KEY = "5c0e9d2a-8f3b-4d61-9a7e-1b2c3d4e5f60";
+    private static final Long ACCOUNT_OWNER_ID = 1001L;
+    private static final Long TARGET_ACCOUNT_ID = 1002L;
+    private static final BigDecimal AMOUNT = BigDecimal.valueOf(100.0);
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionMapper transactionMapper;
+
+    private final TransferProperties transferProperties = new TransferProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TransferIdempotencyServiceImpl transferIdempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transferIdempotencyService = new TransferIdempotencyServiceImpl(transactionService,
+                transferIdempotencyKeyRepository, transactionRepository, transactionMapper,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), transferProperties, meterRegistry);
+    }
+
+    @Test
+    public void testPerformTransfer_ReplaysTransaction_when_KeyRepeated() {
+        // given
+        TransactionModel transaction = prepareTransactionModel(1L, AMOUNT);
+        when(transferIdempotencyKeyRepository.findById(IDEMPOTENCY_KEY)).thenReturn(Optional.empty());
+        when(transactionService.performTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, null, null, IDEMPOTENCY_KEY))
+                .thenReturn(transaction);
+
+        // when
+        TransactionModel first = performTransfer(AMOUNT);
+        TransactionModel repeated = performTransfer(AMOUNT);
+
+        // then
+        assertSame(transaction, first);
+        assertSame(transaction, repeated);
+        verify(transactionService, times(1)).performTransfer(any(), any(), any(), any(), any(), any());
+        assertEquals(1.0, meterRegistry.counter("transfer.idempotency.replays", "source", "cache").count());
+    }
+
+    @Test
+    public void testPerformTransfer_ReplaysStoredTransaction_when_KeyNotInMemory() {
+        // given
+        TransactionEntity transactionEntity = new TransactionEntity();
+        TransactionModel transaction = prepareTransactionModel(7L, AMOUNT);
+        when(transferIdempotencyKeyRepository.findById(IDEMPOTENCY_KEY)).thenReturn(Optional.of(prepareKey(7L)));
+        when(transactionRepository.findById(7L)).thenReturn(Optional.of(transactionEntity));
+        when(transactionMapper.mapToTransactionModel(transactionEntity)).thenReturn(transaction);
+
+        // when
+        TransactionModel result = performTransfer(AMOUNT);
+
+        // then
+        assertSame(transaction, result);
+        verify(transactionService, never()).performTransfer(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testPerformTransfer_ReplaysStoredTransaction_when_KeyRecordedConcurrently() {
+        // given
+        TransactionEntity transactionEntity = new TransactionEntity();
+        TransactionModel transaction = prepareTransactionModel(7L, AMOUNT);
+        when(transferIdempotencyKeyRepository.findById(IDEMPOTENCY_KEY))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(prepareKey(7L)));
+        when(transactionService.performTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, null, null, IDEMPOTENCY_KEY))
+                .thenThrow(new DuplicateKeyException("Unique index or primary key violation"));
+        when(transactionRepository.findById(7L)).thenReturn(Optional.of(transactionEntity));
+        when(transactionMapper.mapToTransactionModel(transactionEntity)).thenReturn(transaction);
+
+        // when
+        TransactionModel result = performTransfer(AMOUNT);
+
+        // then
+        assertSame(transaction, result);
+    }
+
+    @Test
+    public void testPerformTransfer_Failure_when_KeyUsedByAnotherTransfer() {
+        // given
+        when(transferIdempotencyKeyRepository.findById(IDEMPOTENCY_KEY)).thenReturn(Optional.empty());
+        when(transactionService.performTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, null, null, IDEMPOTENCY_KEY))
+                .thenReturn(prepareTransactionModel(1L, AMOUNT));
+        performTransfer(AMOUNT);
+
+        // when
+        Throwable exception = Assertions.assertThrows(IdempotencyKeyReuseException.class,
+                () -> performTransfer(AMOUNT.add(BigDecimal.ONE)));
+
+        // then
+        assertEquals(String.format("Idempotency key: %s has already been used by another transfer", IDEMPOTENCY_KEY),
+                exception.getMessage());
+    }
+
+    @Test
+    public void testPerformTransfer_PerformsTransferAgain_when_FirstTransferFailed() {
+        // given
+        TransactionModel transaction = prepareTransactionModel(1L, AMOUNT);
+        when(transferIdempotencyKeyRepository.findById(IDEMPOTENCY_KEY)).thenReturn(Optional.empty());
+        when(transactionService.performTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, null, null, IDEMPOTENCY_KEY))
+                .thenThrow(new InsufficientBalanceException("Insufficient balance: 0.00 for amount: 100.0"))
+                .thenReturn(transaction);
+
+        // when
+        Assertions.assertThrows(InsufficientBalanceException.class, () -> performTransfer(AMOUNT));
+        TransactionModel retried = performTransfer(AMOUNT);
+
+        // then
+        assertSame(transaction, retried);
+        verify(transactionService, times(2)).performTransfer(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testPerformTransfer_WaitsForTransferInProgress_when_KeyRepeatedConcurrently() throws Exception {
+        // given
+        TransactionModel transaction = prepareTransactionModel(1L, AMOUNT);
+        CountDownLatch transferStarted = new CountDownLatch(1);
+        CountDownLatch transferReleased = new CountDownLatch(1);
+        when(transferIdempotencyKeyRepository.findById(IDEMPOTENCY_KEY)).thenReturn(Optional.empty());
+        when(transactionService.performTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, null, null, IDEMPOTENCY_KEY))
+                .thenAnswer(invocation -> {
+                    transferStarted.countDown();
+                    assertTrue(transferReleased.await(5, TimeUnit.SECONDS));
+                    return transaction;
+                });
+
+        // when
+        CompletableFuture<TransactionModel> first = CompletableFuture.supplyAsync(() -> performTransfer(AMOUNT));
+        assertTrue(transferStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<TransactionModel> duplicate = CompletableFuture.supplyAsync(() -> performTransfer(AMOUNT));
+        Thread.sleep(100);
+        transferReleased.countDown();
+
+        // then
+        assertSame(transaction, first.get(5, TimeUnit.SECONDS));
+        assertSame(transaction, duplicate.get(5, TimeUnit.SECONDS));
+        verify(transactionService, times(1)).performTransfer(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testPerformTransfer_KeepsKeyInProgress_when_LedgerCommitTimedOut() throws Exception {
+        // given
+        TransactionModel transaction = prepareTransactionModel(1L, AMOUNT);
+        CompletableFuture<TransactionModel> outcome = new CompletableFuture<>();
+        when(transferIdempotencyKeyRepository.findById(IDEMPOTENCY_KEY)).thenReturn(Optional.empty());
+        when(transactionService.performTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, null, null, IDEMPOTENCY_KEY))
+                .thenThrow(new TransferTimeoutException("Transfer is not persisted within: PT2S", outcome));
+
+        // when
+        Assertions.assertThrows(TransferTimeoutException.class, () -> performTransfer(AMOUNT));
+        CompletableFuture<TransactionModel> retry = CompletableFuture.supplyAsync(() -> performTransfer(AMOUNT));
+        Thread.sleep(100);
+        outcome.complete(transaction);
+
+        // then
+        assertSame(transaction, retry.get(5, TimeUnit.SECONDS));
+        assertSame(transaction, performTransfer(AMOUNT));
+        verify(transactionService, times(1)).performTransfer(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testPerformTransfer_PerformsTransferAgain_when_TimedOutTransferReverted() {
+        // given
+        TransactionModel transaction = prepareTransactionModel(1L, AMOUNT);
+        CompletableFuture<TransactionModel> outcome = new CompletableFuture<>();
+        when(transferIdempotencyKeyRepository.findById(IDEMPOTENCY_KEY)).thenReturn(Optional.empty());
+        when(transactionService.performTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, null, null, IDEMPOTENCY_KEY))
+                .thenThrow(new TransferTimeoutException("Transfer is not persisted within: PT2S", outcome))
+                .thenReturn(transaction);
+
+        // when
+        Assertions.assertThrows(TransferTimeoutException.class, () -> performTransfer(AMOUNT));
+        outcome.completeExceptionally(new TransferNotPersistedException("Transfer is reverted"));
+        TransactionModel retried = performTransfer(AMOUNT);
+
+        // then
+        assertSame(transaction, retried);
+        verify(transactionService, times(2)).performTransfer(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testPerformTransfer_Failure_when_KeyTooLong() {
+        // when
+        Throwable exception = Assertions.assertThrows(InvalidTransferException.class,
+                () -> transferIdempotencyService.performTransfer("k".repeat(256), ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID,
+                        AMOUNT, null, null));
+
+        // then
+        assertEquals("Idempotency key must have from 1 to 255 characters", exception.getMessage());
+        verify(transactionService, never()).performTransfer(any(), any(), any(), any(), any(), any());
+    }
+
+    private TransactionModel performTransfer(BigDecimal amount) {
+        return transferIdempotencyService.performTransfer(IDEMPOTENCY_KEY, ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID,
+                amount, null, null);
+    }
+
+    private TransferIdempotencyKeyEntity prepareKey(Long transactionId) {
+        TransferIdempotencyKeyEntity key = new TransferIdempotencyKeyEntity();
+        key.setIdempotencyKey(IDEMPOTENCY_KEY);
+        key.setTransactionId(transactionId);
+        key.setCreatedAt(ZonedDateTime.now());
+        return key;
+    }
+
+    private TransactionModel prepareTransactionModel(Long transactionId, BigDecimal amount) {
+        return TransactionModel.builder()
+                .transactionId(transactionId)
+                .accountOwnerId(ACCOUNT_OWNER_ID)
+                .targetAccountId(TARGET_ACCOUNT_ID)
+                .amount(amount)
+                .dateTime(ZonedDateTime.now())
+                .status(SUCCESS)
+                .build();
+    }
+}
@@ -0,0 +1,452 @@
+package com.account.transfer.service;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.TransferRequestEntity;
+import com.account.transfer.entity.TransferRequestStatus;
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InsufficientBalanceException;
+import com.account.transfer.exception.InvalidTransferException;
+import com.account.transfer.exception.QuoteNotFoundException;
+import com.account.transfer.exception.TransferConflictException;
+import com.account.transfer.exception.TransferNotPersistedException;
+import com.account.transfer.exception.TransferRequestNotFoundException;
+import com.account.transfer.exception.TransferTimeoutException;
+import com.account.transfer.mapper.TransactionMapperImpl;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferRequestRepository;
+import com.account.transfer.service.model.AccountModel;
+import com.account.transfer.service.model.ExchangeRateQuote;
+import com.account.transfer.service.model.TransactionModel;
+import com.account.transfer.service.model.TransferRequestModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.account.transfer.entity.TransactionStatus.SUCCESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferRequestServiceImplTest {
+
+    private static final Long TRANSFER_ID = 5L;
+    private static final Long ACCOUNT_OWNER_ID = 1001L;
+    private static final Long TARGET_ACCOUNT_ID = 1002L;
+    private static final BigDecimal AMOUNT = BigDecimal.valueOf(100.0);
+
+    @Mock
+    private TransferRequestRepository transferRequestRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @Mock
+    private ExchangeRateQuoteService exchangeRateQuoteService;
+
+    private final TransferProperties transferProperties = new TransferProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TransferRequestServiceImpl transferRequestService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transferProperties.getAsync().setWorkerThreads(1);
+        transferRequestService = new TransferRequestServiceImpl(transferRequestRepository, transactionRepository,
+                accountService, transferIdempotencyService, exchangeRateQuoteService, new TransactionMapperImpl(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), transferProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferRequestService.shutdown();
+    }
+
+    @Test
+    public void testSubmitTransfer_PerformsTransferOnWorker_when_Submitted() throws Exception {
+        // given
+        TransferRequestEntity request = prepareTransferRequest(TransferRequestStatus.PENDING);
+        when(accountService.getAccountsByOwnerIds(List.of(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID)))
+                .thenReturn(prepareAccounts());
+        when(transferRequestRepository.save(any())).thenReturn(request);
+        prepareClaim(request);
+        when(transferIdempotencyService.performTransfer("transfer-request:" + TRANSFER_ID, ACCOUNT_OWNER_ID,
+                TARGET_ACCOUNT_ID, AMOUNT, null, null)).thenReturn(prepareTransactionModel(7L));
+
+        // when
+        TransferRequestModel result = transferRequestService.submitTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID,
+                AMOUNT, null, null);
+        awaitCount("transfer.async.completed", "status", "SUCCESS");
+
+        // then
+        assertEquals(TRANSFER_ID, result.getTransferId());
+        assertEquals(TransferRequestStatus.PENDING, result.getStatus());
+        assertEquals(TransferRequestStatus.SUCCESS, request.getStatus());
+        assertEquals(7L, request.getTransactionId());
+    }
+
+    @Test
+    public void testSubmitTransfer_LocksQuotedRate_when_CurrenciesDiffer() {
+        // given
+        String quoteId = "quote-1";
+        BigDecimal rate = BigDecimal.valueOf(1.1);
+        when(accountService.getAccountsByOwnerIds(List.of(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID)))
+                .thenReturn(prepareAccounts("EUR", "USD"));
+        when(exchangeRateQuoteService.consumeQuote(quoteId, "EUR", "USD"))
+                .thenReturn(ExchangeRateQuote.builder().quoteId(quoteId).rate(rate).build());
+        when(transferRequestRepository.save(any())).thenReturn(prepareTransferRequest(TransferRequestStatus.PENDING));
+        when(transferRequestRepository.claim(eq(TRANSFER_ID), any())).thenReturn(0);
+
+        // when
+        transferRequestService.submitTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, quoteId, null);
+
+        // then
+        ArgumentCaptor<TransferRequestEntity> captor = ArgumentCaptor.forClass(TransferRequestEntity.class);
+        verify(transferRequestRepository).save(captor.capture());
+        assertEquals(quoteId, captor.getValue().getQuoteId());
+        assertEquals(rate, captor.getValue().getExchangeRate());
+    }
+
+    @Test
+    public void testSubmitTransfer_Failure_when_QuoteNotFound() {
+        // given
+        when(accountService.getAccountsByOwnerIds(List.of(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID)))
+                .thenReturn(prepareAccounts("EUR", "USD"));
+        when(exchangeRateQuoteService.consumeQuote("quote-1", "EUR", "USD"))
+                .thenThrow(new QuoteNotFoundException("quote-1"));
+
+        // when
+        Assertions.assertThrows(QuoteNotFoundException.class,
+                () -> transferRequestService.submitTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, "quote-1", null));
+
+        // then
+        verify(transferRequestRepository, never()).save(any());
+    }
+
+    @Test
+    public void testDispatchPendingTransfers_PerformsTransferWithLockedRate_when_QuoteConsumedOnSubmit()
+            throws Exception {
+        // given
+        TransferRequestEntity request = prepareTransferRequest(TransferRequestStatus.PENDING);
+        request.setQuoteId("quote-1");
+        request.setExchangeRate(BigDecimal.valueOf(1.1));
+        when(transferRequestRepository.findIdsByStatus(eq(TransferRequestStatus.PENDING), any()))
+                .thenReturn(List.of(TRANSFER_ID));
+        prepareClaim(request);
+        when(transferIdempotencyService.performTransfer("transfer-request:" + TRANSFER_ID, ACCOUNT_OWNER_ID,
+                TARGET_ACCOUNT_ID, AMOUNT, "quote-1", BigDecimal.valueOf(1.1))).thenReturn(prepareTransactionModel(7L));
+
+        // when
+        transferRequestService.dispatchPendingTransfers();
+        awaitCount("transfer.async.completed", "status", "SUCCESS");
+
+        // then
+        assertEquals(TransferRequestStatus.SUCCESS, request.getStatus());
+        verify(exchangeRateQuoteService, never()).consumeQuote(any(), any(), any());
+    }
+
+    @Test
+    public void testSubmitTransfer_Failure_when_SameAccount() {
+        // when
+        Throwable exception = Assertions.assertThrows(InvalidTransferException.class,
+                () -> transferRequestService.submitTransfer(ACCOUNT_OWNER_ID, ACCOUNT_OWNER_ID, AMOUNT, null, null));
+
+        // then
+        assertEquals("Cannot transfer funds to the same account: " + ACCOUNT_OWNER_ID, exception.getMessage());
+        verify(transferRequestRepository, never()).save(any());
+    }
+
+    @Test
+    public void testSubmitTransfer_Failure_when_AccountNotFound() {
+        // given
+        when(accountService.getAccountsByOwnerIds(List.of(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID)))
+                .thenReturn(Map.of(ACCOUNT_OWNER_ID, AccountModel.builder().ownerId(ACCOUNT_OWNER_ID).build()));
+
+        // when
+        Throwable exception = Assertions.assertThrows(AccountNotFoundException.class,
+                () -> transferRequestService.submitTransfer(ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT, null, null));
+
+        // then
+        assertEquals(String.format("Account with owner id: [%s] is not found", TARGET_ACCOUNT_ID), exception.getMessage());
+        verify(transferRequestRepository, never()).save(any());
+    }
+
+    @Test
+    public void testDispatchPendingTransfers_FailsRequest_when_TransferFails() throws Exception {
+        // given
+        TransferRequestEntity request = prepareTransferRequest(TransferRequestStatus.PENDING);
+        request.setIdempotencyKey("client-key");
+        when(transferRequestRepository.findIdsByStatus(eq(TransferRequestStatus.PENDING), any()))
+                .thenReturn(List.of(TRANSFER_ID));
+        prepareClaim(request);
+        when(transferIdempotencyService.performTransfer("client-key", ACCOUNT_OWNER_ID, TARGET_ACCOUNT_ID, AMOUNT,
+                null, null))
+                .thenThrow(new InsufficientBalanceException("Insufficient balance: 10.00 for amount: 100.0"));
+
+        // when
+        transferRequestService.dispatchPendingTransfers();
+        awaitCount("transfer.async.completed", "status", "FAILED");
+
+        // then
+        assertEquals(TransferRequestStatus.FAILED, request.getStatus());
+        assertEquals("4000005", request.getErrorCode());
+        assertEquals("INSUFFICIENT_BALANCE_ERROR", request.getErrorKey());
+        assertEquals("Insufficient balance: 10.00 for amount: 100.0", request.getErrorMessage());
+        assertNull(request.getTransactionId());
+    }
+
+    @Test
+    public void testDispatchPendingTransfers_ReturnsRequestToPending_when_TransferConflicts() throws Exception {
+        // given
+        TransferRequestEntity request = prepareTransferRequest(TransferRequestStatus.PENDING);
+        when(transferRequestRepository.findIdsByStatus(eq(TransferRequestStatus.PENDING), any()))
+                .thenReturn(List.of(TRANSFER_ID));
+        prepareClaim(request);
+        when(transferIdempotencyService.performTransfer(any(), any(), any(), any(), any(), any()))
+                .thenThrow(new TransferConflictException("Accounts: [1001, 1002] are locked by other transfers"));
+
+        // when
+        transferRequestService.dispatchPendingTransfers();
+        awaitCount("transfer.async.retries");
+
+        // then
+        assertEquals(TransferRequestStatus.PENDING, request.getStatus());
+        assertEquals(1, request.getAttempts());
+        assertNull(request.getErrorKey());
+    }
+
+    @Test
+    public void testDispatchPendingTransfers_FailsRequest_when_TransferConflictsOnLastAttempt() throws Exception {
+        // given
+        TransferRequestEntity request = prepareTransferRequest(TransferRequestStatus.PENDING);
+        request.setAttempts(transferProperties.getAsync().getMaxAttempts() - 1);
+        when(transferRequestRepository.findIdsByStatus(eq(TransferRequestStatus.PENDING), any()))
+                .thenReturn(List.of(TRANSFER_ID));
+        prepareClaim(request);
+        when(transferIdempotencyService.performTransfer(any(), any(), any(), any(), any(), any()))
+                .thenThrow(new TransferConflictException("Accounts: [1001, 1002] are locked by other transfers"));
+
+        // when
+        transferRequestService.dispatchPendingTransfers();
+        awaitCount("transfer.async.completed", "status", "FAILED");
+
+        // then
+        assertEquals(TransferRequestStatus.FAILED, request.getStatus());
+        assertEquals("TRANSFER_CONFLICT_ERROR", request.getErrorKey());
+    }
+
+    @Test
+    public void testDispatchPendingTransfers_CompletesRequestFromOutcome_when_LedgerCommitTimedOut() throws Exception {
+        // given
+        TransferRequestEntity request = prepareTransferRequest(TransferRequestStatus.PENDING);
+        CompletableFuture<TransactionModel> outcome = new CompletableFuture<>();
+        when(transferRequestRepository.findIdsByStatus(eq(TransferRequestStatus.PENDING), any()))
+                .thenReturn(List.of(TRANSFER_ID));
+        prepareClaim(request);
+        when(transferIdempotencyService.performTransfer(any(), any(), any(), any(), any(), any()))
+                .thenThrow(new TransferTimeoutException("Transfer is not persisted within: PT2S", outcome));
+
+        // when
+        transferRequestService.dispatchPendingTransfers();
+        verify(transferIdempotencyService, timeout(5000)).performTransfer(any(), any(), any(), any(), any(), any());
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(TransferRequestStatus.PROCESSING, request.getStatus());
+        outcome.complete(prepareTransactionModel(7L));
+        awaitCount("transfer.async.completed", "status", "SUCCESS");
+
+        // then
+        assertEquals(TransferRequestStatus.SUCCESS, request.getStatus());
+        assertEquals(7L, request.getTransactionId());
+        verify(transferIdempotencyService, times(1)).performTransfer(any(), any(), any(), any(), any(), any());
+        assertEquals(0.0, meterRegistry.counter("transfer.async.retries").count());
+    }
+
+    @Test
+    public void testDispatchPendingTransfers_ReturnsRequestToPending_when_TimedOutTransferReverted() throws Exception {
+        // given
+        TransferRequestEntity request = prepareTransferRequest(TransferRequestStatus.PENDING);
+        when(transferRequestRepository.findIdsByStatus(eq(TransferRequestStatus.PENDING), any()))
+                .thenReturn(List.of(TRANSFER_ID));
+        prepareClaim(request);
+        when(transferIdempotencyService.performTransfer(any(), any(), any(), any(), any(), any()))
+                .thenThrow(new TransferTimeoutException("Transfer is not persisted within: PT2S",
+                        CompletableFuture.failedFuture(new TransferNotPersistedException("Transfer is reverted"))));
+
+        // when
+        transferRequestService.dispatchPendingTransfers();
+        awaitCount("transfer.async.retries");
+
+        // then
+        assertEquals(TransferRequestStatus.PENDING, request.getStatus());
+        assertNull(request.getTransactionId());
+    }
+
+    @Test
+    public void testDispatchPendingTransfers_SkipsRequest_when_ClaimedByAnotherWorker() {
+        // given
+        when(transferRequestRepository.findIdsByStatus(eq(TransferRequestStatus.PENDING), any()))
+                .thenReturn(List.of(TRANSFER_ID));
+        when(transferRequestRepository.claim(eq(TRANSFER_ID), any())).thenReturn(0);
+
+        // when
+        transferRequestService.dispatchPendingTransfers();
+
+        // then
+        verify(transferRequestRepository, timeout(5000)).claim(eq(TRANSFER_ID), any());
+        verify(transferIdempotencyService, never()).performTransfer(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testDispatchPendingTransfers_DropsOutcome_when_ClaimedAgainByAnotherWorker() throws Exception {
+        // given
+        TransferRequestEntity request = prepareTransferRequest(TransferRequestStatus.PENDING);
+        when(transferRequestRepository.findIdsByStatus(eq(TransferRequestStatus.PENDING), any()))
+                .thenReturn(List.of(TRANSFER_ID));
+        prepareClaim(request);
+        when(transferIdempotencyService.performTransfer(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    // the transfer outlives the processing timeout, the request is released and claimed again
+                    request.setAttempts(request.getAttempts() + 1);
+                    return prepareTransactionModel(7L);
+                });
+
+        // when
+        transferRequestService.dispatchPendingTransfers();
+        awaitCount("transfer.async.stale");
+
+        // then
+        verify(transferRequestRepository).updateClaimed(eq(TRANSFER_ID), eq(1), eq(TransferRequestStatus.SUCCESS),
+                eq(7L), any(), any(), any(), any());
+        assertEquals(TransferRequestStatus.PROCESSING, request.getStatus());
+        assertEquals(2, request.getAttempts());
+        assertNull(request.getTransactionId());
+        assertEquals(0.0, meterRegistry.counter("transfer.async.completed", "status", "SUCCESS").count());
+    }
+
+    @Test
+    public void testGetTransferRequest_Failure_when_NotFound() {
+        // given
+        when(transferRequestRepository.findById(TRANSFER_ID)).thenReturn(Optional.empty());
+
+        // when
+        Throwable exception = Assertions.assertThrows(TransferRequestNotFoundException.class,
+                () -> transferRequestService.getTransferRequest(TRANSFER_ID));
+
+        // then
+        assertEquals("Transfer request: " + TRANSFER_ID + " is not found", exception.getMessage());
+    }
+
+    /**
+     * Makes the claim of the request move it to processing and the outcome of the claimed attempt update it
+     * like the conditional updates of the repository.
+     */
+    private void prepareClaim(TransferRequestEntity request) {
+        when(transferRequestRepository.claim(eq(TRANSFER_ID), any())).thenAnswer(invocation -> {
+            request.setStatus(TransferRequestStatus.PROCESSING);
+            request.setAttempts(request.getAttempts() + 1);
+            return 1;
+        });
+        when(transferRequestRepository.findById(TRANSFER_ID))
+                .thenAnswer(invocation -> Optional.of(copyOf(request)));
+        when(transferRequestRepository.updateClaimed(eq(TRANSFER_ID), anyInt(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    if (request.getStatus() != TransferRequestStatus.PROCESSING
+                            || request.getAttempts() != (int) invocation.getArgument(1)) {
+                        return 0;
+                    }
+                    request.setStatus(invocation.getArgument(2));
+                    request.setTransactionId(invocation.getArgument(3));
+                    request.setErrorCode(invocation.getArgument(4));
+                    request.setErrorKey(invocation.getArgument(5));
+                    request.setErrorMessage(invocation.getArgument(6));
+                    request.setUpdatedAt(invocation.getArgument(7));
+                    return 1;
+                });
+    }
+
+    /**
+     * Returns the request as read by the worker after its claim, detached from the stored request.
+     */
+    private TransferRequestEntity copyOf(TransferRequestEntity request) {
+        TransferRequestEntity copy = prepareTransferRequest(request.getStatus());
+        copy.setQuoteId(request.getQuoteId());
+        copy.setExchangeRate(request.getExchangeRate());
+        copy.setIdempotencyKey(request.getIdempotencyKey());
+        copy.setAttempts(request.getAttempts());
+        copy.setCreatedAt(request.getCreatedAt());
+        return copy;
+    }
+
+    private void awaitCount(String name, String... tags) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter(name, tags).count() == 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(1.0, meterRegistry.counter(name, tags).count());
+    }
+
+    private Map<Long, AccountModel> prepareAccounts() {
+        return Map.of(
+                ACCOUNT_OWNER_ID, AccountModel.builder().ownerId(ACCOUNT_OWNER_ID).build(),
+                TARGET_ACCOUNT_ID, AccountModel.builder().ownerId(TARGET_ACCOUNT_ID).build());
+    }
+
+    private Map<Long, AccountModel> prepareAccounts(String ownerCurrency, String targetCurrency) {
+        return Map.of(
+                ACCOUNT_OWNER_ID, AccountModel.builder().ownerId(ACCOUNT_OWNER_ID).currency(ownerCurrency).build(),
+                TARGET_ACCOUNT_ID, AccountModel.builder().ownerId(TARGET_ACCOUNT_ID).currency(targetCurrency).build());
+    }
+
+    private TransferRequestEntity prepareTransferRequest(TransferRequestStatus status) {
+        TransferRequestEntity request = new TransferRequestEntity();
+        request.setId(TRANSFER_ID);
+        request.setFromAccountId(ACCOUNT_OWNER_ID);
+        request.setToAccountId(TARGET_ACCOUNT_ID);
+        request.setAmount(AMOUNT);
+        request.setStatus(status);
+        request.setCreatedAt(ZonedDateTime.now());
+        request.setUpdatedAt(ZonedDateTime.now());
+        return request;
+    }
+
+    private TransactionModel prepareTransactionModel(Long transactionId) {
+        return TransactionModel.builder()
+                .transactionId(transactionId)
+                .accountOwnerId(ACCOUNT_OWNER_ID)
+                .targetAccountId(TARGET_ACCOUNT_ID)
+                .amount(AMOUNT)
+                .dateTime(ZonedDateTime.now())
+                .status(SUCCESS)
+                .build();
+    }
+}
@@ -0,0 +1,259 @@
+package com.account.transfer.service.ledger;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.entity.AccountEntity;
+import com.account.transfer.entity.TransactionEntity;
+import com.account.transfer.exception.AccountNotFoundException;
+import com.account.transfer.exception.InsufficientBalanceException;
+import com.account.transfer.exception.TransferNotPersistedException;
+import com.account.transfer.mapper.AccountMapperImpl;
+import com.account.transfer.mapper.TransactionMapperImpl;
+import com.account.transfer.repository.AccountRepository;
+import com.account.transfer.repository.TransactionRepository;
+import com.account.transfer.repository.TransferIdempotencyKeyRepository;
+import com.account.transfer.service.AccountBalanceSlotService;
+import com.account.transfer.service.model.AccountModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LedgerEngineTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransferIdempotencyKeyRepository transferIdempotencyKeyRepository;
+
+    private final TransferProperties transferProperties = new TransferProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LedgerEngine ledgerEngine;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transferProperties.setEngine(TransferProperties.Engine.LEDGER);
+        transferProperties.getLedger().setShards(2);
+        transferProperties.getLedger().setFlushRetryBackoff(Duration.ofMillis(10));
+        when(transactionRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepository.findAll()).thenReturn(List.of(
+                prepareAccountEntity(1L, "USD", "200.00"),
+                prepareAccountEntity(2L, "USD", "300.00"),
+                prepareAccountEntity(3L, "EUR", "400.00")));
+
+        ledgerEngine = new LedgerEngine(transferProperties, accountRepository, transactionRepository,
+                transferIdempotencyKeyRepository, mock(AccountBalanceSlotService.class), new AccountMapperImpl(), new TransactionMapperImpl(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry);
+        ledgerEngine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerEngine.stop();
+    }
+
+    @Test
+    public void testStart_RecoversBalances_from_AccountTable() {
+        // when
+        AccountModel account = ledgerEngine.getAccount(3L);
+
+        // then
+        assertEquals(new BigDecimal("400.00"), account.getBalance());
+        assertEquals("EUR", account.getCurrency());
+        Assertions.assertThrows(AccountNotFoundException.class, () -> ledgerEngine.getAccount(4L));
+    }
+
+    @Test
+    public void testTransfer_Success_when_AccountsOnDifferentShards() throws Exception {
+        // given
+        AccountModel accountOwner = ledgerEngine.getAccount(1L);
+        AccountModel targetAccount = ledgerEngine.getAccount(3L);
+
+        // when
+        TransactionEntity transaction = ledgerEngine.transfer(accountOwner, targetAccount, new BigDecimal("50.00"),
+                new BigDecimal("45.00"), new BigDecimal("0.9"), null).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(new BigDecimal("200.00"), transaction.getAvailableBalance());
+        assertEquals(new BigDecimal("150.00"), transaction.getResidualBalance());
+        assertEquals(new BigDecimal("150.00"), ledgerEngine.getAccount(1L).getBalance());
+        assertEquals(new BigDecimal("445.00"), ledgerEngine.getAccount(3L).getBalance());
+        verify(accountRepository).adjustBalances(Map.of(1L, new BigDecimal("-50.00"), 3L, new BigDecimal("45.00")));
+    }
+
+    @Test
+    public void testTransfer_Failure_when_InsufficientBalance() {
+        // given
+        AccountModel accountOwner = ledgerEngine.getAccount(1L);
+        AccountModel targetAccount = ledgerEngine.getAccount(2L);
+        CompletableFuture<TransactionEntity> result = ledgerEngine.transfer(accountOwner, targetAccount,
+                new BigDecimal("250.00"), new BigDecimal("250.00"), BigDecimal.ONE, null);
+
+        // when
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+
+        // then
+        assertInstanceOf(InsufficientBalanceException.class, exception.getCause());
+        assertEquals(new BigDecimal("200.00"), ledgerEngine.getAccount(1L).getBalance());
+        assertEquals(new BigDecimal("300.00"), ledgerEngine.getAccount(2L).getBalance());
+    }
+
+    @Test
+    public void testTransfer_RecordsIdempotencyKey_with_BatchTransaction() throws Exception {
+        // given
+        when(transactionRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<TransactionEntity> transactions = invocation.getArgument(0);
+            transactions.forEach(transaction -> transaction.setId(7L));
+            return transactions;
+        });
+        AccountModel accountOwner = ledgerEngine.getAccount(1L);
+        AccountModel targetAccount = ledgerEngine.getAccount(2L);
+
+        // when
+        TransactionEntity transaction = ledgerEngine.transfer(accountOwner, targetAccount, new BigDecimal("10.00"),
+                new BigDecimal("10.00"), BigDecimal.ONE, "client-key").get(5, TimeUnit.SECONDS);
+
+        // then
+        InOrder inOrder = inOrder(transactionRepository, transferIdempotencyKeyRepository, accountRepository);
+        inOrder.verify(transactionRepository).insertAll(anyList());
+        inOrder.verify(transferIdempotencyKeyRepository).insertKey("client-key", 7L, transaction.getDateTime());
+        inOrder.verify(accountRepository).adjustBalances(anyMap());
+    }
+
+    @Test
+    public void testTransfer_CompletedAfterRetry_when_BatchRejectedByDatabase() throws Exception {
+        // given
+        when(accountRepository.adjustBalances(anyMap()))
+                .thenThrow(new QueryTimeoutException("Timeout"))
+                .thenReturn(2);
+        AccountModel accountOwner = ledgerEngine.getAccount(1L);
+        AccountModel targetAccount = ledgerEngine.getAccount(2L);
+
+        // when
+        TransactionEntity transaction = ledgerEngine.transfer(accountOwner, targetAccount, new BigDecimal("10.00"),
+                new BigDecimal("10.00"), BigDecimal.ONE, null).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(new BigDecimal("190.00"), transaction.getResidualBalance());
+        verify(transactionRepository, atLeast(2)).insertAll(anyList());
+    }
+
+    @Test
+    public void testTransfer_RevertedAndDeadLettered_when_BatchRejectedOnEveryAttempt() throws Exception {
+        // given
+        transferProperties.getLedger().setFlushMaxAttempts(2);
+        when(accountRepository.adjustBalances(anyMap())).thenThrow(new QueryTimeoutException("Timeout"));
+        AccountModel accountOwner = ledgerEngine.getAccount(1L);
+        AccountModel targetAccount = ledgerEngine.getAccount(3L);
+        CompletableFuture<TransactionEntity> result = ledgerEngine.transfer(accountOwner, targetAccount,
+                new BigDecimal("50.00"), new BigDecimal("45.00"), new BigDecimal("0.9"), null);
+
+        // when
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+
+        // then
+        assertInstanceOf(TransferNotPersistedException.class, exception.getCause());
+        verify(accountRepository, times(2)).adjustBalances(anyMap());
+        assertEquals(1.0, meterRegistry.counter("ledger.write.behind.dead.letters").count());
+        awaitBalance(1L, new BigDecimal("200.00"));
+        awaitBalance(3L, new BigDecimal("400.00"));
+    }
+
+    @Test
+    public void testTransfer_PreservesTotalBalance_when_ConcurrentTransfersInOppositeDirections() throws Exception {
+        // given
+        AccountModel first = ledgerEngine.getAccount(1L);
+        AccountModel second = ledgerEngine.getAccount(2L);
+        List<CompletableFuture<TransactionEntity>> results = new ArrayList<>();
+
+        // when
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            var from = i % 2 == 0 ? first : second;
+            var to = i % 2 == 0 ? second : first;
+            clients.add(new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    var result = ledgerEngine.transfer(from, to, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, null);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            }));
+        }
+        clients.forEach(Thread::start);
+        for (var client : clients) {
+            client.join();
+        }
+        CompletableFuture.allOf(results.stream()
+                        .map(result -> result.exceptionally(ex -> null))
+                        .toArray(CompletableFuture[]::new))
+                .get(10, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(new BigDecimal("500.00"),
+                ledgerEngine.getAccount(1L).getBalance().add(ledgerEngine.getAccount(2L).getBalance()));
+
+        ArgumentCaptor<Map<Long, BigDecimal>> changes = ArgumentCaptor.forClass(Map.class);
+        verify(accountRepository, atLeast(0)).adjustBalances(changes.capture());
+        assertEquals(0, changes.getAllValues().stream()
+                .flatMap(it -> it.values().stream())
+                .reduce(BigDecimal.ZERO, BigDecimal::add).signum());
+    }
+
+    /**
+     * Waits for the shard of the account to apply the reverted balance changes submitted to it.
+     */
+    private void awaitBalance(Long ownerId, BigDecimal balance) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ledgerEngine.getAccount(ownerId).getBalance().compareTo(balance) != 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(balance, ledgerEngine.getAccount(ownerId).getBalance());
+    }
+
+    private AccountEntity prepareAccountEntity(Long ownerId, String currency, String balance) {
+        AccountEntity account = new AccountEntity();
+        account.setId(ownerId);
+        account.setOwnerId(ownerId);
+        account.setCurrency(currency);
+        account.setBalance(new BigDecimal(balance));
+        account.setVersion(0L);
+        return account;
+    }
+}
@@ -0,0 +1,120 @@
+package com.account.transfer.service.lock;
+
+import com.account.transfer.config.TransferProperties;
+import com.account.transfer.exception.TransferConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountLockStripesTest {
+
+    private TransferProperties transferProperties;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        transferProperties = new TransferProperties();
+        transferProperties.getAccountLocks().setTimeout(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testExecuteLocked_ReturnsResult_when_AccountsShareStripe() {
+        // given
+        transferProperties.getAccountLocks().setStripes(1);
+        AccountLockStripes accountLockStripes = new AccountLockStripes(transferProperties, meterRegistry);
+
+        // when
+        String result = accountLockStripes.executeLocked(List.of(1L, 2L), () -> "done");
+
+        // then
+        assertEquals("done", result);
+        assertEquals(1, meterRegistry.get("transfer.account.lock.wait").timer().count());
+    }
+
+    @Test
+    public void testExecuteLocked_SerializesTransfers_when_ConcurrentTransfersInOppositeDirections() throws Exception {
+        // given
+        transferProperties.getAccountLocks().setTimeout(Duration.ofSeconds(5));
+        AccountLockStripes accountLockStripes = new AccountLockStripes(transferProperties, meterRegistry);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(8);
+
+        // when
+        for (int i = 0; i < 200; i++) {
+            var ownerIds = i % 2 == 0 ? List.of(1L, 2L) : List.of(2L, 1L);
+            executor.submit(() -> accountLockStripes.executeLocked(ownerIds, () -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                inside.decrementAndGet();
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        // then
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, maxInside.get());
+        assertEquals(0, meterRegistry.get("transfer.account.lock.timeouts").counter().count());
+    }
+
+    @Test
+    public void testExecuteLocked_Failure_when_LockNotAcquiredWithinTimeout() throws Exception {
+        // given
+        AccountLockStripes accountLockStripes = new AccountLockStripes(transferProperties, meterRegistry);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> accountLockStripes.executeLocked(List.of(2L), () -> {
+            locked.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        holder.start();
+        locked.await();
+
+        // when
+        TransferConflictException exception = Assertions.assertThrows(TransferConflictException.class,
+                () -> accountLockStripes.executeLocked(List.of(1L, 2L), () -> "done"));
+        release.countDown();
+        holder.join();
+
+        // then
+        assertEquals("Transfer of accounts: [1, 2] failed to lock the accounts within: PT0.05S", exception.getMessage());
+        assertEquals(1, meterRegistry.get("transfer.account.lock.timeouts").counter().count());
+        assertEquals("done", accountLockStripes.executeLocked(List.of(1L), () -> "done"));
+    }
+
+    @Test
+    public void testExecuteLocked_SkipsLocks_when_Disabled() {
+        // given
+        transferProperties.getAccountLocks().setEnabled(false);
+        AccountLockStripes accountLockStripes = new AccountLockStripes(transferProperties, meterRegistry);
+
+        // when
+        String result = accountLockStripes.executeLocked(List.of(1L, 2L), () -> "done");
+
+        // then
+        assertEquals("done", result);
+        assertEquals(0, meterRegistry.get("transfer.account.lock.wait").timer().count());
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
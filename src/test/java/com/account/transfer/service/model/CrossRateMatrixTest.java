@@ -0,0 +1,36 @@
+package com.account.transfer.service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CrossRateMatrixTest {
+
+    @Test
+    public void testGetRate_KeepsSignificantDigits_of_VerySmallCrossRate() {
+        // given
+        ExchangeRateSnapshot pivotSnapshot = ExchangeRateSnapshot.builder()
+                .baseCurrency("USD")
+                .rates(ExchangeRateTable.of(Map.of(
+                        "EUR", new BigDecimal("0.9"),
+                        "VND", new BigDecimal("25400"),
+                        "IDR", new BigDecimal("16250"))))
+                .fetchedAt(Instant.now())
+                .build();
+
+        // when
+        CrossRateMatrix matrix = CrossRateMatrix.triangulate(pivotSnapshot, 10, RoundingMode.HALF_EVEN);
+
+        // then
+        assertEquals(Optional.of(new BigDecimal("0.00003937007874")), matrix.getRate("VND", "USD"));
+        assertEquals(Optional.of(new BigDecimal("0.00003543307087")), matrix.getRate("VND", "EUR"));
+        assertEquals(Optional.of(new BigDecimal("0.6397637795")), matrix.getRate("VND", "IDR"));
+        assertEquals(Optional.of(new BigDecimal("25400")), matrix.getRate("USD", "VND"));
+    }
+}
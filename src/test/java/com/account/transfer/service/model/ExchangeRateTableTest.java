@@ -0,0 +1,67 @@
+package com.account.transfer.service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ExchangeRateTableTest {
+
+    @Test
+    public void testGetRate_ReturnsRate_of_KnownAndNonIsoCurrencies() {
+        // given
+        ExchangeRateTable table = ExchangeRateTable.of(Map.of(
+                "EUR", BigDecimal.valueOf(0.85),
+                "ZZQ", BigDecimal.valueOf(3.5)));
+
+        // when & then
+        assertEquals(Optional.of(BigDecimal.valueOf(0.85)), table.getRate("EUR"));
+        assertEquals(Optional.of(BigDecimal.valueOf(3.5)), table.getRate("ZZQ"));
+        assertEquals(Optional.empty(), table.getRate("GBP"));
+        assertEquals(Optional.empty(), table.getRate("eur"));
+        assertEquals(Optional.empty(), table.getRate(null));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testOf_SkipsMalformedCodesAndMissingRates() {
+        // given
+        Map<String, BigDecimal> rates = new HashMap<>();
+        rates.put("EUR", BigDecimal.valueOf(0.85));
+        rates.put("EURO", BigDecimal.ONE);
+        rates.put("GBP", null);
+
+        // when
+        ExchangeRateTable table = ExchangeRateTable.of(rates);
+
+        // then
+        assertEquals(Map.of("EUR", BigDecimal.valueOf(0.85)), table.toMap());
+    }
+
+    @Test
+    public void testEquals_ComparesRates() {
+        // given
+        ExchangeRateTable table = ExchangeRateTable.of(Map.of("EUR", BigDecimal.valueOf(0.85)));
+
+        // when & then
+        assertEquals(table, ExchangeRateTable.of(Map.of("EUR", BigDecimal.valueOf(0.85))));
+        assertEquals(table.hashCode(), ExchangeRateTable.of(Map.of("EUR", BigDecimal.valueOf(0.85))).hashCode());
+        assertNotEquals(table, ExchangeRateTable.of(Map.of("EUR", BigDecimal.valueOf(0.86))));
+    }
+
+    @Test
+    public void testCurrencyIndex_AssignsStableOrdinals() {
+        // when
+        int ordinal = CurrencyIndex.register("USD");
+
+        // then
+        assertEquals(ordinal, CurrencyIndex.ordinalOf("USD"));
+        assertEquals("USD", CurrencyIndex.codeOf(ordinal));
+        assertEquals(-1, CurrencyIndex.register("US1"));
+    }
+}
@@ -0,0 +1,27 @@
+package com.account.transfer.service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransferAmountsTest {
+
+    @Test
+    public void testCreditedAmount_RoundedHalfUpToBalanceScale_when_CurrenciesDiffer() {
+        // when
+        BigDecimal creditedAmount = TransferAmounts.creditedAmount(new BigDecimal("100.00"), new BigDecimal("0.88885"));
+
+        // then
+        assertEquals(new BigDecimal("88.89"), creditedAmount);
+    }
+
+    @Test
+    public void testCreditedAmount_KeepsAmount_when_SameCurrency() {
+        // when & then
+        assertEquals(new BigDecimal("100.5"), TransferAmounts.creditedAmount(new BigDecimal("100.5"), null));
+        assertEquals(BigDecimal.ONE, TransferAmounts.recordedRate(null));
+        assertEquals(new BigDecimal("0.9"), TransferAmounts.recordedRate(new BigDecimal("0.9")));
+    }
+}
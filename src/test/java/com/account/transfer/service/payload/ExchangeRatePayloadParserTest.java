@@ -0,0 +1,87 @@
+package com.account.transfer.service.payload;
+
+import com.account.transfer.service.model.ExchangeRateTable;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExchangeRatePayloadParserTest {
+
+    private final ExchangeRatePayloadParser parser = new ExchangeRatePayloadParser(new ObjectMapper());
+
+    @Test
+    public void testParse_KeepsOnlyServedCurrencies() throws IOException {
+        // given
+        InputStream payload = payload("{\"result\":\"success\",\"documentation\":{\"url\":\"https://docs\"}," +
+                "\"conversion_rates\":{\"USD\":1,\"EUR\":0.85,\"GBP\":0.78,\"JPY\":150.5},\"base_code\":\"USD\"}");
+
+        // when
+        Optional<ExchangeRateTable> rates = parser.parse(payload, "USD", Set.of("EUR", "JPY"))
+                .map(ExchangeRatePayload::getRates);
+
+        // then
+        assertEquals(Map.of("EUR", new BigDecimal("0.85"), "JPY", new BigDecimal("150.5")),
+                rates.orElseThrow().toMap());
+    }
+
+    @Test
+    public void testParse_KeepsAllCurrencies_when_NoneConfigured() throws IOException {
+        // given
+        InputStream payload = payload("{\"base_code\":\"USD\",\"conversion_rates\":{\"USD\":1,\"EUR\":0.85}}");
+
+        // when
+        Optional<ExchangeRateTable> rates = parser.parse(payload, "USD", Set.of()).map(ExchangeRatePayload::getRates);
+
+        // then
+        assertEquals(Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.85")), rates.orElseThrow().toMap());
+    }
+
+    @Test
+    public void testParse_ReadsNextUpdate_when_Announced() throws IOException {
+        // given
+        InputStream payload = payload("{\"time_last_update_unix\":1717977601,\"time_next_update_unix\":1718064001," +
+                "\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":0.85}}");
+
+        // when
+        ExchangeRatePayload result = parser.parse(payload, "USD", Set.of()).orElseThrow();
+
+        // then
+        assertEquals(Instant.ofEpochSecond(1718064001), result.getNextUpdateAt());
+        assertEquals(Map.of("EUR", new BigDecimal("0.85")), result.getRates().toMap());
+    }
+
+    @Test
+    public void testParse_ReturnsEmpty_when_BaseCurrencyDiffers() throws IOException {
+        // given
+        InputStream payload = payload("{\"result\":\"error\",\"error-type\":\"unsupported-code\"}");
+
+        // when & then
+        assertEquals(Optional.empty(), parser.parse(payload, "USD", Set.of()));
+    }
+
+    @Test
+    public void testParse_Failure_when_PayloadIsMalformed() {
+        // given
+        InputStream payload = payload("{\"base_code\":\"USD\",\"conversion_rates\":{\"EUR\":");
+
+        // when & then
+        Assertions.assertThrows(JsonProcessingException.class, () -> parser.parse(payload, "USD", Set.of()));
+    }
+
+    private InputStream payload(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
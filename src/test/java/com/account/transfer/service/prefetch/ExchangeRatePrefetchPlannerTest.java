@@ -0,0 +1,80 @@
+package com.account.transfer.service.prefetch;
+
+import com.account.transfer.config.ExchangerateApiProperties;
+import com.account.transfer.service.resilience.RequestQuota;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExchangeRatePrefetchPlannerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExchangerateApiProperties properties = new ExchangerateApiProperties();
+    private final RequestQuota requestQuota = mock(RequestQuota.class);
+
+    private ExchangeRatePrefetchPlanner prefetchPlanner;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getQuota().setHotBases(1);
+        prefetchPlanner = new ExchangeRatePrefetchPlanner(properties, requestQuota, meterRegistry);
+    }
+
+    @Test
+    public void testSelectPrefetches_AlwaysPrefetchesHotBases_when_AllowanceIsSpent() {
+        // given
+        when(requestQuota.getAllowance(any(Duration.class))).thenReturn(0.0);
+        prefetchPlanner.recordDemand("USD");
+        prefetchPlanner.recordDemand("USD");
+        prefetchPlanner.recordDemand("EUR");
+
+        // when
+        List<String> prefetches = prefetchPlanner.selectPrefetches(List.of("EUR", "USD"));
+
+        // then
+        assertEquals(List.of("USD"), prefetches);
+        assertEquals(1.0, meterRegistry.get("exchange.rate.prefetches").tag("tier", "hot").counter().count());
+        assertEquals(1.0, meterRegistry.get("exchange.rate.prefetches.skipped").counter().count());
+    }
+
+    @Test
+    public void testSelectPrefetches_SharesAllowance_among_LongTailBases() {
+        // given
+        when(requestQuota.getAllowance(any(Duration.class))).thenReturn(0.5);
+        prefetchPlanner.recordDemand("USD");
+        prefetchPlanner.recordDemand("USD");
+        prefetchPlanner.recordDemand("USD");
+        prefetchPlanner.recordDemand("EUR");
+        prefetchPlanner.recordDemand("EUR");
+        prefetchPlanner.recordDemand("GBP");
+
+        // when
+        List<String> firstPrefetches = prefetchPlanner.selectPrefetches(List.of("USD", "EUR", "GBP"));
+        List<String> secondPrefetches = prefetchPlanner.selectPrefetches(List.of("USD", "EUR", "GBP"));
+
+        // then
+        assertEquals(List.of("USD"), firstPrefetches);
+        assertEquals(List.of("USD", "EUR"), secondPrefetches);
+        assertEquals(1.0, meterRegistry.get("exchange.rate.prefetches").tag("tier", "long-tail").counter().count());
+    }
+
+    @Test
+    public void testSelectPrefetches_SkipsBases_without_Demand() {
+        // given
+        when(requestQuota.getAllowance(any(Duration.class))).thenReturn(100.0);
+        prefetchPlanner.recordDemand("USD");
+
+        // when
+        List<String> prefetches = prefetchPlanner.selectPrefetches(List.of("USD", "JPY"));
+
+        // then
+        assertEquals(List.of("USD"), prefetches);
+        assertEquals(0.0, prefetchPlanner.getDemand("JPY"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.account.transfer.service.provider;
+
+import com.account.transfer.config.ExchangeRateProviderProperties;
+import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.service.model.ExchangeRateTable;
+import com.account.transfer.service.payload.ExchangeRatePayloadParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileExchangeRateProviderTest {
+
+    @TempDir
+    private Path ratesDirectory;
+
+    private FileExchangeRateProvider provider;
+
+    @BeforeEach
+    public void setUp() {
+        ExchangeRateProviderProperties properties = new ExchangeRateProviderProperties();
+        properties.getFile().setLocation(ratesDirectory.toUri().toString());
+        provider = new FileExchangeRateProvider(properties, new DefaultResourceLoader(),
+                new ExchangeRatePayloadParser(new ObjectMapper()));
+    }
+
+    @Test
+    public void testFetchRates_ReadsRatesOfBaseCurrencyFile() throws IOException {
+        // given
+        Files.writeString(ratesDirectory.resolve("USD.json"),
+                "{\"base_code\":\"USD\",\"conversion_rates\":{\"USD\":1,\"EUR\":0.85}}");
+
+        // when
+        Optional<ExchangeRateTable> rates = provider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.of(BigDecimal.valueOf(0.85)), rates.orElseThrow().getRate("EUR"));
+    }
+
+    @Test
+    public void testFetchRates_ReadsBundledStubRates() {
+        // given
+        ExchangeRateProviderProperties properties = new ExchangeRateProviderProperties();
+        FileExchangeRateProvider stubProvider = new FileExchangeRateProvider(properties, new DefaultResourceLoader(),
+                new ExchangeRatePayloadParser(new ObjectMapper()));
+
+        // when
+        Optional<ExchangeRateTable> rates = stubProvider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.of(BigDecimal.valueOf(0.85)), rates.orElseThrow().getRate("EUR"));
+    }
+
+    @Test
+    public void testFetchRates_ReturnsEmpty_when_FileIsMissing() {
+        // when & then
+        assertEquals(Optional.empty(), provider.fetchRates("GBP"));
+    }
+
+    @Test
+    public void testFetchRates_Failure_when_FileIsMalformed() throws IOException {
+        // given
+        Files.writeString(ratesDirectory.resolve("USD.json"), "{\"base_code\":");
+
+        // when & then
+        Assertions.assertThrows(ExchangeRateServiceException.class, () -> provider.fetchRates("USD"));
+    }
+}
@@ -0,0 +1,270 @@
+package com.account.transfer.service.provider;
+
+import com.account.transfer.config.ExchangeRateProviderProperties;
+import com.account.transfer.exception.ExchangeRateServiceException;
+import com.account.transfer.service.model.ExchangeRateTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class HedgingExchangeRateProviderTest {
+
+    private static final ExchangeRateTable PRIMARY_RATES = ExchangeRateTable.of(Map.of("EUR", BigDecimal.valueOf(0.85)));
+    private static final ExchangeRateTable SECONDARY_RATES = ExchangeRateTable.of(Map.of("EUR", BigDecimal.valueOf(0.86)));
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ExchangeRateProvider primary;
+    private ExchangeRateProvider secondary;
+    private ExchangeRateProviderProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private HedgingExchangeRateProvider hedgingProvider;
+
+    @BeforeEach
+    public void setUp() {
+        primary = prepareProvider("primary");
+        secondary = prepareProvider("secondary");
+        properties = new ExchangeRateProviderProperties();
+        properties.setOrder(List.of("primary", "secondary"));
+        properties.getHedging().setMaxDelay(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        if (hedgingProvider != null) {
+            hedgingProvider.shutdown();
+        }
+    }
+
+    @Test
+    public void testFetchRates_ReturnsPrimaryAnswer_when_PrimaryIsFast() {
+        // given
+        when(primary.fetchRates("USD")).thenReturn(Optional.of(PRIMARY_RATES));
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(secondary, primary), properties, meterRegistry);
+
+        // when
+        Optional<ExchangeRateTable> rates = hedgingProvider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.of(PRIMARY_RATES), rates);
+        verify(secondary, never()).fetchRates(anyString());
+        assertEquals(1, meterRegistry.get("exchange.rate.provider.latency").tag("provider", "primary").timer().count());
+    }
+
+    @Test
+    public void testFetchRates_HedgesBySecondary_when_PrimaryIsSlow() {
+        // given
+        when(primary.fetchRates("USD")).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(PRIMARY_RATES);
+        });
+        when(secondary.fetchRates("USD")).thenReturn(Optional.of(SECONDARY_RATES));
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Optional<ExchangeRateTable> rates = hedgingProvider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.of(SECONDARY_RATES), rates);
+        assertEquals(1, meterRegistry.get("exchange.rate.provider.hedges").tag("provider", "secondary").counter().count());
+    }
+
+    @Test
+    public void testFetchRates_WaitsForPrimary_when_SecondaryHasNoRates() {
+        // given
+        CountDownLatch secondaryAnswered = new CountDownLatch(1);
+        when(primary.fetchRates("USD")).thenAnswer(invocation -> {
+            secondaryAnswered.await();
+            return Optional.of(PRIMARY_RATES);
+        });
+        when(secondary.fetchRates("USD")).thenAnswer(invocation -> {
+            secondaryAnswered.countDown();
+            return Optional.empty();
+        });
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Optional<ExchangeRateTable> rates = hedgingProvider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.of(PRIMARY_RATES), rates);
+        verify(secondary, times(1)).fetchRates("USD");
+    }
+
+    @Test
+    public void testFetchRates_ReturnsEmpty_when_NoProviderHasRates() {
+        // given
+        when(primary.fetchRates("USD")).thenReturn(Optional.empty());
+        when(secondary.fetchRates("USD")).thenReturn(Optional.empty());
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Optional<ExchangeRateTable> rates = hedgingProvider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.empty(), rates);
+        verify(secondary, times(1)).fetchRates("USD");
+    }
+
+    @Test
+    public void testFetchRates_Failure_when_SecondaryHasNoRatesAndPrimaryFails() {
+        // given
+        when(primary.fetchRates("USD")).thenThrow(new ExchangeRateServiceException("primary failed"));
+        when(secondary.fetchRates("USD")).thenReturn(Optional.empty());
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Throwable exception = Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> hedgingProvider.fetchRates("USD"));
+
+        // then
+        assertEquals("primary failed", exception.getMessage());
+    }
+
+    @Test
+    public void testFetchRates_FallsBackToSecondary_when_PrimaryFails() {
+        // given
+        properties.getHedging().setMaxDelay(Duration.ofMinutes(1));
+        when(primary.fetchRates("USD")).thenThrow(new ExchangeRateServiceException("primary failed"));
+        when(secondary.fetchRates("USD")).thenReturn(Optional.of(SECONDARY_RATES));
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Optional<ExchangeRateTable> rates = hedgingProvider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.of(SECONDARY_RATES), rates);
+        assertEquals(0, meterRegistry.get("exchange.rate.provider.hedges").tag("provider", "secondary").counter().count());
+    }
+
+    @Test
+    public void testFetchRates_Failure_when_AllProvidersFail() {
+        // given
+        when(primary.fetchRates("USD")).thenThrow(new ExchangeRateServiceException("primary failed"));
+        when(secondary.fetchRates("USD")).thenThrow(new IllegalStateException("secondary failed"));
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Throwable exception = Assertions.assertThrows(ExchangeRateServiceException.class,
+                () -> hedgingProvider.fetchRates("USD"));
+
+        // then
+        assertEquals("primary failed", exception.getMessage());
+    }
+
+    @Test
+    public void testFetchRates_AsksProvidersInOrder_when_HedgingDisabled() {
+        // given
+        properties.getHedging().setEnabled(false);
+        when(primary.fetchRates("USD")).thenThrow(new ExchangeRateServiceException("primary failed"));
+        when(secondary.fetchRates("USD")).thenReturn(Optional.of(SECONDARY_RATES));
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Optional<ExchangeRateTable> rates = hedgingProvider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.of(SECONDARY_RATES), rates);
+        verify(primary, times(1)).fetchRates("USD");
+    }
+
+    @Test
+    public void testFetchRates_AsksNextProvider_when_HedgingDisabledAndPrimaryHasNoRates() {
+        // given
+        properties.getHedging().setEnabled(false);
+        when(primary.fetchRates("USD")).thenReturn(Optional.empty());
+        when(secondary.fetchRates("USD")).thenReturn(Optional.of(SECONDARY_RATES));
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Optional<ExchangeRateTable> rates = hedgingProvider.fetchRates("USD");
+
+        // then
+        assertEquals(Optional.of(SECONDARY_RATES), rates);
+    }
+
+    @Test
+    public void testFetchRatesAsync_HedgesBySecondary_when_PrimaryIsSlow() throws Exception {
+        // given
+        CompletableFuture<Optional<ExchangeRateTable>> primaryFetch = new CompletableFuture<>();
+        when(primary.fetchRatesAsync("USD")).thenReturn(primaryFetch);
+        when(secondary.fetchRatesAsync("USD")).thenReturn(CompletableFuture.completedFuture(Optional.of(SECONDARY_RATES)));
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        Optional<ExchangeRateTable> rates = hedgingProvider.fetchRatesAsync("USD").get(1, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(Optional.of(SECONDARY_RATES), rates);
+        assertFalse(primaryFetch.isCancelled());
+        verify(primary, never()).fetchRates(anyString());
+        assertEquals(1, meterRegistry.get("exchange.rate.provider.hedges").tag("provider", "secondary").counter().count());
+    }
+
+    @Test
+    public void testFetchRatesAsync_WaitsForPrimary_when_SecondaryHasNoRates() throws Exception {
+        // given
+        CompletableFuture<Optional<ExchangeRateTable>> primaryFetch = new CompletableFuture<>();
+        when(primary.fetchRatesAsync("USD")).thenReturn(primaryFetch);
+        when(secondary.fetchRatesAsync("USD")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        CompletableFuture<Optional<ExchangeRateTable>> fetch = hedgingProvider.fetchRatesAsync("USD");
+        verify(secondary, timeout(1000)).fetchRatesAsync("USD");
+        primaryFetch.complete(Optional.of(PRIMARY_RATES));
+
+        // then
+        assertEquals(Optional.of(PRIMARY_RATES), fetch.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFetchRatesAsync_CancelsRunningFetches_when_Cancelled() {
+        // given
+        properties.getHedging().setMaxDelay(Duration.ofMinutes(1));
+        CompletableFuture<Optional<ExchangeRateTable>> primaryFetch = new CompletableFuture<>();
+        when(primary.fetchRatesAsync("USD")).thenReturn(primaryFetch);
+        hedgingProvider = new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry);
+
+        // when
+        hedgingProvider.fetchRatesAsync("USD").cancel(true);
+
+        // then
+        assertTrue(primaryFetch.isCancelled());
+        verify(secondary, never()).fetchRatesAsync(anyString());
+    }
+
+    @Test
+    public void testConstructor_Failure_when_ProviderIsUnknown() {
+        // given
+        properties.setOrder(List.of("primary", "unknown"));
+
+        // when & then
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> new HedgingExchangeRateProvider(List.of(primary, secondary), properties, meterRegistry));
+    }
+
+    private ExchangeRateProvider prepareProvider(String name) {
+        ExchangeRateProvider provider = mock(ExchangeRateProvider.class);
+        when(provider.getName()).thenReturn(name);
+        return provider;
+    }
+}
@@ -0,0 +1,99 @@
+package com.account.transfer.service.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.account.transfer.service.resilience.CircuitBreaker.State.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final String NAME = "test";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testCircuitBreaker_Opens_after_FailureThreshold() {
+        // given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(NAME, 2, Duration.ofMinutes(1), 1, meterRegistry);
+
+        // when
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onFailure();
+        CircuitBreaker.State stateAfterFirstFailure = circuitBreaker.getState();
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onFailure();
+
+        // then
+        assertEquals(CLOSED, stateAfterFirstFailure);
+        assertEquals(OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(1.0, meterRegistry.get("circuit.breaker.calls.not.permitted").counter().count());
+        assertEquals(1.0, meterRegistry.get("circuit.breaker.transitions")
+                .tag("from", CLOSED.name()).tag("to", OPEN.name()).counter().count());
+        assertEquals(OPEN.ordinal(), meterRegistry.get("circuit.breaker.state").gauge().value());
+    }
+
+    @Test
+    public void testCircuitBreaker_ResetsFailures_after_Success() {
+        // given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(NAME, 2, Duration.ofMinutes(1), 1, meterRegistry);
+
+        // when
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        // then
+        assertEquals(CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testCircuitBreaker_Closes_when_HalfOpenProbeSucceeded() {
+        // given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(NAME, 1, Duration.ZERO, 1, meterRegistry);
+        circuitBreaker.onFailure();
+
+        // when
+        boolean probePermitted = circuitBreaker.tryAcquirePermission();
+        boolean secondProbePermitted = circuitBreaker.tryAcquirePermission();
+        CircuitBreaker.State probeState = circuitBreaker.getState();
+        circuitBreaker.onSuccess();
+
+        // then
+        assertTrue(probePermitted);
+        assertFalse(secondProbePermitted);
+        assertEquals(HALF_OPEN, probeState);
+        assertEquals(CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testCircuitBreaker_Reopens_when_HalfOpenProbeFailed() {
+        // given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(NAME, 1, Duration.ofMillis(50), 1, meterRegistry);
+        circuitBreaker.onFailure();
+
+        // when
+        boolean permittedWhileOpen = circuitBreaker.tryAcquirePermission();
+        await(Duration.ofMillis(60));
+        boolean probePermitted = circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onFailure();
+
+        // then
+        assertFalse(permittedWhileOpen);
+        assertTrue(probePermitted);
+        assertEquals(OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private void await(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.account.transfer.service.resilience;
+
+import com.account.transfer.repository.RequestQuotaUsageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DatabaseRequestQuotaStoreTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2026, 10);
+
+    @Mock
+    private RequestQuotaUsageRepository requestQuotaUsageRepository;
+
+    private DatabaseRequestQuotaStore store;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        store = new DatabaseRequestQuotaStore(requestQuotaUsageRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    public void testTryIncrement_CountsRequest_when_WithinLimit() {
+        // given
+        when(requestQuotaUsageRepository.incrementUsed("test", "2026-10", 2)).thenReturn(1);
+
+        // when & then
+        assertTrue(store.tryIncrement("test", MONTH, 2));
+        verify(requestQuotaUsageRepository, never()).insertUsage(anyString(), anyString());
+    }
+
+    @Test
+    public void testTryIncrement_CreatesUsage_on_FirstRequestOfMonth() {
+        // given
+        when(requestQuotaUsageRepository.incrementUsed("test", "2026-10", 2)).thenReturn(0, 1);
+        when(requestQuotaUsageRepository.findUsed("test", "2026-10")).thenReturn(Optional.empty());
+
+        // when & then
+        assertTrue(store.tryIncrement("test", MONTH, 2));
+        verify(requestQuotaUsageRepository, times(1)).insertUsage("test", "2026-10");
+    }
+
+    @Test
+    public void testTryIncrement_CountsRequest_when_UsageCreatedConcurrently() {
+        // given
+        when(requestQuotaUsageRepository.incrementUsed("test", "2026-10", 2)).thenReturn(0, 1);
+        when(requestQuotaUsageRepository.findUsed("test", "2026-10")).thenReturn(Optional.empty());
+        when(requestQuotaUsageRepository.insertUsage("test", "2026-10"))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // when & then
+        assertTrue(store.tryIncrement("test", MONTH, 2));
+    }
+
+    @Test
+    public void testTryIncrement_Rejected_when_LimitReached() {
+        // given
+        when(requestQuotaUsageRepository.incrementUsed("test", "2026-10", 2)).thenReturn(0);
+        when(requestQuotaUsageRepository.findUsed("test", "2026-10")).thenReturn(Optional.of(2L));
+
+        // when & then
+        assertFalse(store.tryIncrement("test", MONTH, 2));
+        verify(requestQuotaUsageRepository, never()).insertUsage(anyString(), anyString());
+    }
+
+    @Test
+    public void testTryIncrement_LetsRequestThrough_when_DatabaseFails() {
+        // given
+        when(requestQuotaUsageRepository.incrementUsed("test", "2026-10", 2))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        // when & then
+        assertTrue(store.tryIncrement("test", MONTH, 2));
+    }
+
+    @Test
+    public void testRequestQuota_SharesUsage_of_Store() {
+        // given
+        when(requestQuotaUsageRepository.findUsed(eq("test"), anyString())).thenReturn(Optional.of(1499L));
+        RequestQuota requestQuota = new RequestQuota("test", 1500, store, Clock.systemUTC(),
+                new SimpleMeterRegistry());
+
+        // when & then
+        assertEquals(1499, requestQuota.getUsed());
+        assertEquals(1, requestQuota.getRemaining());
+    }
+}
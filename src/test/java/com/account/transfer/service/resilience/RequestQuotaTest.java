@@ -0,0 +1,89 @@
+package com.account.transfer.service.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestQuotaTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testRequestQuota_Rejected_after_MonthlyRequests() {
+        // given
+        RequestQuota requestQuota = new RequestQuota("test", 2, meterRegistry);
+
+        // when & then
+        assertTrue(requestQuota.tryAcquire());
+        assertTrue(requestQuota.tryAcquire());
+        assertFalse(requestQuota.tryAcquire());
+        assertEquals(2, requestQuota.getUsed());
+        assertEquals(0, requestQuota.getRemaining());
+        assertEquals(2.0, meterRegistry.get("request.quota.used").gauge().value());
+        assertEquals(1.0, meterRegistry.get("request.quota.rejected").counter().count());
+    }
+
+    @Test
+    public void testRequestQuota_Renewed_on_NextMonth() {
+        // given
+        MutableClock clock = new MutableClock(Instant.parse("2026-10-31T23:59:00Z"));
+        RequestQuota requestQuota = new RequestQuota("test", 1, clock, meterRegistry);
+        requestQuota.tryAcquire();
+
+        // when
+        boolean permittedInSameMonth = requestQuota.tryAcquire();
+        clock.instant = Instant.parse("2026-11-01T00:01:00Z");
+        boolean permittedInNextMonth = requestQuota.tryAcquire();
+
+        // then
+        assertFalse(permittedInSameMonth);
+        assertTrue(permittedInNextMonth);
+    }
+
+    @Test
+    public void testGetAllowance_SpreadsRemainingQuota_over_RestOfMonth() {
+        // given
+        MutableClock clock = new MutableClock(Instant.parse("2026-11-16T00:00:00Z"));
+        RequestQuota requestQuota = new RequestQuota("test", 1500, clock, meterRegistry);
+
+        // when
+        double dailyAllowance = requestQuota.getAllowance(Duration.ofDays(1));
+        clock.instant = Instant.parse("2026-11-30T12:00:00Z");
+        double lastDayAllowance = requestQuota.getAllowance(Duration.ofDays(1));
+
+        // then
+        assertEquals(100.0, dailyAllowance, 1e-9);
+        assertEquals(1500.0, lastDayAllowance, 1e-9);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.account.transfer.service.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testRetryBudget_Exhausted_after_MaxRetries() {
+        // given
+        RetryBudget retryBudget = new RetryBudget("test", 0.5, 2, meterRegistry);
+
+        // when & then
+        assertTrue(retryBudget.tryAcquireRetry());
+        assertTrue(retryBudget.tryAcquireRetry());
+        assertFalse(retryBudget.tryAcquireRetry());
+        assertEquals(2.0, meterRegistry.get("retry.budget.retries").counter().count());
+        assertEquals(1.0, meterRegistry.get("retry.budget.exhausted").counter().count());
+    }
+
+    @Test
+    public void testRetryBudget_Refilled_by_Calls() {
+        // given
+        RetryBudget retryBudget = new RetryBudget("test", 0.5, 1, meterRegistry);
+        retryBudget.tryAcquireRetry();
+
+        // when
+        retryBudget.onCall();
+        boolean permittedAfterOneCall = retryBudget.tryAcquireRetry();
+        retryBudget.onCall();
+        boolean permittedAfterTwoCalls = retryBudget.tryAcquireRetry();
+
+        // then
+        assertFalse(permittedAfterOneCall);
+        assertTrue(permittedAfterTwoCalls);
+    }
+}